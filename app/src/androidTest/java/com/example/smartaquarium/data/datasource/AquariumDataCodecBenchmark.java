@@ -0,0 +1,119 @@
+package com.example.smartaquarium.data.datasource;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.smartaquarium.data.model.AquariumData;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares {@link AquariumDataCodec#decode} with reflection-based {@code toObject} over 100k documents.
+ * The documents are written to the local cache with the network disabled, so the benchmark
+ * never touches the backend and measures decoding only.
+ */
+@RunWith(AndroidJUnit4.class)
+public class AquariumDataCodecBenchmark {
+
+    private static final String TAG = "CodecBenchmark";
+    private static final int DOCUMENT_COUNT = 100_000;
+    private static final int BATCH_SIZE = 500;
+
+    private static FirebaseFirestore firestore;
+    private static List<DocumentSnapshot> documents;
+
+    @BeforeClass
+    public static void seedLocalCache() throws Exception {
+        firestore = FirebaseFirestore.getInstance();
+        Tasks.await(firestore.disableNetwork(), 30, TimeUnit.SECONDS);
+
+        CollectionReference collection = firestore.collection("codecBenchmark");
+        long now = System.currentTimeMillis();
+        for (int start = 0; start < DOCUMENT_COUNT; start += BATCH_SIZE) {
+            WriteBatch batch = firestore.batch();
+            for (int i = start; i < start + BATCH_SIZE; i++) {
+                AquariumData data = new AquariumData(20 + i % 10, 7, 8, 90);
+                data.setTimeMillis(now - i * 5000L);
+                batch.set(collection.document("doc" + i), AquariumDataCodec.encode(data));
+            }
+            // Pending writes are applied to the local cache immediately; they never reach the server.
+            batch.commit();
+        }
+
+        QuerySnapshot snapshot = Tasks.await(collection.get(Source.CACHE), 5, TimeUnit.MINUTES);
+        documents = snapshot.getDocuments();
+        assertEquals(DOCUMENT_COUNT, documents.size());
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        Tasks.await(firestore.clearPersistence().continueWithTask(task -> firestore.enableNetwork()));
+    }
+
+    @Test
+    public void codecDecodesFasterThanToObject() {
+        // Warm up both paths so JIT compilation is not measured.
+        decodeWithToObject(documents.subList(0, 5_000));
+        decodeWithCodec(documents.subList(0, 5_000));
+
+        long reflectionNanos = decodeWithToObject(documents);
+        long codecNanos = decodeWithCodec(documents);
+
+        Log.i(TAG, String.format("toObject: %d ms (%.0f docs/s), codec: %d ms (%.0f docs/s)",
+                TimeUnit.NANOSECONDS.toMillis(reflectionNanos), throughput(reflectionNanos),
+                TimeUnit.NANOSECONDS.toMillis(codecNanos), throughput(codecNanos)));
+
+        assertTrue("Codec should not be slower than toObject", codecNanos <= reflectionNanos);
+    }
+
+    @Test
+    public void codecMatchesToObject() {
+        for (DocumentSnapshot document : documents.subList(0, 1_000)) {
+            AquariumData expected = document.toObject(AquariumData.class);
+            AquariumData actual = AquariumDataCodec.decode(document);
+
+            assertNotNull(actual);
+            assertEquals(expected.getTemperature(), actual.getTemperature());
+            assertEquals(expected.getPh(), actual.getPh());
+            assertEquals(expected.getOxygen(), actual.getOxygen());
+            assertEquals(expected.getWaterLevel(), actual.getWaterLevel());
+            assertEquals(expected.getTimeMillis(), actual.getTimeMillis());
+        }
+    }
+
+    private static long decodeWithToObject(List<DocumentSnapshot> snapshot) {
+        long start = System.nanoTime();
+        for (DocumentSnapshot document : snapshot) {
+            document.toObject(AquariumData.class);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long decodeWithCodec(List<DocumentSnapshot> snapshot) {
+        long start = System.nanoTime();
+        for (DocumentSnapshot document : snapshot) {
+            AquariumDataCodec.decode(document);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static double throughput(long nanos) {
+        return DOCUMENT_COUNT / (nanos / 1e9);
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.smartaquarium.data.datasource;
+
+import android.content.Context;
+import android.os.Bundle;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.smartaquarium.data.model.Aquarium;
+import com.example.smartaquarium.data.model.AquariumData;
+import com.example.smartaquarium.data.model.HistorySummary;
+import com.example.smartaquarium.testing.FirestoreEmulator;
+import com.example.smartaquarium.testing.HistorySeeder;
+import com.example.smartaquarium.testing.PerfBaselines;
+import com.example.smartaquarium.utils.metrics.LatencyHistogram;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Page, listener and write latency and throughput of {@link FirestoreDataSource} against a
+ * multi-million sample history on the local emulator, checked against
+ * {@link PerfBaselines}. The seed size defaults to 2M samples and can be changed with the
+ * {@code seedCount} instrumentation argument. Needs the local emulators, see
+ * {@link FirestoreEmulator}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FirestoreDataSourceLoadTest {
+
+    private static final String USER_ID = "loadSuiteUser";
+    private static final String AQUARIUM_ID = "loadSuiteTank";
+    private static final int DEFAULT_SEED_COUNT = 2_000_000;
+    private static final long SAMPLE_INTERVAL_MILLIS = 5000;
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+    private static final int PAGE_SIZE = 500;
+    private static final int PAGES_TO_WALK = 20;
+    private static final int LISTENER_ROUNDS = 40;
+    private static final int THROUGHPUT_SAMPLES = 50_000;
+    private static final int BATCHES_IN_FLIGHT = 8;
+
+    private static FirestoreDataSource dataSource;
+    private static int seedCount;
+
+    @BeforeClass
+    public static void seedEmulator() throws Exception {
+        FirestoreEmulator.connect();
+        dataSource = new FirestoreDataSource();
+        Bundle arguments = InstrumentationRegistry.getArguments();
+        seedCount = Integer.parseInt(arguments.getString("seedCount", String.valueOf(DEFAULT_SEED_COUNT)));
+        HistorySeeder.seed(dataSource.historyCollection(USER_ID, AQUARIUM_ID), seedCount,
+                HistorySeeder.SEED_END_MILLIS, SAMPLE_INTERVAL_MILLIS);
+    }
+
+    @Test
+    public void newestPageReadsOnlyOnePage() throws Exception {
+        long start = System.nanoTime();
+        List<AquariumData> page = await(dataSource.getAquariumHistoryPage(USER_ID, AQUARIUM_ID,
+                FirestoreDataSource.NO_CURSOR, true, PAGE_SIZE));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(PAGE_SIZE, page.size());
+        assertEquals(HistorySeeder.SEED_END_MILLIS, page.get(PAGE_SIZE - 1).getTimeMillis());
+        PerfBaselines.assertAtMost("history.newest_page.latency_ms", elapsedMillis);
+    }
+
+    @Test
+    public void walkingBackLeavesNoGapsOrOverlaps() throws Exception {
+        LatencyHistogram latency = new LatencyHistogram();
+        long cursor = FirestoreDataSource.NO_CURSOR;
+        long expectedNewest = HistorySeeder.SEED_END_MILLIS;
+        for (int i = 0; i < PAGES_TO_WALK; i++) {
+            long start = System.nanoTime();
+            List<AquariumData> page = await(dataSource.getAquariumHistoryPage(USER_ID, AQUARIUM_ID,
+                    cursor, true, PAGE_SIZE));
+            latency.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+            assertEquals(PAGE_SIZE, page.size());
+            assertEquals(expectedNewest, page.get(PAGE_SIZE - 1).getTimeMillis());
+            cursor = page.get(0).getTimeMillis();
+            expectedNewest = cursor - SAMPLE_INTERVAL_MILLIS;
+        }
+        PerfBaselines.assertAtMost("history.page_walk.latency_p95_ms", latency.getValueAtPercentile(95));
+    }
+
+    @Test
+    public void pagesContinueIntoCompactedSummaries() throws Exception {
+        // A fresh tank per run: a little raw history, preceded by a few compacted buckets
+        String aquariumId = "compactedTank" + System.currentTimeMillis();
+        int rawCount = 300;
+        long firstRawMillis = HistorySeeder.SEED_END_MILLIS - (rawCount - 1L) * SAMPLE_INTERVAL_MILLIS;
+        HistorySeeder.seed(dataSource.historyCollection(USER_ID, aquariumId), rawCount,
+                HistorySeeder.SEED_END_MILLIS, SAMPLE_INTERVAL_MILLIS);
+        long bucketMillis = TimeUnit.HOURS.toMillis(1);
+        long firstBucketMillis = (firstRawMillis / bucketMillis - 3) * bucketMillis;
+        for (int i = 0; i < 3; i++) {
+            HistorySummary summary = new HistorySummary(firstBucketMillis + i * bucketMillis, bucketMillis);
+            summary.add(HistorySeeder.sampleAt(i, summary.bucketStartMillis));
+            await(dataSource.historySummaryCollection(USER_ID, aquariumId)
+                    .document(AquariumDataCodec.documentIdFor(summary.bucketStartMillis))
+                    .set(HistorySummaryCodec.encode(summary)));
+        }
+
+        // Walking back tops up with the buckets once raw history runs out
+        List<AquariumData> newest = await(dataSource.getAquariumHistoryPage(USER_ID, aquariumId,
+                FirestoreDataSource.NO_CURSOR, true, PAGE_SIZE));
+        assertEquals(rawCount + 3, newest.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(firstBucketMillis + i * bucketMillis, newest.get(i).getTimeMillis());
+        }
+        assertEquals(firstRawMillis, newest.get(3).getTimeMillis());
+
+        // Walking forward from the start reads the buckets, then carries on into raw history
+        List<AquariumData> oldest = await(dataSource.getAquariumHistoryPage(USER_ID, aquariumId,
+                FirestoreDataSource.NO_CURSOR, false, 2));
+        assertEquals(firstBucketMillis + bucketMillis, oldest.get(1).getTimeMillis());
+        List<AquariumData> next = await(dataSource.getAquariumHistoryPage(USER_ID, aquariumId,
+                oldest.get(1).getTimeMillis(), false, 2));
+        assertEquals(firstBucketMillis + 2 * bucketMillis, next.get(0).getTimeMillis());
+        assertEquals(firstRawMillis, next.get(1).getTimeMillis());
+    }
+
+    @Test
+    public void dayWindowListenerDeliversOnlyTheWindow() throws Exception {
+        int expected = (int) (DAY_MILLIS / SAMPLE_INTERVAL_MILLIS);
+        assertTrue("seedCount must cover a day", seedCount >= expected);
+
+        // The listener Analytics attaches for a bounded chart
+        BlockingQueue<List<AquariumData>> emissions = new LinkedBlockingQueue<>();
+        Observer<List<AquariumData>> observer = emissions::add;
+        LiveData<List<AquariumData>> window = dataSource.getAquariumHistoryWindow(USER_ID, AQUARIUM_ID,
+                HistorySeeder.SEED_END_MILLIS - DAY_MILLIS);
+        long start = System.nanoTime();
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> window.observeForever(observer));
+        try {
+            List<AquariumData> delivered;
+            do {
+                // Earlier tests may have cached part of the window, which the listener reports first
+                delivered = emissions.poll(2, TimeUnit.MINUTES);
+                assertNotNull("Listener never delivered the window", delivered);
+            } while (delivered.size() < expected);
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertEquals(expected, delivered.size());
+            assertEquals(HistorySeeder.SEED_END_MILLIS - DAY_MILLIS + SAMPLE_INTERVAL_MILLIS,
+                    delivered.get(0).getTimeMillis());
+            assertEquals(HistorySeeder.SEED_END_MILLIS, delivered.get(expected - 1).getTimeMillis());
+            PerfBaselines.assertAtMost("history.day_window.latency_ms", elapsedMillis);
+        } finally {
+            InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> window.removeObserver(observer));
+        }
+    }
+
+    @Test
+    public void aquariumListListenerSeesOtherClientsQuickly() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        FirebaseFirestore otherDevice = FirestoreEmulator.connectSecondClient(context, "otherDevice");
+        // A fresh user per run, so the list starts empty
+        String userId = "listenerUser" + System.currentTimeMillis();
+
+        BlockingQueue<List<Aquarium>> emissions = new LinkedBlockingQueue<>();
+        Observer<List<Aquarium>> observer = emissions::add;
+        LiveData<List<Aquarium>> list = dataSource.getListOfAquariums(userId);
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> list.observeForever(observer));
+        try {
+            LatencyHistogram latency = new LatencyHistogram();
+            for (int i = 0; i < LISTENER_ROUNDS; i++) {
+                long start = System.nanoTime();
+                otherDevice.collection("users").document(userId).collection("aquariums")
+                        .document(String.format("tank%03d", i)).set(Map.of(AquariumCodec.FIELD_NAME, "Tank " + i));
+                awaitListSize(emissions, i + 1);
+                latency.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+            PerfBaselines.assertAtMost("aquarium_list.listener_latency_p50_ms", latency.getValueAtPercentile(50));
+            PerfBaselines.assertAtMost("aquarium_list.listener_latency_p95_ms", latency.getValueAtPercentile(95));
+
+            // A new latest reading leaves ids and names alone, so list observers stay quiet
+            Map<String, Object> reading = AquariumDataCodec.encode(HistorySeeder.sampleAt(0, HistorySeeder.SEED_END_MILLIS));
+            Tasks.await(otherDevice.collection("users").document(userId).collection("aquariums")
+                    .document("tank000").update(AquariumCodec.FIELD_LATEST, reading), 1, TimeUnit.MINUTES);
+            assertNull(emissions.poll(2, TimeUnit.SECONDS));
+        } finally {
+            InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> list.removeObserver(observer));
+        }
+    }
+
+    @Test
+    public void batchWritesKeepUpThroughput() throws Exception {
+        // A fresh tank per run, so the writes are creates rather than no-op overwrites
+        String aquariumId = "throughputTank" + System.currentTimeMillis();
+        long firstMillis = HistorySeeder.SEED_END_MILLIS - (THROUGHPUT_SAMPLES - 1L) * SAMPLE_INTERVAL_MILLIS;
+
+        ArrayDeque<Task<Void>> inFlight = new ArrayDeque<>();
+        long start = System.nanoTime();
+        for (int from = 0; from < THROUGHPUT_SAMPLES; from += FirestoreDataSource.MAX_BATCH_WRITES) {
+            int to = Math.min(THROUGHPUT_SAMPLES, from + FirestoreDataSource.MAX_BATCH_WRITES);
+            List<AquariumData> batch = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                batch.add(HistorySeeder.sampleAt(i, firstMillis + i * SAMPLE_INTERVAL_MILLIS));
+            }
+            inFlight.add(dataSource.writeHistoryBatch(USER_ID, aquariumId, batch));
+            if (inFlight.size() == BATCHES_IN_FLIGHT) await(inFlight.poll());
+        }
+        while (!inFlight.isEmpty()) await(inFlight.poll());
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long stored = await(dataSource.historyCollection(USER_ID, aquariumId).count()
+                .get(AggregateSource.SERVER)).getCount();
+        assertEquals(THROUGHPUT_SAMPLES, stored);
+        PerfBaselines.assertAtLeast("history.batch_write.samples_per_second", THROUGHPUT_SAMPLES / seconds);
+    }
+
+    private static void awaitListSize(BlockingQueue<List<Aquarium>> emissions, int size) throws InterruptedException {
+        while (true) {
+            List<Aquarium> emitted = emissions.poll(30, TimeUnit.SECONDS);
+            assertNotNull("Listener never saw " + size + " aquariums", emitted);
+            if (emitted.size() == size) return;
+        }
+    }
+
+    private static <T> T await(Task<T> task) throws Exception {
+        return Tasks.await(task, 5, TimeUnit.MINUTES);
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.smartaquarium.data.datasource;
+
+import android.os.Looper;
+import android.util.Printer;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.smartaquarium.data.model.AquariumData;
+import com.example.smartaquarium.testing.FirestoreEmulator;
+import com.example.smartaquarium.testing.HistorySeeder;
+import com.example.smartaquarium.testing.PerfBaselines;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Delivers a large history snapshot through the real {@link FirestoreDataSource} listener and
+ * checks where {@link AquariumDataCodec#decode} ran and how long the main looper was busy.
+ * The decode location comes from sampling the stacks of the main and listener threads while
+ * the snapshot is in flight; the busy time from the main looper's message log. Needs the
+ * local emulators, see {@link FirestoreEmulator}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FirestoreListenerDeliveryTest {
+
+    private static final String USER_ID = "deliverySuiteUser";
+    private static final String AQUARIUM_ID = "deliverySuiteTank";
+    private static final int SNAPSHOT_SIZE = 20_000;
+    private static final long SAMPLE_INTERVAL_MILLIS = 5000;
+    private static final String LISTENER_THREAD = "FirestoreListenerThread";
+
+    @BeforeClass
+    public static void seedEmulator() throws Exception {
+        FirestoreEmulator.connect();
+        HistorySeeder.seed(new FirestoreDataSource().historyCollection(USER_ID, AQUARIUM_ID), SNAPSHOT_SIZE,
+                HistorySeeder.SEED_END_MILLIS, SAMPLE_INTERVAL_MILLIS);
+    }
+
+    @Test
+    public void largeSnapshotIsDecodedOffTheMainLooper() throws Exception {
+        FirestoreDataSource dataSource = new FirestoreDataSource();
+        LiveData<List<AquariumData>> history = dataSource.getAquariumHistory(USER_ID, AQUARIUM_ID);
+        BlockingQueue<List<AquariumData>> emissions = new LinkedBlockingQueue<>();
+        Observer<List<AquariumData>> observer = emissions::add;
+
+        MainLooperMonitor looperMonitor = new MainLooperMonitor();
+        DecodeSampler sampler = new DecodeSampler();
+        Looper.getMainLooper().setMessageLogging(looperMonitor);
+        sampler.start();
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> history.observeForever(observer));
+        try {
+            // The local cache may answer first with part of the collection
+            List<AquariumData> delivered;
+            do {
+                delivered = emissions.poll(2, TimeUnit.MINUTES);
+                assertNotNull("Snapshot was never delivered", delivered);
+            } while (delivered.size() < SNAPSHOT_SIZE);
+        } finally {
+            sampler.finish();
+            Looper.getMainLooper().setMessageLogging(null);
+            InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> history.removeObserver(observer));
+        }
+
+        assertTrue("The sampler never caught the decode; raise SNAPSHOT_SIZE", sampler.listenerHits > 0);
+        assertEquals("AquariumDataCodec.decode ran on the main thread", 0, sampler.mainHits);
+        PerfBaselines.assertAtMost("history.snapshot_delivery.main_looper_max_message_ms",
+                TimeUnit.NANOSECONDS.toMillis(looperMonitor.maxMessageNanos));
+    }
+
+    /**
+     * Times every message the main looper dispatches, from its ">>>>> Dispatching" log line
+     * to the matching "<<<<< Finished" one. Only called on the main thread.
+     */
+    private static final class MainLooperMonitor implements Printer {
+
+        private long dispatchStartNanos;
+        volatile long maxMessageNanos;
+
+        @Override
+        public void println(String line) {
+            if (line.startsWith(">>>>>")) {
+                dispatchStartNanos = System.nanoTime();
+            } else if (line.startsWith("<<<<<") && dispatchStartNanos != 0) {
+                maxMessageNanos = Math.max(maxMessageNanos, System.nanoTime() - dispatchStartNanos);
+            }
+        }
+    }
+
+    /**
+     * Samples the main and listener thread stacks every millisecond and counts the samples
+     * caught inside {@link AquariumDataCodec}'s decode.
+     */
+    private static final class DecodeSampler extends Thread {
+
+        private final AtomicBoolean running = new AtomicBoolean(true);
+        private final Thread mainThread = Looper.getMainLooper().getThread();
+        int mainHits;
+        int listenerHits;
+
+        DecodeSampler() {
+            super("DecodeSampler");
+        }
+
+        @Override
+        public void run() {
+            while (running.get()) {
+                if (isDecoding(mainThread)) mainHits++;
+                for (Thread listener : listenerThreads()) {
+                    if (isDecoding(listener)) listenerHits++;
+                }
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        void finish() throws InterruptedException {
+            running.set(false);
+            join();
+        }
+
+        private static List<Thread> listenerThreads() {
+            List<Thread> threads = new ArrayList<>();
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if (thread.getName().equals(LISTENER_THREAD)) threads.add(thread);
+            }
+            return threads;
+        }
+
+        private static boolean isDecoding(Thread thread) {
+            for (StackTraceElement frame : thread.getStackTrace()) {
+                if (frame.getClassName().equals(AquariumDataCodec.class.getName())
+                        && frame.getMethodName().equals("decode")) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.smartaquarium.data.viewModel.fleet;
+
+import android.app.Application;
+
+import androidx.lifecycle.Observer;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.smartaquarium.data.AppContainer;
+import com.example.smartaquarium.data.datasource.FirestoreDataSource;
+import com.example.smartaquarium.data.model.Aquarium;
+import com.example.smartaquarium.testing.FirestoreEmulator;
+import com.google.android.gms.tasks.Tasks;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pages a fleet seeded on the local emulator through {@link FleetViewModel}: every tank shows
+ * once and in order as pages load, and a tank created inside an already loaded page joins it
+ * without pushing a neighbour out of view. Needs the local emulators, see {@link FirestoreEmulator}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FleetViewModelEmulatorTest {
+
+    private static final int TANKS = FleetViewModel.PAGE_SIZE * 2 + 20;
+
+    private String userId;
+    private FirestoreDataSource dataSource;
+
+    @Before
+    public void seedFleet() throws Exception {
+        FirestoreEmulator.connect();
+        userId = FirestoreEmulator.signInNewUser();
+        dataSource = AppContainer.getInstance(ApplicationProvider.getApplicationContext()).getFirestoreDataSource();
+        for (int i = 0; i < TANKS; i++) {
+            Tasks.await(dataSource.createAquarium(userId, tankId(i)), 1, TimeUnit.MINUTES);
+        }
+    }
+
+    @Test
+    public void pagesShowEveryTankOnceAndKeepNewOnesInPlace() throws Exception {
+        FleetViewModel viewModel = new FleetViewModel(ApplicationProvider.<Application>getApplicationContext());
+        BlockingQueue<List<Aquarium>> emissions = new LinkedBlockingQueue<>();
+        Observer<List<Aquarium>> observer = emissions::add;
+        onMain(() -> {
+            viewModel.getTanks().observeForever(observer);
+            viewModel.start(userId);
+        });
+        try {
+            List<Aquarium> shown = awaitSize(emissions, FleetViewModel.PAGE_SIZE);
+            while (shown.size() < TANKS) {
+                onMain(viewModel::loadMore);
+                shown = awaitSize(emissions, Math.min(TANKS, shown.size() + FleetViewModel.PAGE_SIZE));
+            }
+            assertEquals(expectedIds(-1), ids(shown));
+
+            // Sorts between tank000 and tank001, inside the first (pinned) page
+            Tasks.await(dataSource.createAquarium(userId, tankId(0) + "a"), 1, TimeUnit.MINUTES);
+            shown = awaitSize(emissions, TANKS + 1);
+            assertEquals(expectedIds(0), ids(shown));
+        } finally {
+            onMain(() -> viewModel.getTanks().removeObserver(observer));
+        }
+    }
+
+    private static String tankId(int i) {
+        return String.format("tank%03d", i);
+    }
+
+    /**
+     * @param insertedAfter Index of the tank followed by the extra one, or -1 for none.
+     */
+    private static List<String> expectedIds(int insertedAfter) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < TANKS; i++) {
+            ids.add(tankId(i));
+            if (i == insertedAfter) ids.add(tankId(i) + "a");
+        }
+        return ids;
+    }
+
+    private static List<String> ids(List<Aquarium> tanks) {
+        List<String> ids = new ArrayList<>(tanks.size());
+        for (Aquarium tank : tanks) ids.add(tank.getId());
+        return ids;
+    }
+
+    private static List<Aquarium> awaitSize(BlockingQueue<List<Aquarium>> emissions, int size)
+            throws InterruptedException {
+        while (true) {
+            List<Aquarium> emitted = emissions.poll(30, TimeUnit.SECONDS);
+            assertNotNull("Grid never showed " + size + " tanks", emitted);
+            if (emitted.size() == size) return emitted;
+        }
+    }
+
+    private static void onMain(Runnable action) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(action);
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.smartaquarium.service;
+
+import androidx.lifecycle.Observer;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.smartaquarium.data.datasource.FirestoreDataSource;
+import com.example.smartaquarium.data.model.AquariumData;
+import com.example.smartaquarium.data.model.UserSettings;
+import com.example.smartaquarium.testing.FirestoreEmulator;
+import com.example.smartaquarium.testing.HistorySeeder;
+import com.example.smartaquarium.testing.PerfBaselines;
+import com.example.smartaquarium.utils.enums.EnumHealthLevel;
+import com.example.smartaquarium.utils.enums.EnumSensorMetric;
+import com.example.smartaquarium.utils.stats.FleetHealth;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the {@link AquariumAlertJobService} check over a fleet seeded on the local emulator:
+ * tanks that carry their latest reading, tanks written before they did (one history read
+ * each) and one tank that never reported. Also follows the same fleet with
+ * {@link FleetHealthMonitor}. Needs the local emulators, see {@link FirestoreEmulator}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FleetHealthCheckEmulatorTest {
+
+    private static final int TANKS_WITH_LATEST = 200;
+    private static final int LEGACY_TANKS = 10;
+    // Default settings: 22-28 degrees, so 28 is a warning and 30 is out of range
+    private static final int WARNING_TEMPERATURE = 28;
+    private static final int CRITICAL_TEMPERATURE = 30;
+
+    private static FirestoreDataSource dataSource;
+    private static String userId;
+
+    @BeforeClass
+    public static void seedFleet() throws Exception {
+        FirebaseFirestore firestore = FirestoreEmulator.connect();
+        userId = FirestoreEmulator.signInNewUser();
+        dataSource = new FirestoreDataSource();
+
+        Tasks.await(dataSource.saveUserSettings(userId, new UserSettings()), 1, TimeUnit.MINUTES);
+        for (int i = 0; i < TANKS_WITH_LATEST; i++) {
+            dataSource.saveDataToAquarium(userId, String.format("tank%03d", i), readingAt(temperatureOf(i)));
+        }
+        for (int i = 0; i < LEGACY_TANKS; i++) {
+            String aquariumId = String.format("legacy%02d", i);
+            Tasks.await(dataSource.createAquarium(userId, aquariumId), 1, TimeUnit.MINUTES);
+            Tasks.await(dataSource.writeHistoryBatch(userId, aquariumId,
+                    Collections.singletonList(readingAt(25))), 1, TimeUnit.MINUTES);
+        }
+        Tasks.await(dataSource.createAquarium(userId, "silent"), 1, TimeUnit.MINUTES);
+        // saveDataToAquarium does not hand back its write
+        Tasks.await(firestore.waitForPendingWrites(), 1, TimeUnit.MINUTES);
+    }
+
+    @Test
+    public void countsEveryTankAndReadsEachDocumentOnce() throws Exception {
+        FleetHealthCheck check = new FleetHealthCheck(dataSource);
+
+        long start = System.nanoTime();
+        FleetHealth.Summary summary = check.run(userId);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        int tanks = TANKS_WITH_LATEST + LEGACY_TANKS + 1;
+        int critical = TANKS_WITH_LATEST / 20;
+        int warning = TANKS_WITH_LATEST / 10;
+        assertEquals(tanks, summary.tankCount);
+        assertEquals(tanks - 1, summary.reportingCount);
+        assertEquals(critical, summary.tanksAt(EnumHealthLevel.CRITICAL));
+        assertEquals(warning, summary.tanksAt(EnumHealthLevel.WARNING));
+        assertEquals(tanks - 1 - critical - warning, summary.tanksAt(EnumHealthLevel.IN_RANGE));
+        assertEquals(critical, summary.count(EnumSensorMetric.TEMPERATURE, EnumHealthLevel.CRITICAL));
+        assertEquals(0, summary.count(EnumSensorMetric.PH, EnumHealthLevel.CRITICAL));
+        assertEquals(FleetHealth.MAX_OFFENDERS, summary.worstOffenders.size());
+        assertEquals(EnumHealthLevel.CRITICAL, summary.worstOffenders.get(0).level);
+
+        // Settings, every aquarium, and one history read per tank without a latest reading
+        assertEquals(1 + tanks + LEGACY_TANKS + 1, check.getDocumentReads());
+        PerfBaselines.assertAtMost("fleet_check.reads", check.getDocumentReads());
+        PerfBaselines.assertAtMost("fleet_check.latency_ms", elapsedMillis);
+    }
+
+    @Test
+    public void monitorFollowsTheSharedAquariumsListener() throws Exception {
+        FleetHealthMonitor monitor = new FleetHealthMonitor(dataSource);
+        BlockingQueue<FleetHealth.Summary> emissions = new LinkedBlockingQueue<>();
+        Observer<FleetHealth.Summary> observer = emissions::add;
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            monitor.getSummary().observeForever(observer);
+            monitor.start(userId);
+        });
+        try {
+            // The monitor only adds itself to the listener behind the aquarium list
+            int tanks = TANKS_WITH_LATEST + LEGACY_TANKS + 1;
+            FleetHealth.Summary summary = awaitSummary(emissions, s -> s.tankCount == tanks);
+            assertEquals(TANKS_WITH_LATEST / 20, summary.tanksAt(EnumHealthLevel.CRITICAL));
+
+            // A new latest reading reaches the aggregate through the same listener
+            dataSource.saveDataToAquarium(userId, "tank001", readingAt(CRITICAL_TEMPERATURE));
+            awaitSummary(emissions, s -> s.tanksAt(EnumHealthLevel.CRITICAL) == TANKS_WITH_LATEST / 20 + 1);
+        } finally {
+            InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+                monitor.getSummary().removeObserver(observer);
+                monitor.stop();
+            });
+            dataSource.saveDataToAquarium(userId, "tank001", readingAt(temperatureOf(1)));
+            Tasks.await(FirebaseFirestore.getInstance().waitForPendingWrites(), 1, TimeUnit.MINUTES);
+        }
+    }
+
+    private static FleetHealth.Summary awaitSummary(BlockingQueue<FleetHealth.Summary> emissions,
+                                                    Predicate<FleetHealth.Summary> done) throws InterruptedException {
+        while (true) {
+            FleetHealth.Summary summary = emissions.poll(30, TimeUnit.SECONDS);
+            assertNotNull("Fleet summary never settled", summary);
+            if (done.test(summary)) return summary;
+        }
+    }
+
+    private static int temperatureOf(int tank) {
+        if (tank % 20 == 0) return CRITICAL_TEMPERATURE;
+        if (tank % 10 == 5) return WARNING_TEMPERATURE;
+        return 25;
+    }
+
+    private static AquariumData readingAt(int temperature) {
+        AquariumData reading = HistorySeeder.sampleAt(0, HistorySeeder.SEED_END_MILLIS);
+        reading.setTemperature(temperature);
+        return reading;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.smartaquarium.service;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.smartaquarium.data.datasource.FirestoreDataSource;
+import com.example.smartaquarium.testing.FirestoreEmulator;
+import com.example.smartaquarium.testing.HistorySeeder;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Exports 1M history samples from the local Firestore emulator, as plain CSV and gzip, and
+ * logs rows per second and peak heap, and checks that a cancelled export cleans up after itself. Needs the local emulator, see {@link FirestoreEmulator}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class HistoryExportBenchmark {
+
+    private static final String TAG = "HistoryExportBenchmark";
+    private static final String USER_ID = "exportBenchmarkUser";
+    private static final String AQUARIUM_ID = "exportBenchmarkTank";
+    private static final int SAMPLE_COUNT = 1_000_000;
+    private static final long SAMPLE_INTERVAL_MILLIS = 5000;
+
+    @BeforeClass
+    public static void seedEmulator() throws Exception {
+        FirebaseFirestore firestore = FirestoreEmulator.connect();
+        CollectionReference history = firestore.collection("users").document(USER_ID)
+                .collection("aquariums").document(AQUARIUM_ID).collection("history");
+        HistorySeeder.seed(history, SAMPLE_COUNT, HistorySeeder.SEED_END_MILLIS, SAMPLE_INTERVAL_MILLIS);
+    }
+
+    @Test
+    public void exportsPlainCsv() throws Exception {
+        File file = runExport(false);
+        assertEquals(SAMPLE_COUNT, countDataRows(new FileInputStream(file)));
+    }
+
+    @Test
+    public void exportsGzippedCsv() throws Exception {
+        File file = runExport(true);
+        assertEquals(SAMPLE_COUNT, countDataRows(new GZIPInputStream(new FileInputStream(file))));
+    }
+
+    @Test
+    public void cancelledExportDiscardsThePartialFile() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        File file = new File(context.getCacheDir(), "cancelled.csv");
+        HistoryExporter exporter = new HistoryExporter(new FirestoreDataSource());
+        HistoryExporter.Progress[] last = new HistoryExporter.Progress[1];
+        CountDownLatch done = new CountDownLatch(1);
+
+        HistoryExporter.Job job = exporter.export(USER_ID, AQUARIUM_ID, FirestoreDataSource.NO_CURSOR,
+                Long.MAX_VALUE, new FileOutputStream(file), false, file::delete);
+        assertSame(job, exporter.getActiveJob());
+        job.cancel();
+        // Nothing observes the job while it runs, as when the settings screen is already gone
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> job.getProgress().observeForever(progress -> {
+            last[0] = progress;
+            if (progress.state != HistoryExporter.State.RUNNING) done.countDown();
+        }));
+        assertTrue("Export never ended", done.await(1, TimeUnit.MINUTES));
+
+        assertEquals(HistoryExporter.State.CANCELLED, last[0].state);
+        assertFalse(file.exists());
+        assertNull(exporter.getActiveJob());
+    }
+
+    private File runExport(boolean gzip) throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        File file = new File(context.getCacheDir(), gzip ? "benchmark.csv.gz" : "benchmark.csv");
+        HistoryExporter exporter = new HistoryExporter(new FirestoreDataSource());
+
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        long baselineHeap = runtime.totalMemory() - runtime.freeMemory();
+        long[] peakHeap = {baselineHeap};
+        HistoryExporter.Progress[] last = new HistoryExporter.Progress[1];
+        CountDownLatch done = new CountDownLatch(1);
+
+        long startNanos = System.nanoTime();
+        HistoryExporter.Job job = exporter.export(USER_ID, AQUARIUM_ID, FirestoreDataSource.NO_CURSOR,
+                Long.MAX_VALUE, new FileOutputStream(file), gzip);
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> job.getProgress().observeForever(progress -> {
+            peakHeap[0] = Math.max(peakHeap[0], runtime.totalMemory() - runtime.freeMemory());
+            last[0] = progress;
+            if (progress.state != HistoryExporter.State.RUNNING) done.countDown();
+        }));
+        assertTrue("Export timed out", done.await(30, TimeUnit.MINUTES));
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        assertEquals(HistoryExporter.State.COMPLETED, last[0].state);
+        Log.i(TAG, String.format("%s: %d rows in %d ms (%.0f rows/s), %d KB on disk, peak heap +%d KB",
+                gzip ? "gzip" : "csv", last[0].rows, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                last[0].rows * 1e9 / elapsedNanos, file.length() / 1024, (peakHeap[0] - baselineHeap) / 1024));
+        return file;
+    }
+
+    private static long countDataRows(InputStream input) throws Exception {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            assertEquals(HistoryExporter.CSV_HEADER, reader.readLine());
+            long rows = 0;
+            while (reader.readLine() != null) rows++;
+            return rows;
+        }
+    }
+}
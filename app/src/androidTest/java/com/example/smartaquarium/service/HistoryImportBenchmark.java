@@ -0,0 +1,113 @@
+package com.example.smartaquarium.service;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.smartaquarium.data.datasource.FirestoreDataSource;
+import com.example.smartaquarium.data.datasource.ImportCheckpointStore;
+import com.example.smartaquarium.testing.FirestoreEmulator;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Imports a generated 200k-row CSV into the local Firestore emulator and logs samples per
+ * second, then checks that re-running and resuming never duplicate documents.
+ * Needs the local emulator, see {@link FirestoreEmulator}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class HistoryImportBenchmark {
+
+    private static final String TAG = "HistoryImportBenchmark";
+    private static final String USER_ID = "importBenchmarkUser";
+    private static final int ROW_COUNT = 200_000;
+    private static final long SAMPLE_INTERVAL_MILLIS = 60_000;
+
+    private static FirebaseFirestore firestore;
+    private static File csvFile;
+
+    @BeforeClass
+    public static void writeCsv() throws Exception {
+        firestore = FirestoreEmulator.connect();
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        csvFile = new File(context.getCacheDir(), "import_benchmark.csv");
+
+        long first = System.currentTimeMillis() - ROW_COUNT * SAMPLE_INTERVAL_MILLIS;
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(csvFile))) {
+            writer.write("epoch_ms,temperature,ph,oxygen,water_level\n");
+            for (int i = 0; i < ROW_COUNT; i++) {
+                writer.write((first + i * SAMPLE_INTERVAL_MILLIS) + "," + (22 + i % 5) + ",7,8,90\n");
+            }
+        }
+    }
+
+    @Test
+    public void importsAndReimportsWithoutDuplicates() throws Exception {
+        String aquariumId = "importBenchmark" + System.currentTimeMillis();
+        HistoryImporter importer = newImporter();
+
+        HistoryImporter.Progress first = runImport(importer, aquariumId, "full");
+        assertEquals(HistoryImporter.State.COMPLETED, first.state);
+        assertEquals(ROW_COUNT, first.imported);
+        Log.i(TAG, String.format("Imported %d samples at %.0f samples/s", first.imported, first.samplesPerSecond));
+
+        HistoryImporter.Progress second = runImport(importer, aquariumId, "full");
+        Log.i(TAG, String.format("Re-import at %.0f samples/s", second.samplesPerSecond));
+        assertEquals(ROW_COUNT, countHistory(aquariumId));
+    }
+
+    @Test
+    public void resumesFromCheckpoint() throws Exception {
+        String aquariumId = "importResume" + System.currentTimeMillis();
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        // Pretend an earlier run committed the first half before it was interrupted
+        new ImportCheckpointStore(context).save("resume", ROW_COUNT / 2);
+
+        HistoryImporter.Progress progress = runImport(newImporter(), aquariumId, "resume");
+        assertEquals(HistoryImporter.State.COMPLETED, progress.state);
+        assertEquals(ROW_COUNT / 2, progress.resumedFrom);
+        assertEquals(ROW_COUNT / 2, progress.imported);
+        assertEquals(ROW_COUNT / 2, countHistory(aquariumId));
+    }
+
+    private static HistoryImporter newImporter() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        return new HistoryImporter(new FirestoreDataSource(), new ImportCheckpointStore(context));
+    }
+
+    private static HistoryImporter.Progress runImport(HistoryImporter importer, String aquariumId,
+                                                      String importKey) throws Exception {
+        HistoryImporter.Progress[] last = new HistoryImporter.Progress[1];
+        CountDownLatch done = new CountDownLatch(1);
+        HistoryImporter.Job job = importer.importCsv(USER_ID, aquariumId, new FileInputStream(csvFile),
+                false, importKey);
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> job.getProgress().observeForever(progress -> {
+            last[0] = progress;
+            if (progress.state != HistoryImporter.State.RUNNING) done.countDown();
+        }));
+        assertTrue("Import timed out", done.await(30, TimeUnit.MINUTES));
+        return last[0];
+    }
+
+    private static long countHistory(String aquariumId) throws Exception {
+        return Tasks.await(firestore.collection("users").document(USER_ID)
+                .collection("aquariums").document(aquariumId).collection("history")
+                .count().get(AggregateSource.SERVER), 2, TimeUnit.MINUTES).getCount();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.smartaquarium.service;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.smartaquarium.data.datasource.FirestoreDataSource;
+import com.example.smartaquarium.data.model.UserSettings;
+import com.example.smartaquarium.testing.FirestoreEmulator;
+import com.example.smartaquarium.testing.PerfBaselines;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link UserSettingsService} against the local Firestore and Auth emulators, with a fresh
+ * anonymous user per test. Needs the local emulators, see {@link FirestoreEmulator}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class UserSettingsServiceEmulatorTest {
+
+    private UserSettingsService service;
+
+    @Before
+    public void signIn() throws Exception {
+        FirestoreEmulator.signInNewUser();
+        service = new UserSettingsService(new FirestoreDataSource());
+    }
+
+    @Test
+    public void savedSettingsReachTheListener() throws Exception {
+        UserSettings settings = new UserSettings();
+        settings.setMinTemperature(23.5);
+        settings.setMaxTemperature(26.5);
+        settings.setDoNotDisturbStartHour(21);
+
+        BlockingQueue<UserSettings> emissions = new LinkedBlockingQueue<>();
+        Observer<UserSettings> observer = emissions::add;
+        LiveData<UserSettings> liveSettings = service.getSettingsForCurrentUser();
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> liveSettings.observeForever(observer));
+        try {
+            long start = System.nanoTime();
+            Tasks.await(service.saveSettingsForCurrentUser(settings), 1, TimeUnit.MINUTES);
+            UserSettings loaded;
+            do {
+                loaded = emissions.poll(30, TimeUnit.SECONDS);
+                assertNotNull("Listener never saw the saved settings", loaded);
+            } while (loaded.getMaxTemperature() != settings.getMaxTemperature());
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertEquals(settings.getMinTemperature(), loaded.getMinTemperature(), 0);
+            assertEquals(settings.getDoNotDisturbStartHour(), loaded.getDoNotDisturbStartHour());
+            assertEquals(new UserSettings().getMaxPh(), loaded.getMaxPh(), 0);
+            PerfBaselines.assertAtMost("settings.round_trip_ms", elapsedMillis);
+        } finally {
+            InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> liveSettings.removeObserver(observer));
+        }
+    }
+
+    @Test
+    public void repeatedLookupsShareOneListener() {
+        assertSame(service.getSettingsForCurrentUser(), service.getSettingsForCurrentUser());
+    }
+
+    @Test
+    public void saveFailsWhenSignedOut() throws Exception {
+        FirebaseAuth.getInstance().signOut();
+        try {
+            Tasks.await(service.saveSettingsForCurrentUser(new UserSettings()), 1, TimeUnit.MINUTES);
+            fail("Saving without a user should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+}
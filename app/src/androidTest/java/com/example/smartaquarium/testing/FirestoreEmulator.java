@@ -0,0 +1,74 @@
+package com.example.smartaquarium.testing;
+
+import android.content.Context;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Points the app's Firestore and Auth instances at the local emulators. Start them on the host
+ * first ({@code firebase emulators:start --only firestore,auth}); the device reaches the host
+ * at 10.0.2.2.
+ */
+public final class FirestoreEmulator {
+
+    public static final String HOST = "10.0.2.2";
+    public static final int FIRESTORE_PORT = 8080;
+    public static final int AUTH_PORT = 9099;
+
+    private static boolean connected;
+    private static boolean authConnected;
+
+    private FirestoreEmulator() {}
+
+    /**
+     * Safe to call from every test class: Firestore only accepts the emulator setting once per
+     * process, before its first use.
+     */
+    public static synchronized FirebaseFirestore connect() {
+        FirebaseFirestore firestore = FirebaseFirestore.getInstance();
+        if (!connected) {
+            firestore.useEmulator(HOST, FIRESTORE_PORT);
+            connected = true;
+        }
+        return firestore;
+    }
+
+    /**
+     * Signs in a fresh anonymous user on the Auth emulator, replacing any signed-in user,
+     * so code that reads {@link FirebaseAuth#getUid()} works against its own data.
+     *
+     * @return The new user's ID.
+     */
+    public static synchronized String signInNewUser() throws Exception {
+        connect();
+        FirebaseAuth auth = FirebaseAuth.getInstance();
+        if (!authConnected) {
+            auth.useEmulator(HOST, AUTH_PORT);
+            authConnected = true;
+        }
+        auth.signOut();
+        return Tasks.await(auth.signInAnonymously(), 1, TimeUnit.MINUTES).getUser().getUid();
+    }
+
+    /**
+     * A second, independent Firestore client on the emulator, e.g. to write from "another
+     * device" and time how long the app's listeners take to see it.
+     */
+    public static synchronized FirebaseFirestore connectSecondClient(Context context, String name) {
+        FirebaseApp app;
+        try {
+            app = FirebaseApp.getInstance(name);
+            return FirebaseFirestore.getInstance(app);
+        } catch (IllegalStateException notCreatedYet) {
+            app = FirebaseApp.initializeApp(context, FirebaseApp.getInstance().getOptions(), name);
+        }
+        FirebaseFirestore firestore = FirebaseFirestore.getInstance(app);
+        firestore.useEmulator(HOST, FIRESTORE_PORT);
+        return firestore;
+    }
+}
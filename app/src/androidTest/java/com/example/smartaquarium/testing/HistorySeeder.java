@@ -0,0 +1,85 @@
+package com.example.smartaquarium.testing;
+
+import android.util.Log;
+
+import com.example.smartaquarium.data.datasource.AquariumDataCodec;
+import com.example.smartaquarium.data.datasource.FirestoreDataSource;
+import com.example.smartaquarium.data.model.AquariumData;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills a history collection on the emulator with evenly spaced, deterministic samples.
+ * <p>
+ * Document IDs come from the sample time, so seeding the same range twice overwrites rather
+ * than duplicates, and a collection that already holds the requested count is left alone.
+ * That keeps re-runs of a multi-million document suite cheap. Blocks; never call it on the
+ * main thread.
+ */
+public final class HistorySeeder {
+
+    private static final String TAG = "HistorySeeder";
+    private static final int BATCHES_IN_FLIGHT = 8;
+    private static final int PROGRESS_LOG_INTERVAL = 100_000;
+
+    // A fixed end time, so every run seeds (and finds) exactly the same documents
+    public static final long SEED_END_MILLIS = 1_767_225_600_000L; // 2026-01-01T00:00:00Z
+
+    private HistorySeeder() {}
+
+    /**
+     * The sample written at index {@code i}: the temperature cycles slowly so charts and
+     * statistics have something to show, the other metrics hold steady.
+     */
+    public static AquariumData sampleAt(int i, long timeMillis) {
+        AquariumData data = new AquariumData(20 + (i / 60) % 10, 7, 8, 90);
+        data.setTimeMillis(timeMillis);
+        return data;
+    }
+
+    /**
+     * Seeds {@code count} samples ending at {@code lastMillis}, {@code intervalMillis} apart.
+     *
+     * @return The time of the first (oldest) sample.
+     */
+    public static long seed(CollectionReference history, int count, long lastMillis,
+                            long intervalMillis) throws Exception {
+        long firstMillis = lastMillis - (count - 1L) * intervalMillis;
+        long existing = Tasks.await(history.count().get(AggregateSource.SERVER), 2, TimeUnit.MINUTES).getCount();
+        if (existing >= count) {
+            Log.i(TAG, history.getPath() + " already holds " + existing + " samples");
+            return firstMillis;
+        }
+
+        long start = System.nanoTime();
+        ArrayDeque<Task<Void>> inFlight = new ArrayDeque<>();
+        for (int from = 0; from < count; from += FirestoreDataSource.MAX_BATCH_WRITES) {
+            WriteBatch batch = history.getFirestore().batch();
+            int to = Math.min(count, from + FirestoreDataSource.MAX_BATCH_WRITES);
+            for (int i = from; i < to; i++) {
+                AquariumData data = sampleAt(i, firstMillis + i * intervalMillis);
+                batch.set(history.document(AquariumDataCodec.documentIdFor(data.getTimeMillis())),
+                        AquariumDataCodec.encode(data));
+            }
+            inFlight.add(batch.commit());
+            if (inFlight.size() == BATCHES_IN_FLIGHT) {
+                Tasks.await(inFlight.poll(), 2, TimeUnit.MINUTES);
+            }
+            if (to % PROGRESS_LOG_INTERVAL == 0) {
+                Log.i(TAG, "Seeded " + to + " of " + count);
+            }
+        }
+        while (!inFlight.isEmpty()) {
+            Tasks.await(inFlight.poll(), 2, TimeUnit.MINUTES);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Log.i(TAG, String.format("Seeded %d samples into %s in %.0f s", count, history.getPath(), seconds));
+        return firstMillis;
+    }
+}
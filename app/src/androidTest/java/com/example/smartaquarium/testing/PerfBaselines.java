@@ -0,0 +1,56 @@
+package com.example.smartaquarium.testing;
+
+import android.util.Log;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import java.io.InputStream;
+import java.util.Properties;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Recorded limits for the emulator suite, read from {@code perf_baselines.properties} in the
+ * test APK's assets. Every key is a metric name followed by {@code .max} or {@code .min}.
+ * <p>
+ * Each check logs the measured value under the {@code PerfBaselines} tag, so a run on a new
+ * machine can be turned into new baselines by copying the log. A metric without a recorded
+ * limit fails the check, so new scenarios cannot silently go unguarded.
+ */
+public final class PerfBaselines {
+
+    private static final String TAG = "PerfBaselines";
+    private static final String ASSET = "perf_baselines.properties";
+
+    private static Properties limits;
+
+    private PerfBaselines() {}
+
+    public static void assertAtMost(String metric, double measured) {
+        double limit = limit(metric + ".max");
+        Log.i(TAG, metric + " = " + measured + " (max " + limit + ")");
+        assertTrue(metric + " regressed: " + measured + " > " + limit, measured <= limit);
+    }
+
+    public static void assertAtLeast(String metric, double measured) {
+        double limit = limit(metric + ".min");
+        Log.i(TAG, metric + " = " + measured + " (min " + limit + ")");
+        assertTrue(metric + " regressed: " + measured + " < " + limit, measured >= limit);
+    }
+
+    private static synchronized double limit(String key) {
+        if (limits == null) {
+            limits = new Properties();
+            try (InputStream input = InstrumentationRegistry.getInstrumentation().getContext()
+                    .getAssets().open(ASSET)) {
+                limits.load(input);
+            } catch (Exception e) {
+                throw new IllegalStateException("Cannot read " + ASSET, e);
+            }
+        }
+        String value = limits.getProperty(key);
+        if (value == null) fail("No baseline recorded for " + key);
+        return Double.parseDouble(value);
+    }
+}
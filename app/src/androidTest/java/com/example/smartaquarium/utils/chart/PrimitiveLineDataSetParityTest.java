@@ -0,0 +1,206 @@
+package com.example.smartaquarium.utils.chart;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.view.View;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.github.mikephil.charting.charts.LineChart;
+import com.github.mikephil.charting.data.DataSet;
+import com.github.mikephil.charting.data.Entry;
+import com.github.mikephil.charting.data.LineData;
+import com.github.mikephil.charting.data.LineDataSet;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link PrimitiveLineDataSet} answers every lookup the chart makes exactly like
+ * an Entry-backed {@link LineDataSet}, and that both render to identical pixels.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PrimitiveLineDataSetParityTest {
+
+    private static final int POINT_COUNT = 2_000;
+    private static final int CHART_WIDTH = 800;
+    private static final int CHART_HEIGHT = 400;
+
+    private float[] xValues;
+    private float[] yValues;
+    private LineDataSet reference;
+    private PrimitiveLineDataSet primitive;
+
+    @Before
+    public void buildSeries() {
+        Random random = new Random(42);
+        xValues = new float[POINT_COUNT];
+        yValues = new float[POINT_COUNT];
+        List<Entry> entries = new ArrayList<>(POINT_COUNT);
+        float x = -500f;
+        for (int i = 0; i < POINT_COUNT; i++) {
+            // Some repeated x values to exercise the closest-y tie breaking
+            if (random.nextInt(10) != 0) x += 0.5f + random.nextFloat();
+            xValues[i] = x;
+            yValues[i] = random.nextInt(100);
+            entries.add(new Entry(xValues[i], yValues[i]));
+        }
+        reference = new LineDataSet(entries, "Parity");
+        primitive = new PrimitiveLineDataSet(xValues, yValues, POINT_COUNT, "Parity");
+    }
+
+    @Test
+    public void minMaxAndCountMatch() {
+        assertEquals(reference.getEntryCount(), primitive.getEntryCount());
+        assertEquals(reference.getXMin(), primitive.getXMin(), 0f);
+        assertEquals(reference.getXMax(), primitive.getXMax(), 0f);
+        assertEquals(reference.getYMin(), primitive.getYMin(), 0f);
+        assertEquals(reference.getYMax(), primitive.getYMax(), 0f);
+
+        reference.calcMinMaxY(0f, 200f);
+        primitive.calcMinMaxY(0f, 200f);
+        assertEquals(reference.getYMin(), primitive.getYMin(), 0f);
+        assertEquals(reference.getYMax(), primitive.getYMax(), 0f);
+    }
+
+    @Test
+    public void lookupsMatch() {
+        Random random = new Random(7);
+        float span = xValues[POINT_COUNT - 1] - xValues[0];
+        for (int i = 0; i < 5_000; i++) {
+            // Probe inside, on and outside the series
+            float probe = i % 3 == 0
+                    ? xValues[random.nextInt(POINT_COUNT)]
+                    : xValues[0] - 10f + random.nextFloat() * (span + 20f);
+            float closestToY = i % 2 == 0 ? Float.NaN : random.nextInt(100);
+
+            for (DataSet.Rounding rounding : DataSet.Rounding.values()) {
+                assertEquals("index x=" + probe + " " + rounding,
+                        reference.getEntryIndex(probe, closestToY, rounding),
+                        primitive.getEntryIndex(probe, closestToY, rounding));
+                assertSameEntry(reference.getEntryForXValue(probe, closestToY, rounding),
+                        primitive.getEntryForXValue(probe, closestToY, rounding));
+            }
+            assertEquals(reference.getEntriesForXValue(probe).size(),
+                    primitive.getEntriesForXValue(probe).size());
+        }
+    }
+
+    @Test
+    public void appendKeepsMinMaxIncrementally() {
+        PrimitiveLineDataSet appended = new PrimitiveLineDataSet(4, "Parity");
+        for (int i = 0; i < POINT_COUNT; i++) {
+            appended.append(xValues[i], yValues[i]);
+        }
+        assertEquals(reference.getEntryCount(), appended.getEntryCount());
+        assertEquals(reference.getXMin(), appended.getXMin(), 0f);
+        assertEquals(reference.getXMax(), appended.getXMax(), 0f);
+        assertEquals(reference.getYMin(), appended.getYMin(), 0f);
+        assertEquals(reference.getYMax(), appended.getYMax(), 0f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void appendRejectsDescendingX() {
+        primitive.append(xValues[POINT_COUNT - 1] - 1f, 0f);
+    }
+
+    @Test
+    public void mutationsMatch() {
+        Random random = new Random(11);
+        for (int i = 0; i < 1_000; i++) {
+            switch (random.nextInt(5)) {
+                case 0:
+                    // A fresh x, so both sets agree on where it goes among equal x values
+                    float x = xValues[random.nextInt(POINT_COUNT)] + 0.25f;
+                    if (!reference.getEntriesForXValue(x).isEmpty()) break;
+                    float y = random.nextInt(100);
+                    reference.addEntryOrdered(new Entry(x, y));
+                    primitive.addEntryOrdered(new Entry(x, y));
+                    break;
+                case 1:
+                    assertEquals(reference.removeFirst(), primitive.removeFirst());
+                    break;
+                case 2:
+                    assertEquals(reference.removeLast(), primitive.removeLast());
+                    break;
+                case 3:
+                    int index = random.nextInt(reference.getEntryCount());
+                    assertEquals(reference.removeEntry(index), primitive.removeEntry(index));
+                    break;
+                default:
+                    float probe = xValues[random.nextInt(POINT_COUNT)];
+                    assertEquals(reference.removeEntryByXValue(probe), primitive.removeEntryByXValue(probe));
+                    break;
+            }
+            assertSameSeries(reference, primitive);
+        }
+
+        PrimitiveLineDataSet refilled = new PrimitiveLineDataSet(4, "Parity");
+        refilled.setValues(reference.getValues());
+        assertSameSeries(reference, refilled);
+    }
+
+    @Test
+    public void rendersIdenticalPixels() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        Bitmap[] bitmaps = new Bitmap[2];
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            bitmaps[0] = render(context, reference);
+            bitmaps[1] = render(context, primitive);
+        });
+
+        assertTrue("Rendered charts differ", bitmaps[0].sameAs(bitmaps[1]));
+    }
+
+    private static Bitmap render(Context context, LineDataSet dataSet) {
+        dataSet.setColor(Color.BLUE);
+        dataSet.setCircleColor(Color.BLUE);
+        dataSet.setDrawValues(false);
+
+        LineChart chart = new LineChart(context);
+        chart.getDescription().setEnabled(false);
+        chart.setData(new LineData(dataSet));
+        chart.measure(View.MeasureSpec.makeMeasureSpec(CHART_WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(CHART_HEIGHT, View.MeasureSpec.EXACTLY));
+        chart.layout(0, 0, CHART_WIDTH, CHART_HEIGHT);
+        // Zoom into a window so the binary-searched visible bounds are exercised
+        chart.setVisibleXRangeMaximum(150f);
+        chart.moveViewToX(100f);
+
+        Bitmap bitmap = Bitmap.createBitmap(CHART_WIDTH, CHART_HEIGHT, Bitmap.Config.ARGB_8888);
+        chart.draw(new Canvas(bitmap));
+        return bitmap;
+    }
+
+    private static void assertSameSeries(LineDataSet expected, PrimitiveLineDataSet actual) {
+        assertEquals(expected.getEntryCount(), actual.getEntryCount());
+        for (int i = 0; i < expected.getEntryCount(); i++) {
+            assertSameEntry(expected.getEntryForIndex(i), actual.getEntryForIndex(i));
+        }
+        assertEquals(expected.getXMin(), actual.getXMin(), 0f);
+        assertEquals(expected.getXMax(), actual.getXMax(), 0f);
+        assertEquals(expected.getYMin(), actual.getYMin(), 0f);
+        assertEquals(expected.getYMax(), actual.getYMax(), 0f);
+    }
+
+    private static void assertSameEntry(Entry expected, Entry actual) {
+        if (expected == null) {
+            assertNull(actual);
+            return;
+        }
+        assertNotNull(actual);
+        assertEquals(expected.getX(), actual.getX(), 0f);
+        assertEquals(expected.getY(), actual.getY(), 0f);
+    }
+}
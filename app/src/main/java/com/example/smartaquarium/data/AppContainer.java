@@ -0,0 +1,158 @@
+package com.example.smartaquarium.data;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import com.example.smartaquarium.data.datasource.FirestoreDataSource;
+import com.example.smartaquarium.data.datasource.ImportCheckpointStore;
+import com.example.smartaquarium.data.datasource.LastKnownStateStore;
+import com.example.smartaquarium.service.DummyConnection;
+import com.example.smartaquarium.service.FleetHealthMonitor;
+import com.example.smartaquarium.service.HistoryExporter;
+import com.example.smartaquarium.service.HistoryImporter;
+import com.example.smartaquarium.service.IngestPipeline;
+import com.example.smartaquarium.service.SessionWarmUp;
+import com.example.smartaquarium.service.UserSettingsService;
+import com.example.smartaquarium.utils.interfaces.IClock;
+import com.example.smartaquarium.utils.interfaces.IConnection;
+import com.example.smartaquarium.utils.metrics.MetricsRegistry;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The single, process-wide owner of the data layer.
+ * Every screen, ViewModel and background job gets the same {@link FirestoreDataSource},
+ * {@link UserSettingsService} and {@link IConnection} from here instead of creating its own,
+ * so each Firestore document is listened to once per process.
+ * <p>
+ * Dependencies are created lazily on first use. {@link #warmUpAsync()} lets the caller move
+ * that first use (Firebase and Firestore initialization) off the main thread.
+ */
+public class AppContainer {
+
+    private static final String TAG = "AppContainer";
+
+    private static volatile AppContainer instance;
+
+    private final Context applicationContext;
+    private final ExecutorService warmUpExecutor = Executors.newSingleThreadExecutor();
+
+    private volatile IClock clock = IClock.SYSTEM;
+
+    // Each dependency has its own lock, so creating one never waits on an unrelated one
+    private final LazyDependency<FirestoreDataSource> firestoreDataSource =
+            new LazyDependency<>(FirestoreDataSource::new);
+    private final LazyDependency<UserSettingsService> userSettingsService =
+            new LazyDependency<>(() -> new UserSettingsService(getFirestoreDataSource()));
+    // TODO switch to real connection
+    private final LazyDependency<IConnection> connection =
+            new LazyDependency<>(() -> new DummyConnection(clock));
+    private final LazyDependency<IngestPipeline> ingestPipeline = new LazyDependency<>(() -> {
+        IngestPipeline pipeline = new IngestPipeline();
+        getConnection().addListener(pipeline);
+        return pipeline;
+    });
+    private final LazyDependency<HistoryExporter> historyExporter =
+            new LazyDependency<>(() -> new HistoryExporter(getFirestoreDataSource()));
+    private final LazyDependency<HistoryImporter> historyImporter =
+            new LazyDependency<>(() -> new HistoryImporter(getFirestoreDataSource(),
+                    new ImportCheckpointStore(applicationContext)));
+    private final LazyDependency<SessionWarmUp> sessionWarmUp =
+            new LazyDependency<>(() -> new SessionWarmUp(this::getFirestoreDataSource,
+                    new LastKnownStateStore(applicationContext), warmUpExecutor, clock));
+    private final LazyDependency<FleetHealthMonitor> fleetHealthMonitor =
+            new LazyDependency<>(() -> new FleetHealthMonitor(getFirestoreDataSource()));
+
+    private AppContainer(Context context) {
+        this.applicationContext = context.getApplicationContext();
+    }
+
+    public static AppContainer getInstance(@NonNull Context context) {
+        if (instance == null) {
+            synchronized (AppContainer.class) {
+                if (instance == null) {
+                    instance = new AppContainer(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Initializes the Firestore-backed dependencies on a background thread.
+     * Later calls to the getters return immediately once this has run; getters of
+     * dependencies that do not need Firestore never wait for it.
+     */
+    public void warmUpAsync() {
+        warmUpExecutor.execute(() -> {
+            MetricsRegistry metrics = MetricsRegistry.getInstance();
+            long start = metrics.startTimer();
+            getFirestoreDataSource();
+            getUserSettingsService();
+            metrics.recordSince(MetricsRegistry.FIRESTORE_INIT_TIME, start);
+            Log.d(TAG, "Data layer warmed up on " + Thread.currentThread().getName());
+        });
+    }
+
+    // --- Lazily created dependencies ---
+
+    public FirestoreDataSource getFirestoreDataSource() {
+        return firestoreDataSource.get();
+    }
+
+    public UserSettingsService getUserSettingsService() {
+        return userSettingsService.get();
+    }
+
+    public IClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Replaces the clock, e.g. with a simulated one in soak tests. Only affects
+     * dependencies created afterwards.
+     */
+    @VisibleForTesting
+    public void setClock(@NonNull IClock clock) {
+        this.clock = clock;
+    }
+
+    public IConnection getConnection() {
+        return connection.get();
+    }
+
+    /**
+     * The ring-buffered pipeline between the connection and its consumers.
+     */
+    public IngestPipeline getIngestPipeline() {
+        return ingestPipeline.get();
+    }
+
+    public HistoryExporter getHistoryExporter() {
+        return historyExporter.get();
+    }
+
+    public HistoryImporter getHistoryImporter() {
+        return historyImporter.get();
+    }
+
+    /**
+     * Cheap to call on the main thread: it does not create Firestore, and its runs happen on
+     * the same executor as {@link #warmUpAsync()}, after it.
+     */
+    public SessionWarmUp getSessionWarmUp() {
+        return sessionWarmUp.get();
+    }
+
+    public FleetHealthMonitor getFleetHealthMonitor() {
+        return fleetHealthMonitor.get();
+    }
+
+    public Context getApplicationContext() {
+        return applicationContext;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.smartaquarium.data;
+
+import androidx.annotation.NonNull;
+
+import java.util.function.Supplier;
+
+/**
+ * A dependency created on first use, behind its own lock.
+ * <p>
+ * Creating one dependency only blocks callers of that dependency (and of the ones built on
+ * top of it), so a slow Firestore initialization on the warm-up thread does not hold up the
+ * main thread asking for the sensor connection.
+ */
+final class LazyDependency<T> {
+
+    private final Supplier<T> factory;
+    private volatile T value;
+
+    LazyDependency(@NonNull Supplier<T> factory) {
+        this.factory = factory;
+    }
+
+    @NonNull
+    T get() {
+        T result = value;
+        if (result == null) {
+            synchronized (this) {
+                result = value;
+                if (result == null) {
+                    result = factory.get();
+                    value = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return True once the dependency has been created.
+     */
+    boolean isCreated() {
+        return value != null;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.smartaquarium.data.datasource;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.smartaquarium.data.model.Aquarium;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A hand-written, reflection-free codec for {@link Aquarium} documents.
+ * Besides the name, an aquarium document carries a copy of its most recent persisted
+ * reading under {@code latest}, so a whole fleet's live values come from one query over
+ * the aquariums collection instead of one history listener per tank.
+ */
+public final class AquariumCodec {
+
+    static final String FIELD_NAME = "name";
+    static final String FIELD_LATEST = "latest";
+
+    private AquariumCodec() {}
+
+    /**
+     * @return The decoded aquarium, named after its document ID when it has no name,
+     *         or null if the document does not exist.
+     */
+    @Nullable
+    public static Aquarium decode(@NonNull DocumentSnapshot document) {
+        if (!document.exists()) return null;
+
+        String name = document.getString(FIELD_NAME);
+        Aquarium aquarium = new Aquarium(document.getId(), name != null ? name : document.getId());
+        Object latest = document.get(FIELD_LATEST);
+        if (latest instanceof Map) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> fields = (Map<String, Object>) latest;
+            aquarium.setLatestReading(AquariumDataCodec.decode(fields));
+        }
+        return aquarium;
+    }
+
+    /**
+     * The partial update that records an encoded reading as the aquarium's latest one.
+     * Meant to be written with a merge so the other fields are left alone.
+     */
+    @NonNull
+    static Map<String, Object> encodeLatest(@NonNull Map<String, Object> encodedReading) {
+        return Map.of(FIELD_LATEST, encodedReading);
+    }
+
+    /**
+     * @return True if both lists hold the same aquariums under the same names, in the same order.
+     */
+    static boolean sameIdsAndNames(@Nullable List<Aquarium> a, @Nullable List<Aquarium> b) {
+        if (a == null || b == null || a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) {
+            if (!a.get(i).getId().equals(b.get(i).getId())
+                    || !a.get(i).getName().equals(b.get(i).getName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
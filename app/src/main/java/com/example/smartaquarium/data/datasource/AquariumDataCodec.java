@@ -0,0 +1,120 @@
+package com.example.smartaquarium.data.datasource;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.smartaquarium.data.model.AquariumData;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A hand-written, reflection-free codec for {@link AquariumData}.
+ * Decoding reads each typed field directly from the snapshot instead of going through
+ * {@link DocumentSnapshot#toObject(Class)} bean mapping. The sample time is written as
+ * {@code timestamp}; documents from before that still decode from their {@code date} field.
+ */
+public final class AquariumDataCodec {
+
+    static final String FIELD_TEMPERATURE = "temperature";
+    static final String FIELD_PH = "ph";
+    static final String FIELD_OXYGEN = "oxygen";
+    static final String FIELD_WATER_LEVEL = "waterLevel";
+    // Sample time of documents written before every write stored FIELD_TIMESTAMP; read-only
+    public static final String FIELD_DATE = "date";
+    // Sample time, the one field every history query orders and filters by
+    public static final String FIELD_TIMESTAMP = "timestamp";
+
+    private AquariumDataCodec() {}
+
+    /**
+     * Decodes a history or legacy data document.
+     *
+     * @return The decoded reading, or null if the document does not exist.
+     */
+    @Nullable
+    public static AquariumData decode(@NonNull DocumentSnapshot document) {
+        if (!document.exists()) return null;
+
+        AquariumData data = new AquariumData();
+        data.temperature = readInt(document, FIELD_TEMPERATURE);
+        data.ph = readInt(document, FIELD_PH);
+        data.oxygen = readInt(document, FIELD_OXYGEN);
+        data.waterLevel = readInt(document, FIELD_WATER_LEVEL);
+
+        Timestamp time = document.getTimestamp(FIELD_TIMESTAMP);
+        if (time == null) {
+            time = document.getTimestamp(FIELD_DATE);
+        }
+        data.timeMillis = toMillis(time);
+        return data;
+    }
+
+    /**
+     * Decodes a reading stored as a nested map, as in {@link AquariumCodec#FIELD_LATEST}.
+     *
+     * @return The decoded reading, or null if there is no map.
+     */
+    @Nullable
+    static AquariumData decode(@Nullable Map<String, Object> fields) {
+        if (fields == null) return null;
+
+        AquariumData data = new AquariumData();
+        data.temperature = readInt(fields.get(FIELD_TEMPERATURE));
+        data.ph = readInt(fields.get(FIELD_PH));
+        data.oxygen = readInt(fields.get(FIELD_OXYGEN));
+        data.waterLevel = readInt(fields.get(FIELD_WATER_LEVEL));
+        Object time = fields.get(FIELD_TIMESTAMP);
+        data.timeMillis = time instanceof Timestamp ? toMillis((Timestamp) time) : 0;
+        return data;
+    }
+
+    /**
+     * Encodes a reading into the field map written to Firestore.
+     */
+    @NonNull
+    public static Map<String, Object> encode(@NonNull AquariumData data) {
+        Map<String, Object> fields = new HashMap<>(8);
+        fields.put(FIELD_TEMPERATURE, data.temperature);
+        fields.put(FIELD_PH, data.ph);
+        fields.put(FIELD_OXYGEN, data.oxygen);
+        fields.put(FIELD_WATER_LEVEL, data.waterLevel);
+        if (data.hasTime()) {
+            fields.put(FIELD_TIMESTAMP, toTimestamp(data.timeMillis));
+        }
+        return fields;
+    }
+
+    /**
+     * Document ID for a history sample, derived from its time so writing the same sample
+     * twice overwrites rather than duplicates. Each aquarium has its own history collection,
+     * so the path already scopes the ID to the aquarium. Zero-padded so IDs sort by time.
+     */
+    @NonNull
+    public static String documentIdFor(long timeMillis) {
+        return String.format(Locale.US, "t%013d", timeMillis);
+    }
+
+    public static Timestamp toTimestamp(long millis) {
+        long seconds = Math.floorDiv(millis, 1000L);
+        int nanos = (int) Math.floorMod(millis, 1000L) * 1_000_000;
+        return new Timestamp(seconds, nanos);
+    }
+
+    static long toMillis(@Nullable Timestamp timestamp) {
+        if (timestamp == null) return 0;
+        return timestamp.getSeconds() * 1000L + timestamp.getNanoseconds() / 1_000_000;
+    }
+
+    private static int readInt(DocumentSnapshot document, String field) {
+        Long value = document.getLong(field);
+        return value != null ? value.intValue() : 0;
+    }
+
+    private static int readInt(@Nullable Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.smartaquarium.data.datasource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Decodes a batch of Firestore documents into model objects.
+ * It is called from the data source's background listener executor, so the
+ * (potentially reflection-heavy) per-document work never runs on the UI thread.
+ */
+public final class DocumentDecoder {
+
+    private DocumentDecoder() {}
+
+    /**
+     * Applies {@code decoder} to every document, skipping documents that decode to null.
+     *
+     * @param documents The raw documents of a snapshot.
+     * @param decoder   The function that turns one document into a model object.
+     * @return A new list with every successfully decoded object, in snapshot order.
+     */
+    public static <S, T> List<T> decodeAll(List<S> documents, Function<S, T> decoder) {
+        List<T> decoded = new ArrayList<>(documents.size());
+        for (S document : documents) {
+            T item = decoder.apply(document);
+            if (item != null) {
+                decoded.add(item);
+            }
+        }
+        return decoded;
+    }
+}
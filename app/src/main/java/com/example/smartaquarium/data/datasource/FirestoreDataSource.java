@@ -7,14 +7,18 @@ import androidx.lifecycle.MutableLiveData;
 import com.example.smartaquarium.data.model.Aquarium;
 import com.example.smartaquarium.data.model.AquariumData;
 import com.example.smartaquarium.data.model.UserSettings; // Import the UserSettings model
+import com.example.smartaquarium.utils.metrics.MetricsRegistry;
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
 import com.google.firebase.firestore.DocumentReference;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
 
 
 import java.util.ArrayList;
@@ -22,6 +26,11 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
 
 /**
  * Handles all direct data operations with the Google Firestore database.
@@ -38,8 +47,76 @@ public class FirestoreDataSource {
     private static final String COLLECTION_USERS = "users";
     private static final String COLLECTION_AQUARIUMS = "aquariums";
     private static final String COLLECTION_HISTORY = "history";
+    private static final String COLLECTION_HISTORY_SUMMARY = "historySummary";
+    private static final String AQUARIUM_DATA_SUMMARY_COLLECTION = "aquariumDataSummary";
+
+    /** Passed to {@link #getAquariumHistoryPage} to start from the newest or oldest document. */
+    public static final long NO_CURSOR = Long.MIN_VALUE;
+    /** Firestore's limit on operations in one batched write. */
+    public static final int MAX_BATCH_WRITES = 500;
+
     private final FirebaseFirestore firestoreDatabase;
 
+    // Snapshot callbacks are delivered and decoded here; only finished results reach the main thread.
+    // A single thread keeps every listener's snapshots in order.
+    private final ExecutorService listenerExecutor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "FirestoreListenerThread"));
+
+    // One snapshot listener per document/collection, shared by every caller in the process
+    private final Map<String, LiveData<UserSettings>> settingsByUser = new HashMap<>();
+    private final Map<String, LiveData<List<Aquarium>>> aquariumsByUser = new HashMap<>();
+    private final Map<String, AquariumsFeed> aquariumFeedsByUser = new HashMap<>();
+    private final Map<String, List<ListenerRegistration>> registrationsByUser = new HashMap<>();
+
+    /**
+     * Receives the snapshots of the shared aquariums listener, on the listener thread.
+     */
+    public interface AquariumsSnapshotListener {
+        /**
+         * @param full True on the first call to this listener: {@code snapshot} is then the whole
+         *             collection and its documents replace anything known before. Afterwards only
+         *             {@link QuerySnapshot#getDocumentChanges()} is new.
+         */
+        void onAquariumsSnapshot(QuerySnapshot snapshot, boolean full);
+    }
+
+    /**
+     * Everything that follows one user's aquariums listener besides the list LiveData.
+     */
+    private static final class AquariumsFeed {
+        final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+        // Listener thread only
+        QuerySnapshot last;
+
+        /**
+         * Runs on the listener thread.
+         */
+        void deliver(QuerySnapshot snapshot) {
+            last = snapshot;
+            for (Subscription subscription : subscriptions) {
+                subscription.deliver(snapshot);
+            }
+        }
+    }
+
+    private static final class Subscription {
+        final AquariumsSnapshotListener listener;
+        volatile boolean removed;
+        // Listener thread only
+        boolean primed;
+
+        Subscription(AquariumsSnapshotListener listener) {
+            this.listener = listener;
+        }
+
+        void deliver(QuerySnapshot snapshot) {
+            if (removed) return;
+            boolean full = !primed;
+            primed = true;
+            listener.onAquariumsSnapshot(snapshot, full);
+        }
+    }
+
     /**
      * Public constructor for the data source.
      */
@@ -78,24 +155,18 @@ public class FirestoreDataSource {
         firestoreDatabase.collection(USERS_COLLECTION)
                 .document(userId)
                 .collection(AQUARIUM_DATA_COLLECTION)
-                .orderBy("timestamp", Query.Direction.ASCENDING)
-                .addSnapshotListener((snapshot, e) -> {
+                .orderBy(AquariumDataCodec.FIELD_TIMESTAMP, Query.Direction.ASCENDING)
+                .addSnapshotListener(listenerExecutor, (snapshot, e) -> {
                     if (e != null) {
                         Log.e(TAG, "Error listening to aquarium data", e);
                         return;
                     }
 
                     if (snapshot != null && !snapshot.isEmpty()) {
-                        List<AquariumData> dataList = new ArrayList<>();
-                        for (DocumentSnapshot doc : snapshot.getDocuments()) {
-                            AquariumData data = doc.toObject(AquariumData.class);
-                            if (data != null) {
-                                dataList.add(data);
-                            }
-                        }
-                        liveData.setValue(dataList);
+                        liveData.postValue(DocumentDecoder.decodeAll(snapshot.getDocuments(),
+                                AquariumDataCodec::decode));
                     } else {
-                        liveData.setValue(Collections.emptyList());
+                        liveData.postValue(Collections.emptyList());
                     }
                 });
 
@@ -105,7 +176,7 @@ public class FirestoreDataSource {
      * Fetches the list of all aquarium IDs/Names for a specific user.
      * Path: users/{userId}/aquariums/
      */
-    public LiveData<List<Aquarium>> getListOfAquariums(String userId) {
+    public synchronized LiveData<List<Aquarium>> getListOfAquariums(String userId) {
         MutableLiveData<List<Aquarium>> aquariumListLiveData = new MutableLiveData<>();
 
         if (isInvalid(userId)) {
@@ -113,76 +184,311 @@ public class FirestoreDataSource {
             return aquariumListLiveData;
         }
 
-        firestoreDatabase.collection(COLLECTION_USERS)
+        LiveData<List<Aquarium>> existing = aquariumsByUser.get(userId);
+        if (existing != null) {
+            return existing;
+        }
+        aquariumsByUser.put(userId, aquariumListLiveData);
+        AquariumsFeed feed = new AquariumsFeed();
+        aquariumFeedsByUser.put(userId, feed);
+
+        track(userId, firestoreDatabase.collection(COLLECTION_USERS)
                 .document(userId)
                 .collection(COLLECTION_AQUARIUMS)
-                .addSnapshotListener((value, error) -> {
+                .addSnapshotListener(listenerExecutor, (value, error) -> {
                     if (error != null) {
                         Log.e(TAG, "Error listening to aquarium list updates", error);
                         return;
                     }
-
-                    List<Aquarium> aquariumList = new ArrayList<>();
-                    if (value != null) {
-                        for (QueryDocumentSnapshot document : value) {
-                            // Extract the name from the document and the ID from the document reference
-                            String tankName = document.getString("name");
-                            // Fallback to document ID if name field is missing
-                            if (tankName == null) tankName = document.getId();
-
-                            Aquarium aquarium = new Aquarium(document.getId(), tankName);
-                            aquariumList.add(aquarium);
-                        }
+                    if (value != null) feed.deliver(value);
+
+                    List<Aquarium> aquariumList = value == null
+                            ? new ArrayList<>()
+                            : DocumentDecoder.decodeAll(value.getDocuments(), AquariumCodec::decode);
+                    // Every persisted sample updates its aquarium's latest reading, but list
+                    // observers only care about which tanks exist and what they are called
+                    if (!AquariumCodec.sameIdsAndNames(aquariumList, aquariumListLiveData.getValue())) {
+                        aquariumListLiveData.postValue(aquariumList);
                     }
-                    aquariumListLiveData.setValue(aquariumList);
-                });
+                }));
 
         return aquariumListLiveData;
     }
+    /**
+     * Follows every snapshot of the same listener as {@link #getListOfAquariums}, including
+     * changes to each tank's latest reading that the list LiveData leaves out, without another
+     * listener on the collection. The first call gets the current collection as soon as it is
+     * known.
+     */
+    public synchronized void addAquariumsSnapshotListener(String userId, AquariumsSnapshotListener listener) {
+        if (isInvalid(userId)) {
+            Log.e(TAG, "Cannot follow the aquariums of an invalid user ID.");
+            return;
+        }
+        getListOfAquariums(userId);
+        AquariumsFeed feed = aquariumFeedsByUser.get(userId);
+        Subscription subscription = new Subscription(listener);
+        feed.subscriptions.add(subscription);
+        // A listener added after the first snapshot catches up from the last one
+        listenerExecutor.execute(() -> {
+            if (!subscription.primed && feed.last != null) subscription.deliver(feed.last);
+        });
+    }
+
+    public synchronized void removeAquariumsSnapshotListener(String userId, AquariumsSnapshotListener listener) {
+        AquariumsFeed feed = aquariumFeedsByUser.get(userId);
+        if (feed == null) return;
+        for (Subscription subscription : feed.subscriptions) {
+            if (subscription.listener == listener) {
+                subscription.removed = true;
+                feed.subscriptions.remove(subscription);
+            }
+        }
+    }
+
     /**
      * Fetches the historical sensor data for a specific aquarium.
      * Path: users/{userId}/aquariums/{aquariumId}/history
+     * <p>
+     * The snapshot listener is only attached while the LiveData is observed, so a history
+     * that is no longer shown stops costing reads and memory.
      */
     public LiveData<List<AquariumData>> getAquariumHistory(String userId, String aquariumId) {
-        MutableLiveData<List<AquariumData>> historyLiveData = new MutableLiveData<>();
+        return listenToHistory(historyCollection(userId, aquariumId)
+                .orderBy(AquariumDataCodec.FIELD_TIMESTAMP, Query.Direction.ASCENDING));
+    }
 
-        firestoreDatabase.collection(COLLECTION_USERS)
-                .document(userId)
-                .collection(COLLECTION_AQUARIUMS)
-                .document(aquariumId)
-                .collection(COLLECTION_HISTORY)
-                .orderBy("timestamp", Query.Direction.ASCENDING)
-                .addSnapshotListener((value, error) -> {
+    /**
+     * Like {@link #getAquariumHistory}, but only for samples newer than {@code sinceMillis},
+     * so a bounded chart never listens to (and pays for) the rest of the history.
+     */
+    public LiveData<List<AquariumData>> getAquariumHistoryWindow(String userId, String aquariumId,
+                                                                 long sinceMillis) {
+        return listenToHistory(historyCollection(userId, aquariumId)
+                .whereGreaterThan(AquariumDataCodec.FIELD_TIMESTAMP, AquariumDataCodec.toTimestamp(sinceMillis))
+                .orderBy(AquariumDataCodec.FIELD_TIMESTAMP, Query.Direction.ASCENDING));
+    }
+
+    private LiveData<List<AquariumData>> listenToHistory(Query query) {
+        return new MutableLiveData<List<AquariumData>>() {
+            private ListenerRegistration registration;
+
+            @Override
+            protected void onActive() {
+                registration = query.addSnapshotListener(listenerExecutor, (value, error) -> {
                     if (error != null) {
                         Log.e(TAG, "Error fetching aquarium history", error);
                         return;
                     }
 
-                    List<AquariumData> historyItems = new ArrayList<>();
-                    if (value != null) {
-                        for (QueryDocumentSnapshot document : value) {
-                            AquariumData data = document.toObject(AquariumData.class);
-                            historyItems.add(data);
-                        }
-                    }
-                    historyLiveData.setValue(historyItems);
+                    List<AquariumData> historyItems = value == null
+                            ? new ArrayList<>()
+                            : DocumentDecoder.decodeAll(value.getDocuments(), AquariumDataCodec::decode);
+                    postValue(historyItems);
                 });
+            }
 
-        return historyLiveData;
+            @Override
+            protected void onInactive() {
+                registration.remove();
+                registration = null;
+            }
+        };
     }
 
     /**
-     * Saves new sensor data to the specific aquarium's history collection.
+     * Fetches one page of an aquarium's history, keyed by the {@code timestamp} field.
+     * The page starts strictly after {@code cursorMillis} (or at the newest/oldest document
+     * when {@code cursorMillis} is {@link #NO_CURSOR}) and is always returned oldest-first.
+     * <p>
+     * Ranges that have been compacted come from {@code historySummary}, one mean sample per
+     * bucket (see {@link HistorySummaryCodec#decodeSample}). Summaries only cover time before
+     * the remaining raw samples, so a page walking back tops up from them once raw history runs
+     * out, and a page walking forward reads them before raw history.
+     *
+     * @param older True to walk back in time from the cursor, false to walk forward.
+     * @param pageSize Maximum number of documents in the page.
      */
-    public void saveDataToAquarium(String userId, String aquariumId, AquariumData data) {
-        firestoreDatabase.collection(COLLECTION_USERS)
+    public Task<List<AquariumData>> getAquariumHistoryPage(String userId, String aquariumId,
+                                                           long cursorMillis, boolean older, int pageSize) {
+        CollectionReference raw = historyCollection(userId, aquariumId);
+        CollectionReference summaries = historySummaryCollection(userId, aquariumId);
+        boolean summariesFirst = !older;
+
+        return fetchPage(summariesFirst ? summaries : raw, summariesFirst, cursorMillis, older, pageSize)
+                .continueWithTask(listenerExecutor, task -> {
+                    List<AquariumData> page = task.getResult();
+                    if (page.size() >= pageSize) return Tasks.forResult(inTimeOrder(page, older));
+
+                    long nextCursor = page.isEmpty() ? cursorMillis : page.get(page.size() - 1).getTimeMillis();
+                    return fetchPage(summariesFirst ? raw : summaries, !summariesFirst, nextCursor, older,
+                            pageSize - page.size())
+                            .continueWith(listenerExecutor, rest -> {
+                                page.addAll(rest.getResult());
+                                return inTimeOrder(page, older);
+                            });
+                });
+    }
+
+    /**
+     * @return Up to {@code limit} decoded documents after the cursor, in query order.
+     */
+    private Task<List<AquariumData>> fetchPage(CollectionReference collection, boolean summaries,
+                                               long cursorMillis, boolean older, int limit) {
+        Query query = collection.orderBy(AquariumDataCodec.FIELD_TIMESTAMP,
+                older ? Query.Direction.DESCENDING : Query.Direction.ASCENDING);
+        if (cursorMillis != NO_CURSOR) {
+            query = query.startAfter(AquariumDataCodec.toTimestamp(cursorMillis));
+        }
+        Function<DocumentSnapshot, AquariumData> decoder = summaries
+                ? HistorySummaryCodec::decodeSample
+                : AquariumDataCodec::decode;
+
+        return query.limit(limit)
+                .get()
+                .continueWith(listenerExecutor, task -> DocumentDecoder.decodeAll(
+                        task.getResult().getDocuments(), decoder));
+    }
+
+    private static List<AquariumData> inTimeOrder(List<AquariumData> page, boolean older) {
+        if (older) {
+            Collections.reverse(page);
+        }
+        return page;
+    }
+
+    /**
+     * One-shot fetch of an aquarium's history newer than {@code sinceMillis} (or all of it for
+     * {@link #NO_CURSOR}), oldest first and capped at the newest {@code limit} documents.
+     */
+    public Task<List<AquariumData>> getAquariumHistorySince(String userId, String aquariumId,
+                                                            long sinceMillis, int limit) {
+        Query query = firestoreDatabase.collection(COLLECTION_USERS)
                 .document(userId)
                 .collection(COLLECTION_AQUARIUMS)
                 .document(aquariumId)
                 .collection(COLLECTION_HISTORY)
-                .add(data)
-                .addOnSuccessListener(documentReference -> Log.d(TAG, "Data saved to aquarium: " + aquariumId))
-                .addOnFailureListener(e -> Log.e(TAG, "Error saving data", e));
+                .orderBy(AquariumDataCodec.FIELD_TIMESTAMP, Query.Direction.ASCENDING);
+        if (sinceMillis != NO_CURSOR) {
+            query = query.whereGreaterThan(AquariumDataCodec.FIELD_TIMESTAMP,
+                    AquariumDataCodec.toTimestamp(sinceMillis));
+        }
+
+        return query.limitToLast(limit)
+                .get()
+                .continueWith(listenerExecutor, task -> DocumentDecoder.decodeAll(
+                        task.getResult().getDocuments(), AquariumDataCodec::decode));
+    }
+
+    /**
+     * Saves new sensor data to the specific aquarium's history collection.
+     * The write is idempotent: retrying or replaying a sample overwrites the same document.
+     */
+    public void saveDataToAquarium(String userId, String aquariumId, AquariumData data) {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        long saveStart = metrics.startTimer();
+
+        // The aquarium document mirrors the newest reading for the dashboard grid
+        long timeMillis = sampleTime(data);
+        Map<String, Object> fields = encodeAt(data, timeMillis);
+        WriteBatch batch = firestoreDatabase.batch();
+        batch.set(historyCollection(userId, aquariumId).document(AquariumDataCodec.documentIdFor(timeMillis)), fields);
+        batch.set(aquariumsCollection(userId).document(aquariumId), AquariumCodec.encodeLatest(fields), SetOptions.merge());
+        batch.commit()
+                .addOnSuccessListener(listenerExecutor, unused -> {
+                    metrics.recordSince(MetricsRegistry.SAVE_LATENCY, saveStart);
+                    Log.d(TAG, "Data saved to aquarium: " + aquariumId);
+                })
+                .addOnFailureListener(listenerExecutor, e -> {
+                    metrics.increment(MetricsRegistry.SAVE_FAILURES);
+                    Log.e(TAG, "Error saving data", e);
+                });
+    }
+
+    /**
+     * Sets a sample at its time-keyed document, stamping samples without a time with the
+     * current time so every history document has the indexed timestamp field.
+     */
+    private Task<Void> writeSample(CollectionReference collection, AquariumData data) {
+        long timeMillis = sampleTime(data);
+        return collection.document(AquariumDataCodec.documentIdFor(timeMillis)).set(encodeAt(data, timeMillis));
+    }
+
+    private static long sampleTime(AquariumData data) {
+        return data.hasTime() ? data.getTimeMillis() : System.currentTimeMillis();
+    }
+
+    private static Map<String, Object> encodeAt(AquariumData data, long timeMillis) {
+        Map<String, Object> fields = AquariumDataCodec.encode(data);
+        fields.put(AquariumDataCodec.FIELD_TIMESTAMP, AquariumDataCodec.toTimestamp(timeMillis));
+        return fields;
+    }
+
+    /**
+     * Writes samples to an aquarium's history in one {@link WriteBatch} (at most
+     * {@link #MAX_BATCH_WRITES} samples). Document IDs come from the sample time, so
+     * committing the same samples again leaves the collection unchanged.
+     */
+    public Task<Void> writeHistoryBatch(String userId, String aquariumId, List<AquariumData> samples) {
+        if (samples.size() > MAX_BATCH_WRITES) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_WRITES + " writes per batch");
+        }
+        CollectionReference history = historyCollection(userId, aquariumId);
+        WriteBatch batch = firestoreDatabase.batch();
+        for (AquariumData sample : samples) {
+            batch.set(history.document(AquariumDataCodec.documentIdFor(sample.getTimeMillis())),
+                    AquariumDataCodec.encode(sample));
+        }
+        return batch.commit();
+    }
+
+    /**
+     * The thread this class delivers and decodes snapshots on. Callers that register their own
+     * listeners on the references below pass it too, so their decoding stays off the main thread.
+     */
+    public Executor getListenerExecutor() {
+        return listenerExecutor;
+    }
+
+    // --- References used by background jobs ---
+
+    /** Path: users/{userId}/aquariums */
+    public CollectionReference aquariumsCollection(String userId) {
+        return firestoreDatabase.collection(COLLECTION_USERS)
+                .document(userId)
+                .collection(COLLECTION_AQUARIUMS);
+    }
+
+    /** Raw samples. Path: users/{userId}/aquariums/{aquariumId}/history */
+    public CollectionReference historyCollection(String userId, String aquariumId) {
+        return aquariumsCollection(userId).document(aquariumId).collection(COLLECTION_HISTORY);
+    }
+
+    /** Compacted buckets of old samples. Path: users/{userId}/aquariums/{aquariumId}/historySummary */
+    public CollectionReference historySummaryCollection(String userId, String aquariumId) {
+        return aquariumsCollection(userId).document(aquariumId).collection(COLLECTION_HISTORY_SUMMARY);
+    }
+
+    /** Path: users/{userId}/settings/userSettings */
+    public DocumentReference settingsDocument(String userId) {
+        return firestoreDatabase.collection(USERS_COLLECTION)
+                .document(userId)
+                .collection(SETTINGS_COLLECTION)
+                .document(SETTINGS_DOCUMENT_NAME);
+    }
+
+    /** Legacy per-user samples. Path: users/{userId}/aquariumData */
+    public CollectionReference legacyDataCollection(String userId) {
+        return firestoreDatabase.collection(USERS_COLLECTION)
+                .document(userId)
+                .collection(AQUARIUM_DATA_COLLECTION);
+    }
+
+    /** Compacted buckets of old legacy samples. Path: users/{userId}/aquariumDataSummary */
+    public CollectionReference legacyDataSummaryCollection(String userId) {
+        return firestoreDatabase.collection(USERS_COLLECTION)
+                .document(userId)
+                .collection(AQUARIUM_DATA_SUMMARY_COLLECTION);
     }
 
     /**
@@ -209,22 +515,11 @@ public class FirestoreDataSource {
 
         Log.i(TAG, "Adding new aquarium data for userId: " + userId);
 
-        Map<String, Object> dataMap = new HashMap<>();
-        dataMap.put("temperature", data.getTemperature());
-        dataMap.put("ph", data.getPh());
-        dataMap.put("oxygen", data.getOxygen());
-        dataMap.put("waterLevel", data.getWaterLevel());
-        dataMap.put("date", data.getDate());
-        // Use a server-side timestamp to ensure chronological order and consistency
-        dataMap.put("timestamp", FieldValue.serverTimestamp());
-
-        firestoreDatabase.collection(USERS_COLLECTION)
-                .document(userId)
-                .collection(AQUARIUM_DATA_COLLECTION)
-                .add(dataMap)
-                .addOnSuccessListener(documentRef ->
-                        Log.d(TAG, "Aquarium data added successfully: " + documentRef.getId()))
-                .addOnFailureListener(e ->
+        // Same time-keyed ID and sample-time timestamp as history, so retries never duplicate
+        writeSample(legacyDataCollection(userId), data)
+                .addOnSuccessListener(listenerExecutor, unused ->
+                        Log.d(TAG, "Aquarium data added successfully"))
+                .addOnFailureListener(listenerExecutor, e ->
                         Log.e(TAG, "Error adding aquarium data", e));
     }
 
@@ -237,7 +532,7 @@ public class FirestoreDataSource {
      * @param userId The ID of the user whose settings to fetch.
      * @return A LiveData object that will contain the UserSettings.
      */
-    public LiveData<UserSettings> getUserSettings(String userId) {
+    public synchronized LiveData<UserSettings> getUserSettings(String userId) {
         MutableLiveData<UserSettings> settingsLiveData = new MutableLiveData<>();
 
         if (isInvalid(userId)) {
@@ -246,34 +541,74 @@ public class FirestoreDataSource {
             return settingsLiveData;
         }
 
+        LiveData<UserSettings> existing = settingsByUser.get(userId);
+        if (existing != null) {
+            return existing;
+        }
+        settingsByUser.put(userId, settingsLiveData);
+
         DocumentReference settingsDocRef = firestoreDatabase
                 .collection(USERS_COLLECTION)
                 .document(userId)
                 .collection(SETTINGS_COLLECTION)
                 .document(SETTINGS_DOCUMENT_NAME);
 
-        settingsDocRef.addSnapshotListener((snapshot, error) -> {
+        track(userId, settingsDocRef.addSnapshotListener(listenerExecutor, (snapshot, error) -> {
             if (error != null) {
                 Log.e(TAG, "Listen failed for user settings.", error);
-                settingsLiveData.setValue(new UserSettings()); // Return default on error
+                settingsLiveData.postValue(new UserSettings()); // Return default on error
                 return;
             }
 
             if (snapshot != null && snapshot.exists()) {
-                UserSettings settings = snapshot.toObject(UserSettings.class);
+                UserSettings settings = UserSettingsCodec.decode(snapshot);
                 Log.i(TAG, "getUserSettings: "+settings.getMinTemperature());
-                settingsLiveData.setValue(settings);
+                settingsLiveData.postValue(settings);
                 Log.d(TAG, "User settings loaded successfully from Firestore.");
             } else {
                 // If no settings document exists yet for the user, provide a default one.
                 Log.d(TAG, "No settings document found for user, providing defaults.");
-                settingsLiveData.setValue(new UserSettings());
+                settingsLiveData.postValue(new UserSettings());
             }
-        });
+        }));
 
         return settingsLiveData;
     }
 
+    private void track(String userId, ListenerRegistration registration) {
+        List<ListenerRegistration> registrations = registrationsByUser.get(userId);
+        if (registrations == null) {
+            registrations = new ArrayList<>();
+            registrationsByUser.put(userId, registrations);
+        }
+        registrations.add(registration);
+    }
+
+    /**
+     * Removes the shared settings and aquarium listeners of {@code userId} and forgets their
+     * LiveData, so the next lookup starts fresh listeners. Call it before signing the user out:
+     * once the permissions are gone the listeners fail, and Firestore drops a listener after
+     * an error, which would leave a dead LiveData cached for the user's next sign-in.
+     */
+    public synchronized void release(String userId) {
+        List<ListenerRegistration> registrations = registrationsByUser.remove(userId);
+        if (registrations != null) {
+            for (ListenerRegistration registration : registrations) {
+                registration.remove();
+            }
+        }
+        settingsByUser.remove(userId);
+        aquariumsByUser.remove(userId);
+        AquariumsFeed feed = aquariumFeedsByUser.remove(userId);
+        if (feed != null) {
+            for (Subscription subscription : feed.subscriptions) {
+                subscription.removed = true;
+            }
+            feed.subscriptions.clear();
+        }
+        Log.d(TAG, "Released the listeners of " + userId);
+    }
+
     /**
      * Saves a user's settings to a specific document in Firestore.
      * The .set() method creates the document if it doesn't exist or overwrites it if it does.
@@ -294,7 +629,7 @@ public class FirestoreDataSource {
                 .document(SETTINGS_DOCUMENT_NAME);
 
         // The .set() method is perfect for settings, as it handles both creation and updates.
-        return settingsDocRef.set(settingsToSave)
+        return settingsDocRef.set(UserSettingsCodec.encode(settingsToSave))
                 .addOnSuccessListener(aVoid ->
                         Log.d(TAG, "User settings saved successfully for user: " + userId))
                 .addOnFailureListener(e ->
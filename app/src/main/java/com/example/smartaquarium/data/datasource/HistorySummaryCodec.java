@@ -0,0 +1,81 @@
+package com.example.smartaquarium.data.datasource;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.smartaquarium.data.model.AquariumData;
+import com.example.smartaquarium.data.model.HistorySummary;
+import com.example.smartaquarium.utils.enums.EnumSensorMetric;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A hand-written, reflection-free codec for {@link HistorySummary}.
+ * Per-metric fields are named after the raw sample fields, e.g. {@code temperatureSum}.
+ */
+public final class HistorySummaryCodec {
+
+    private static final String FIELD_BUCKET_MILLIS = "bucketMillis";
+    private static final String FIELD_COUNT = "count";
+    private static final String[] METRIC_FIELDS = {
+            AquariumDataCodec.FIELD_TEMPERATURE,
+            AquariumDataCodec.FIELD_PH,
+            AquariumDataCodec.FIELD_OXYGEN,
+            AquariumDataCodec.FIELD_WATER_LEVEL
+    };
+
+    private HistorySummaryCodec() {}
+
+    /**
+     * @return The stored summary, or null if the document does not exist.
+     */
+    @Nullable
+    public static HistorySummary decode(@NonNull DocumentSnapshot document) {
+        if (!document.exists()) return null;
+
+        HistorySummary summary = new HistorySummary(
+                AquariumDataCodec.toMillis(document.getTimestamp(AquariumDataCodec.FIELD_TIMESTAMP)),
+                readLong(document, FIELD_BUCKET_MILLIS));
+        summary.count = (int) readLong(document, FIELD_COUNT);
+        for (EnumSensorMetric metric : EnumSensorMetric.values()) {
+            int i = metric.ordinal();
+            summary.sums[i] = readLong(document, METRIC_FIELDS[i] + "Sum");
+            summary.mins[i] = (int) readLong(document, METRIC_FIELDS[i] + "Min");
+            summary.maxs[i] = (int) readLong(document, METRIC_FIELDS[i] + "Max");
+        }
+        return summary;
+    }
+
+    /**
+     * @return The bucket as one mean sample (see {@link HistorySummary#toSample()}), or null
+     * if the document does not exist or covers no samples.
+     */
+    @Nullable
+    public static AquariumData decodeSample(@NonNull DocumentSnapshot document) {
+        HistorySummary summary = decode(document);
+        return summary != null && summary.count > 0 ? summary.toSample() : null;
+    }
+
+    @NonNull
+    public static Map<String, Object> encode(@NonNull HistorySummary summary) {
+        Map<String, Object> fields = new HashMap<>(16);
+        // Same time field as raw samples, so summaries can be queried the same way
+        fields.put(AquariumDataCodec.FIELD_TIMESTAMP, AquariumDataCodec.toTimestamp(summary.bucketStartMillis));
+        fields.put(FIELD_BUCKET_MILLIS, summary.bucketMillis);
+        fields.put(FIELD_COUNT, summary.count);
+        for (EnumSensorMetric metric : EnumSensorMetric.values()) {
+            int i = metric.ordinal();
+            fields.put(METRIC_FIELDS[i] + "Sum", summary.sums[i]);
+            fields.put(METRIC_FIELDS[i] + "Min", summary.mins[i]);
+            fields.put(METRIC_FIELDS[i] + "Max", summary.maxs[i]);
+        }
+        return fields;
+    }
+
+    private static long readLong(DocumentSnapshot document, String field) {
+        Long value = document.getLong(field);
+        return value != null ? value : 0;
+    }
+}
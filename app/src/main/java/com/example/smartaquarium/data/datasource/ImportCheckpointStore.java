@@ -0,0 +1,37 @@
+package com.example.smartaquarium.data.datasource;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Remembers how far each bulk history import got, as the number of data rows of the source
+ * file that are known to be committed. An interrupted import resumes after that row.
+ */
+public class ImportCheckpointStore {
+
+    private static final String PREFERENCES_NAME = "import_checkpoints";
+
+    private final SharedPreferences preferences;
+
+    public ImportCheckpointStore(@NonNull Context context) {
+        this.preferences = context.getApplicationContext()
+                .getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * @return Rows already committed for this import, 0 if it never ran.
+     */
+    public long load(@NonNull String importKey) {
+        return preferences.getLong(importKey, 0);
+    }
+
+    public void save(@NonNull String importKey, long committedRows) {
+        preferences.edit().putLong(importKey, committedRows).apply();
+    }
+
+    public void clear(@NonNull String importKey) {
+        preferences.edit().remove(importKey).apply();
+    }
+}
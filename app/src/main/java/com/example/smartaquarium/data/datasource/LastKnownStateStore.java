@@ -0,0 +1,125 @@
+package com.example.smartaquarium.data.datasource;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.smartaquarium.data.model.Aquarium;
+import com.example.smartaquarium.data.model.AquariumData;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Persists a compact snapshot of the last known UI state (the aquarium list, the selected
+ * aquarium and the latest reading per tank) so the first frame after a cold start can be
+ * rendered synchronously, before Firestore or the sensor connection deliver anything.
+ * Writes use {@link SharedPreferences.Editor#apply()} and never block the caller.
+ */
+public class LastKnownStateStore {
+
+    private static final String TAG = "LastKnownStateStore";
+    private static final String PREFERENCES_NAME = "last_known_state";
+    private static final String KEY_AQUARIUMS = "aquariums";
+    private static final String KEY_SELECTED_AQUARIUM = "selected_aquarium";
+    private static final String KEY_LATEST_PREFIX = "latest_";
+
+    private static final char RECORD_SEPARATOR = '\n';
+    private static final char FIELD_SEPARATOR = '\t';
+
+    private final SharedPreferences preferences;
+
+    public LastKnownStateStore(@NonNull Context context) {
+        this.preferences = context.getApplicationContext()
+                .getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+
+    // --- Aquarium list ---
+
+    public void saveAquariums(@NonNull List<Aquarium> aquariums) {
+        StringBuilder builder = new StringBuilder();
+        for (Aquarium aquarium : aquariums) {
+            builder.append(sanitize(aquarium.getId()))
+                    .append(FIELD_SEPARATOR)
+                    .append(sanitize(aquarium.getName()))
+                    .append(RECORD_SEPARATOR);
+        }
+        preferences.edit().putString(KEY_AQUARIUMS, builder.toString()).apply();
+    }
+
+    @NonNull
+    public List<Aquarium> loadAquariums() {
+        List<Aquarium> aquariums = new ArrayList<>();
+        String encoded = preferences.getString(KEY_AQUARIUMS, null);
+        if (encoded == null || encoded.isEmpty()) {
+            return aquariums;
+        }
+
+        for (String record : encoded.split(String.valueOf(RECORD_SEPARATOR))) {
+            int separator = record.indexOf(FIELD_SEPARATOR);
+            if (separator > 0) {
+                aquariums.add(new Aquarium(record.substring(0, separator), record.substring(separator + 1)));
+            }
+        }
+        return aquariums;
+    }
+
+    // --- Selected aquarium ---
+
+    public void saveSelectedAquarium(@Nullable String aquariumId) {
+        preferences.edit().putString(KEY_SELECTED_AQUARIUM, aquariumId).apply();
+    }
+
+    @Nullable
+    public String loadSelectedAquarium() {
+        return preferences.getString(KEY_SELECTED_AQUARIUM, null);
+    }
+
+    // --- Latest reading per tank ---
+
+    public void saveLatestReading(@NonNull String aquariumId, @NonNull AquariumData data) {
+        long time = data.hasTime() ? data.getTimeMillis() : System.currentTimeMillis();
+        String encoded = data.getTemperature() + "," + data.getPh() + "," + data.getOxygen() + ","
+                + data.getWaterLevel() + "," + time;
+        preferences.edit().putString(KEY_LATEST_PREFIX + aquariumId, encoded).apply();
+    }
+
+    @Nullable
+    public AquariumData loadLatestReading(@Nullable String aquariumId) {
+        if (aquariumId == null) return null;
+
+        String encoded = preferences.getString(KEY_LATEST_PREFIX + aquariumId, null);
+        if (encoded == null) return null;
+
+        String[] fields = encoded.split(",");
+        if (fields.length != 5) return null;
+
+        try {
+            AquariumData data = new AquariumData();
+            data.setTemperature(Integer.parseInt(fields[0]));
+            data.setPh(Integer.parseInt(fields[1]));
+            data.setOxygen(Integer.parseInt(fields[2]));
+            data.setWaterLevel(Integer.parseInt(fields[3]));
+            data.setTimeMillis(Long.parseLong(fields[4]));
+            return data;
+        } catch (NumberFormatException e) {
+            Log.w(TAG, "Discarding corrupt snapshot for aquarium: " + aquariumId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Removes every persisted value, e.g. when the user logs out.
+     */
+    public void clear() {
+        preferences.edit().clear().apply();
+    }
+
+    private static String sanitize(String value) {
+        if (value == null) return "";
+        return value.replace(FIELD_SEPARATOR, ' ').replace(RECORD_SEPARATOR, ' ');
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.smartaquarium.data.datasource;
+
+import androidx.annotation.NonNull;
+
+import com.example.smartaquarium.data.model.UserSettings;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A hand-written, reflection-free codec for {@link UserSettings}.
+ * Missing fields keep the defaults from the {@link UserSettings} constructor.
+ */
+public final class UserSettingsCodec {
+
+    private static final String FIELD_MIN_TEMPERATURE = "minTemperature";
+    private static final String FIELD_MAX_TEMPERATURE = "maxTemperature";
+    private static final String FIELD_MIN_PH = "minPh";
+    private static final String FIELD_MAX_PH = "maxPh";
+    private static final String FIELD_MIN_OXYGEN = "minOxygen";
+    private static final String FIELD_MAX_OXYGEN = "maxOxygen";
+    private static final String FIELD_MIN_WATER_LEVEL = "minWaterLevel";
+    private static final String FIELD_MAX_WATER_LEVEL = "maxWaterLevel";
+    private static final String FIELD_DND_START_HOUR = "doNotDisturbStartHour";
+    private static final String FIELD_DND_END_HOUR = "doNotDisturbEndHour";
+
+    private UserSettingsCodec() {}
+
+    @NonNull
+    public static UserSettings decode(@NonNull DocumentSnapshot document) {
+        UserSettings settings = new UserSettings();
+        if (!document.exists()) return settings;
+
+        settings.setMinTemperature(readDouble(document, FIELD_MIN_TEMPERATURE, settings.getMinTemperature()));
+        settings.setMaxTemperature(readDouble(document, FIELD_MAX_TEMPERATURE, settings.getMaxTemperature()));
+        settings.setMinPh(readDouble(document, FIELD_MIN_PH, settings.getMinPh()));
+        settings.setMaxPh(readDouble(document, FIELD_MAX_PH, settings.getMaxPh()));
+        settings.setMinOxygen(readDouble(document, FIELD_MIN_OXYGEN, settings.getMinOxygen()));
+        settings.setMaxOxygen(readDouble(document, FIELD_MAX_OXYGEN, settings.getMaxOxygen()));
+        settings.setMinWaterLevel(readDouble(document, FIELD_MIN_WATER_LEVEL, settings.getMinWaterLevel()));
+        settings.setMaxWaterLevel(readDouble(document, FIELD_MAX_WATER_LEVEL, settings.getMaxWaterLevel()));
+        settings.setDoNotDisturbStartHour(readInt(document, FIELD_DND_START_HOUR, settings.getDoNotDisturbStartHour()));
+        settings.setDoNotDisturbEndHour(readInt(document, FIELD_DND_END_HOUR, settings.getDoNotDisturbEndHour()));
+        return settings;
+    }
+
+    @NonNull
+    public static Map<String, Object> encode(@NonNull UserSettings settings) {
+        Map<String, Object> fields = new HashMap<>(16);
+        fields.put(FIELD_MIN_TEMPERATURE, settings.getMinTemperature());
+        fields.put(FIELD_MAX_TEMPERATURE, settings.getMaxTemperature());
+        fields.put(FIELD_MIN_PH, settings.getMinPh());
+        fields.put(FIELD_MAX_PH, settings.getMaxPh());
+        fields.put(FIELD_MIN_OXYGEN, settings.getMinOxygen());
+        fields.put(FIELD_MAX_OXYGEN, settings.getMaxOxygen());
+        fields.put(FIELD_MIN_WATER_LEVEL, settings.getMinWaterLevel());
+        fields.put(FIELD_MAX_WATER_LEVEL, settings.getMaxWaterLevel());
+        fields.put(FIELD_DND_START_HOUR, settings.getDoNotDisturbStartHour());
+        fields.put(FIELD_DND_END_HOUR, settings.getDoNotDisturbEndHour());
+        return fields;
+    }
+
+    private static double readDouble(DocumentSnapshot document, String field, double fallback) {
+        Double value = document.getDouble(field);
+        return value != null ? value : fallback;
+    }
+
+    private static int readInt(DocumentSnapshot document, String field, int fallback) {
+        Long value = document.getLong(field);
+        return value != null ? value.intValue() : fallback;
+    }
+}
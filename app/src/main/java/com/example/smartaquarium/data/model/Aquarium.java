@@ -1,11 +1,16 @@
 package com.example.smartaquarium.data.model;
 
+import androidx.annotation.Nullable;
+
 /**
  * Data model representing an individual Aquarium.
  */
 public class Aquarium {
     private String id;
     private String name;
+    // Copy of the most recent persisted reading, null if the tank never reported
+    @Nullable
+    private AquariumData latestReading;
 
     // Required empty constructor for Firestore toObject()
     public Aquarium() {}
@@ -30,4 +35,24 @@ public class Aquarium {
     public void setName(String name) {
         this.name = name;
     }
-}
\ No newline at end of file
+
+    @Nullable
+    public AquariumData getLatestReading() {
+        return latestReading;
+    }
+
+    public void setLatestReading(@Nullable AquariumData latestReading) {
+        this.latestReading = latestReading;
+    }
+
+    /**
+     * @return True if {@code other} is the same tank with the same name and latest reading.
+     */
+    public boolean sameContentAs(Aquarium other) {
+        if (other == this) return true;
+        if (other == null || !id.equals(other.id) || !name.equals(other.name)) return false;
+        return latestReading == null
+                ? other.latestReading == null
+                : latestReading.sameReadingAs(other.latestReading);
+    }
+}
@@ -1,26 +1,40 @@
 package com.example.smartaquarium.data.model;
 
 
+import com.example.smartaquarium.utils.interfaces.IClock;
 
 import java.util.Date;
 
+/**
+ * A single sensor reading.
+ * The sample time is kept as epoch milliseconds rather than a {@link Date}; Firestore
+ * reads and writes go through {@link com.example.smartaquarium.data.datasource.AquariumDataCodec}.
+ */
 public class AquariumData {
     public int temperature;
     public int ph;
     public int oxygen;
     public int waterLevel;
-    public Date date;
+    // Epoch milliseconds of the sample, 0 when unknown
+    public long timeMillis;
 
-    // No‑argument constructor required by Firestore
+    // No‑argument constructor used by the codec
     public AquariumData() {}
 
-    // Constructor for convenience
+    // Constructor for convenience, stamped with the system clock
     public AquariumData(int temperature, int ph, int oxygen, int waterLevel) {
+        this(temperature, ph, oxygen, waterLevel, IClock.SYSTEM);
+    }
+
+    /**
+     * @param clock Stamps the reading with its current time.
+     */
+    public AquariumData(int temperature, int ph, int oxygen, int waterLevel, IClock clock) {
         this.temperature = temperature;
         this.ph = ph;
         this.oxygen = oxygen;
         this.waterLevel = waterLevel;
-        this.date = new Date(); // Initialize with current time
+        this.timeMillis = clock.currentTimeMillis();
     }
 
     public int getTemperature() {
@@ -55,12 +69,54 @@ public class AquariumData {
         this.waterLevel = waterLevel;
     }
 
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    public void setTimeMillis(long timeMillis) {
+        this.timeMillis = timeMillis;
+    }
+
+    public boolean hasTime() {
+        return timeMillis > 0;
+    }
+
+    /**
+     * Convenience accessor that allocates a new {@link Date}; prefer {@link #getTimeMillis()} on hot paths.
+     *
+     * @return The sample time, or null if it is unknown.
+     */
     public Date getDate() {
-        return date;
+        return hasTime() ? new Date(timeMillis) : null;
     }
 
     public void setDate(Date date) {
-        this.date = date;
+        this.timeMillis = date != null ? date.getTime() : 0;
+    }
+
+    /**
+     * @return An independent copy of this reading.
+     */
+    public AquariumData copy() {
+        AquariumData copy = new AquariumData();
+        copy.temperature = temperature;
+        copy.ph = ph;
+        copy.oxygen = oxygen;
+        copy.waterLevel = waterLevel;
+        copy.timeMillis = timeMillis;
+        return copy;
+    }
+
+    /**
+     * @return True if {@code other} holds the same values taken at the same time.
+     */
+    public boolean sameReadingAs(AquariumData other) {
+        return other != null
+                && temperature == other.temperature
+                && ph == other.ph
+                && oxygen == other.oxygen
+                && waterLevel == other.waterLevel
+                && timeMillis == other.timeMillis;
     }
 
 }
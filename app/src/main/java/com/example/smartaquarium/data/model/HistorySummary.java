@@ -0,0 +1,53 @@
+package com.example.smartaquarium.data.model;
+
+import com.example.smartaquarium.utils.enums.EnumSensorMetric;
+
+/**
+ * Count, sum, min and max of every metric over one fixed time bucket of raw samples.
+ * Raw history older than the retention age is folded into these and then deleted.
+ */
+public class HistorySummary {
+
+    private static final int METRIC_COUNT = EnumSensorMetric.values().length;
+
+    public final long bucketStartMillis;
+    public final long bucketMillis;
+    public int count;
+    // Indexed by EnumSensorMetric ordinal
+    public final long[] sums = new long[METRIC_COUNT];
+    public final int[] mins = new int[METRIC_COUNT];
+    public final int[] maxs = new int[METRIC_COUNT];
+
+    public HistorySummary(long bucketStartMillis, long bucketMillis) {
+        this.bucketStartMillis = bucketStartMillis;
+        this.bucketMillis = bucketMillis;
+    }
+
+    public void add(AquariumData sample) {
+        for (EnumSensorMetric metric : EnumSensorMetric.values()) {
+            int i = metric.ordinal();
+            int value = metric.read(sample);
+            sums[i] += value;
+            mins[i] = count == 0 ? value : Math.min(mins[i], value);
+            maxs[i] = count == 0 ? value : Math.max(maxs[i], value);
+        }
+        count++;
+    }
+
+    public double meanOf(EnumSensorMetric metric) {
+        return count == 0 ? 0 : (double) sums[metric.ordinal()] / count;
+    }
+
+    /**
+     * @return One sample standing in for the whole bucket: the rounded mean of every
+     * metric, taken at the bucket start.
+     */
+    public AquariumData toSample() {
+        AquariumData sample = new AquariumData();
+        for (EnumSensorMetric metric : EnumSensorMetric.values()) {
+            metric.write(sample, (int) Math.round(meanOf(metric)));
+        }
+        sample.setTimeMillis(bucketStartMillis);
+        return sample;
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.smartaquarium.data.viewModel.analyics;
 
 import android.app.Application;
+import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
@@ -10,17 +11,29 @@ import androidx.lifecycle.ViewModelProvider;
 import androidx.lifecycle.ViewModelStoreOwner;
 import androidx.lifecycle.MediatorLiveData;
 
+import com.example.smartaquarium.data.AppContainer;
+import com.example.smartaquarium.data.datasource.FirestoreDataSource;
+import com.example.smartaquarium.data.model.Aquarium;
 import com.example.smartaquarium.data.model.AquariumData;
 import com.example.smartaquarium.data.viewModel.aquariumData.AquariumDataViewModel;
 import com.example.smartaquarium.ui.analyics.AnalyticsFragment;
-import com.github.mikephil.charting.data.Entry;
+import com.example.smartaquarium.utils.chart.PrimitiveLineDataSet;
+import com.example.smartaquarium.utils.chart.TimelineMerger;
+import com.example.smartaquarium.utils.interfaces.IClock;
+import com.example.smartaquarium.utils.metrics.MetricsRegistry;
 import com.github.mikephil.charting.data.LineData;
 import com.github.mikephil.charting.data.LineDataSet;
+import com.github.mikephil.charting.interfaces.datasets.ILineDataSet;
+import com.github.mikephil.charting.utils.ColorTemplate;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
 
 import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.Date;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 /**
@@ -29,16 +42,51 @@ import java.util.stream.Collectors;
  */
 public class AnalyticsViewModel extends AndroidViewModel {
 
+    private static final String TAG = "AnalyticsViewModel";
+
+    // Most points drawn in comparison mode, shared by all series
+    static final int MAX_CHART_POINTS = 1500;
+    // Newest documents fetched per aquarium in comparison mode
+    static final int COMPARE_FETCH_LIMIT = 5000;
+
     // --- Input LiveData ---
     private final MutableLiveData<AnalyticsFragment.DataType> selectedDataType = new MutableLiveData<>();
     private final MutableLiveData<AnalyticsFragment.DateFilter> selectedDateFilter = new MutableLiveData<>();
 
+    // --- Paged history (ALL_TIME) ---
+    private final MutableLiveData<List<AquariumData>> pagedHistory = new MutableLiveData<>();
+    private final HistoryPager historyPager;
+    private LiveData<String> aquariumIdSource;
+    private long pagedFirstPosition;
+
+    // --- Windowed history (the other filters) ---
+    // Only ever has the listener for the current filter's window as its source
+    private final MediatorLiveData<List<AquariumData>> windowedHistory = new MediatorLiveData<>();
+    private LiveData<List<AquariumData>> windowSource;
+    private String sourcedAquariumId;
+
+    // --- Comparison mode ---
+    private final MutableLiveData<List<Aquarium>> comparedAquariums = new MutableLiveData<>(new ArrayList<>());
+    private final ExecutorService mergeExecutor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "ChartMergeThread"));
+    private List<List<AquariumData>> comparisonHistories;
+    // Bumped on every refetch so late results for an older selection are dropped
+    private int comparisonGeneration;
+
+    private final AquariumDataViewModel aquariumDataViewModel;
+    private final IClock clock;
+
     // --- Output LiveData ---
     private final LiveData<LineData> processedChartData;
 
     public AnalyticsViewModel(@NonNull Application application, @NonNull ViewModelStoreOwner owner) {
         super(application);
-        AquariumDataViewModel aquariumDataViewModel = new ViewModelProvider(owner).get(AquariumDataViewModel.class);
+        clock = AppContainer.getInstance(application).getClock();
+        aquariumDataViewModel = new ViewModelProvider(owner).get(AquariumDataViewModel.class);
+        historyPager = new HistoryPager(this::loadHistoryPage, (samples, firstPosition) -> {
+            pagedFirstPosition = firstPosition;
+            pagedHistory.setValue(samples);
+        });
 
         // Default values to ensure the pipeline triggers
         selectedDataType.setValue(AnalyticsFragment.DataType.TEMPERATURE);
@@ -48,27 +96,205 @@ public class AnalyticsViewModel extends AndroidViewModel {
     }
 
     private LiveData<LineData> init(AquariumDataViewModel dataProviderViewModel) {
-        LiveData<List<AquariumData>> historyDataSource = dataProviderViewModel.getHistory();
+        aquariumIdSource = dataProviderViewModel.getSelectedAquariumId();
         MediatorLiveData<LineData> mediator = new MediatorLiveData<>();
 
         // Helper to re-process whenever any input changes
         Runnable updatePipeline = () -> {
-            List<AquariumData> history = historyDataSource.getValue();
+            if (isComparing()) return;
             AnalyticsFragment.DataType type = selectedDataType.getValue();
             AnalyticsFragment.DateFilter filter = selectedDateFilter.getValue();
+            boolean paged = filter == AnalyticsFragment.DateFilter.ALL_TIME;
+            // ALL_TIME is browsed page by page, the other filters listen to their window only
+            List<AquariumData> history = paged ? pagedHistory.getValue() : windowedHistory.getValue();
+            long firstPosition = paged ? pagedFirstPosition : 0;
 
             if (history != null && type != null && filter != null) {
-                mediator.setValue(processDataForChart(history, type, filter));
+                MetricsRegistry metrics = MetricsRegistry.getInstance();
+                long processingStart = metrics.startTimer();
+                LineData chartData = processDataForChart(history, type, filter, firstPosition);
+                metrics.recordSince(MetricsRegistry.CHART_PROCESSING_TIME, processingStart);
+                mediator.setValue(chartData);
             }
         };
 
-        mediator.addSource(historyDataSource, h -> updatePipeline.run());
-        mediator.addSource(selectedDataType, t -> updatePipeline.run());
-        mediator.addSource(selectedDateFilter, f -> updatePipeline.run());
+        mediator.addSource(windowedHistory, h -> updatePipeline.run());
+        mediator.addSource(pagedHistory, h -> updatePipeline.run());
+        mediator.addSource(selectedDataType, t -> {
+            if (isComparing()) {
+                mergeComparison(mediator);
+            } else {
+                updatePipeline.run();
+            }
+        });
+        mediator.addSource(selectedDateFilter, f -> {
+            updateHistorySource();
+            if (isComparing()) {
+                fetchComparison(mediator);
+            } else {
+                updatePipeline.run();
+            }
+        });
+        mediator.addSource(aquariumIdSource, id -> {
+            // Activation replays the current id; the filter has already sourced it
+            if (!Objects.equals(id, sourcedAquariumId)) updateHistorySource();
+        });
+        mediator.addSource(comparedAquariums, aquariums -> {
+            updateHistorySource();
+            if (isComparing()) {
+                fetchComparison(mediator);
+            } else {
+                comparisonGeneration++;
+                comparisonHistories = null;
+                updatePipeline.run();
+            }
+        });
 
         return mediator;
     }
 
+    /**
+     * Points the chart at the history it needs: pages for ALL_TIME, a listener on the filter's
+     * time window otherwise, and nothing while comparing. Whatever is no longer needed is
+     * released, so no listener on the full history stays attached.
+     */
+    private void updateHistorySource() {
+        historyPager.cancel();
+        pagedHistory.setValue(null);
+        if (windowSource != null) {
+            windowedHistory.removeSource(windowSource);
+            windowSource = null;
+        }
+        windowedHistory.setValue(null);
+
+        AnalyticsFragment.DateFilter filter = selectedDateFilter.getValue();
+        String userId = FirebaseAuth.getInstance().getUid();
+        String aquariumId = aquariumIdSource.getValue();
+        sourcedAquariumId = aquariumId;
+        if (filter == null || isComparing() || aquariumId == null || userId == null) return;
+
+        if (filter == AnalyticsFragment.DateFilter.ALL_TIME) {
+            historyPager.start();
+        } else {
+            long sinceMillis = clock.currentTimeMillis() - filter.getHours() * 3_600_000L;
+            windowSource = AppContainer.getInstance(getApplication()).getFirestoreDataSource()
+                    .getAquariumHistoryWindow(userId, aquariumId, sinceMillis);
+            windowedHistory.addSource(windowSource, windowedHistory::setValue);
+        }
+    }
+
+    private Task<List<AquariumData>> loadHistoryPage(long cursorMillis, boolean older, int pageSize) {
+        return AppContainer.getInstance(getApplication()).getFirestoreDataSource().getAquariumHistoryPage(
+                FirebaseAuth.getInstance().getUid(), aquariumIdSource.getValue(), cursorMillis, older, pageSize);
+    }
+
+    /**
+     * Called by the chart when it is panned or zoomed, with the visible x range.
+     * Drives loading and eviction of history pages while ALL_TIME is shown.
+     */
+    public void onViewportChanged(float lowestVisibleX, float highestVisibleX) {
+        if (selectedDateFilter.getValue() == AnalyticsFragment.DateFilter.ALL_TIME && !isComparing()) {
+            historyPager.onViewportChanged(lowestVisibleX, highestVisibleX);
+        }
+    }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        historyPager.cancel();
+        mergeExecutor.shutdown();
+    }
+
+    // --- Comparison mode ---
+
+    private boolean isComparing() {
+        List<Aquarium> aquariums = comparedAquariums.getValue();
+        return aquariums != null && aquariums.size() >= 2;
+    }
+
+    /**
+     * Overlays the selected metric of several aquariums. Fewer than two aquariums returns
+     * to the single-aquarium chart.
+     */
+    public void setComparedAquariums(List<Aquarium> aquariums) {
+        comparedAquariums.setValue(new ArrayList<>(aquariums));
+    }
+
+    public LiveData<List<Aquarium>> getComparedAquariums() {
+        return comparedAquariums;
+    }
+
+    /**
+     * Fetches the histories of all compared aquariums in parallel, then merges them.
+     */
+    private void fetchComparison(MediatorLiveData<LineData> output) {
+        int generation = ++comparisonGeneration;
+        comparisonHistories = null;
+        String userId = FirebaseAuth.getInstance().getUid();
+        AnalyticsFragment.DateFilter filter = selectedDateFilter.getValue();
+        if (userId == null || filter == null) return;
+
+        long sinceMillis = filter == AnalyticsFragment.DateFilter.ALL_TIME
+                ? FirestoreDataSource.NO_CURSOR
+                : clock.currentTimeMillis() - filter.getHours() * 3_600_000L;
+        FirestoreDataSource dataSource = AppContainer.getInstance(getApplication()).getFirestoreDataSource();
+
+        List<Task<List<AquariumData>>> fetches = new ArrayList<>();
+        for (Aquarium aquarium : comparedAquariums.getValue()) {
+            fetches.add(dataSource.getAquariumHistorySince(userId, aquarium.getId(), sinceMillis, COMPARE_FETCH_LIMIT));
+        }
+
+        Tasks.<List<AquariumData>>whenAllSuccess(fetches)
+                .addOnSuccessListener(histories -> {
+                    if (generation != comparisonGeneration) return;
+                    comparisonHistories = histories;
+                    mergeComparison(output);
+                })
+                .addOnFailureListener(e -> Log.e(TAG, "Failed to fetch histories for comparison", e));
+    }
+
+    /**
+     * Merges the fetched histories onto one time axis off the main thread.
+     */
+    private void mergeComparison(MediatorLiveData<LineData> output) {
+        List<List<AquariumData>> histories = comparisonHistories;
+        List<Aquarium> aquariums = comparedAquariums.getValue();
+        AnalyticsFragment.DataType type = selectedDataType.getValue();
+        if (histories == null || aquariums == null || type == null) return;
+
+        int generation = comparisonGeneration;
+        Tasks.call(mergeExecutor, () -> buildComparisonChart(histories, aquariums, type))
+                .addOnSuccessListener(chartData -> {
+                    if (generation == comparisonGeneration && isComparing()) {
+                        output.setValue(chartData);
+                    }
+                });
+    }
+
+    private LineData buildComparisonChart(List<List<AquariumData>> histories, List<Aquarium> aquariums,
+                                          AnalyticsFragment.DataType type) {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        long processingStart = metrics.startTimer();
+
+        TimelineMerger.MergedTimeline timeline = TimelineMerger.merge(histories, type::getValue, MAX_CHART_POINTS);
+        List<ILineDataSet> dataSets = new ArrayList<>();
+        for (int s = 0; s < histories.size(); s++) {
+            if (timeline.sizes[s] == 0) continue;
+
+            LineDataSet dataSet = new PrimitiveLineDataSet(timeline.xValues[s], timeline.yValues[s],
+                    timeline.sizes[s], aquariums.get(s).getName() + " - " + type);
+            int color = ColorTemplate.MATERIAL_COLORS[s % ColorTemplate.MATERIAL_COLORS.length];
+            dataSet.setColor(color);
+            dataSet.setCircleColor(color);
+            dataSet.setDrawCircles(false);
+            dataSet.setDrawValues(false);
+            dataSets.add(dataSet);
+        }
+
+        metrics.recordSince(MetricsRegistry.CHART_PROCESSING_TIME, processingStart);
+        return new LineData(dataSets);
+    }
+
     public LiveData<LineData> getProcessedChartData() {
         return processedChartData;
     }
@@ -84,59 +310,56 @@ public class AnalyticsViewModel extends AndroidViewModel {
             selectedDateFilter.setValue(filter);
         }
     }
-    private final MutableLiveData<List<String>> userAquariumsList = new MutableLiveData<>(new ArrayList<>());
-    private final MutableLiveData<String> selectedAquariumId = new MutableLiveData<>();
-
     // 1. Provide the list of aquariums to the Fragment
-    public LiveData<List<String>> getUserAquariumsList() {
-        return userAquariumsList;
+    public LiveData<List<Aquarium>> getUserAquariumsList() {
+        return aquariumDataViewModel.getAvailableAquariums();
     }
 
     // 2. Provide the currently selected ID
     public LiveData<String> getSelectedAquariumId() {
-        return selectedAquariumId;
+        return aquariumIdSource;
     }
 
     // 3. Logic to change the selected aquarium
     public void setSelectedAquarium(String aquariumId) {
-        selectedAquariumId.setValue(aquariumId);
-        // Add logic here to reload 'latestData' for the specific aquariumId
+        aquariumDataViewModel.setSelectedAquarium(aquariumId);
     }
 
     // 4. Logic to add a new aquarium
     public void createNewAquarium(String name) {
-        List<String> currentList = userAquariumsList.getValue();
-        if (currentList != null) {
-            currentList.add(name);
-            userAquariumsList.setValue(currentList);
-        }
+        aquariumDataViewModel.addNewAquarium(name);
     }
-    private LineData processDataForChart(List<AquariumData> history, AnalyticsFragment.DataType dataType, AnalyticsFragment.DateFilter filter) {
+    private LineData processDataForChart(List<AquariumData> history, AnalyticsFragment.DataType dataType,
+                                         AnalyticsFragment.DateFilter filter, long firstPosition) {
         if (history == null || history.isEmpty()) {
             return new LineData();
         }
 
         // 1. Filter by Date
-        List<AquariumData> filteredList = filterHistoryByDate(history, filter);
+        List<AquariumData> filteredList = filterHistoryByDate(history, filter, clock.currentTimeMillis());
 
         if (filteredList.isEmpty()) {
             return new LineData();
         }
 
-        // 2. Convert to chart Entries
-        List<Entry> chartEntries = new ArrayList<>();
-        for (int i = 0; i < filteredList.size(); i++) {
-            AquariumData data = filteredList.get(i);
-            int value = dataType.getValue(data);
-            chartEntries.add(new Entry(i, value));
+        // 2. Convert to primitive x/y columns, no Entry per point
+        int count = filteredList.size();
+        float[] xValues = new float[count];
+        float[] yValues = new float[count];
+        for (int i = 0; i < count; i++) {
+            xValues[i] = firstPosition + i;
+            yValues[i] = dataType.getValue(filteredList.get(i));
         }
 
         // 3. Create and style the DataSet
-        LineDataSet chartDataSet = new LineDataSet(chartEntries, dataType.toString() + " (" + filter.toString() + ")");
+        LineDataSet chartDataSet = new PrimitiveLineDataSet(xValues, yValues, count,
+                dataType.toString() + " (" + filter.toString() + ")");
         int color = dataType.getColor(getApplication().getApplicationContext());
         chartDataSet.setColor(color);
         chartDataSet.setCircleColor(color);
         chartDataSet.setDrawValues(false);
+        // Persisted samples are deadband-compressed: each value holds until the next one
+        chartDataSet.setMode(LineDataSet.Mode.STEPPED);
 
         return new LineData(chartDataSet);
     }
@@ -146,20 +369,20 @@ public class AnalyticsViewModel extends AndroidViewModel {
      *
      * @param history The complete list of {@link AquariumData} to be filtered.
      * @param filter The time duration filter (e.g., last 24 hours, last week) to apply.
+     * @param nowMillis The current time, from the injected clock.
      * @return A list of {@link AquariumData} records that fall within the specified time frame.
      */
-    private List<AquariumData> filterHistoryByDate(List<AquariumData> history, AnalyticsFragment.DateFilter filter) {
+    static List<AquariumData> filterHistoryByDate(List<AquariumData> history, AnalyticsFragment.DateFilter filter,
+                                                  long nowMillis) {
         if (filter == AnalyticsFragment.DateFilter.ALL_TIME) {
             return history;
         }
 
-        Calendar cal = Calendar.getInstance();
-        cal.add(Calendar.HOUR, -filter.getHours());
-        Date cutoff = cal.getTime();
+        long cutoffMillis = nowMillis - filter.getHours() * 3_600_000L;
 
         List<AquariumData> filtered = new ArrayList<>();
         for (AquariumData data : history) {
-            if (data.getDate() != null && data.getDate().after(cutoff)) {
+            if (data.hasTime() && data.getTimeMillis() > cutoffMillis) {
                 filtered.add(data);
             }
         }
@@ -0,0 +1,228 @@
+package com.example.smartaquarium.data.viewModel.analyics;
+
+import android.util.Log;
+
+import com.example.smartaquarium.data.datasource.FirestoreDataSource;
+import com.example.smartaquarium.data.model.AquariumData;
+import com.google.android.gms.tasks.Task;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keeps a bounded window of history pages around the chart's viewport.
+ * <p>
+ * Only the newest page is fetched up front. Older pages are fetched when the viewport comes
+ * within a prefetch distance of the oldest loaded sample, and once more than
+ * {@link #MAX_PAGES} pages are held the page farthest from the viewport is dropped (and
+ * re-fetched if the user pans back to it).
+ * <p>
+ * Every loaded sample has a stable x position: the first page occupies {@code 0..n-1}, older
+ * pages take negative positions and newer ones continue upward, so adding or dropping a page
+ * never shifts what is on screen. All methods must be called on the main thread.
+ */
+public class HistoryPager {
+
+    private static final String TAG = "HistoryPager";
+
+    static final int PAGE_SIZE = 500;
+    // Memory cap: at most MAX_PAGES * PAGE_SIZE samples are held at once
+    static final int MAX_PAGES = 8;
+    // Start fetching once the viewport is this many samples (or one viewport width) from an edge
+    static final float PREFETCH_ENTRIES = PAGE_SIZE / 2f;
+
+    /**
+     * Fetches one page of history; see {@link FirestoreDataSource#getAquariumHistoryPage}.
+     */
+    public interface PageSource {
+        Task<List<AquariumData>> loadPage(long cursorMillis, boolean older, int pageSize);
+    }
+
+    /**
+     * Notified on the main thread whenever the set of loaded samples changes.
+     */
+    public interface Listener {
+        void onWindowChanged(List<AquariumData> samples, long firstPosition);
+    }
+
+    private static final class Page {
+        final List<AquariumData> samples;
+        final long firstPosition;
+
+        Page(List<AquariumData> samples, long firstPosition) {
+            this.samples = samples;
+            this.firstPosition = firstPosition;
+        }
+
+        long endPosition() { return firstPosition + samples.size(); }
+        long oldestMillis() { return samples.get(0).getTimeMillis(); }
+        long newestMillis() { return samples.get(samples.size() - 1).getTimeMillis(); }
+    }
+
+    private final PageSource source;
+    private final Listener listener;
+    private final ArrayDeque<Page> pages = new ArrayDeque<>();
+
+    private boolean loadingOlder;
+    private boolean loadingNewer;
+    private boolean reachedOldest;
+    private boolean newerEvicted;
+    // Bumped on every start/cancel so responses for an abandoned window are ignored
+    private int generation;
+
+    private float viewportLow = Float.NaN;
+    private float viewportHigh = Float.NaN;
+
+    public HistoryPager(PageSource source, Listener listener) {
+        this.source = source;
+        this.listener = listener;
+    }
+
+    /**
+     * Drops any loaded pages and fetches the newest page.
+     */
+    public void start() {
+        cancel();
+        loadingOlder = true;
+        int requestGeneration = generation;
+        source.loadPage(FirestoreDataSource.NO_CURSOR, true, PAGE_SIZE)
+                .addOnCompleteListener(task -> {
+                    if (requestGeneration != generation) return;
+                    loadingOlder = false;
+                    if (!task.isSuccessful()) {
+                        Log.w(TAG, "Failed to load newest history page", task.getException());
+                        return;
+                    }
+                    List<AquariumData> samples = task.getResult();
+                    reachedOldest = samples.size() < PAGE_SIZE;
+                    if (!samples.isEmpty()) {
+                        pages.addLast(new Page(samples, 0));
+                    }
+                    publish();
+                });
+    }
+
+    /**
+     * Abandons in-flight requests and releases every loaded page.
+     */
+    public void cancel() {
+        generation++;
+        pages.clear();
+        loadingOlder = false;
+        loadingNewer = false;
+        reachedOldest = false;
+        newerEvicted = false;
+        viewportLow = Float.NaN;
+        viewportHigh = Float.NaN;
+    }
+
+    /**
+     * Reports the x range currently visible on the chart, in sample positions.
+     */
+    public void onViewportChanged(float low, float high) {
+        viewportLow = low;
+        viewportHigh = high;
+        maybePrefetch();
+    }
+
+    private void maybePrefetch() {
+        if (pages.isEmpty() || Float.isNaN(viewportLow)) return;
+
+        float prefetchDistance = Math.max(PREFETCH_ENTRIES, viewportHigh - viewportLow);
+        if (!loadingOlder && !reachedOldest
+                && viewportLow - pages.peekFirst().firstPosition < prefetchDistance) {
+            loadOlder();
+        }
+        if (!loadingNewer && newerEvicted
+                && pages.peekLast().endPosition() - viewportHigh < prefetchDistance) {
+            loadNewer();
+        }
+    }
+
+    private void loadOlder() {
+        loadingOlder = true;
+        int requestGeneration = generation;
+        source.loadPage(pages.peekFirst().oldestMillis(), true, PAGE_SIZE)
+                .addOnCompleteListener(task -> {
+                    if (requestGeneration != generation) return;
+                    loadingOlder = false;
+                    if (!task.isSuccessful()) {
+                        Log.w(TAG, "Failed to load older history page", task.getException());
+                        return;
+                    }
+                    List<AquariumData> samples = task.getResult();
+                    reachedOldest = samples.size() < PAGE_SIZE;
+                    if (samples.isEmpty() || pages.isEmpty()) return;
+
+                    pages.addFirst(new Page(samples, pages.peekFirst().firstPosition - samples.size()));
+                    evictFarthestPages();
+                    publish();
+                    maybePrefetch();
+                });
+    }
+
+    private void loadNewer() {
+        loadingNewer = true;
+        int requestGeneration = generation;
+        source.loadPage(pages.peekLast().newestMillis(), false, PAGE_SIZE)
+                .addOnCompleteListener(task -> {
+                    if (requestGeneration != generation) return;
+                    loadingNewer = false;
+                    if (!task.isSuccessful()) {
+                        Log.w(TAG, "Failed to load newer history page", task.getException());
+                        return;
+                    }
+                    List<AquariumData> samples = task.getResult();
+                    newerEvicted = samples.size() == PAGE_SIZE;
+                    if (samples.isEmpty() || pages.isEmpty()) return;
+
+                    pages.addLast(new Page(samples, pages.peekLast().endPosition()));
+                    evictFarthestPages();
+                    publish();
+                    maybePrefetch();
+                });
+    }
+
+    /**
+     * Drops pages from whichever end is farther from the viewport until the cap is met.
+     */
+    private void evictFarthestPages() {
+        while (pages.size() > MAX_PAGES) {
+            boolean dropOldest;
+            if (Float.isNaN(viewportLow)) {
+                dropOldest = true;
+            } else {
+                float center = (viewportLow + viewportHigh) / 2f;
+                dropOldest = center - pages.peekFirst().firstPosition
+                        > pages.peekLast().endPosition() - center;
+            }
+
+            if (dropOldest) {
+                pages.removeFirst();
+                reachedOldest = false;
+            } else {
+                pages.removeLast();
+                newerEvicted = true;
+            }
+        }
+    }
+
+    private void publish() {
+        if (pages.isEmpty()) {
+            listener.onWindowChanged(Collections.emptyList(), 0);
+            return;
+        }
+
+        int total = 0;
+        for (Page page : pages) {
+            total += page.samples.size();
+        }
+        List<AquariumData> window = new ArrayList<>(total);
+        for (Page page : pages) {
+            window.addAll(page.samples);
+        }
+        listener.onWindowChanged(window, pages.peekFirst().firstPosition);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.smartaquarium.data.viewModel.aquarium;
+
+import com.example.smartaquarium.data.model.AquariumData;
+
+/**
+ * The bar chart targets for one sample, held in a single long-lived, mutable instance.
+ * {@link AquariumViewModel} updates it in place for every sample instead of allocating
+ * new chart objects, and the fragment animates its charts towards these values.
+ */
+public class AquariumProjection {
+
+    private float temperature;
+    private float ph;
+    private float oxygen;
+    private float waterLevel;
+    private long timeMillis;
+    private boolean hasData;
+
+    /**
+     * Copies the chart-relevant values out of a sample.
+     *
+     * @return true if any displayed value changed, false if the update can be skipped.
+     */
+    public boolean update(AquariumData sample) {
+        boolean changed = !hasData
+                || temperature != sample.getTemperature()
+                || ph != sample.getPh()
+                || oxygen != sample.getOxygen()
+                || waterLevel != sample.getWaterLevel()
+                || timeMillis != sample.getTimeMillis();
+
+        temperature = sample.getTemperature();
+        ph = sample.getPh();
+        oxygen = sample.getOxygen();
+        waterLevel = sample.getWaterLevel();
+        timeMillis = sample.getTimeMillis();
+        hasData = true;
+        return changed;
+    }
+
+    public float getTemperature() { return temperature; }
+    public float getPh() { return ph; }
+    public float getOxygen() { return oxygen; }
+    public float getWaterLevel() { return waterLevel; }
+    public long getTimeMillis() { return timeMillis; }
+    public boolean hasData() { return hasData; }
+}
@@ -7,7 +7,8 @@ import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
-import androidx.lifecycle.Transformations;
+import androidx.lifecycle.MediatorLiveData;
+import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.lifecycle.ViewModelStoreOwner;
 
@@ -20,98 +21,90 @@ import com.github.mikephil.charting.data.BarEntry;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.Locale;
 
 /**
  * ViewModel for the AquariumFragment.
- * This class transforms the latest AquariumData point into individual, styled BarData objects
- * for each metric to be displayed on the overview dashboard.
+ * This class projects the latest AquariumData point onto four long-lived, styled BarData objects
+ * (one per metric). A single projection runs per sample and only updates values in place; the
+ * fragment animates the bars towards the new targets.
  */
 public class AquariumViewModel extends AndroidViewModel {
 
+    // --- Long-lived chart data ---
+    // Created once and bound to the charts once; only their single entry's value changes.
+    public final BarData temperatureBarData;
+    public final BarData phBarData;
+    public final BarData oxygenBarData;
+    public final BarData waterLevelBarData;
+
     // --- Output LiveData ---
-    // The fragment will observe these to get the final, styled chart data.
-    public final LiveData<BarData> temperatureBarData;
-    public final LiveData<BarData> phBarData;
-    public final LiveData<BarData> oxygenBarData;
-    public final LiveData<BarData> waterLevelBarData;
+    // The fragment will observe these to animate the charts and show the update time.
+    public final LiveData<AquariumProjection> projection;
     public final LiveData<String> lastUpdatedTimestamp;
 
+    private final AquariumProjection reusableProjection = new AquariumProjection();
+    private final MutableLiveData<String> timestampText = new MutableLiveData<>();
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss", Locale.getDefault());
+    private long lastFormattedSecond = -1;
+
     public AquariumViewModel(@NonNull Application application, @NonNull ViewModelStoreOwner owner) {
         super(application);
 
         // Get the single, shared instance of the ViewModel that provides the raw data.
         AquariumDataViewModel dataProviderViewModel = new ViewModelProvider(owner).get(AquariumDataViewModel.class);
 
-        // Initialize all the data streams and transformations.
-        // This keeps the constructor clean.
-        lastUpdatedTimestamp = initializeTimestampStream(dataProviderViewModel);
-        temperatureBarData = initializeTemperatureStream(dataProviderViewModel);
-        phBarData = initializePhStream(dataProviderViewModel);
-        oxygenBarData = initializeOxygenStream(dataProviderViewModel);
-        waterLevelBarData = initializeWaterLevelStream(dataProviderViewModel);
+        temperatureBarData = createSingleBarData("Temp °C", R.color.chart_temperature);
+        phBarData = createSingleBarData("pH", R.color.chart_ph);
+        oxygenBarData = createSingleBarData("Oxygen %", R.color.chart_oxygen);
+        waterLevelBarData = createSingleBarData("Level %", R.color.chart_water_level);
+
+        timestampText.setValue(getApplication().getString(R.string.last_updated_never));
+        lastUpdatedTimestamp = timestampText;
+        projection = initializeProjection(dataProviderViewModel);
     }
 
     // --- Initialization Methods ---
 
-    private LiveData<String> initializeTimestampStream(AquariumDataViewModel dataProvider) {
-        // The "trigger" is the LiveData that emits the most recent data point.
-        LiveData<AquariumData> latestDataStream = dataProvider.getLatestData();
-
-        // Transform the timestamp into a readable string.
-        return Transformations.map(latestDataStream, latestAquariumData -> {
-            if (latestAquariumData != null && latestAquariumData.getDate() != null) {
-                // Get the Date object directly.
-                Date dateObject = latestAquariumData.getDate();
-
-                // Format the Date object into a readable time string.
-                SimpleDateFormat sdf = new SimpleDateFormat("HH:mm:ss", Locale.getDefault());
-                return getApplication().getString(R.string.last_updated_empty) + sdf.format(dateObject);
+    /**
+     * Installs the one transformation that runs for every sample.
+     */
+    private LiveData<AquariumProjection> initializeProjection(AquariumDataViewModel dataProvider) {
+        MediatorLiveData<AquariumProjection> mediator = new MediatorLiveData<>();
+        mediator.addSource(dataProvider.getLatestData(), latestAquariumData -> {
+            if (latestAquariumData == null) return;
+
+            if (reusableProjection.update(latestAquariumData)) {
+                updateTimestamp(latestAquariumData);
+                mediator.setValue(reusableProjection);
             }
-            return getApplication().getString(R.string.last_updated_empty);
-        });
-    }
-
-    private LiveData<BarData> initializeTemperatureStream(AquariumDataViewModel dataProvider) {
-        return Transformations.map(dataProvider.getLatestData(), data -> {
-            if (data == null) return null;
-            return createSingleBarData(data.getTemperature(), "Temp °C", R.color.chart_temperature);
         });
+        return mediator;
     }
 
-    private LiveData<BarData> initializePhStream(AquariumDataViewModel dataProvider) {
-        return Transformations.map(dataProvider.getLatestData(), data -> {
-            if (data == null) return null;
-            return createSingleBarData(data.getPh(), "pH", R.color.chart_ph);
-        });
-    }
+    /**
+     * Formats the update time, reusing the previous string while the second has not changed.
+     */
+    private void updateTimestamp(AquariumData latestAquariumData) {
+        if (!latestAquariumData.hasTime()) return;
 
-    private LiveData<BarData> initializeOxygenStream(AquariumDataViewModel dataProvider) {
-        return Transformations.map(dataProvider.getLatestData(), data -> {
-            if (data == null) return null;
-            return createSingleBarData(data.getOxygen(), "Oxygen %", R.color.chart_oxygen);
-        });
-    }
+        long second = latestAquariumData.getTimeMillis() / 1000;
+        if (second == lastFormattedSecond) return;
+        lastFormattedSecond = second;
 
-    private LiveData<BarData> initializeWaterLevelStream(AquariumDataViewModel dataProvider) {
-        return Transformations.map(dataProvider.getLatestData(), data -> {
-            if (data == null) return null;
-            return createSingleBarData(data.getWaterLevel(), "Level %", R.color.chart_water_level);
-        });
+        timestampText.setValue(getApplication().getString(R.string.last_updated_empty)
+                + timeFormat.format(latestAquariumData.getTimeMillis()));
     }
 
-
     /**
-     * A helper function to create a styled BarData object for a single value.
-     * @param value The integer value to display.
+     * A helper function to create a styled BarData object holding a single bar at 0.
      * @param label The label for the data set.
      * @param colorResId The color resource ID for the bar.
      * @return A fully formed BarData object.
      */
-    private BarData createSingleBarData(int value, String label, int colorResId) {
+    private BarData createSingleBarData(String label, int colorResId) {
         ArrayList<BarEntry> entries = new ArrayList<>();
-        entries.add(new BarEntry(0, value));
+        entries.add(new BarEntry(0, 0f));
 
         BarDataSet dataSet = new BarDataSet(entries, label);
         dataSet.setColor(ContextCompat.getColor(getApplication(), colorResId));
@@ -9,82 +9,185 @@ import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.core.app.NotificationCompat;
+import androidx.core.content.ContextCompat;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
 import androidx.lifecycle.Transformations;
 import androidx.lifecycle.MediatorLiveData;
 
 import com.example.smartaquarium.R;
+import com.example.smartaquarium.data.AppContainer;
 import com.example.smartaquarium.data.datasource.FirestoreDataSource;
+import com.example.smartaquarium.data.datasource.LastKnownStateStore;
 import com.example.smartaquarium.data.model.Aquarium;
 import com.example.smartaquarium.data.model.AquariumData;
 import com.example.smartaquarium.data.model.UserSettings;
-import com.example.smartaquarium.service.UserSettingsService;
+import com.example.smartaquarium.utils.enums.EnumAlertType;
 import com.example.smartaquarium.utils.enums.EnumConnectionStatus;
-import com.example.smartaquarium.utils.interfaces.IConnection;
-import com.example.smartaquarium.utils.interfaces.IDataListener;
+import com.example.smartaquarium.utils.enums.EnumSensorMetric;
+import com.example.smartaquarium.service.IngestPipeline;
+import com.example.smartaquarium.utils.ingest.DeadbandFilter;
+import com.example.smartaquarium.utils.ingest.SampleRingBuffer;
+import com.example.smartaquarium.utils.metrics.MetricsRegistry;
+import com.example.smartaquarium.utils.stats.AnomalyMonitor;
+import com.example.smartaquarium.utils.stats.AquariumForecaster;
+import com.example.smartaquarium.utils.stats.AquariumTrendTracker;
+import com.example.smartaquarium.utils.stats.AquariumTrends;
+import com.example.smartaquarium.utils.stats.ThresholdForecast;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
 
 /**
  * A shared ViewModel that acts as the single source of truth for all raw aquarium data.
  * It manages multiple aquariums for a user and tracks the currently selected one.
  * It also monitors incoming data against user settings to trigger instant local notifications.
  */
-public class AquariumDataViewModel extends AndroidViewModel implements IDataListener {
+public class AquariumDataViewModel extends AndroidViewModel {
 
     private static final String NO_USER_ID = "UserNotLoggedIn";
     private static final String CHANNEL_ID = "aquarium_alerts";
     private static final String TAG = "AquariumDataViewModel";
-
-    private final FirestoreDataSource firestoreDataSource;
-    private UserSettingsService settingsService;
+    // Deadband per metric (EnumSensorMetric order) and heartbeat for persisted samples.
+    // Readings are whole units, so one unit absorbs rounding flicker; pH units are too coarse for that.
+    private static final int[] PERSIST_DEADBAND = {1, 0, 1, 1};
+    private static final long PERSIST_HEARTBEAT_MILLIS = 5 * 60_000;
+    // Samples kept while nothing can be persisted; over a day at the heartbeat rate, oldest dropped first
+    static final int MAX_OFFLINE_SAMPLES = 500;
+
+    // Resolved lazily through the container so that constructing this ViewModel
+    // never initializes Firestore on the main thread.
+    private final AppContainer container;
+    private final LastKnownStateStore lastKnownStateStore;
+    // The reading shown from the snapshot until the connection delivers a live one
+    private AquariumData restoredReading;
+    // --- Ingest consumers ---
+    private IngestPipeline ingestPipeline;
+    private SampleRingBuffer.Consumer uiConsumer;
+    private SampleRingBuffer.Consumer persistenceConsumer;
+    private SampleRingBuffer.Consumer alertConsumer;
+    private SampleRingBuffer.Consumer statsConsumer;
+    private final AquariumTrendTracker trendTracker = new AquariumTrendTracker();
+    private final AnomalyMonitor anomalyMonitor = new AnomalyMonitor();
+    private final AquariumForecaster forecaster = new AquariumForecaster();
+    private final Observer<List<EnumSensorMetric>> faultObserver = this::onFaultyProbesChanged;
+    // Probes already alerted on, so each fault raises one alert until it clears; main thread only
+    private List<EnumSensorMetric> reportedFaults = new ArrayList<>();
+    private ExecutorService persistenceExecutor;
+    // Only touched on the persistence executor
+    private final DeadbandFilter persistFilter = new DeadbandFilter(PERSIST_DEADBAND, PERSIST_HEARTBEAT_MILLIS);
+    private String persistFilterAquariumId;
 
     // --- State ---
     private final MutableLiveData<String> authenticatedUserId = new MutableLiveData<>();
     private final MutableLiveData<String> selectedAquariumId = new MutableLiveData<>();
     
     // --- Observables ---
-    private final LiveData<List<Aquarium>> availableAquariums;
+    private final MediatorLiveData<List<Aquarium>> availableAquariums = new MediatorLiveData<>();
     private final LiveData<UserSettings> userSettings;
+    // Kept observed for the ViewModel's lifetime: a switchMap only follows its source while observed.
+    // Read from the ingest thread by the alert and forecast consumers.
+    private volatile UserSettings currentSettings;
+    private final Observer<UserSettings> settingsObserver = this::onSettingsChanged;
     private final MediatorLiveData<List<AquariumData>> fullHistory = new MediatorLiveData<>();
+    private LiveData<List<AquariumData>> historySource;
     private final MutableLiveData<AquariumData> latestDataPoint = new MutableLiveData<>();
-    private final MutableLiveData<EnumConnectionStatus> connectionStatus = new MutableLiveData<>();
+    private final MediatorLiveData<AquariumTrends> trends = new MediatorLiveData<>();
+    private final MutableLiveData<List<ThresholdForecast>> forecasts = new MutableLiveData<>(new ArrayList<>());
+    private final MediatorLiveData<EnumConnectionStatus> connectionStatus = new MediatorLiveData<>();
 
-    private final List<AquariumData> offlineDataCache = new ArrayList<>();
+    // Guarded by itself: written on whichever persistence executor is current
+    private final ArrayDeque<AquariumData> offlineDataCache = new ArrayDeque<>(MAX_OFFLINE_SAMPLES);
 
     public AquariumDataViewModel(@NonNull Application application) {
         super(application);
-        this.firestoreDataSource = new FirestoreDataSource();
+        this.container = AppContainer.getInstance(application);
+        this.lastKnownStateStore = new LastKnownStateStore(application);
         createNotificationChannel();
-        
+
+        // 0. Render the last known state synchronously, live data reconciles it below
+        restoreLastKnownState();
+
         // 1. When user changes, fetch their list of aquariums
-        availableAquariums = Transformations.switchMap(authenticatedUserId, userId -> {
+        LiveData<List<Aquarium>> remoteAquariums = Transformations.switchMap(authenticatedUserId, userId -> {
             if (userId != null && !userId.equals(NO_USER_ID)) {
-                return firestoreDataSource.getListOfAquariums(userId);
+                return getDataSource().getListOfAquariums(userId);
             }
             return new MutableLiveData<>(new ArrayList<>());
         });
+        availableAquariums.addSource(remoteAquariums, aquariums -> {
+            availableAquariums.setValue(aquariums);
+            if (aquariums != null) {
+                lastKnownStateStore.saveAquariums(aquariums);
+            }
+        });
 
         // 2. Fetch user settings
         userSettings = Transformations.switchMap(authenticatedUserId, userId -> {
             if (isValidUser(userId)) {
-                return settingsService.getSettingsForCurrentUser();
+                return container.getUserSettingsService().getSettingsForCurrentUser();
             }
             return new MutableLiveData<>(new UserSettings()); // Return defaults
         });
         init();
+        userSettings.observeForever(settingsObserver);
+    }
+
+    private void onSettingsChanged(UserSettings settings) {
+        currentSettings = settings;
+        forecasts.setValue(forecaster.forecast(trends.getValue(), settings));
     }
+    /**
+     * Seeds the observables from the persisted snapshot so the first frame shows
+     * the last known values instead of placeholders.
+     */
+    private void restoreLastKnownState() {
+        List<Aquarium> cachedAquariums = lastKnownStateStore.loadAquariums();
+        if (!cachedAquariums.isEmpty()) {
+            availableAquariums.setValue(cachedAquariums);
+        }
+
+        String cachedSelection = lastKnownStateStore.loadSelectedAquarium();
+        if (cachedSelection != null) {
+            selectedAquariumId.setValue(cachedSelection);
+        }
+
+        AquariumData cachedReading = lastKnownStateStore.loadLatestReading(cachedSelection);
+        if (cachedReading != null) {
+            restoredReading = cachedReading;
+            latestDataPoint.setValue(cachedReading);
+        }
+    }
+
+    /**
+     * @return True if {@code data} is the reading restored from the last known state rather
+     *         than one delivered by the connection, so its age says nothing about live latency.
+     */
+    public boolean isRestoredReading(AquariumData data) {
+        return data != null && data == restoredReading;
+    }
+
+    private FirestoreDataSource getDataSource() {
+        return container.getFirestoreDataSource();
+    }
+
     private boolean isValidUser(String userId) {
         return userId != null && !userId.equals(NO_USER_ID);
     }
     private void init() {
         fullHistory.addSource(authenticatedUserId, userId -> updateHistorySource());
         fullHistory.addSource(selectedAquariumId, aqId -> updateHistorySource());
+        trends.addSource(selectedAquariumId, aqId -> {
+            trends.setValue(trendTracker.snapshot(aqId));
+            forecasts.setValue(forecaster.forecast(trends.getValue(), currentSettings));
+        });
 
         checkUserAuthentication();
     }
@@ -93,10 +196,14 @@ public class AquariumDataViewModel extends AndroidViewModel implements IDataList
         String userId = authenticatedUserId.getValue();
         String aquariumId = selectedAquariumId.getValue();
 
+        // Drop the previous aquarium's listener, or every switch would stack one more
+        if (historySource != null) {
+            fullHistory.removeSource(historySource);
+            historySource = null;
+        }
         if (userId != null && !userId.equals(NO_USER_ID) && aquariumId != null) {
-            // In a real app, you'd want to manage sources more carefully to avoid duplicates
-            LiveData<List<AquariumData>> newHistory = firestoreDataSource.getAquariumHistory(userId, aquariumId);
-            fullHistory.addSource(newHistory, data -> fullHistory.setValue(data));
+            historySource = getDataSource().getAquariumHistory(userId, aquariumId);
+            fullHistory.addSource(historySource, fullHistory::setValue);
         } else {
             fullHistory.setValue(new ArrayList<>());
         }
@@ -111,6 +218,7 @@ public class AquariumDataViewModel extends AndroidViewModel implements IDataList
     public void setSelectedAquarium(String aquariumId) {
         if (aquariumId != null && !aquariumId.equals(selectedAquariumId.getValue())) {
             selectedAquariumId.setValue(aquariumId);
+            lastKnownStateStore.saveSelectedAquarium(aquariumId);
         }
     }
 
@@ -122,6 +230,20 @@ public class AquariumDataViewModel extends AndroidViewModel implements IDataList
         return fullHistory;
     }
 
+    /**
+     * Rolling statistics of the selected aquarium, refreshed on every sample.
+     */
+    public LiveData<AquariumTrends> getTrends() {
+        return trends;
+    }
+
+    /**
+     * Predicted min/max crossings of the selected aquarium, soonest first.
+     */
+    public LiveData<List<ThresholdForecast>> getForecasts() {
+        return forecasts;
+    }
+
     public LiveData<AquariumData> getLatestData() {
         return latestDataPoint;
     }
@@ -141,7 +263,7 @@ public class AquariumDataViewModel extends AndroidViewModel implements IDataList
         if (userId != null && !userId.equals(NO_USER_ID) && name != null && !name.trim().isEmpty()) {
 
             // Call createAquarium which creates the document in the 'aquariums' subcollection
-            firestoreDataSource.createAquarium(userId, name.trim())
+            getDataSource().createAquarium(userId, name.trim())
                     .addOnSuccessListener(aVoid -> {
                         Log.d("AquariumVM", "New aquarium created: " + name);
                         // The availableAquariums LiveData will update automatically
@@ -152,28 +274,117 @@ public class AquariumDataViewModel extends AndroidViewModel implements IDataList
                     });
         }
     }
-    // --- IDataListener ---
+    // --- Ingest consumers ---
+    // Each sample arrives in a consumer-owned instance that is reused for the next sample.
 
-    @Override
-    public void onNewData(AquariumData newData) {
-        latestDataPoint.postValue(newData);
-        checkLimitsAndNotify(newData);
+    /**
+     * UI projection, drained on the main thread. Coalesces to the newest sample.
+     * Publishes a copy: the consumer refills {@code sample} with the next one, while
+     * observers may hold on to what they were given.
+     */
+    private void projectToUi(AquariumData sample) {
+        latestDataPoint.setValue(sample.copy());
+    }
 
+    /**
+     * Persistence, drained on its own thread. Back-pressures the ring so no sample is lost,
+     * then drops samples inside the deadband (see {@link DeadbandFilter}).
+     */
+    private void persistSample(AquariumData sample) {
         String userId = authenticatedUserId.getValue();
         String aquariumId = selectedAquariumId.getValue();
 
+        if (!Objects.equals(aquariumId, persistFilterAquariumId)) {
+            persistFilter.reset();
+            persistFilterAquariumId = aquariumId;
+        }
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        if (!persistFilter.offer(sample)) {
+            metrics.increment(MetricsRegistry.SAMPLES_SUPPRESSED);
+            if (aquariumId != null) lastKnownStateStore.saveLatestReading(aquariumId, sample);
+            return;
+        }
+        metrics.increment(MetricsRegistry.SAMPLES_PERSISTED);
+
         if (userId != null && !userId.equals(NO_USER_ID) && aquariumId != null) {
-            firestoreDataSource.saveDataToAquarium(userId, aquariumId, newData);
+            flushOfflineCache(userId, aquariumId);
+            getDataSource().saveDataToAquarium(userId, aquariumId, sample);
+            lastKnownStateStore.saveLatestReading(aquariumId, sample);
         } else {
-            offlineDataCache.add(newData);
+            synchronized (offlineDataCache) {
+                if (offlineDataCache.size() == MAX_OFFLINE_SAMPLES) offlineDataCache.poll();
+                offlineDataCache.add(sample.copy());
+            }
         }
-        checkLimitsAndNotify(newData);
     }
 
-    private void checkLimitsAndNotify(AquariumData incomingData) {
-        // Fetch current settings from the observed LiveData
-        UserSettings currentSettings = userSettings.getValue();
+    /**
+     * Writes the samples kept while signed out or without a selected aquarium
+     * to the aquarium that is selected now.
+     */
+    private void flushOfflineCache(String userId, String aquariumId) {
+        List<AquariumData> batch;
+        synchronized (offlineDataCache) {
+            if (offlineDataCache.isEmpty()) return;
+            batch = new ArrayList<>(offlineDataCache);
+            offlineDataCache.clear();
+        }
+        for (int from = 0; from < batch.size(); from += FirestoreDataSource.MAX_BATCH_WRITES) {
+            List<AquariumData> chunk = batch.subList(from, Math.min(batch.size(), from + FirestoreDataSource.MAX_BATCH_WRITES));
+            getDataSource().writeHistoryBatch(userId, aquariumId, chunk)
+                    .addOnFailureListener(e -> Log.e(TAG, "Failed to write offline samples", e));
+        }
+    }
 
+    /**
+     * @return Samples waiting for a user and an aquarium to be persisted to.
+     */
+    public int getOfflineBacklog() {
+        synchronized (offlineDataCache) {
+            return offlineDataCache.size();
+        }
+    }
+
+    /**
+     * Alert evaluation, run inline on the ingest thread.
+     */
+    private void evaluateAlerts(AquariumData sample) {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        long alertStart = metrics.startTimer();
+        checkLimitsAndNotify(sample);
+        checkForUnusualChanges(sample);
+        metrics.recordSince(MetricsRegistry.ALERT_EVALUATION_TIME, alertStart);
+    }
+
+    /**
+     * Rolling statistics, updated inline on the ingest thread in O(1) per sample.
+     */
+    private void updateTrends(AquariumData sample) {
+        String aquariumId = selectedAquariumId.getValue();
+        if (aquariumId == null || !sample.hasTime()) return;
+
+        trendTracker.add(aquariumId, sample);
+        AquariumTrends snapshot = trendTracker.snapshot(aquariumId);
+        trends.postValue(snapshot);
+        updateForecasts(aquariumId, snapshot);
+    }
+
+    /**
+     * Extends each metric's trend to the user's bounds, and warns early when a crossing is close.
+     */
+    private void updateForecasts(String aquariumId, AquariumTrends snapshot) {
+        List<ThresholdForecast> predicted = forecaster.forecast(snapshot, currentSettings);
+        forecasts.postValue(predicted);
+
+        for (ThresholdForecast forecast : predicted) {
+            if (forecaster.claimEarlyWarning(aquariumId, forecast)) {
+                sendLocalNotification(EnumAlertType.PREDICTED_BREACH, forecast.describe() + ".");
+            }
+        }
+    }
+
+    private void checkLimitsAndNotify(AquariumData incomingData) {
+        UserSettings currentSettings = this.currentSettings;
         if (currentSettings == null) {
             Log.w(TAG, "Cannot check limits: User settings not yet loaded.");
             return;
@@ -194,14 +405,52 @@ public class AquariumDataViewModel extends AndroidViewModel implements IDataList
             alertBuilder.append("Oxygen level dropped! ");
 
         if (alertBuilder.length() > 0) {
-            sendLocalNotification("Aquarium Alert", alertBuilder.toString());
+            sendLocalNotification(EnumAlertType.OUT_OF_RANGE, alertBuilder.toString());
+        }
+    }
+
+    /**
+     * Raises an "unusual change" alert when a metric jumps or drifts away from its recent
+     * baseline, even if it is still inside the user's bounds. Each metric has its own cool-down.
+     */
+    private void checkForUnusualChanges(AquariumData incomingData) {
+        String aquariumId = selectedAquariumId.getValue();
+        if (aquariumId == null || !incomingData.hasTime()) return;
+
+        List<EnumSensorMetric> changedMetrics = anomalyMonitor.check(aquariumId, incomingData);
+        if (changedMetrics.isEmpty()) return;
+
+        StringBuilder alertBuilder = new StringBuilder();
+        for (EnumSensorMetric metric : changedMetrics) {
+            alertBuilder.append(metric).append(" changed unusually (now ")
+                    .append(metric.read(incomingData)).append("). ");
+        }
+        sendLocalNotification(EnumAlertType.UNUSUAL_CHANGE, alertBuilder.toString());
+    }
+
+    /**
+     * Raises a probe fault alert for every probe that has just started failing. Its metric
+     * holds the last good reading meanwhile, so nothing else would show the fault.
+     */
+    private void onFaultyProbesChanged(List<EnumSensorMetric> faultyProbes) {
+        StringBuilder alertBuilder = new StringBuilder();
+        for (EnumSensorMetric metric : faultyProbes) {
+            if (!reportedFaults.contains(metric)) {
+                alertBuilder.append(metric).append(" probe keeps reporting impossible values. ");
+            }
+        }
+        reportedFaults = faultyProbes;
+        if (alertBuilder.length() > 0) {
+            alertBuilder.append("Showing the last good reading.");
+            sendLocalNotification(EnumAlertType.PROBE_FAULT, alertBuilder.toString());
         }
     }
-    private void sendLocalNotification(String title, String message) {
+
+    private void sendLocalNotification(EnumAlertType type, String message) {
         NotificationManager notificationManager = (NotificationManager) getApplication().getSystemService(Context.NOTIFICATION_SERVICE);
         NotificationCompat.Builder builder = new NotificationCompat.Builder(getApplication(), CHANNEL_ID)
                 .setSmallIcon(R.drawable.ic_notification)
-                .setContentTitle(title)
+                .setContentTitle(type.getTitle())
                 .setContentText(message)
                 .setPriority(NotificationCompat.PRIORITY_HIGH)
                 .setAutoCancel(true);
@@ -221,13 +470,49 @@ public class AquariumDataViewModel extends AndroidViewModel implements IDataList
         }
     }
 
-    @Override
-    public void onConnectionStatusChanged(EnumConnectionStatus newStatus) {
-        connectionStatus.postValue(newStatus);
+    /**
+     * Registers this ViewModel's consumers on the process-wide ingest pipeline.
+     */
+    public void attachToPipeline(IngestPipeline pipeline) {
+        if (ingestPipeline == pipeline) return;
+        detachFromPipeline();
+
+        ingestPipeline = pipeline;
+        persistenceExecutor = IngestPipeline.newConsumerExecutor("persistence");
+
+        uiConsumer = pipeline.addConsumer("ui", SampleRingBuffer.OverflowPolicy.OVERWRITE, true,
+                ContextCompat.getMainExecutor(getApplication()), this::projectToUi);
+        persistenceConsumer = pipeline.addConsumer("persistence", SampleRingBuffer.OverflowPolicy.BACKPRESSURE, false,
+                persistenceExecutor, this::persistSample);
+        alertConsumer = pipeline.addConsumer("alerts", SampleRingBuffer.OverflowPolicy.BACKPRESSURE, false,
+                Runnable::run, this::evaluateAlerts);
+        statsConsumer = pipeline.addConsumer("stats", SampleRingBuffer.OverflowPolicy.BACKPRESSURE, false,
+                Runnable::run, this::updateTrends);
+
+        connectionStatus.addSource(pipeline.getConnectionStatus(), connectionStatus::setValue);
+        pipeline.getFaultyProbes().observeForever(faultObserver);
     }
 
-    public void setAsListenerTo(IConnection connection) {
-        connection.addListener(this);
+    private void detachFromPipeline() {
+        if (ingestPipeline == null) return;
+
+        ingestPipeline.removeConsumer(uiConsumer);
+        ingestPipeline.removeConsumer(persistenceConsumer);
+        ingestPipeline.removeConsumer(alertConsumer);
+        ingestPipeline.removeConsumer(statsConsumer);
+        connectionStatus.removeSource(ingestPipeline.getConnectionStatus());
+        ingestPipeline.getFaultyProbes().removeObserver(faultObserver);
+        // The consumers are closed now, so a late wake-up from the producer cannot reach the executor
+        persistenceExecutor.shutdown();
+        ingestPipeline = null;
+    }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        userSettings.removeObserver(settingsObserver);
+        // The pipeline is process-wide and outlives this ViewModel
+        detachFromPipeline();
     }
 
     public void checkUserAuthentication() {
@@ -0,0 +1,216 @@
+package com.example.smartaquarium.data.viewModel.fleet;
+
+import android.app.Application;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.smartaquarium.data.AppContainer;
+import com.example.smartaquarium.data.datasource.AquariumCodec;
+import com.example.smartaquarium.data.datasource.FirestoreDataSource;
+import com.example.smartaquarium.data.model.Aquarium;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * ViewModel for the dashboard's grid of tank tiles.
+ * <p>
+ * The user's aquariums, ordered by ID and each carrying its latest reading, are loaded a page
+ * of {@link #PAGE_SIZE} tanks at a time as the grid scrolls near its end, so a fleet of
+ * thousands never loads all at once. Every page has its own listener. The last page is open
+ * ended: it starts after the previous page's last ID and is limited to a page. When the next
+ * page is requested it is pinned to the IDs it holds (ending at its last ID), so a tank created
+ * inside its range joins that page instead of pushing another tank out of view. Loading a page
+ * reads that page and the pinned copy of the one before it, not every tank shown so far.
+ * <p>
+ * Snapshots are delivered and decoded on the data source's listener thread. Each is applied to
+ * its page through its document changes: unchanged tanks keep their {@link Aquarium} instance
+ * and only changed ones are decoded again, which lets the adapter's diff skip them by identity.
+ * Only the joined list is posted to the main thread. Public methods must be called on the main
+ * thread.
+ */
+public class FleetViewModel extends AndroidViewModel {
+
+    private static final String TAG = "FleetViewModel";
+
+    static final int PAGE_SIZE = 50;
+
+    private final AppContainer container;
+    private final MutableLiveData<List<Aquarium>> tanks = new MutableLiveData<>(Collections.emptyList());
+    // In display order. Changed on the main thread, joined on the listener thread.
+    private final List<Page> pages = new CopyOnWriteArrayList<>();
+
+    private String userId;
+
+    /**
+     * One listener over a range of tank IDs.
+     */
+    private static final class Page {
+        // Exclusive lower bound, or null for the first page
+        @Nullable
+        final String afterId;
+        // Tanks in range; replaced and changed only on the listener thread
+        volatile List<Aquarium> items;
+        boolean awaitingFirstSnapshot = true;
+        // Read by loadMore on the main thread
+        volatile boolean loaded;
+        volatile int size;
+        @Nullable
+        volatile String lastId;
+        // Cleared when the page is replaced or dropped; late callbacks stop there
+        volatile boolean active = true;
+        @Nullable
+        ListenerRegistration registration;
+
+        Page(@Nullable String afterId, List<Aquarium> items) {
+            this.afterId = afterId;
+            this.items = items;
+        }
+    }
+
+    public FleetViewModel(@NonNull Application application) {
+        super(application);
+        this.container = AppContainer.getInstance(application);
+    }
+
+    /**
+     * Tiles in display order. Every value is a new list, as a list differ expects.
+     */
+    public LiveData<List<Aquarium>> getTanks() {
+        return tanks;
+    }
+
+    /**
+     * Starts listening to the first page of the user's tanks. Calling it again for the
+     * same user keeps the pages loaded so far.
+     */
+    public void start(@Nullable String userId) {
+        if (userId == null || userId.equals(this.userId)) return;
+        this.userId = userId;
+        removePages();
+        tanks.setValue(Collections.emptyList());
+        pages.add(listen(null, null, Collections.emptyList()));
+    }
+
+    /**
+     * Loads the next page, if the last one is full. The last page is pinned to the tanks it
+     * holds and a new open-ended page starts after it.
+     */
+    public void loadMore() {
+        if (userId == null || pages.isEmpty()) return;
+        int last = pages.size() - 1;
+        Page open = pages.get(last);
+        String lastId = open.lastId;
+        if (!open.loaded || open.size < PAGE_SIZE || lastId == null) return;
+
+        // The pinned copy shows the open page's tanks until its own first snapshot
+        pages.set(last, listen(open.afterId, lastId, open.items));
+        remove(open);
+        pages.add(listen(lastId, null, Collections.emptyList()));
+    }
+
+    /**
+     * @param endId Inclusive upper bound for a pinned page, or null for an open-ended page of
+     *              {@link #PAGE_SIZE} tanks.
+     */
+    private Page listen(@Nullable String afterId, @Nullable String endId, List<Aquarium> items) {
+        FirestoreDataSource dataSource = container.getFirestoreDataSource();
+        Query query = dataSource.aquariumsCollection(userId).orderBy(FieldPath.documentId());
+        if (afterId != null) query = query.startAfter(afterId);
+        query = endId != null ? query.endAt(endId) : query.limit(PAGE_SIZE);
+
+        Page page = new Page(afterId, items);
+        page.registration = query.addSnapshotListener(dataSource.getListenerExecutor(), (snapshot, error) -> {
+            if (!page.active) return;
+            if (error != null) {
+                Log.e(TAG, "Error listening to tank tiles", error);
+                return;
+            }
+            if (snapshot != null) apply(page, snapshot);
+        });
+        return page;
+    }
+
+    /**
+     * Runs on the listener thread.
+     */
+    private void apply(Page page, QuerySnapshot snapshot) {
+        if (page.awaitingFirstSnapshot) {
+            // The first snapshot of a registration lists every document as added
+            page.awaitingFirstSnapshot = false;
+            page.items = rebuild(page.items, snapshot);
+        } else {
+            List<Aquarium> items = page.items;
+            for (DocumentChange change : snapshot.getDocumentChanges()) {
+                if (change.getOldIndex() >= 0) {
+                    items.remove(change.getOldIndex());
+                }
+                if (change.getNewIndex() >= 0) {
+                    items.add(change.getNewIndex(), AquariumCodec.decode(change.getDocument()));
+                }
+            }
+        }
+        List<Aquarium> items = page.items;
+        page.size = items.size();
+        page.lastId = items.isEmpty() ? null : items.get(items.size() - 1).getId();
+        page.loaded = true;
+
+        List<Aquarium> joined = new ArrayList<>();
+        for (Page each : pages) {
+            joined.addAll(each.items);
+        }
+        tanks.postValue(joined);
+    }
+
+    /**
+     * Builds a page from a full snapshot, reusing the instances of tanks that did not change.
+     */
+    private static List<Aquarium> rebuild(List<Aquarium> previous, QuerySnapshot snapshot) {
+        List<Aquarium> items = new ArrayList<>(snapshot.size());
+        int p = 0;
+        for (DocumentSnapshot document : snapshot.getDocuments()) {
+            Aquarium decoded = AquariumCodec.decode(document);
+            // Both lists are ordered by ID, so a single pass finds each old instance
+            while (p < previous.size() && previous.get(p).getId().compareTo(decoded.getId()) < 0) p++;
+            if (p < previous.size() && previous.get(p).sameContentAs(decoded)) {
+                decoded = previous.get(p);
+            }
+            items.add(decoded);
+        }
+        return items;
+    }
+
+    private static void remove(Page page) {
+        page.active = false;
+        if (page.registration != null) {
+            page.registration.remove();
+            page.registration = null;
+        }
+    }
+
+    private void removePages() {
+        for (Page page : pages) {
+            remove(page);
+        }
+        pages.clear();
+    }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        removePages();
+    }
+}
@@ -2,28 +2,34 @@ package com.example.smartaquarium.service;
 import android.os.Handler;
 import android.os.HandlerThread;
 import android.os.Looper;
-import android.util.Log;
 
 import com.example.smartaquarium.data.model.AquariumData;
 import com.example.smartaquarium.utils.enums.EnumConnectionStatus;
+import com.example.smartaquarium.utils.interfaces.IClock;
 import com.example.smartaquarium.utils.interfaces.IConnection;
 import com.example.smartaquarium.utils.interfaces.IDataListener;
 
-import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class DummyConnection implements IConnection {
 
+    public static final long SAMPLE_INTERVAL_MILLIS = 5000;
+    private static final int SPIKE_ONE_IN = 50;
 
-    private final ArrayList<IDataListener> listeners = new ArrayList<>();
+    // Iterated on the background thread while listeners are added from the UI thread
+    private final List<IDataListener> listeners = new CopyOnWriteArrayList<>();
     private EnumConnectionStatus connectionStatus;
 
-
+    private final IClock clock;
     private Random random;
 
     private HandlerThread handlerThread;
     private Handler bgHandler;
-    private Handler uiHandler;
+
+    // Reused for every generated sample so steady-state ingest does not allocate
+    private final AquariumData sample = new AquariumData();
 
     /**
      * Initializes the background thread and handlers for managing background and UI tasks,
@@ -34,7 +40,6 @@ public class DummyConnection implements IConnection {
         handlerThread = new HandlerThread("DummyConnectionThread");
         handlerThread.start(); // Start the HandlerThread before accessing its Looper
         bgHandler = new Handler(handlerThread.getLooper());
-        uiHandler = new Handler(Looper.getMainLooper());
         connectionStatus = EnumConnectionStatus.CONNECTED;
     }
 
@@ -44,6 +49,14 @@ public class DummyConnection implements IConnection {
      * and schedules the data task to run on the background handler.
      */
     public DummyConnection() {
+        this(IClock.SYSTEM);
+    }
+
+    /**
+     * @param clock Stamps the generated samples.
+     */
+    public DummyConnection(IClock clock) {
+        this.clock = clock;
         Init();
         bgHandler.post(dataTask); // Start the data task
     }
@@ -59,7 +72,18 @@ public class DummyConnection implements IConnection {
      *                 The listener is added to the internal list of listeners.
      */
     public void addListener(IDataListener listener) {
-        listeners.add(listener);
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    /**
+     * Removes a listener so it no longer receives data updates.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeListener(IDataListener listener) {
+        listeners.remove(listener);
     }
 
     /**
@@ -75,45 +99,64 @@ public class DummyConnection implements IConnection {
     }
 
     /**
-     * A Runnable task that generates random aquarium data and notifies all registered listeners.
-     * The task is scheduled to run repeatedly every 60 seconds on a background thread.
+     * Stops generating samples and quits the background thread once the current sample,
+     * if any, has been delivered.
+     */
+    @Override
+    public void close() {
+        bgHandler.removeCallbacks(dataTask);
+        listeners.clear();
+        handlerThread.quitSafely();
+    }
+
+    public int getListenerCount() {
+        return listeners.size();
+    }
+
+    /**
+     * The looper samples are generated on, so tests can drive it with a simulated clock.
+     */
+    public Looper getLooper() {
+        return handlerThread.getLooper();
+    }
+
+    /**
+     * A Runnable task that generates noisy aquarium data and notifies all registered listeners.
+     * The task is scheduled to run repeatedly every {@link #SAMPLE_INTERVAL_MILLIS} on a background thread.
      */
     Runnable dataTask = new Runnable() {
         @Override
         public void run() {
-            // Generate random aquarium data
-            AquariumData data = new AquariumData(
-                    random.nextInt(30) + 15, // Temperature between 15 and 45
-                    random.nextInt(100),    // pH between 0 and 100
-                    random.nextInt(100),   // Oxygen between 0 and 100
-                    random.nextInt(100) // Water level between 0 and 100
-
-            );
+            // Generate noisy readings around typical set points into the reused sample
+            sample.temperature = random.nextInt(3) + 24; // Temperature between 24 and 26
+            sample.ph = random.nextInt(3) + 6;           // pH between 6 and 8
+            sample.oxygen = random.nextInt(3) + 7;       // Oxygen between 7 and 9
+            sample.waterLevel = random.nextInt(5) + 88;  // Water level between 88 and 92
+            // Like a real probe, now and then a single reading spikes
+            if (random.nextInt(SPIKE_ONE_IN) == 0) {
+                sample.temperature += 15;
+            }
+            sample.timeMillis = clock.currentTimeMillis();
 
             // Notify all registered listeners with the generated data
-            notifyListeners(data);
+            notifyListeners(sample);
 
-            // Schedule the next execution of this task after 5 seconds
-            bgHandler.postDelayed(this, 5000);
+            // Schedule the next execution of this task
+            bgHandler.postDelayed(this, SAMPLE_INTERVAL_MILLIS);
         }
     };
 
     /**
      * Notifies all registered listeners with the provided aquarium data.
-     * This method ensures that the listeners are updated on the main UI thread.
+     * Listeners are called synchronously on the connection's background thread and the
+     * sample instance is reused, so they must copy what they keep (see {@link IDataListener}).
      *
      * @param data The `AquariumData` object containing the updated data to be sent to the listeners.
      */
     private void notifyListeners(AquariumData data) {
-        // Update UI on main thread
         for (IDataListener listener : listeners) {
-            Log.println(Log.INFO, "DummyConnection", "Notifying listener ("+listener.getClass().getName()+"): date="+data.date.getTime() +" temperature="+ data.temperature + ", ph=" + data.ph + ", oxygen=" + data.oxygen);
-
-            uiHandler.post(() -> {
-                listener.onNewData(data);
-                listener.onConnectionStatusChanged(connectionStatus);
-            });
-
+            listener.onNewData(data);
+            listener.onConnectionStatusChanged(connectionStatus);
         }
     }
 }
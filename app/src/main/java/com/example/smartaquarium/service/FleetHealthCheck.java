@@ -0,0 +1,74 @@
+package com.example.smartaquarium.service;
+
+import com.example.smartaquarium.data.datasource.AquariumCodec;
+import com.example.smartaquarium.data.datasource.AquariumDataCodec;
+import com.example.smartaquarium.data.datasource.FirestoreDataSource;
+import com.example.smartaquarium.data.datasource.UserSettingsCodec;
+import com.example.smartaquarium.data.model.Aquarium;
+import com.example.smartaquarium.data.model.AquariumData;
+import com.example.smartaquarium.utils.stats.FleetHealth;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One-shot {@link FleetHealth} check of every tank of a user, as run by
+ * {@link AquariumAlertJobService}. One query covers all tanks; only aquariums written
+ * before they carried a latest reading cost one history read each.
+ * Blocks on Firestore calls; never call it on the main thread.
+ */
+public class FleetHealthCheck {
+
+    private static final long CALL_TIMEOUT_SECONDS = 60;
+
+    private final FirestoreDataSource dataSource;
+    private int documentReads;
+
+    public FleetHealthCheck(FirestoreDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public FleetHealth.Summary run(String userId) throws Exception {
+        documentReads = 0;
+        DocumentSnapshot settings = await(dataSource.settingsDocument(userId).get());
+        documentReads++;
+        FleetHealth health = new FleetHealth(UserSettingsCodec.decode(settings));
+
+        QuerySnapshot aquariums = await(dataSource.aquariumsCollection(userId).get());
+        documentReads += Math.max(1, aquariums.size());
+        for (DocumentSnapshot document : aquariums.getDocuments()) {
+            Aquarium tank = AquariumCodec.decode(document);
+            AquariumData latest = tank != null ? tank.getLatestReading() : null;
+            if (latest == null) {
+                latest = readLatestFromHistory(userId, document.getId());
+            }
+            health.update(document.getId(), tank != null ? tank.getName() : null, latest);
+        }
+        return health.snapshot();
+    }
+
+    /**
+     * @return Documents read by the last {@link #run}, counted the way Firestore bills them:
+     *         one per returned document and one for a query that returns none.
+     */
+    public int getDocumentReads() {
+        return documentReads;
+    }
+
+    private AquariumData readLatestFromHistory(String userId, String aquariumId) throws Exception {
+        QuerySnapshot newest = await(dataSource.historyCollection(userId, aquariumId)
+                .orderBy(AquariumDataCodec.FIELD_TIMESTAMP, Query.Direction.DESCENDING)
+                .limit(1)
+                .get());
+        documentReads++;
+        return newest.isEmpty() ? null : AquariumDataCodec.decode(newest.getDocuments().get(0));
+    }
+
+    private static <T> T await(Task<T> task) throws Exception {
+        return Tasks.await(task, CALL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+}
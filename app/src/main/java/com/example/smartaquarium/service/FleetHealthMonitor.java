@@ -0,0 +1,125 @@
+package com.example.smartaquarium.service;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
+
+import com.example.smartaquarium.data.datasource.AquariumCodec;
+import com.example.smartaquarium.data.datasource.FirestoreDataSource;
+import com.example.smartaquarium.data.model.Aquarium;
+import com.example.smartaquarium.data.model.UserSettings;
+import com.example.smartaquarium.utils.stats.FleetHealth;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Keeps a {@link FleetHealth} aggregate of every tank of the signed-in user up to date.
+ * <p>
+ * Follows the shared listener on the aquariums collection (see
+ * {@link FirestoreDataSource#addAquariumsSnapshotListener}), whose documents carry each tank's
+ * latest reading, so the aggregate costs no reads of its own. Only the documents that changed
+ * in a snapshot are fed into the aggregate, so a new sample in one tank costs O(1) however many
+ * tanks there are. The aggregate needs every tank, so unlike the dashboard grid it is not paged.
+ * <p>
+ * Snapshots are decoded and applied on the data source's listener thread, which also owns the
+ * aggregate; only a finished summary is posted, and only when a count or the offender list
+ * changed. {@link #start} and {@link #stop()} must be called on the main thread.
+ */
+public class FleetHealthMonitor {
+
+    private final FirestoreDataSource dataSource;
+    private final Executor executor;
+    // Listener thread only
+    private final FleetHealth health = new FleetHealth(new UserSettings());
+    private final MutableLiveData<FleetHealth.Summary> summary = new MutableLiveData<>(FleetHealth.Summary.EMPTY);
+    private final Observer<UserSettings> settingsObserver = this::onSettingsChanged;
+    private final FirestoreDataSource.AquariumsSnapshotListener snapshotListener = this::apply;
+
+    @Nullable
+    private String userId;
+    @Nullable
+    private LiveData<UserSettings> settingsSource;
+
+    public FleetHealthMonitor(FirestoreDataSource dataSource) {
+        this.dataSource = dataSource;
+        this.executor = dataSource.getListenerExecutor();
+    }
+
+    public LiveData<FleetHealth.Summary> getSummary() {
+        return summary;
+    }
+
+    /**
+     * Starts following the user's tanks and limits. Calling it again for the same user does nothing.
+     */
+    @MainThread
+    public void start(@Nullable String userId) {
+        if (userId == null || userId.equals(this.userId)) return;
+        stop();
+        this.userId = userId;
+
+        settingsSource = dataSource.getUserSettings(userId);
+        settingsSource.observeForever(settingsObserver);
+        dataSource.addAquariumsSnapshotListener(userId, snapshotListener);
+    }
+
+    @MainThread
+    public void stop() {
+        if (userId != null) {
+            dataSource.removeAquariumsSnapshotListener(userId, snapshotListener);
+        }
+        if (settingsSource != null) {
+            settingsSource.removeObserver(settingsObserver);
+            settingsSource = null;
+        }
+        userId = null;
+        summary.setValue(FleetHealth.Summary.EMPTY);
+        // Queued behind any snapshot still being applied, so nothing stale is posted after it
+        executor.execute(() -> {
+            health.clear();
+            summary.postValue(FleetHealth.Summary.EMPTY);
+        });
+    }
+
+    /**
+     * Runs on the listener thread.
+     */
+    private void apply(QuerySnapshot snapshot, boolean full) {
+        boolean changed = false;
+        if (full) {
+            health.clear();
+            changed = true;
+            for (DocumentSnapshot document : snapshot.getDocuments()) {
+                changed |= update(document);
+            }
+        } else {
+            for (DocumentChange change : snapshot.getDocumentChanges()) {
+                if (change.getType() == DocumentChange.Type.REMOVED) {
+                    changed |= health.remove(change.getDocument().getId());
+                } else {
+                    changed |= update(change.getDocument());
+                }
+            }
+        }
+        if (changed) summary.postValue(health.snapshot());
+    }
+
+    private boolean update(DocumentSnapshot document) {
+        Aquarium tank = AquariumCodec.decode(document);
+        if (tank == null) return health.update(document.getId(), null, null);
+        return health.update(document.getId(), tank.getName(), tank.getLatestReading());
+    }
+
+    private void onSettingsChanged(@Nullable UserSettings settings) {
+        if (settings == null) return;
+        executor.execute(() -> {
+            health.setSettings(settings);
+            summary.postValue(health.snapshot());
+        });
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.smartaquarium.service;
+
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.example.smartaquarium.data.AppContainer;
+import com.google.firebase.auth.FirebaseAuth;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Periodic background job that runs {@link HistoryTimestampBackfill} for the signed-in
+ * user until every history document has the {@code timestamp} field, one budget-limited
+ * pass per run. Once the user's history is migrated the job cancels its own schedule.
+ */
+public class HistoryBackfillJobService extends JobService {
+
+    private static final String TAG = "HistoryBackfillJob";
+    public static final int JOB_ID = 890;
+    // Shared with earlier builds, which ran the backfill from the compaction job
+    private static final String PREFERENCES_NAME = "history_compaction";
+    private static final String KEY_CURSOR_PREFIX = "backfill_";
+    private static final String KEY_DONE_PREFIX = "backfill_done_";
+
+    static final int MAX_READS = 5_000;
+    static final int MAX_WRITES = 5_000;
+
+    private final ExecutorService backfillExecutor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "HistoryBackfillThread"));
+
+    /**
+     * @return True once every history document of {@code userId} has been migrated.
+     */
+    public static boolean isComplete(Context context, String userId) {
+        return context.getSharedPreferences(PREFERENCES_NAME, MODE_PRIVATE)
+                .getBoolean(KEY_DONE_PREFIX + userId, false);
+    }
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        String userId = FirebaseAuth.getInstance().getUid();
+        if (userId == null) {
+            Log.d(TAG, "No signed-in user, nothing to backfill.");
+            return false;
+        }
+        if (isComplete(this, userId)) {
+            cancelSchedule();
+            return false;
+        }
+
+        HistoryTimestampBackfill backfill =
+                new HistoryTimestampBackfill(AppContainer.getInstance(this).getFirestoreDataSource());
+        SharedPreferences preferences = getSharedPreferences(PREFERENCES_NAME, MODE_PRIVATE);
+
+        backfillExecutor.execute(() -> {
+            boolean reschedule = false;
+            boolean complete = false;
+            try {
+                String cursor = backfill.run(userId,
+                        preferences.getString(KEY_CURSOR_PREFIX + userId, null), MAX_READS, MAX_WRITES);
+                complete = cursor == null;
+                preferences.edit()
+                        .putString(KEY_CURSOR_PREFIX + userId, cursor)
+                        .putBoolean(KEY_DONE_PREFIX + userId, complete)
+                        .apply();
+                Log.d(TAG, complete ? "Timestamp backfill complete." : "Backfill resumes at " + cursor);
+            } catch (Exception e) {
+                Log.e(TAG, "Backfill failed", e);
+                reschedule = true;
+            }
+            jobFinished(params, reschedule);
+            if (complete) cancelSchedule();
+        });
+        // Work continues on the backfill thread
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        Log.d(TAG, "Job stopped by system.");
+        // A pass that was cut short never saved its cursor, so it simply runs again
+        return true;
+    }
+
+    @Override
+    public void onDestroy() {
+        backfillExecutor.shutdown();
+        super.onDestroy();
+    }
+
+    private void cancelSchedule() {
+        JobScheduler jobScheduler = (JobScheduler) getSystemService(JOB_SCHEDULER_SERVICE);
+        jobScheduler.cancel(JOB_ID);
+        Log.d(TAG, "History is migrated, backfill schedule removed.");
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.smartaquarium.service;
+
+import android.app.job.JobParameters;
+import android.app.job.JobService;
+import android.content.SharedPreferences;
+import android.os.PersistableBundle;
+import android.util.Log;
+
+import com.example.smartaquarium.data.AppContainer;
+import com.google.firebase.auth.FirebaseAuth;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodic background job that runs {@link HistoryCompactor} for the signed-in user,
+ * once {@link HistoryBackfillJobService} has finished migrating older history.
+ * The retention age, bucket size and per-run budgets come from the job's extras
+ * (see the {@code EXTRA_} keys), falling back to the defaults below.
+ * <p>
+ * Compacted ranges stay visible: history pages, and so the ALL_TIME chart and exports, fall
+ * back to the summary buckets once raw history runs out.
+ */
+public class HistoryCompactionJobService extends JobService {
+
+    private static final String TAG = "HistoryCompactionJob";
+    public static final int JOB_ID = 889;
+    private static final String PREFERENCES_NAME = "history_compaction";
+    private static final String KEY_RESUME_PREFIX = "resume_";
+
+    public static final String EXTRA_RETENTION_DAYS = "retentionDays";
+    public static final String EXTRA_BUCKET_MINUTES = "bucketMinutes";
+    public static final String EXTRA_MAX_READS = "maxReads";
+    public static final String EXTRA_MAX_WRITES = "maxWrites";
+
+    static final int DEFAULT_RETENTION_DAYS = 90;
+    static final int DEFAULT_BUCKET_MINUTES = 60;
+    static final int DEFAULT_MAX_READS = 5_000;
+    static final int DEFAULT_MAX_WRITES = 5_000;
+
+    private final ExecutorService compactionExecutor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "HistoryCompactionThread"));
+    private HistoryCompactor compactor;
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        String userId = FirebaseAuth.getInstance().getUid();
+        if (userId == null) {
+            Log.d(TAG, "No signed-in user, nothing to compact.");
+            return false;
+        }
+        // Compaction finds samples by timestamp, so older documents need the field first
+        if (!HistoryBackfillJobService.isComplete(this, userId)) {
+            Log.d(TAG, "Timestamp backfill still running, skipping compaction.");
+            return false;
+        }
+
+        AppContainer container = AppContainer.getInstance(this);
+        compactor = new HistoryCompactor(container.getFirestoreDataSource(), container.getClock());
+        HistoryCompactor.Policy policy = readPolicy(params.getExtras());
+        SharedPreferences preferences = getSharedPreferences(PREFERENCES_NAME, MODE_PRIVATE);
+        String resumeKey = KEY_RESUME_PREFIX + userId;
+
+        compactionExecutor.execute(() -> {
+            boolean reschedule = false;
+            try {
+                String resumeAt = compactor.compactUser(userId, policy, preferences.getString(resumeKey, null));
+                preferences.edit().putString(resumeKey, resumeAt).apply();
+                Log.d(TAG, resumeAt == null ? "Compaction pass complete." : "Budget spent, resuming at " + resumeAt);
+            } catch (Exception e) {
+                Log.e(TAG, "Compaction failed", e);
+                reschedule = true;
+            }
+            jobFinished(params, reschedule);
+        });
+        // Work continues on the compaction thread
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        Log.d(TAG, "Job stopped by system.");
+        if (compactor != null) compactor.stop();
+        return true;
+    }
+
+    @Override
+    public void onDestroy() {
+        compactionExecutor.shutdown();
+        super.onDestroy();
+    }
+
+    private static HistoryCompactor.Policy readPolicy(PersistableBundle extras) {
+        return new HistoryCompactor.Policy(
+                TimeUnit.DAYS.toMillis(extras.getInt(EXTRA_RETENTION_DAYS, DEFAULT_RETENTION_DAYS)),
+                TimeUnit.MINUTES.toMillis(extras.getInt(EXTRA_BUCKET_MINUTES, DEFAULT_BUCKET_MINUTES)),
+                extras.getInt(EXTRA_MAX_READS, DEFAULT_MAX_READS),
+                extras.getInt(EXTRA_MAX_WRITES, DEFAULT_MAX_WRITES));
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.smartaquarium.service;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.smartaquarium.data.datasource.AquariumDataCodec;
+import com.example.smartaquarium.data.datasource.FirestoreDataSource;
+import com.example.smartaquarium.data.datasource.HistorySummaryCodec;
+import com.example.smartaquarium.data.model.AquariumData;
+import com.example.smartaquarium.data.model.HistorySummary;
+import com.example.smartaquarium.utils.interfaces.IClock;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Folds raw samples older than the retention age into fixed-size summary buckets and
+ * deletes them, so raw history stays bounded however long a tank has been running.
+ * <p>
+ * Each commit writes the bucket's updated summary and deletes the samples it now includes
+ * in the same {@link WriteBatch}, so a sample is never counted twice or lost, whatever point
+ * a run is interrupted at. Already compacted samples are gone, so the next run simply picks
+ * up the oldest remaining ones. Every run stops once its read or write budget is spent.
+ * Blocks on Firestore calls; never call it on the main thread.
+ */
+public class HistoryCompactor {
+
+    private static final String TAG = "HistoryCompactor";
+    private static final int PAGE_SIZE = 500;
+    private static final long CALL_TIMEOUT_SECONDS = 60;
+
+    /**
+     * What to keep and how much one run may do.
+     */
+    public static final class Policy {
+        public final long retentionMillis;
+        public final long bucketMillis;
+        public final int maxReads;
+        public final int maxWrites;
+
+        public Policy(long retentionMillis, long bucketMillis, int maxReads, int maxWrites) {
+            this.retentionMillis = retentionMillis;
+            this.bucketMillis = bucketMillis;
+            this.maxReads = maxReads;
+            this.maxWrites = maxWrites;
+        }
+    }
+
+    /**
+     * Document reads and writes left in this run.
+     */
+    private static final class Budget {
+        int reads;
+        int writes;
+
+        Budget(Policy policy) {
+            this.reads = policy.maxReads;
+            this.writes = policy.maxWrites;
+        }
+    }
+
+    private final FirestoreDataSource dataSource;
+    private final IClock clock;
+    private final AtomicBoolean stopped = new AtomicBoolean();
+
+    /**
+     * @param clock Where the retention age is measured from.
+     */
+    public HistoryCompactor(FirestoreDataSource dataSource, IClock clock) {
+        this.dataSource = dataSource;
+        this.clock = clock;
+    }
+
+    /**
+     * Asks a running {@link #compactUser} to return after its current commit.
+     */
+    public void stop() {
+        stopped.set(true);
+    }
+
+    /**
+     * Compacts every aquarium of the user, then the legacy collection. Starts at
+     * {@code resumeAquariumId} so a budget-limited run doesn't always favour the first tanks.
+     *
+     * @return The aquarium the run stopped in, to resume at next time, or null when it got through every tank.
+     */
+    @Nullable
+    public String compactUser(String userId, Policy policy, @Nullable String resumeAquariumId) throws Exception {
+        stopped.set(false);
+        Budget budget = new Budget(policy);
+        long cutoff = (clock.currentTimeMillis() - policy.retentionMillis)
+                / policy.bucketMillis * policy.bucketMillis;
+
+        QuerySnapshot aquariums = await(dataSource.aquariumsCollection(userId).get());
+        budget.reads -= Math.max(1, aquariums.size());
+        List<String> ids = new ArrayList<>();
+        for (DocumentSnapshot aquarium : aquariums.getDocuments()) {
+            ids.add(aquarium.getId());
+        }
+        int start = Math.max(0, ids.indexOf(resumeAquariumId));
+
+        for (int n = 0; n < ids.size(); n++) {
+            String aquariumId = ids.get((start + n) % ids.size());
+            boolean done = compact(dataSource.historyCollection(userId, aquariumId),
+                    dataSource.historySummaryCollection(userId, aquariumId), cutoff, policy, budget);
+            if (!done) return aquariumId;
+        }
+        // Whatever the legacy collection has left is simply found again next run
+        compact(dataSource.legacyDataCollection(userId),
+                dataSource.legacyDataSummaryCollection(userId), cutoff, policy, budget);
+        Log.d(TAG, "Run finished with " + budget.reads + " reads and " + budget.writes + " writes to spare");
+        return null;
+    }
+
+    /**
+     * @return True when no raw sample older than the cutoff is left, false if the run stopped first.
+     */
+    private boolean compact(CollectionReference raw, CollectionReference summaries, long cutoff,
+                            Policy policy, Budget budget) throws Exception {
+        HistorySummary open = null;
+        DocumentReference openRef = null;
+        List<DocumentReference> pendingDeletes = new ArrayList<>(PAGE_SIZE);
+
+        while (true) {
+            if (stopped.get() || budget.reads <= 1 || budget.writes <= 1) {
+                commit(openRef, open, pendingDeletes, budget);
+                return false;
+            }
+            QuerySnapshot page = await(raw
+                    .orderBy(AquariumDataCodec.FIELD_TIMESTAMP)
+                    .whereLessThan(AquariumDataCodec.FIELD_TIMESTAMP, AquariumDataCodec.toTimestamp(cutoff))
+                    .limit(Math.min(PAGE_SIZE, budget.reads - 1))
+                    .get());
+            budget.reads -= Math.max(1, page.size());
+            if (page.isEmpty()) {
+                commit(openRef, open, pendingDeletes, budget);
+                return true;
+            }
+
+            for (DocumentSnapshot document : page.getDocuments()) {
+                AquariumData sample = AquariumDataCodec.decode(document);
+                if (sample == null) continue;
+                long bucketStart = Math.floorDiv(sample.getTimeMillis(), policy.bucketMillis) * policy.bucketMillis;
+
+                if (open == null || open.bucketStartMillis != bucketStart) {
+                    commit(openRef, open, pendingDeletes, budget);
+                    if (budget.reads < 1 || budget.writes < 2) return false;
+                    openRef = summaries.document(AquariumDataCodec.documentIdFor(bucketStart));
+                    // A bucket can be revisited when older samples arrive later, e.g. from an import
+                    HistorySummary stored = HistorySummaryCodec.decode(await(openRef.get()));
+                    budget.reads--;
+                    open = stored != null ? stored : new HistorySummary(bucketStart, policy.bucketMillis);
+                }
+                // One write is kept for the summary itself
+                if (pendingDeletes.size() + 1 >= Math.min(FirestoreDataSource.MAX_BATCH_WRITES, budget.writes)) {
+                    commit(openRef, open, pendingDeletes, budget);
+                    if (budget.writes < 2) return false;
+                }
+                open.add(sample);
+                pendingDeletes.add(document.getReference());
+            }
+            // The next page re-queries from the oldest remaining sample, so everything read must be committed
+            commit(openRef, open, pendingDeletes, budget);
+        }
+    }
+
+    private void commit(DocumentReference summaryRef, HistorySummary summary,
+                        List<DocumentReference> deletes, Budget budget) throws Exception {
+        if (deletes.isEmpty()) return;
+        WriteBatch batch = summaryRef.getFirestore().batch();
+        batch.set(summaryRef, HistorySummaryCodec.encode(summary));
+        for (DocumentReference delete : deletes) {
+            batch.delete(delete);
+        }
+        await(batch.commit());
+        budget.writes -= 1 + deletes.size();
+        deletes.clear();
+    }
+
+    private static <T> T await(Task<T> task) throws Exception {
+        return Tasks.await(task, CALL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.smartaquarium.service;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.smartaquarium.data.datasource.FirestoreDataSource;
+import com.example.smartaquarium.data.model.AquariumData;
+import com.google.android.gms.tasks.Tasks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams an aquarium's history to CSV (optionally gzipped).
+ * <p>
+ * History is read one page at a time with a timestamp cursor and written straight through a
+ * buffered writer, so memory use is one page regardless of how large the range is. Exports
+ * run one at a time on a background thread and report progress through {@link Job}. Ranges
+ * older than the history retention age have been compacted, so they are written as one row
+ * per summary bucket, holding its mean values at the bucket start. The job
+ * and the clean-up of a partial file belong to the exporter, not to the screen that started
+ * it, so both happen even if that screen is gone by the time the export ends.
+ */
+public class HistoryExporter {
+
+    private static final String TAG = "HistoryExporter";
+
+    static final int PAGE_SIZE = 500;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long PAGE_TIMEOUT_SECONDS = 60;
+    static final String CSV_HEADER = "timestamp,epoch_ms,temperature,ph,oxygen,water_level";
+
+    public enum State {
+        RUNNING,
+        COMPLETED,
+        CANCELLED,
+        FAILED
+    }
+
+    /**
+     * Snapshot of a running or finished export.
+     */
+    public static final class Progress {
+        public final State state;
+        public final long rows;
+        // Share of the requested time range written so far, 0..1
+        public final float fraction;
+
+        Progress(State state, long rows, float fraction) {
+            this.state = state;
+            this.rows = rows;
+            this.fraction = fraction;
+        }
+    }
+
+    /**
+     * Handle to one export.
+     */
+    public static final class Job {
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final MutableLiveData<Progress> progress = new MutableLiveData<>(new Progress(State.RUNNING, 0, 0f));
+
+        /**
+         * Stops the export after the page being written; the output is closed as is.
+         */
+        public void cancel() {
+            cancelled.set(true);
+        }
+
+        public boolean isCancelled() {
+            return cancelled.get();
+        }
+
+        public LiveData<Progress> getProgress() {
+            return progress;
+        }
+    }
+
+    private final FirestoreDataSource dataSource;
+    private volatile Job activeJob;
+    private final ExecutorService exportExecutor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "HistoryExportThread"));
+
+    public HistoryExporter(FirestoreDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Starts exporting samples with {@code fromMillis <= time <= toMillis} to {@code output},
+     * which is closed when the export ends.
+     *
+     * @param fromMillis Range start, or {@link FirestoreDataSource#NO_CURSOR} for the oldest sample.
+     */
+    public Job export(String userId, String aquariumId, long fromMillis, long toMillis,
+                      OutputStream output, boolean gzip) {
+        return export(userId, aquariumId, fromMillis, toMillis, output, gzip, null);
+    }
+
+    /**
+     * Like {@link #export(String, String, long, long, OutputStream, boolean)}, and runs
+     * {@code discardPartial} on the export thread, after {@code output} is closed, if the export
+     * is cancelled or fails.
+     *
+     * @param discardPartial Deletes the incomplete file, or null to leave it in place.
+     */
+    public Job export(String userId, String aquariumId, long fromMillis, long toMillis,
+                      OutputStream output, boolean gzip, @Nullable Runnable discardPartial) {
+        Job job = new Job();
+        activeJob = job;
+        exportExecutor.execute(() -> {
+            State state;
+            Counters counters = new Counters();
+            try (Writer writer = openWriter(output, gzip)) {
+                state = writeCsv(userId, aquariumId, fromMillis, toMillis, writer, job, counters);
+            } catch (Exception e) {
+                Log.e(TAG, "Export of " + aquariumId + " failed", e);
+                state = State.FAILED;
+            }
+            if (state != State.COMPLETED && discardPartial != null) {
+                try {
+                    discardPartial.run();
+                } catch (Exception e) {
+                    Log.w(TAG, "Could not discard the partial export of " + aquariumId, e);
+                }
+            }
+            if (activeJob == job) activeJob = null;
+            job.progress.postValue(new Progress(state, counters.rows,
+                    state == State.COMPLETED ? 1f : counters.fraction));
+        });
+        return job;
+    }
+
+    /**
+     * @return The most recently started export if it has not finished yet, so a recreated
+     * screen can show its progress again or cancel it; otherwise null.
+     */
+    @Nullable
+    public Job getActiveJob() {
+        return activeJob;
+    }
+
+    private static final class Counters {
+        long rows;
+        float fraction;
+    }
+
+    private static Writer openWriter(OutputStream output, boolean gzip) throws IOException {
+        OutputStream stream = gzip ? new GZIPOutputStream(output, BUFFER_SIZE) : output;
+        return new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * Pages through the range and writes one row per sample. Runs on the export thread.
+     */
+    private State writeCsv(String userId, String aquariumId, long fromMillis, long toMillis,
+                   Writer writer, Job job, Counters counters) throws Exception {
+        SimpleDateFormat isoFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+        isoFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        StringBuilder row = new StringBuilder(64);
+
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+
+        long cursor = fromMillis == FirestoreDataSource.NO_CURSOR ? FirestoreDataSource.NO_CURSOR : fromMillis - 1;
+        long rangeStart = fromMillis;
+        while (true) {
+            if (job.isCancelled()) return State.CANCELLED;
+
+            List<AquariumData> page = Tasks.await(
+                    dataSource.getAquariumHistoryPage(userId, aquariumId, cursor, false, PAGE_SIZE),
+                    PAGE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (page.isEmpty()) return State.COMPLETED;
+            if (rangeStart == FirestoreDataSource.NO_CURSOR) rangeStart = page.get(0).getTimeMillis();
+
+            for (AquariumData sample : page) {
+                long time = sample.getTimeMillis();
+                if (time > toMillis) return State.COMPLETED;
+
+                row.setLength(0);
+                row.append(isoFormat.format(time)).append(',')
+                        .append(time).append(',')
+                        .append(sample.temperature).append(',')
+                        .append(sample.ph).append(',')
+                        .append(sample.oxygen).append(',')
+                        .append(sample.waterLevel).append('\n');
+                writer.append(row);
+                counters.rows++;
+            }
+
+            cursor = page.get(page.size() - 1).getTimeMillis();
+            counters.fraction = toMillis > rangeStart
+                    ? Math.min(1f, (float) (cursor - rangeStart) / (toMillis - rangeStart))
+                    : 1f;
+            job.progress.postValue(new Progress(State.RUNNING, counters.rows, counters.fraction));
+
+            if (page.size() < PAGE_SIZE) return State.COMPLETED;
+        }
+    }
+}
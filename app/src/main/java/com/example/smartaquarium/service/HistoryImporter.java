@@ -0,0 +1,361 @@
+package com.example.smartaquarium.service;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.smartaquarium.data.datasource.FirestoreDataSource;
+import com.example.smartaquarium.data.datasource.ImportCheckpointStore;
+import com.example.smartaquarium.data.model.AquariumData;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams logger CSV files into an aquarium's history.
+ * <p>
+ * Rows are read one at a time and grouped into {@code WriteBatch}-sized chunks that are
+ * committed in parallel, with at most {@link #MAX_COMMITS_IN_FLIGHT} commits outstanding so
+ * memory stays bounded however large the file is. Document IDs are derived from the sample
+ * time, so re-running an import overwrites instead of duplicating. After each commit the
+ * number of rows known to be written in order is checkpointed, and a later run with the same
+ * import key skips those rows.
+ * <p>
+ * The file needs a header row. Recognised columns (case-insensitive) are {@code epoch_ms}
+ * or {@code timestamp}/{@code date}/{@code time} (epoch milliseconds or ISO-8601 UTC),
+ * {@code temperature}, {@code ph}, {@code oxygen} and {@code water_level}/{@code waterLevel},
+ * so files written by {@link HistoryExporter} import unchanged.
+ */
+public class HistoryImporter {
+
+    private static final String TAG = "HistoryImporter";
+
+    static final int BATCH_SIZE = FirestoreDataSource.MAX_BATCH_WRITES;
+    static final int MAX_COMMITS_IN_FLIGHT = 8;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public enum State {
+        RUNNING,
+        COMPLETED,
+        CANCELLED,
+        FAILED
+    }
+
+    /**
+     * Snapshot of a running or finished import.
+     */
+    public static final class Progress {
+        public final State state;
+        // Samples sent by this run, and rows it skipped because they could not be parsed
+        public final long imported;
+        public final long rejected;
+        // Rows skipped because an earlier run had already committed them
+        public final long resumedFrom;
+        public final double samplesPerSecond;
+
+        Progress(State state, long imported, long rejected, long resumedFrom, double samplesPerSecond) {
+            this.state = state;
+            this.imported = imported;
+            this.rejected = rejected;
+            this.resumedFrom = resumedFrom;
+            this.samplesPerSecond = samplesPerSecond;
+        }
+    }
+
+    /**
+     * Handle to one import.
+     */
+    public static final class Job {
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final MutableLiveData<Progress> progress =
+                new MutableLiveData<>(new Progress(State.RUNNING, 0, 0, 0, 0));
+
+        /**
+         * Stops reading after the current batch; commits already sent still finish and are checkpointed.
+         */
+        public void cancel() {
+            cancelled.set(true);
+        }
+
+        public boolean isCancelled() {
+            return cancelled.get();
+        }
+
+        public LiveData<Progress> getProgress() {
+            return progress;
+        }
+    }
+
+    private final FirestoreDataSource dataSource;
+    private final ImportCheckpointStore checkpoints;
+    private volatile Job activeJob;
+    private final ExecutorService importExecutor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "HistoryImportThread"));
+
+    public HistoryImporter(FirestoreDataSource dataSource, ImportCheckpointStore checkpoints) {
+        this.dataSource = dataSource;
+        this.checkpoints = checkpoints;
+    }
+
+    /**
+     * Starts importing {@code input}, which is closed when the import ends.
+     *
+     * @param importKey Identifies the source file; reusing it resumes an interrupted import.
+     */
+    public Job importCsv(String userId, String aquariumId, InputStream input, boolean gzip, String importKey) {
+        Job job = new Job();
+        activeJob = job;
+        importExecutor.execute(() -> {
+            runImport(userId, aquariumId, input, gzip, importKey, job);
+            if (activeJob == job) activeJob = null;
+        });
+        return job;
+    }
+
+    /**
+     * @return The most recently started import if it has not finished yet, so a recreated
+     * screen can show its progress again or stop it; otherwise null.
+     */
+    @Nullable
+    public Job getActiveJob() {
+        return activeJob;
+    }
+
+    private void runImport(String userId, String aquariumId, InputStream input, boolean gzip,
+                           String importKey, Job job) {
+        long resumeFrom = checkpoints.load(importKey);
+        Watermark watermark = new Watermark(importKey, resumeFrom);
+        Semaphore permits = new Semaphore(MAX_COMMITS_IN_FLIGHT);
+        AtomicReference<Exception> commitError = new AtomicReference<>();
+        long startNanos = System.nanoTime();
+        long imported = 0;
+        long rejected = 0;
+        State state;
+
+        try (BufferedReader reader = openReader(input, gzip)) {
+            RowParser parser = RowParser.fromHeader(reader.readLine());
+            List<AquariumData> batch = new ArrayList<>(BATCH_SIZE);
+            long row = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (row++ < resumeFrom) continue;
+
+                AquariumData sample = parser.parse(line);
+                if (sample == null) {
+                    rejected++;
+                } else {
+                    batch.add(sample);
+                }
+                if (batch.size() == BATCH_SIZE) {
+                    if (job.isCancelled() || commitError.get() != null) break;
+                    commit(userId, aquariumId, batch, row, permits, watermark, commitError);
+                    imported += batch.size();
+                    batch = new ArrayList<>(BATCH_SIZE);
+                    job.progress.postValue(new Progress(State.RUNNING, imported, rejected, resumeFrom,
+                            rate(imported, startNanos)));
+                }
+            }
+            boolean readAll = line == null;
+            if (readAll && !batch.isEmpty() && commitError.get() == null) {
+                commit(userId, aquariumId, batch, row, permits, watermark, commitError);
+                imported += batch.size();
+            }
+
+            // Wait for every outstanding commit
+            permits.acquire(MAX_COMMITS_IN_FLIGHT);
+            if (commitError.get() != null) {
+                throw commitError.get();
+            }
+            if (readAll) {
+                checkpoints.clear(importKey);
+                state = State.COMPLETED;
+            } else {
+                state = State.CANCELLED;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Import into " + aquariumId + " failed; resumable from row " + watermark.committedRows(), e);
+            state = State.FAILED;
+        }
+        job.progress.postValue(new Progress(state, imported, rejected, resumeFrom, rate(imported, startNanos)));
+    }
+
+    private void commit(String userId, String aquariumId, List<AquariumData> batch, long endRow,
+                        Semaphore permits, Watermark watermark, AtomicReference<Exception> commitError)
+            throws InterruptedException {
+        permits.acquire();
+        watermark.submitted(endRow);
+        // Completions run on the thread that finished the commit: the import thread may be blocked on permits
+        dataSource.writeHistoryBatch(userId, aquariumId, batch).addOnCompleteListener(Runnable::run, task -> {
+            if (task.isSuccessful()) {
+                watermark.committed(endRow);
+            } else {
+                commitError.compareAndSet(null, task.getException());
+            }
+            permits.release();
+        });
+    }
+
+    private static double rate(long samples, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        return elapsed > 0 ? samples * 1e9 / elapsed : 0;
+    }
+
+    private static BufferedReader openReader(InputStream input, boolean gzip) throws IOException {
+        InputStream stream = gzip ? new GZIPInputStream(input, BUFFER_SIZE) : input;
+        return new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * Commits finish out of order; the checkpoint only advances past a batch once every
+     * batch before it has been committed too.
+     */
+    private final class Watermark {
+        private final String importKey;
+        // End rows of submitted batches, oldest first, and which of them have been committed
+        private final ArrayDeque<Long> pending = new ArrayDeque<>();
+        private final ArrayDeque<Long> done = new ArrayDeque<>();
+        private long committedRows;
+
+        Watermark(String importKey, long committedRows) {
+            this.importKey = importKey;
+            this.committedRows = committedRows;
+        }
+
+        synchronized void submitted(long endRow) {
+            pending.addLast(endRow);
+        }
+
+        synchronized void committed(long endRow) {
+            done.add(endRow);
+            boolean advanced = false;
+            while (!pending.isEmpty() && done.remove(pending.peekFirst())) {
+                committedRows = pending.pollFirst();
+                advanced = true;
+            }
+            if (advanced) {
+                checkpoints.save(importKey, committedRows);
+            }
+        }
+
+        synchronized long committedRows() {
+            return committedRows;
+        }
+    }
+
+    /**
+     * Maps CSV columns to {@link AquariumData} fields using the header row.
+     */
+    static final class RowParser {
+        private static final String[] ISO_PATTERNS = {
+                "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'",
+                "yyyy-MM-dd'T'HH:mm:ss'Z'",
+                "yyyy-MM-dd HH:mm:ss"
+        };
+
+        private final int timeColumn;
+        private final int temperatureColumn;
+        private final int phColumn;
+        private final int oxygenColumn;
+        private final int waterLevelColumn;
+        private final int columnCount;
+        private final SimpleDateFormat[] isoFormats = new SimpleDateFormat[ISO_PATTERNS.length];
+        private final ParsePosition position = new ParsePosition(0);
+
+        private RowParser(String[] header) {
+            int epoch = -1, time = -1, temperature = -1, ph = -1, oxygen = -1, waterLevel = -1;
+            for (int i = 0; i < header.length; i++) {
+                switch (header[i].trim().toLowerCase(Locale.US)) {
+                    case "epoch_ms": epoch = i; break;
+                    case "timestamp":
+                    case "date":
+                    case "time": if (time < 0) time = i; break;
+                    case "temperature": temperature = i; break;
+                    case "ph": ph = i; break;
+                    case "oxygen": oxygen = i; break;
+                    case "water_level":
+                    case "waterlevel": waterLevel = i; break;
+                    default: break;
+                }
+            }
+            timeColumn = epoch >= 0 ? epoch : time;
+            temperatureColumn = temperature;
+            phColumn = ph;
+            oxygenColumn = oxygen;
+            waterLevelColumn = waterLevel;
+            columnCount = header.length;
+            for (int i = 0; i < ISO_PATTERNS.length; i++) {
+                isoFormats[i] = new SimpleDateFormat(ISO_PATTERNS[i], Locale.US);
+                isoFormats[i].setTimeZone(TimeZone.getTimeZone("UTC"));
+                isoFormats[i].setLenient(false);
+            }
+        }
+
+        static RowParser fromHeader(@Nullable String headerLine) throws IOException {
+            if (headerLine == null) throw new IOException("Empty file");
+            RowParser parser = new RowParser(headerLine.split(",", -1));
+            if (parser.timeColumn < 0) throw new IOException("No time column in header: " + headerLine);
+            return parser;
+        }
+
+        /**
+         * @return The sample, or null when the row has no usable time or a malformed value.
+         */
+        @Nullable
+        AquariumData parse(String line) {
+            String[] cells = line.split(",", -1);
+            if (cells.length < columnCount) return null;
+            try {
+                long time = parseTime(cells[timeColumn].trim());
+                if (time <= 0) return null;
+
+                AquariumData sample = new AquariumData();
+                sample.temperature = readCell(cells, temperatureColumn);
+                sample.ph = readCell(cells, phColumn);
+                sample.oxygen = readCell(cells, oxygenColumn);
+                sample.waterLevel = readCell(cells, waterLevelColumn);
+                sample.setTimeMillis(time);
+                return sample;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private long parseTime(String cell) {
+            if (!cell.isEmpty() && Character.isDigit(cell.charAt(cell.length() - 1)) && cell.indexOf('-') < 0) {
+                return Long.parseLong(cell);
+            }
+            for (SimpleDateFormat format : isoFormats) {
+                position.setIndex(0);
+                position.setErrorIndex(-1);
+                Date date = format.parse(cell, position);
+                if (date != null && position.getIndex() == cell.length()) return date.getTime();
+            }
+            return -1;
+        }
+
+        private static int readCell(String[] cells, int column) {
+            if (column < 0) return 0;
+            String cell = cells[column].trim();
+            return cell.isEmpty() ? 0 : (int) Math.round(Double.parseDouble(cell));
+        }
+    }
+}
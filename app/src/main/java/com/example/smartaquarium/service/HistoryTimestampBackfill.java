@@ -0,0 +1,98 @@
+package com.example.smartaquarium.service;
+
+import androidx.annotation.Nullable;
+
+import com.example.smartaquarium.data.datasource.AquariumDataCodec;
+import com.example.smartaquarium.data.datasource.FirestoreDataSource;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One-off migration that copies the old {@code date} field into {@code timestamp} on
+ * history documents written before every write stored it. Such documents are invisible
+ * to the timestamp-ordered history queries until they have it.
+ * <p>
+ * Walks every aquarium's history in document ID order within a read and write budget,
+ * and returns a cursor to continue from next run. Blocks on Firestore calls; never call
+ * it on the main thread.
+ */
+public class HistoryTimestampBackfill {
+
+    private static final int PAGE_SIZE = 500;
+    private static final long CALL_TIMEOUT_SECONDS = 60;
+    private static final char CURSOR_SEPARATOR = '/';
+
+    private final FirestoreDataSource dataSource;
+
+    public HistoryTimestampBackfill(FirestoreDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * @param cursor Where the previous run stopped, or null to start from the first aquarium.
+     * @return The cursor to pass next run, or null once every aquarium has been migrated.
+     */
+    @Nullable
+    public String run(String userId, @Nullable String cursor, int maxReads, int maxWrites) throws Exception {
+        String startAquarium = null;
+        String startAfterDocument = null;
+        if (cursor != null) {
+            int split = cursor.indexOf(CURSOR_SEPARATOR);
+            startAquarium = cursor.substring(0, split);
+            startAfterDocument = split + 1 < cursor.length() ? cursor.substring(split + 1) : null;
+        }
+
+        Query aquariumQuery = dataSource.aquariumsCollection(userId).orderBy(FieldPath.documentId());
+        if (startAquarium != null) {
+            aquariumQuery = aquariumQuery.startAt(startAquarium);
+        }
+        List<DocumentSnapshot> aquariums = await(aquariumQuery.get()).getDocuments();
+        int reads = Math.max(1, aquariums.size());
+        int writes = 0;
+
+        for (DocumentSnapshot aquarium : aquariums) {
+            CollectionReference history = dataSource.historyCollection(userId, aquarium.getId());
+            String after = aquarium.getId().equals(startAquarium) ? startAfterDocument : null;
+            while (true) {
+                if (reads + PAGE_SIZE > maxReads || writes + PAGE_SIZE > maxWrites) {
+                    return aquarium.getId() + CURSOR_SEPARATOR + (after == null ? "" : after);
+                }
+                Query page = history.orderBy(FieldPath.documentId()).limit(PAGE_SIZE);
+                if (after != null) {
+                    page = page.startAfter(after);
+                }
+                QuerySnapshot snapshot = await(page.get());
+                reads += Math.max(1, snapshot.size());
+                if (snapshot.isEmpty()) break;
+
+                WriteBatch batch = null;
+                for (DocumentSnapshot document : snapshot.getDocuments()) {
+                    Timestamp date = document.getTimestamp(AquariumDataCodec.FIELD_DATE);
+                    if (date == null || document.contains(AquariumDataCodec.FIELD_TIMESTAMP)) continue;
+                    if (batch == null) batch = history.getFirestore().batch();
+                    batch.update(document.getReference(), AquariumDataCodec.FIELD_TIMESTAMP, date);
+                    writes++;
+                }
+                if (batch != null) await(batch.commit());
+
+                after = snapshot.getDocuments().get(snapshot.size() - 1).getId();
+                if (snapshot.size() < PAGE_SIZE) break;
+            }
+        }
+        return null;
+    }
+
+    private static <T> T await(Task<T> task) throws Exception {
+        return Tasks.await(task, CALL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+}
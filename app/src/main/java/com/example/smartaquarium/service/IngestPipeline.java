@@ -0,0 +1,160 @@
+package com.example.smartaquarium.service;
+
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.smartaquarium.data.model.AquariumData;
+import com.example.smartaquarium.utils.enums.EnumConnectionStatus;
+import com.example.smartaquarium.utils.enums.EnumSensorMetric;
+import com.example.smartaquarium.utils.ingest.SampleRingBuffer;
+import com.example.smartaquarium.utils.ingest.SignalConditioner;
+import com.example.smartaquarium.utils.interfaces.IDataListener;
+import com.example.smartaquarium.utils.metrics.MetricsRegistry;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sits between an {@link com.example.smartaquarium.utils.interfaces.IConnection} and everything
+ * that consumes its samples (UI projection, persistence, alert evaluation).
+ * Incoming samples pass a {@link SignalConditioner} and are then copied into a preallocated
+ * {@link SampleRingBuffer}; each consumer then reads them at its own pace on its own executor,
+ * and its lag is published as a metrics gauge. Probes the conditioner finds faulty are
+ * published through {@link #getFaultyProbes()}.
+ */
+public class IngestPipeline implements IDataListener {
+
+    private static final int RING_CAPACITY = 1024;
+    // Conditioning limits per metric (EnumSensorMetric order). Plausible ranges are what the
+    // probes can physically report; deviations are the largest move from the median of the
+    // last few 5 s samples a real tank makes.
+    private static final int MEDIAN_WINDOW = 5;
+    private static final int[] PLAUSIBLE_MIN = {0, 0, 0, 0};
+    private static final int[] PLAUSIBLE_MAX = {45, 14, 20, 100};
+    private static final int[] MAX_DEVIATION = {3, 2, 4, 10};
+
+    private final SampleRingBuffer ringBuffer = new SampleRingBuffer(RING_CAPACITY);
+    private final SignalConditioner conditioner;
+    private final MutableLiveData<EnumConnectionStatus> connectionStatus = new MutableLiveData<>();
+    private final MutableLiveData<List<EnumSensorMetric>> faultyProbes = new MutableLiveData<>(Collections.emptyList());
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+    // Last status forwarded to LiveData, so repeated identical statuses are not re-posted
+    private volatile EnumConnectionStatus lastStatus;
+    // Last fault mask forwarded to LiveData; only touched on the connection's thread
+    private int lastFaultMask;
+
+    // Debug tap for unconditioned samples, null when unused
+    private volatile SampleRingBuffer.SampleHandler rawTap;
+
+    public IngestPipeline() {
+        this(new SignalConditioner(MEDIAN_WINDOW, PLAUSIBLE_MIN, PLAUSIBLE_MAX, MAX_DEVIATION));
+    }
+
+    public IngestPipeline(SignalConditioner conditioner) {
+        this.conditioner = conditioner;
+        metrics.registerGauge("ingest.ring_cursor", ringBuffer::getCursor);
+        metrics.registerGauge(MetricsRegistry.SAMPLES_REJECTED, ringBuffer::getRejectedCount);
+        metrics.registerGauge(MetricsRegistry.READINGS_IMPLAUSIBLE, conditioner::getImplausibleCount);
+        metrics.registerGauge(MetricsRegistry.SAMPLES_OUTLIERS, conditioner::getOutlierCount);
+    }
+
+    // --- IDataListener (producer side) ---
+
+    /**
+     * Conditions the sample and copies what passes into the ring. The connection may reuse
+     * {@code data} afterwards.
+     */
+    @Override
+    public void onNewData(AquariumData data) {
+        metrics.increment(MetricsRegistry.SAMPLES_RECEIVED);
+        SampleRingBuffer.SampleHandler tap = rawTap;
+        if (tap != null) tap.onSample(data);
+
+        AquariumData conditioned = conditioner.process(data);
+        int faultMask = conditioner.getFaultMask();
+        if (faultMask != lastFaultMask) {
+            lastFaultMask = faultMask;
+            faultyProbes.postValue(SignalConditioner.metricsIn(faultMask));
+        }
+        if (conditioned == null) return;
+        ringBuffer.publish(conditioned.temperature, conditioned.ph, conditioned.oxygen,
+                conditioned.waterLevel, conditioned.timeMillis);
+    }
+
+    @Override
+    public void onConnectionStatusChanged(EnumConnectionStatus status) {
+        if (status != lastStatus) {
+            lastStatus = status;
+            connectionStatus.postValue(status);
+        }
+    }
+
+    // --- Consumers ---
+
+    /**
+     * Registers a consumer and exposes its lag and overwritten count as metrics gauges.
+     *
+     * @see SampleRingBuffer#addConsumer
+     */
+    public SampleRingBuffer.Consumer addConsumer(String name, SampleRingBuffer.OverflowPolicy policy, boolean coalesce,
+                                                 Executor executor, SampleRingBuffer.SampleHandler handler) {
+        SampleRingBuffer.Consumer consumer = ringBuffer.addConsumer(name, policy, coalesce, executor, handler);
+        metrics.registerGauge("ingest." + name + ".lag", consumer::getLag);
+        metrics.registerGauge("ingest." + name + ".overwritten", consumer::getOverwrittenCount);
+        return consumer;
+    }
+
+    public void removeConsumer(SampleRingBuffer.Consumer consumer) {
+        ringBuffer.removeConsumer(consumer);
+        metrics.unregisterGauge("ingest." + consumer.getName() + ".lag");
+        metrics.unregisterGauge("ingest." + consumer.getName() + ".overwritten");
+    }
+
+    public LiveData<EnumConnectionStatus> getConnectionStatus() {
+        return connectionStatus;
+    }
+
+    /**
+     * Metrics whose probe has kept reporting implausible readings (see
+     * {@link SignalConditioner#getFaultMask()}); posted only when the set changes.
+     */
+    public LiveData<List<EnumSensorMetric>> getFaultyProbes() {
+        return faultyProbes;
+    }
+
+    public SampleRingBuffer getRingBuffer() {
+        return ringBuffer;
+    }
+
+    public SignalConditioner getConditioner() {
+        return conditioner;
+    }
+
+    /**
+     * Sets a debug tap that sees every sample before conditioning, rejected ones included.
+     * It runs inline on the connection's thread and the instance is reused, so keep it cheap
+     * and copy what you keep.
+     *
+     * @param tap The tap, or null to remove it.
+     */
+    public void setRawTap(@Nullable SampleRingBuffer.SampleHandler tap) {
+        rawTap = tap;
+    }
+
+    /**
+     * Creates a single-thread executor for a consumer. A consumer has at most one pending
+     * drain task, so a bounded array queue is enough and scheduling never allocates queue nodes.
+     */
+    public static ExecutorService newConsumerExecutor(String name) {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(2),
+                runnable -> new Thread(runnable, "Ingest-" + name));
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.smartaquarium.service;
+
+import android.util.Log;
+
+import androidx.annotation.AnyThread;
+
+import com.example.smartaquarium.data.datasource.FirestoreDataSource;
+import com.example.smartaquarium.data.datasource.LastKnownStateStore;
+import com.example.smartaquarium.data.model.AquariumData;
+import com.example.smartaquarium.utils.interfaces.IClock;
+import com.example.smartaquarium.utils.metrics.MetricsRegistry;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Starts the fetches a signed-in session needs as soon as authentication completes,
+ * instead of one by one as each screen first observes them.
+ * <p>
+ * The settings and aquarium list listeners are shared per user by {@link FirestoreDataSource},
+ * so starting them here means the screens that observe them later get an already-loaded
+ * instance. In parallel, the default analytics window (the last 24 hours) of the aquarium
+ * the user selected last is read page by page into Firestore's local cache. The prefetch
+ * stops at the next page boundary once {@link #cancel()} is called.
+ * <p>
+ * {@link #start} only posts to the warm-up executor and {@link #cancel()} only bumps a counter,
+ * so both are safe to call from the main thread before Firestore exists. The data source is
+ * resolved, and the last selection read, on that executor, which also receives every page
+ * callback.
+ */
+public class SessionWarmUp {
+
+    private static final String TAG = "SessionWarmUp";
+
+    static final int PREFETCH_PAGE_SIZE = 500;
+    // Caps the prefetch for tanks that report far more often than usual
+    static final int MAX_PREFETCH_PAGES = 10;
+    static final long PREFETCH_WINDOW_MILLIS = TimeUnit.HOURS.toMillis(24);
+    private static final int NOT_RUNNING = -1;
+
+    private final Supplier<FirestoreDataSource> dataSource;
+    private final LastKnownStateStore lastKnownStateStore;
+    private final Executor executor;
+    private final IClock clock;
+    // Bumped by every start and cancel; work and page callbacks from an older run stop there
+    private final AtomicInteger generation = new AtomicInteger();
+    // The run whose prefetch is still paging, or NOT_RUNNING
+    private volatile int prefetchingRun = NOT_RUNNING;
+
+    /**
+     * @param dataSource Called on {@code executor} only, so it may create Firestore.
+     * @param executor   Runs the warm-up; a single thread keeps runs in order.
+     * @param clock      Where the prefetch window ends.
+     */
+    public SessionWarmUp(Supplier<FirestoreDataSource> dataSource, LastKnownStateStore lastKnownStateStore,
+                         Executor executor, IClock clock) {
+        this.dataSource = dataSource;
+        this.lastKnownStateStore = lastKnownStateStore;
+        this.executor = executor;
+        this.clock = clock;
+    }
+
+    @AnyThread
+    public void start(String userId) {
+        cancel();
+        int run = generation.get();
+        long startNanos = MetricsRegistry.getInstance().startTimer();
+        executor.execute(() -> run(run, userId, startNanos));
+    }
+
+    /**
+     * Stops an unfinished prefetch. The shared listeners keep running; the app needs them anyway.
+     */
+    @AnyThread
+    public void cancel() {
+        if (isRunning()) {
+            Log.d(TAG, "Warm-up cancelled.");
+        }
+        generation.incrementAndGet();
+    }
+
+    @AnyThread
+    public boolean isRunning() {
+        return prefetchingRun == generation.get();
+    }
+
+    /**
+     * Runs on the executor.
+     */
+    private void run(int run, String userId, long startNanos) {
+        if (run != generation.get()) return;
+        FirestoreDataSource source = dataSource.get();
+
+        source.getUserSettings(userId);
+        source.getListOfAquariums(userId);
+
+        String aquariumId = lastKnownStateStore.loadSelectedAquarium();
+        if (aquariumId == null) {
+            Log.d(TAG, "No previous selection, nothing to prefetch.");
+            return;
+        }
+        prefetchingRun = run;
+        long since = clock.currentTimeMillis() - PREFETCH_WINDOW_MILLIS;
+        prefetchPage(source, run, userId, aquariumId, FirestoreDataSource.NO_CURSOR, since, 0, startNanos);
+    }
+
+    private void prefetchPage(FirestoreDataSource source, int run, String userId, String aquariumId,
+                              long cursor, long since, int pages, long startNanos) {
+        source.getAquariumHistoryPage(userId, aquariumId, cursor, true, PREFETCH_PAGE_SIZE)
+                .addOnCompleteListener(executor, task -> {
+                    if (run != generation.get()) return;
+
+                    List<AquariumData> page = task.isSuccessful() ? task.getResult() : null;
+                    boolean more = page != null
+                            && page.size() == PREFETCH_PAGE_SIZE
+                            && page.get(0).getTimeMillis() > since
+                            && pages + 1 < MAX_PREFETCH_PAGES;
+                    if (more) {
+                        prefetchPage(source, run, userId, aquariumId, page.get(0).getTimeMillis(), since,
+                                pages + 1, startNanos);
+                        return;
+                    }
+                    prefetchingRun = NOT_RUNNING;
+                    MetricsRegistry.getInstance().recordSince(MetricsRegistry.WARM_UP_TIME, startNanos);
+                    Log.d(TAG, "Prefetched " + (pages + 1) + " page(s) of " + aquariumId);
+                });
+    }
+}
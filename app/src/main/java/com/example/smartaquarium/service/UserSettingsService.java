@@ -24,21 +24,16 @@ public class UserSettingsService {
 
     /**
      * Public constructor for the service.
+     * Callers should use the shared instance from {@link com.example.smartaquarium.data.AppContainer}.
+     *
+     * @param firestoreDataSource The process-wide data source.
      */
-    public UserSettingsService() {
+    public UserSettingsService(FirestoreDataSource firestoreDataSource) {
         // Use an "init" style function to set up the required dependencies.
-        this.firestoreDataSource = initializeDataSource();
+        this.firestoreDataSource = firestoreDataSource;
         this.firebaseAuth = initializeFirebaseAuth();
     }
 
-    /**
-     * Initializes the data source dependency.
-     * @return An instance of FirestoreDataSource.
-     */
-    private FirestoreDataSource initializeDataSource() {
-        return new FirestoreDataSource();
-    }
-
     /**
      * Initializes the authentication service dependency.
      * @return An instance of FirebaseAuth.
@@ -3,27 +3,37 @@ package com.example.smartaquarium.ui.analyics;
 import android.app.Application;
 import android.content.Context;
 import android.os.Bundle;
+import android.view.MotionEvent;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
 import android.widget.Spinner;
+import android.widget.Toast;
 
 import androidx.annotation.ColorRes;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.appcompat.app.AlertDialog;
 import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentActivity;
 import androidx.lifecycle.ViewModelProvider;
 
 import com.example.smartaquarium.R;
+import com.example.smartaquarium.data.model.Aquarium;
 import com.example.smartaquarium.data.model.AquariumData;
 import com.example.smartaquarium.data.viewModel.analyics.AnalyticsViewModel;
 import com.example.smartaquarium.data.viewModel.analyics.AnalyticsViewModelFactory;
+import com.example.smartaquarium.utils.FrameRefreshScheduler;
 import com.github.mikephil.charting.charts.LineChart;
+import com.github.mikephil.charting.data.LineData;
+import com.github.mikephil.charting.listener.ChartTouchListener;
+import com.github.mikephil.charting.listener.OnChartGestureListener;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Function;
 
 public class AnalyticsFragment extends Fragment {
@@ -78,7 +88,9 @@ public class AnalyticsFragment extends Fragment {
     private LineChart lineChart;
     private Spinner dataTypeSpinner;
     private Spinner dateFilterSpinner;
+    private View compareButton;
     private AnalyticsViewModel analyticsViewModel;
+    private LineData pendingChartData;
 
     @Nullable
     @Override
@@ -98,6 +110,7 @@ public class AnalyticsFragment extends Fragment {
         lineChart = view.findViewById(R.id.line_chart);
         dataTypeSpinner = view.findViewById(R.id.spinner_data_type);
         dateFilterSpinner = view.findViewById(R.id.spinner_date_filter);
+        compareButton = view.findViewById(R.id.button_compare);
 
         // Create the factory to correctly instantiate our ViewModel
         Application application = requireActivity().getApplication();
@@ -109,6 +122,46 @@ public class AnalyticsFragment extends Fragment {
 
         setupChartStyling();
         setupSpinners();
+        compareButton.setOnClickListener(v -> showCompareDialog());
+    }
+
+    /**
+     * Lets the user pick two or more aquariums to overlay, or clear the comparison.
+     */
+    private void showCompareDialog() {
+        List<Aquarium> aquariums = analyticsViewModel.getUserAquariumsList().getValue();
+        if (aquariums == null || aquariums.size() < 2) {
+            Toast.makeText(getContext(), "Add at least two aquariums to compare", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        List<Aquarium> compared = analyticsViewModel.getComparedAquariums().getValue();
+        String[] names = new String[aquariums.size()];
+        boolean[] checked = new boolean[aquariums.size()];
+        for (int i = 0; i < aquariums.size(); i++) {
+            names[i] = aquariums.get(i).getName();
+            for (Aquarium aquarium : compared) {
+                if (aquarium.getId().equals(aquariums.get(i).getId())) checked[i] = true;
+            }
+        }
+
+        new AlertDialog.Builder(requireContext())
+                .setTitle("Compare Aquariums")
+                .setMultiChoiceItems(names, checked, (dialog, which, isChecked) -> checked[which] = isChecked)
+                .setPositiveButton("Compare", (dialog, which) -> {
+                    List<Aquarium> selected = new ArrayList<>();
+                    for (int i = 0; i < aquariums.size(); i++) {
+                        if (checked[i]) selected.add(aquariums.get(i));
+                    }
+                    if (selected.size() < 2) {
+                        Toast.makeText(getContext(), "Pick at least two aquariums", Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+                    analyticsViewModel.setComparedAquariums(selected);
+                })
+                .setNeutralButton("Clear", (dialog, which) -> analyticsViewModel.setComparedAquariums(new ArrayList<>()))
+                .setNegativeButton("Cancel", null)
+                .show();
     }
 
     private void setupChartStyling() {
@@ -116,6 +169,32 @@ public class AnalyticsFragment extends Fragment {
         lineChart.setTouchEnabled(true);
         lineChart.setPinchZoom(true);
         lineChart.setNoDataText("No data available for the selected range.");
+        lineChart.setOnChartGestureListener(new OnChartGestureListener() {
+            @Override
+            public void onChartTranslate(MotionEvent me, float dX, float dY) { reportViewport(); }
+            @Override
+            public void onChartScale(MotionEvent me, float scaleX, float scaleY) { reportViewport(); }
+            @Override
+            public void onChartGestureEnd(MotionEvent me, ChartTouchListener.ChartGesture lastPerformedGesture) { reportViewport(); }
+            @Override
+            public void onChartGestureStart(MotionEvent me, ChartTouchListener.ChartGesture lastPerformedGesture) {}
+            @Override
+            public void onChartLongPressed(MotionEvent me) {}
+            @Override
+            public void onChartDoubleTapped(MotionEvent me) {}
+            @Override
+            public void onChartSingleTapped(MotionEvent me) {}
+            @Override
+            public void onChartFling(MotionEvent me1, MotionEvent me2, float velocityX, float velocityY) {}
+        });
+    }
+
+    /**
+     * Tells the ViewModel which x range is on screen so it can page history in and out.
+     */
+    private void reportViewport() {
+        if (lineChart.getData() == null || lineChart.getData().getEntryCount() == 0) return;
+        analyticsViewModel.onViewportChanged(lineChart.getLowestVisibleX(), lineChart.getHighestVisibleX());
     }
 
     private void setupSpinners() {
@@ -149,19 +228,53 @@ public class AnalyticsFragment extends Fragment {
     }
 
     private void setupDataObservers() {
+        FrameRefreshScheduler refreshScheduler = new FrameRefreshScheduler(getViewLifecycleOwner());
+        FrameRefreshScheduler.Slot chartSlot = refreshScheduler.register(this::renderChart);
+
         analyticsViewModel.getProcessedChartData().observe(getViewLifecycleOwner(), chartData -> {
             if (chartData != null) {
-                lineChart.setData(chartData);
-                moveChartViewToLastEntry();
-                lineChart.invalidate();
+                pendingChartData = chartData;
+                chartSlot.invalidate();
             }
         });
     }
 
+    /**
+     * Binds the newest chart data, at most once per frame and only if it changed.
+     */
+    private void renderChart() {
+        LineData previousData = lineChart.getData();
+        if (pendingChartData == previousData) return;
+
+        // While browsing pages, a new page of the same series keeps the viewport where the user left it
+        float previousLowestX = lineChart.getLowestVisibleX();
+        boolean sameSeries = dateFilterSpinner.getSelectedItem() == DateFilter.ALL_TIME
+                && isSameSeries(previousData, pendingChartData);
+
+        lineChart.setData(pendingChartData);
+        if (pendingChartData.getDataSetCount() > 1) {
+            // Comparison overlays are already within the point budget, show the whole span
+            lineChart.setVisibleXRangeMaximum(pendingChartData.getXMax() - pendingChartData.getXMin() + 1);
+            lineChart.fitScreen();
+        } else if (sameSeries) {
+            lineChart.setVisibleXRangeMaximum(MAX_VISIBLE_ENTRIES);
+            lineChart.moveViewToX(previousLowestX);
+        } else {
+            moveChartViewToLastEntry();
+        }
+        lineChart.invalidate();
+        reportViewport();
+    }
+
+    private static boolean isSameSeries(@Nullable LineData previous, @NonNull LineData next) {
+        if (previous == null || previous.getDataSetCount() == 0 || next.getDataSetCount() == 0) return false;
+        return previous.getDataSetByIndex(0).getLabel().equals(next.getDataSetByIndex(0).getLabel());
+    }
+
     private void moveChartViewToLastEntry() {
         if (lineChart.getData() != null && lineChart.getData().getEntryCount() > 0) {
             lineChart.setVisibleXRangeMaximum(MAX_VISIBLE_ENTRIES);
-            lineChart.moveViewToX(lineChart.getData().getEntryCount());
+            lineChart.moveViewToX(lineChart.getData().getXMax());
         } else {
             lineChart.clear();
         }
@@ -10,11 +10,14 @@ import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentActivity;
 import androidx.lifecycle.ViewModelProvider;
 
 import com.example.smartaquarium.R;
+import com.example.smartaquarium.utils.FrameRefreshScheduler;
+import com.example.smartaquarium.data.viewModel.aquarium.AquariumProjection;
 import com.example.smartaquarium.data.viewModel.aquarium.AquariumViewModel;
 import com.example.smartaquarium.data.viewModel.aquarium.AquariumViewModelFactory;
 import com.github.mikephil.charting.charts.BarChart;
@@ -23,6 +26,8 @@ import com.github.mikephil.charting.data.BarData;
 import com.github.mikephil.charting.data.BarDataSet;
 import com.github.mikephil.charting.data.BarEntry;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -37,7 +42,10 @@ public class AquariumFragment extends Fragment {
 
     private AquariumViewModel aquariumViewModel;
 
-    private final Map<BarChart, Float> lastChartValues = new HashMap<>();
+    private static final long ANIMATION_DURATION_MS = 800;
+
+    // One animator per chart, cancelled and retargeted when a new value arrives mid-animation
+    private final Map<BarChart, ValueAnimator> chartAnimators = new HashMap<>();
 
     @Nullable
     @Override
@@ -75,31 +83,26 @@ public class AquariumFragment extends Fragment {
         FragmentActivity owner = requireActivity();
         AquariumViewModelFactory factory = new AquariumViewModelFactory(application, owner);
         aquariumViewModel = new ViewModelProvider(this, factory).get(AquariumViewModel.class);
+
+        // Bind the long-lived chart data once; later samples only change values in place
+        barChartTemperature.setData(aquariumViewModel.temperatureBarData);
+        barChartPh.setData(aquariumViewModel.phBarData);
+        barChartOxygen.setData(aquariumViewModel.oxygenBarData);
+        barChartWaterLevel.setData(aquariumViewModel.waterLevelBarData);
     }
 
     /**
      * Sets up observers on the ViewModel's LiveData to react to data changes.
      */
     private void observeViewModel() {
-        // Observe the BarData for temperature
-        aquariumViewModel.temperatureBarData.observe(getViewLifecycleOwner(), barData ->
-            updateChart(barChartTemperature, barData)
-        );
-
-        // Observe the BarData for pH
-        aquariumViewModel.phBarData.observe(getViewLifecycleOwner(), barData ->
-            updateChart(barChartPh, barData)
-        );
-
-        // Observe the BarData for oxygen
-        aquariumViewModel.oxygenBarData.observe(getViewLifecycleOwner(), barData ->
-            updateChart(barChartOxygen, barData)
-        );
-
-        // Observe the BarData for water level
-        aquariumViewModel.waterLevelBarData.observe(getViewLifecycleOwner(), barData ->
-            updateChart(barChartWaterLevel, barData)
-        );
+        // One projection per sample drives all four charts, retargeted at most once per frame
+        FrameRefreshScheduler refreshScheduler = new FrameRefreshScheduler(getViewLifecycleOwner());
+        FrameRefreshScheduler.Slot chartsSlot = refreshScheduler.register(this::renderCharts);
+        aquariumViewModel.projection.observe(getViewLifecycleOwner(), projection -> {
+            if (projection != null && projection.hasData()) {
+                chartsSlot.invalidate();
+            }
+        });
 
         // Observe the timestamp string
         aquariumViewModel.lastUpdatedTimestamp.observe(getViewLifecycleOwner(), timestampText ->
@@ -107,6 +110,16 @@ public class AquariumFragment extends Fragment {
         );
     }
 
+    private void renderCharts() {
+        AquariumProjection projection = aquariumViewModel.projection.getValue();
+        if (projection == null) return;
+
+        animateChartTo(barChartTemperature, projection.getTemperature());
+        animateChartTo(barChartPh, projection.getPh());
+        animateChartTo(barChartOxygen, projection.getOxygen());
+        animateChartTo(barChartWaterLevel, projection.getWaterLevel());
+    }
+
     /**
      * A helper method to apply common styling to a BarChart.
      */
@@ -134,44 +147,50 @@ public class AquariumFragment extends Fragment {
     }
 
     /**
-     * A helper method to update a chart's data and refresh it.
+     * Animates a chart's single bar from its current value to {@code target}.
+     * If an animation is still running it is cancelled and the new one starts from
+     * wherever the bar currently is, so animators never stack up.
      */
-    private void updateChart(BarChart chart, BarData newBarData) {
-        if (newBarData == null || newBarData.getDataSetCount() == 0) {
-            chart.clear();
-            return;
+    private void animateChartTo(BarChart chart, float target) {
+        BarData barData = chart.getData();
+        if (barData == null || barData.getDataSetCount() == 0) return;
+
+        BarEntry entry = ((BarDataSet) barData.getDataSetByIndex(0)).getEntryForIndex(0);
+        if (entry.getY() == target) return;
+
+        ValueAnimator animator = chartAnimators.get(chart);
+        if (animator == null) {
+            animator = new ValueAnimator();
+            animator.setDuration(ANIMATION_DURATION_MS);
+            animator.addUpdateListener(animation -> {
+                // Mutate the bound entry in place; the axis range is fixed, so no full re-layout is needed
+                entry.setY((float) animation.getAnimatedValue());
+                barData.notifyDataChanged();
+                chart.invalidate();
+            });
+            chartAnimators.put(chart, animator);
+        } else {
+            animator.cancel();
         }
 
-        // Get the target value from the new data
-        float newValue = newBarData.getYMax();
-
-        // Get the starting value from our map, defaulting to 0f if not present
-        float previousValue = lastChartValues.getOrDefault(chart, 0f);
-
-        // Create a value animator that goes from the previous value to the new one
-        ValueAnimator animator = ValueAnimator.ofFloat(previousValue, newValue);
-        animator.setDuration(800); // Animation duration in milliseconds
-
-        animator.addUpdateListener(animation -> {
-            // This listener is called for every frame of the animation
-            float animatedValue = (float) animation.getAnimatedValue();
-
-            // Get the chart's data set
-            BarDataSet dataSet = (BarDataSet) newBarData.getDataSetByIndex(0);
-            // Get the entry (the bar)
-            BarEntry entry = dataSet.getEntryForIndex(0);
-            // Update the entry's Y value to the current animated value
-            entry.setY(animatedValue);
-
-            // Update the chart with the modified data and redraw it
-            chart.setData(newBarData);
-            chart.invalidate();
-        });
-
-        // Start the animation
+        animator.setFloatValues(entry.getY(), target);
         animator.start();
+    }
 
-        // Store the new value as the "last value" for the next animation
-        lastChartValues.put(chart, newValue);
+    /**
+     * @return The animator of every chart that has animated so far.
+     */
+    @VisibleForTesting
+    Collection<ValueAnimator> getChartAnimators() {
+        return Collections.unmodifiableCollection(chartAnimators.values());
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        for (ValueAnimator animator : chartAnimators.values()) {
+            animator.cancel();
+        }
+        chartAnimators.clear();
     }
 }
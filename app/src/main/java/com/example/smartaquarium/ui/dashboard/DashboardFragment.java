@@ -1,11 +1,11 @@
 package com.example.smartaquarium.ui.dashboard;
 
 import android.os.Bundle;
+import android.os.Process;
+import android.os.SystemClock;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
-import android.widget.AutoCompleteTextView;
 import android.widget.EditText;
 import android.widget.TextView;
 import android.widget.Toast;
@@ -15,30 +15,77 @@ import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
-import com.example.smartaquarium.data.model.Aquarium;
 import com.example.smartaquarium.data.viewModel.aquariumData.AquariumDataViewModel;
+import com.example.smartaquarium.data.viewModel.fleet.FleetViewModel;
+import com.example.smartaquarium.service.FleetHealthMonitor;
 import com.example.smartaquarium.R;
+import com.example.smartaquarium.data.AppContainer;
+import com.example.smartaquarium.utils.FrameRefreshScheduler;
+import com.example.smartaquarium.utils.enums.EnumSensorMetric;
+import com.example.smartaquarium.utils.enums.EnumStatsWindow;
+import com.example.smartaquarium.utils.metrics.MetricsRegistry;
+import com.example.smartaquarium.utils.stats.AquariumTrends;
+import com.example.smartaquarium.utils.stats.FleetHealth;
+import com.example.smartaquarium.utils.stats.RollingStats;
+import com.example.smartaquarium.utils.stats.ThresholdForecast;
 import com.google.android.material.button.MaterialButton;
+import com.google.firebase.auth.FirebaseAuth;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
 
 public class DashboardFragment extends Fragment  {
 
+    // Time-to-meaningful-content is measured once per process, for the restored snapshot
+    // (or whatever is drawn first) and for the first live reading
+    private static boolean firstContentRecorded = false;
+    private static boolean firstLiveContentRecorded = false;
+    // Time of the last sample whose latency was recorded; LiveData replays it to every new view
+    private static long lastLatencySampleMillis = Long.MIN_VALUE;
+
     private TextView tvPhOverview;
     private TextView tvOxygenOverview;
     private TextView tvWaterOverview;
     private TextView tvAlerts;
     private TextView tvTempOverview;
     private TextView tvConnectionStatus;
+    private TextView tvTrendsTitle;
+    private TextView tvTrends;
+    private TextView tvForecast;
+    private TextView tvFleetStatus;
+    private TextView tvFleetOffenders;
 
     private View root;
-    private AutoCompleteTextView aquariumSelector;
     private MaterialButton btnAddAquarium;
     private AquariumDataViewModel viewModel;
 
+    // --- Tank grid ---
+    private static final int TANK_GRID_COLUMNS = 2;
+    private FleetViewModel fleetViewModel;
+    private TankTileAdapter tankTileAdapter;
+
+    // --- Frame-batched overview rendering ---
+    private static final int NOT_RENDERED = Integer.MIN_VALUE;
+    private FrameRefreshScheduler refreshScheduler;
+    private FrameRefreshScheduler.Slot overviewSlot;
+    private int pendingTemperature, pendingPh, pendingOxygen, pendingWaterLevel;
+    private long pendingTimeMillis;
+    private boolean pendingRestored;
+    private int renderedTemperature = NOT_RENDERED;
+    private int renderedPh = NOT_RENDERED;
+    private int renderedOxygen = NOT_RENDERED;
+    private int renderedWaterLevel = NOT_RENDERED;
+
+    // --- Rolling trends ---
+    private FrameRefreshScheduler.Slot trendsSlot;
+    private AquariumTrends pendingTrends = AquariumTrends.EMPTY;
+    private EnumStatsWindow trendsWindow = EnumStatsWindow.ONE_HOUR;
+    private List<ThresholdForecast> pendingForecasts = new ArrayList<>();
+
     public DashboardFragment() {}
 
     void InitViews(View root) {
@@ -48,6 +95,11 @@ public class DashboardFragment extends Fragment  {
         tvWaterOverview = root.findViewById(R.id.tv_water_overview);
         tvAlerts = root.findViewById(R.id.tv_alerts);
         tvConnectionStatus = root.findViewById(R.id.tv_connection_status);
+        tvTrendsTitle = root.findViewById(R.id.tv_trends_title);
+        tvTrends = root.findViewById(R.id.tv_trends);
+        tvForecast = root.findViewById(R.id.tv_forecast);
+        tvFleetStatus = root.findViewById(R.id.tv_fleet_status);
+        tvFleetOffenders = root.findViewById(R.id.tv_fleet_offenders);
     }
 
 
@@ -61,7 +113,6 @@ public class DashboardFragment extends Fragment  {
         InitViews(root);
 
         // 1. Initialize UI Objects
-        aquariumSelector = root.findViewById(R.id.spinner_aquarium_selector);
         btnAddAquarium = root.findViewById(R.id.btn_add_aquarium);
 
         tvTempOverview.setText("Temp: Loading...");
@@ -72,17 +123,36 @@ public class DashboardFragment extends Fragment  {
         tvConnectionStatus.setText("Connection: Loading...");
 
         viewModel = new ViewModelProvider(requireActivity()).get(AquariumDataViewModel.class);
+        refreshScheduler = new FrameRefreshScheduler(getViewLifecycleOwner());
+        overviewSlot = refreshScheduler.register(this::renderOverview);
+
         viewModel.getLatestData().observe(getViewLifecycleOwner(), data -> {
             if (data != null) {
-                tvTempOverview.setText("Temp: "+data.temperature+" °C");
-                tvPhOverview.setText("pH: "+data.ph);
-                tvOxygenOverview.setText("Oxygen: "+data.oxygen+" mg/L");
-                tvWaterOverview.setText("Water: "+data.waterLevel+"%");
-
+                // Only remember the values here; rendering happens at most once per frame
+                pendingTemperature = data.temperature;
+                pendingPh = data.ph;
+                pendingOxygen = data.oxygen;
+                pendingWaterLevel = data.waterLevel;
+                pendingTimeMillis = data.getTimeMillis();
+                pendingRestored = viewModel.isRestoredReading(data);
+                overviewSlot.invalidate();
+            }
+        });
+        trendsSlot = refreshScheduler.register(this::renderTrends);
+        viewModel.getTrends().observe(getViewLifecycleOwner(), trends -> {
+            if (trends != null) {
+                pendingTrends = trends;
+                trendsSlot.invalidate();
+            }
+        });
+        viewModel.getForecasts().observe(getViewLifecycleOwner(), forecasts -> {
+            if (forecasts != null) {
+                pendingForecasts = forecasts;
+                trendsSlot.invalidate();
             }
         });
         setupClickListeners();
-        setupAquariumListObserver();
+        setupTankGrid();
         return root;
 
 
@@ -90,50 +160,156 @@ public class DashboardFragment extends Fragment  {
     }
 
 
-    private void setupAquariumListObserver() {
-        // Watch for changes in the list of aquariums (e.g., after adding one)
-        viewModel.getAvailableAquariums().observe(getViewLifecycleOwner(), list -> {
-            if (list != null && !list.isEmpty()) {
-                updateDropdownAdapter(list);
-            }
-        });
+    /**
+     * Renders the four overview values, touching only the views whose value changed.
+     */
+    private void renderOverview() {
+        if (pendingTemperature != renderedTemperature) {
+            renderedTemperature = pendingTemperature;
+            tvTempOverview.setText("Temp: " + pendingTemperature + " °C");
+        }
+        if (pendingPh != renderedPh) {
+            renderedPh = pendingPh;
+            tvPhOverview.setText("pH: " + pendingPh);
+        }
+        if (pendingOxygen != renderedOxygen) {
+            renderedOxygen = pendingOxygen;
+            tvOxygenOverview.setText("Oxygen: " + pendingOxygen + " mg/L");
+        }
+        if (pendingWaterLevel != renderedWaterLevel) {
+            renderedWaterLevel = pendingWaterLevel;
+            tvWaterOverview.setText("Water: " + pendingWaterLevel + "%");
+        }
 
-        // Sync the text in the dropdown with the currently selected aquarium
-        viewModel.getSelectedAquariumId().observe(getViewLifecycleOwner(), selectedId -> {
-            if (selectedId != null) {
-                aquariumSelector.setText(selectedId, false);
-            }
-        });
+        recordTimeToContent();
+        // A restored reading can be hours old; only live readings measure sensor-to-UI latency
+        if (pendingRestored) return;
+
+        recordTimeToLiveContent();
+        if (pendingTimeMillis > 0 && pendingTimeMillis != lastLatencySampleMillis) {
+            lastLatencySampleMillis = pendingTimeMillis;
+            long latencyMs = AppContainer.getInstance(requireContext()).getClock().currentTimeMillis()
+                    - pendingTimeMillis;
+            MetricsRegistry.getInstance().recordMicros(MetricsRegistry.SENSOR_TO_UI_LATENCY, latencyMs * 1000);
+        }
+    }
+
+    /**
+     * Renders mean ± stddev, range and rate of change of each metric for the chosen window.
+     */
+    private void renderTrends() {
+        tvTrendsTitle.setText("Trends (" + trendsWindow + ")");
+        renderForecast();
+
+        RollingStats.Summary temperature = pendingTrends.get(EnumSensorMetric.TEMPERATURE, trendsWindow);
+        if (temperature.count == 0) {
+            tvTrends.setText("Collecting samples...");
+            return;
+        }
+
+        tvTrends.setText(formatTrend("Temp", temperature) + "\n"
+                + formatTrend("pH", pendingTrends.get(EnumSensorMetric.PH, trendsWindow)) + "\n"
+                + formatTrend("Oxygen", pendingTrends.get(EnumSensorMetric.OXYGEN, trendsWindow)) + "\n"
+                + formatTrend("Water", pendingTrends.get(EnumSensorMetric.WATER_LEVEL, trendsWindow)));
     }
 
-    private void updateDropdownAdapter(List<Aquarium> listOfAquariums) {
-        if (listOfAquariums == null || getContext() == null) return;
+    private void renderForecast() {
+        if (pendingForecasts.isEmpty()) {
+            tvForecast.setText("Forecast: all readings steady");
+            return;
+        }
 
-        // 1. Use Streams for a more readable transformation
-        List<String> aquariumNames = listOfAquariums.stream()
-                .map(Aquarium::getName)
-                .collect(Collectors.toList());
+        StringBuilder text = new StringBuilder("Forecast:");
+        for (ThresholdForecast forecast : pendingForecasts) {
+            text.append("\n").append(forecast.describe());
+        }
+        tvForecast.setText(text);
+    }
 
-        // 2. Use the specific type in the constructor
-        ArrayAdapter<String> adapter = new ArrayAdapter<>(
-                requireContext(),
-                android.R.layout.simple_dropdown_item_1line,
-                aquariumNames
-        );
+    private static String formatTrend(String label, RollingStats.Summary summary) {
+        return String.format(Locale.getDefault(), "%s: %.1f ± %.1f (%.0f–%.0f), %+.2f/min",
+                label, summary.mean, summary.stdDev, summary.min, summary.max, summary.ratePerMinute);
+    }
 
-        aquariumSelector.setAdapter(adapter);
+    /**
+     * Records how long after process start the first values were drawn, restored or live.
+     */
+    private void recordTimeToContent() {
+        if (firstContentRecorded) return;
+        firstContentRecorded = true;
+        recordSinceProcessStart(MetricsRegistry.TIME_TO_CONTENT);
+    }
+
+    /**
+     * Records how long after process start the first live reading was drawn. The gap to
+     * {@link MetricsRegistry#TIME_TO_CONTENT} is what the restored snapshot saves.
+     */
+    private void recordTimeToLiveContent() {
+        if (firstLiveContentRecorded) return;
+        firstLiveContentRecorded = true;
+        recordSinceProcessStart(MetricsRegistry.TIME_TO_LIVE_CONTENT);
+    }
+
+    private static void recordSinceProcessStart(String metric) {
+        long elapsedMs = SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime();
+        MetricsRegistry.getInstance().recordMicros(metric, elapsedMs * 1000);
+    }
 
-        // 3. Robust selection handling
-        aquariumSelector.setOnItemClickListener((parent, view, position, id) -> {
-            // Instead of just passing a String, get the actual object from the original list
-            Aquarium selectedAquarium = listOfAquariums.get(position);
+    private void setupTankGrid() {
+        fleetViewModel = new ViewModelProvider(this).get(FleetViewModel.class);
+        tankTileAdapter = new TankTileAdapter(tank -> viewModel.setSelectedAquarium(tank.getId()));
 
-            // Pass the ID or the whole object to the ViewModel for better reliability
-            viewModel.setSelectedAquarium(selectedAquarium.getName());
+        RecyclerView recycler = root.findViewById(R.id.recycler_tanks);
+        GridLayoutManager layoutManager = new GridLayoutManager(requireContext(), TANK_GRID_COLUMNS);
+        recycler.setLayoutManager(layoutManager);
+        recycler.setAdapter(tankTileAdapter);
+        // Tiles only change content, never size, so skip the change crossfade
+        recycler.setItemAnimator(null);
+        recycler.setHasFixedSize(true);
+        recycler.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                // Grow the window once the last loaded row is about to scroll in
+                int lastVisible = layoutManager.findLastVisibleItemPosition();
+                if (dy > 0 && lastVisible >= tankTileAdapter.getItemCount() - TANK_GRID_COLUMNS * 4) {
+                    fleetViewModel.loadMore();
+                }
+            }
         });
+
+        fleetViewModel.getTanks().observe(getViewLifecycleOwner(), tankTileAdapter::submitList);
+        viewModel.getSelectedAquariumId().observe(getViewLifecycleOwner(), tankTileAdapter::setSelectedId);
+        String userId = FirebaseAuth.getInstance().getUid();
+        fleetViewModel.start(userId);
+
+        FleetHealthMonitor fleetHealth = AppContainer.getInstance(requireContext()).getFleetHealthMonitor();
+        fleetHealth.start(userId);
+        fleetHealth.getSummary().observe(getViewLifecycleOwner(), this::renderFleetHealth);
+    }
+
+    private void renderFleetHealth(FleetHealth.Summary summary) {
+        tvFleetStatus.setText(summary.tankCount == 0 ? "Tanks" : summary.headline());
+
+        if (summary.worstOffenders.isEmpty()) {
+            tvFleetOffenders.setVisibility(View.GONE);
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        for (FleetHealth.Offender offender : summary.worstOffenders) {
+            if (text.length() > 0) text.append("\n");
+            text.append(offender.describe());
+        }
+        tvFleetOffenders.setText(text);
+        tvFleetOffenders.setVisibility(View.VISIBLE);
     }
+
     private void setupClickListeners() {
         btnAddAquarium.setOnClickListener(v -> showAddAquariumDialog());
+        root.findViewById(R.id.card_trends).setOnClickListener(v -> {
+            EnumStatsWindow[] windows = EnumStatsWindow.values();
+            trendsWindow = windows[(trendsWindow.ordinal() + 1) % windows.length];
+            trendsSlot.invalidate();
+        });
     }
 
     private void showAddAquariumDialog() {
@@ -0,0 +1,154 @@
+package com.example.smartaquarium.ui.dashboard;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.smartaquarium.R;
+import com.example.smartaquarium.data.model.Aquarium;
+import com.example.smartaquarium.data.model.AquariumData;
+import com.google.android.material.card.MaterialCardView;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Binds the dashboard's tank tiles.
+ * Lists are diffed off the main thread and only tiles whose content changed are rebound.
+ * A tile whose name is unchanged gets a payload and only its readings are redrawn, so a
+ * new sample in one tank costs one partial bind instead of a full adapter refresh.
+ */
+public class TankTileAdapter extends ListAdapter<Aquarium, TankTileAdapter.TileHolder> {
+
+    private static final Object PAYLOAD_READINGS = new Object();
+    private static final Object PAYLOAD_SELECTION = new Object();
+    private static final int SELECTED_STROKE_DP = 2;
+
+    private static final DiffUtil.ItemCallback<Aquarium> DIFF = new DiffUtil.ItemCallback<Aquarium>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Aquarium oldItem, @NonNull Aquarium newItem) {
+            return oldItem.getId().equals(newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Aquarium oldItem, @NonNull Aquarium newItem) {
+            return oldItem.sameContentAs(newItem);
+        }
+
+        @Nullable
+        @Override
+        public Object getChangePayload(@NonNull Aquarium oldItem, @NonNull Aquarium newItem) {
+            return oldItem.getName().equals(newItem.getName()) ? PAYLOAD_READINGS : null;
+        }
+    };
+
+    private final Consumer<Aquarium> onTileClicked;
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss", Locale.getDefault());
+    @Nullable
+    private String selectedId;
+
+    public TankTileAdapter(Consumer<Aquarium> onTileClicked) {
+        super(DIFF);
+        this.onTileClicked = onTileClicked;
+    }
+
+    /**
+     * Highlights the tile of the selected aquarium, rebinding only the old and new tile.
+     */
+    public void setSelectedId(@Nullable String aquariumId) {
+        if (aquariumId == null ? selectedId == null : aquariumId.equals(selectedId)) return;
+        String previous = selectedId;
+        selectedId = aquariumId;
+        notifySelectionChanged(previous);
+        notifySelectionChanged(aquariumId);
+    }
+
+    private void notifySelectionChanged(@Nullable String aquariumId) {
+        if (aquariumId == null) return;
+        List<Aquarium> tiles = getCurrentList();
+        for (int i = 0; i < tiles.size(); i++) {
+            if (tiles.get(i).getId().equals(aquariumId)) {
+                notifyItemChanged(i, PAYLOAD_SELECTION);
+                return;
+            }
+        }
+    }
+
+    @NonNull
+    @Override
+    public TileHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_tank_tile, parent, false);
+        TileHolder holder = new TileHolder(view);
+        view.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) {
+                onTileClicked.accept(getItem(position));
+            }
+        });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull TileHolder holder, int position) {
+        Aquarium tank = getItem(position);
+        holder.name.setText(tank.getName());
+        bindReadings(holder, tank);
+        bindSelection(holder, tank);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull TileHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        Aquarium tank = getItem(position);
+        for (Object payload : payloads) {
+            if (payload == PAYLOAD_READINGS) bindReadings(holder, tank);
+            else if (payload == PAYLOAD_SELECTION) bindSelection(holder, tank);
+        }
+    }
+
+    private void bindReadings(TileHolder holder, Aquarium tank) {
+        AquariumData reading = tank.getLatestReading();
+        if (reading == null) {
+            holder.readings.setText("No readings yet");
+            holder.updated.setText("");
+            return;
+        }
+        holder.readings.setText(String.format(Locale.getDefault(), "%d °C · pH %d\n%d mg/L · %d%%",
+                reading.temperature, reading.ph, reading.oxygen, reading.waterLevel));
+        holder.updated.setText(reading.hasTime() ? timeFormat.format(new Date(reading.timeMillis)) : "");
+    }
+
+    private void bindSelection(TileHolder holder, Aquarium tank) {
+        holder.card.setStrokeWidth(tank.getId().equals(selectedId) ? holder.selectedStrokeWidth : 0);
+    }
+
+    static final class TileHolder extends RecyclerView.ViewHolder {
+        final MaterialCardView card;
+        final TextView name;
+        final TextView readings;
+        final TextView updated;
+        final int selectedStrokeWidth;
+
+        TileHolder(@NonNull View itemView) {
+            super(itemView);
+            card = (MaterialCardView) itemView;
+            name = itemView.findViewById(R.id.tv_tile_name);
+            readings = itemView.findViewById(R.id.tv_tile_readings);
+            updated = itemView.findViewById(R.id.tv_tile_updated);
+            selectedStrokeWidth = Math.round(SELECTED_STROKE_DP * itemView.getResources().getDisplayMetrics().density);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.smartaquarium.ui.debug;
+
+import android.os.Bundle;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Button;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+
+import com.example.smartaquarium.R;
+import com.example.smartaquarium.utils.metrics.MetricsRegistry;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A debug overlay that shows the live contents of the {@link MetricsRegistry}
+ * and lets the user dump them to a file for bug reports.
+ */
+public class MetricsDebugFragment extends Fragment {
+
+    private static final String TAG = "MetricsDebugFragment";
+
+    private TextView reportTextView;
+    private MetricsRegistry metricsRegistry;
+
+    @Nullable
+    @Override
+    public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
+        return inflater.inflate(R.layout.fragment_metrics_debug, container, false);
+    }
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        metricsRegistry = MetricsRegistry.getInstance();
+
+        reportTextView = view.findViewById(R.id.tv_metrics_report);
+        Button dumpButton = view.findViewById(R.id.button_dump_metrics);
+        Button resetButton = view.findViewById(R.id.button_reset_metrics);
+
+        dumpButton.setOnClickListener(v -> dumpMetrics());
+        resetButton.setOnClickListener(v -> metricsRegistry.reset());
+
+        // The report LiveData only polls the registry while this screen is visible.
+        metricsRegistry.getReport().observe(getViewLifecycleOwner(), report -> {
+            if (report != null && !report.isEmpty()) {
+                reportTextView.setText(report);
+            }
+        });
+    }
+
+    private void dumpMetrics() {
+        try {
+            File file = metricsRegistry.dumpToFile(requireContext());
+            Toast.makeText(getContext(), "Saved to " + file.getAbsolutePath(), Toast.LENGTH_LONG).show();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to dump metrics", e);
+            Toast.makeText(getContext(), "Error: " + e.getMessage(), Toast.LENGTH_LONG).show();
+        }
+    }
+}
@@ -15,6 +15,7 @@ import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 
 import com.example.smartaquarium.R;
+import com.example.smartaquarium.data.AppContainer;
 import com.example.smartaquarium.data.viewModel.aquariumData.AquariumDataViewModel;
 import com.example.smartaquarium.ui.dashboard.DashboardFragment;
 import com.google.firebase.auth.FirebaseAuth;
@@ -88,6 +89,7 @@ public class LoginFragment extends Fragment {
         authenticationService.createUserWithEmailAndPassword(email, password)
                 .addOnCompleteListener(task -> {
                     if (task.isSuccessful()) {
+                        onAuthenticated();
                         Toast.makeText(getContext(), "Account created!", Toast.LENGTH_SHORT).show();
                         navigateToDashboardScreen();
                     } else {
@@ -115,6 +117,7 @@ public class LoginFragment extends Fragment {
         authenticationService.signInWithEmailAndPassword(email, password)
                 .addOnCompleteListener(task -> {
                     if (task.isSuccessful()) {
+                        onAuthenticated();
                         // On successful login, show the main navigation
                         showBottomNavigationBar();
                         Toast.makeText(getContext(), "Welcome!", Toast.LENGTH_SHORT).show();
@@ -129,6 +132,19 @@ public class LoginFragment extends Fragment {
                 });
     }
 
+    /**
+     * Publishes the new user to the shared ViewModel and starts the session's first
+     * fetches right away, so they run while the dashboard is still being inflated.
+     */
+    private void onAuthenticated() {
+        new ViewModelProvider(requireActivity()).get(AquariumDataViewModel.class)
+                .checkUserAuthentication();
+        String userId = authenticationService.getUid();
+        if (userId != null) {
+            AppContainer.getInstance(requireContext()).getSessionWarmUp().start(userId);
+        }
+    }
+
     /**
      * Makes the bottom navigation bar visible.
      */
@@ -12,9 +12,12 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 
+import com.example.smartaquarium.data.AppContainer;
 import com.example.smartaquarium.data.viewModel.aquariumData.AquariumDataViewModel;
 import com.example.smartaquarium.service.AquariumAlertJobService;
-import com.example.smartaquarium.service.DummyConnection;
+import com.example.smartaquarium.service.HistoryBackfillJobService;
+import com.example.smartaquarium.service.HistoryCompactionJobService;
+import com.example.smartaquarium.service.IngestPipeline;
 import com.example.smartaquarium.utils.interfaces.IConnection;
 import com.example.smartaquarium.ui.login.LoginFragment;
 import com.example.smartaquarium.R;
@@ -22,11 +25,13 @@ import com.example.smartaquarium.ui.settings.SettingsFragment;
 import com.example.smartaquarium.ui.analyics.AnalyticsFragment;
 import com.example.smartaquarium.ui.aquarium.AquariumFragment;
 import com.example.smartaquarium.ui.dashboard.DashboardFragment;
+import com.example.smartaquarium.utils.metrics.MetricsRegistry;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
-import com.google.firebase.FirebaseApp;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 
+import java.util.concurrent.TimeUnit;
+
 public class MainActivity extends AppCompatActivity {
     private BottomNavigationView bottomNav;
     private FirebaseAuth auth;
@@ -37,17 +42,24 @@ public class MainActivity extends AppCompatActivity {
     {
         bottomNav = findViewById(R.id.bottom_navigation);
         auth = FirebaseAuth.getInstance();
-        // TODO switch to real connection
-        connection = new DummyConnection();
+
+        // Neither needs Firestore, so this should not grow while the warm-up is still running
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        long dependencyStart = metrics.startTimer();
+        connection = AppContainer.getInstance(this).getConnection();
+        IngestPipeline pipeline = AppContainer.getInstance(this).getIngestPipeline();
+        metrics.recordSince(MetricsRegistry.MAIN_THREAD_DEPENDENCY_TIME, dependencyStart);
 
         aquariumDataViewModel = new ViewModelProvider(this).get(AquariumDataViewModel.class);
-        aquariumDataViewModel.setAsListenerTo(connection);
+        aquariumDataViewModel.attachToPipeline(pipeline);
         if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.TIRAMISU) {
             if (checkSelfPermission(android.Manifest.permission.POST_NOTIFICATIONS) != android.content.pm.PackageManager.PERMISSION_GRANTED) {
                 requestPermissions(new String[]{android.Manifest.permission.POST_NOTIFICATIONS}, 1);
             }
         }
         initJobScheduler();
+        initBackfillJob();
+        initCompactionJob();
     }
     public void initJobScheduler() {
         // Use a clear, unique ID for your aquarium job
@@ -74,10 +86,61 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    /**
+     * Schedules the history timestamp migration until it has finished for the signed-in user.
+     * It runs on an unmetered network and keeps an existing schedule so its cursor isn't reset.
+     */
+    public void initBackfillJob() {
+        FirebaseUser user = auth.getCurrentUser();
+        if (user == null || HistoryBackfillJobService.isComplete(this, user.getUid())) return;
+
+        JobScheduler jobScheduler = (JobScheduler) getSystemService(JOB_SCHEDULER_SERVICE);
+        if (jobScheduler.getPendingJob(HistoryBackfillJobService.JOB_ID) != null) return;
+
+        JobInfo info = new JobInfo.Builder(HistoryBackfillJobService.JOB_ID,
+                new ComponentName(this, HistoryBackfillJobService.class))
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_UNMETERED)
+                .setPersisted(true)
+                .setPeriodic(TimeUnit.HOURS.toMillis(6))
+                .build();
+
+        if (jobScheduler.schedule(info) == JobScheduler.RESULT_SUCCESS) {
+            Log.d("AquariumJob", "History backfill job scheduled with ID: " + HistoryBackfillJobService.JOB_ID);
+        } else {
+            Log.e("AquariumJob", "History backfill job scheduling failed!");
+        }
+    }
+
+    /**
+     * Schedules the daily history retention pass. It only runs while charging on an
+     * unmetered network, and keeps an existing schedule so its progress isn't reset.
+     */
+    public void initCompactionJob() {
+        JobScheduler jobScheduler = (JobScheduler) getSystemService(JOB_SCHEDULER_SERVICE);
+        if (jobScheduler.getPendingJob(HistoryCompactionJobService.JOB_ID) != null) return;
+
+        JobInfo info = new JobInfo.Builder(HistoryCompactionJobService.JOB_ID,
+                new ComponentName(this, HistoryCompactionJobService.class))
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_UNMETERED)
+                .setRequiresCharging(true)
+                .setPersisted(true)
+                .setPeriodic(TimeUnit.DAYS.toMillis(1))
+                .build();
+
+        if (jobScheduler.schedule(info) != JobScheduler.RESULT_SUCCESS) {
+            Log.e("AquariumJob", "Compaction job scheduling failed!");
+        }
+    }
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        FirebaseApp.initializeApp(this);
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        long onCreateStart = metrics.startTimer();
+
+        // Firebase is auto-initialized by its content provider; only Firestore is left,
+        // and the container brings it up off the main thread.
+        AppContainer.getInstance(this).warmUpAsync();
         init();
         FirebaseUser currentUser = auth.getCurrentUser();
 
@@ -97,11 +160,13 @@ public class MainActivity extends AppCompatActivity {
             findViewById(R.id.bottom_navigation).setVisibility(View.VISIBLE);
             Log.i("Uid1", "onCreate: uid="+currentUser.getUid());
             aquariumDataViewModel.checkUserAuthentication();
+            AppContainer.getInstance(this).getSessionWarmUp().start(currentUser.getUid());
             // Show main app
             loadFragment(new DashboardFragment());
 
         }
 
+        metrics.recordSince(MetricsRegistry.MAIN_ACTIVITY_ON_CREATE_TIME, onCreateStart);
     }
 
     private void setupBottomNavigation() {
@@ -120,6 +185,10 @@ public class MainActivity extends AppCompatActivity {
                 selected = new SettingsFragment();
             }
 
+            // The prefetch only helps the analytics screen; anywhere else it competes for bandwidth
+            if (id != R.id.navigation_analytics) {
+                AppContainer.getInstance(this).getSessionWarmUp().cancel();
+            }
             if (selected != null) {
                 loadFragment(selected);
             }
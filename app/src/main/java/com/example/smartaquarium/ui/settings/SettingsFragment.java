@@ -1,8 +1,11 @@
 package com.example.smartaquarium.ui.settings;
 
 import android.app.AlertDialog;
+import android.content.ContentResolver;
 import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
+import android.provider.DocumentsContract;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -13,13 +16,31 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.ViewModelProvider;
 
 import com.example.smartaquarium.R;
+import com.example.smartaquarium.data.AppContainer;
+import com.example.smartaquarium.data.datasource.FirestoreDataSource;
+import com.example.smartaquarium.data.datasource.LastKnownStateStore;
+import com.example.smartaquarium.data.model.Aquarium;
 import com.example.smartaquarium.data.model.UserSettings;
+import com.example.smartaquarium.data.viewModel.aquariumData.AquariumDataViewModel;
+import com.example.smartaquarium.service.HistoryExporter;
+import com.example.smartaquarium.service.HistoryImporter;
 import com.example.smartaquarium.service.UserSettingsService; // <-- Import the new service
 import com.google.android.material.textfield.TextInputEditText;
+import com.example.smartaquarium.ui.analyics.AnalyticsFragment;
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
 
 /**
  * Fragment for managing user settings for all aquarium parameters.
@@ -42,6 +63,25 @@ public class SettingsFragment extends Fragment {
     private TimePicker doNotDisturbEndTimePicker;
     private Button saveSettingsButton;
     private Button logoutButton;
+    private Button showMetricsButton;
+    private Button exportDataButton;
+    private Button importDataButton;
+
+    // --- Export: choices made in the dialog, used once the user picks a destination file ---
+    private Aquarium exportAquarium;
+    private AnalyticsFragment.DateFilter exportRange = AnalyticsFragment.DateFilter.ALL_TIME;
+    private boolean exportGzip;
+    private AlertDialog exportDialog;
+    private final ActivityResultLauncher<String> createCsvLauncher = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument("text/csv"), this::startExport);
+    private final ActivityResultLauncher<String> createGzipLauncher = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument("application/gzip"), this::startExport);
+
+    // --- Import: target aquarium, used once the user picks the source file ---
+    private Aquarium importAquarium;
+    private AlertDialog importDialog;
+    private final ActivityResultLauncher<String[]> openCsvLauncher = registerForActivityResult(
+            new ActivityResultContracts.OpenDocument(), this::startImport);
 
     // --- Logic Service ---
     private UserSettingsService userSettingsService; // <-- The only dependency we need
@@ -60,7 +100,7 @@ public class SettingsFragment extends Fragment {
      */
     private void initializeFragment(View view) {
         // Init the service
-        this.userSettingsService = new UserSettingsService();
+        this.userSettingsService = AppContainer.getInstance(requireContext()).getUserSettingsService();
         this.firebaseAuth = FirebaseAuth.getInstance(); // <-- Initialize FirebaseAuth
         // Init UI components and listeners
         initializeUiComponents(view);
@@ -68,6 +108,31 @@ public class SettingsFragment extends Fragment {
 
         // Trigger the data load
         loadAndObserveUserSettings();
+
+        // An export outlives the view; pick up its progress again after a rotation
+        HistoryExporter.Job runningExport = AppContainer.getInstance(requireContext())
+                .getHistoryExporter().getActiveJob();
+        if (runningExport != null) {
+            showExportProgress(runningExport, "Exporting history");
+        }
+        HistoryImporter.Job runningImport = AppContainer.getInstance(requireContext())
+                .getHistoryImporter().getActiveJob();
+        if (runningImport != null) {
+            showImportProgress(runningImport, "Importing history");
+        }
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (exportDialog != null) {
+            exportDialog.dismiss();
+            exportDialog = null;
+        }
+        if (importDialog != null) {
+            importDialog.dismiss();
+            importDialog = null;
+        }
     }
 
     /**
@@ -87,6 +152,9 @@ public class SettingsFragment extends Fragment {
         doNotDisturbEndTimePicker = view.findViewById(R.id.time_picker_dnd_end);
         saveSettingsButton = view.findViewById(R.id.button_save_settings);
         logoutButton = view.findViewById(R.id.button_logout);
+        showMetricsButton = view.findViewById(R.id.button_show_metrics);
+        exportDataButton = view.findViewById(R.id.button_export_data);
+        importDataButton = view.findViewById(R.id.button_import_data);
 
         doNotDisturbStartTimePicker.setIs24HourView(true);
         doNotDisturbEndTimePicker.setIs24HourView(true);
@@ -99,8 +167,17 @@ public class SettingsFragment extends Fragment {
     private void executeLogout() {
         Log.d(TAG, "Logging out user.");
 
-        // 1. Sign out from Firebase
+        // 1. Detach the user's listeners while they still have access, sign out of Firebase
+        //    and forget the cached dashboard state
+        AppContainer container = AppContainer.getInstance(requireContext());
+        container.getSessionWarmUp().cancel();
+        container.getFleetHealthMonitor().stop();
+        FirebaseUser user = firebaseAuth.getCurrentUser();
+        if (user != null) {
+            container.getFirestoreDataSource().release(user.getUid());
+        }
         firebaseAuth.signOut();
+        new LastKnownStateStore(requireContext()).clear();
 
         // 2. Hide the Bottom Navigation Bar (since we are going back to Login)
         View bottomNav = requireActivity().findViewById(R.id.bottom_navigation);
@@ -120,6 +197,214 @@ public class SettingsFragment extends Fragment {
     private void setupOnClickListener() {
         saveSettingsButton.setOnClickListener(v -> showSaveConfirmationDialog());
         logoutButton.setOnClickListener(v -> showLogoutConfirmationDialog()); // <-- 3. Set the listener
+        showMetricsButton.setOnClickListener(v -> openMetricsOverlay());
+        exportDataButton.setOnClickListener(v -> pickAquarium("Export which aquarium?", aquarium -> {
+            exportAquarium = aquarium;
+            showExportRangeDialog();
+        }));
+        importDataButton.setOnClickListener(v -> pickAquarium("Import into which aquarium?", aquarium -> {
+            importAquarium = aquarium;
+            openCsvLauncher.launch(new String[]{"text/*", "application/gzip", "application/octet-stream"});
+        }));
+    }
+
+    /**
+     * Lists the user's aquariums and passes the chosen one to {@code onPicked}.
+     */
+    private void pickAquarium(String title, Consumer<Aquarium> onPicked) {
+        List<Aquarium> aquariums = new ViewModelProvider(requireActivity())
+                .get(AquariumDataViewModel.class).getAvailableAquariums().getValue();
+        if (aquariums == null || aquariums.isEmpty()) {
+            Toast.makeText(getContext(), "No aquariums yet", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        String[] names = new String[aquariums.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = aquariums.get(i).getName();
+        }
+        new AlertDialog.Builder(requireContext())
+                .setTitle(title)
+                .setItems(names, (dialog, which) -> onPicked.accept(aquariums.get(which)))
+                .setNegativeButton("Cancel", (dialog, which) -> dialog.dismiss())
+                .show();
+    }
+
+    private void showExportRangeDialog() {
+        AnalyticsFragment.DateFilter[] ranges = AnalyticsFragment.DateFilter.values();
+        String[] labels = new String[ranges.length];
+        for (int i = 0; i < ranges.length; i++) {
+            labels[i] = ranges[i].toString();
+        }
+        new AlertDialog.Builder(requireContext())
+                .setTitle("Time range")
+                .setSingleChoiceItems(labels, exportRange.ordinal(), (dialog, which) -> exportRange = ranges[which])
+                .setNeutralButton("Gzip", (dialog, which) -> {
+                    exportGzip = true;
+                    createGzipLauncher.launch(exportFileName(true));
+                })
+                .setPositiveButton("CSV", (dialog, which) -> {
+                    exportGzip = false;
+                    createCsvLauncher.launch(exportFileName(false));
+                })
+                .setNegativeButton("Cancel", (dialog, which) -> dialog.dismiss())
+                .show();
+    }
+
+    private String exportFileName(boolean gzip) {
+        String name = exportAquarium.getName().replaceAll("[^A-Za-z0-9_-]+", "_");
+        return name + "_history.csv" + (gzip ? ".gz" : "");
+    }
+
+    /**
+     * Streams the chosen history into the document the user created, with a cancellable progress dialog.
+     */
+    private void startExport(@Nullable Uri uri) {
+        FirebaseUser user = firebaseAuth.getCurrentUser();
+        if (uri == null || user == null || exportAquarium == null) return;
+
+        OutputStream output;
+        try {
+            output = requireContext().getContentResolver().openOutputStream(uri);
+        } catch (Exception e) {
+            Log.e(TAG, "Could not open export destination", e);
+            output = null;
+        }
+        if (output == null) {
+            Toast.makeText(getContext(), "Could not open the export file", Toast.LENGTH_LONG).show();
+            return;
+        }
+
+        long to = AppContainer.getInstance(requireContext()).getClock().currentTimeMillis();
+        long from = exportRange == AnalyticsFragment.DateFilter.ALL_TIME
+                ? FirestoreDataSource.NO_CURSOR
+                : to - exportRange.getHours() * 3_600_000L;
+        // The exporter deletes the partial file itself, so it goes even if this screen is gone by then
+        ContentResolver resolver = requireContext().getApplicationContext().getContentResolver();
+        HistoryExporter.Job job = AppContainer.getInstance(requireContext()).getHistoryExporter()
+                .export(user.getUid(), exportAquarium.getId(), from, to, output, exportGzip,
+                        () -> deletePartialExport(resolver, uri));
+        showExportProgress(job, "Exporting " + exportAquarium.getName());
+    }
+
+    /**
+     * Shows a cancellable dialog that follows {@code job} for as long as this view exists.
+     * The export itself does not depend on the dialog.
+     */
+    private void showExportProgress(HistoryExporter.Job job, String title) {
+        AlertDialog progressDialog = new AlertDialog.Builder(requireContext())
+                .setTitle(title)
+                .setMessage("Starting...")
+                .setCancelable(false)
+                .setNegativeButton("Cancel", (dialog, which) -> job.cancel())
+                .show();
+        exportDialog = progressDialog;
+
+        job.getProgress().observe(getViewLifecycleOwner(), progress -> {
+            if (progress.state == HistoryExporter.State.RUNNING) {
+                progressDialog.setMessage(progress.rows + " rows (" + Math.round(progress.fraction * 100) + "%)");
+                return;
+            }
+            progressDialog.dismiss();
+            if (exportDialog == progressDialog) exportDialog = null;
+            switch (progress.state) {
+                case COMPLETED:
+                    Toast.makeText(getContext(), "Exported " + progress.rows + " rows", Toast.LENGTH_SHORT).show();
+                    break;
+                case CANCELLED:
+                case FAILED:
+                    Toast.makeText(getContext(), progress.state == HistoryExporter.State.CANCELLED
+                            ? "Export cancelled" : "Export failed", Toast.LENGTH_SHORT).show();
+                    break;
+            }
+        });
+    }
+
+    /**
+     * Imports the chosen CSV into the picked aquarium. Importing the same file into the same
+     * aquarium again resumes where an interrupted run stopped.
+     */
+    private void startImport(@Nullable Uri uri) {
+        FirebaseUser user = firebaseAuth.getCurrentUser();
+        if (uri == null || user == null || importAquarium == null) return;
+
+        InputStream input;
+        try {
+            input = requireContext().getContentResolver().openInputStream(uri);
+        } catch (Exception e) {
+            Log.e(TAG, "Could not open import source", e);
+            input = null;
+        }
+        if (input == null) {
+            Toast.makeText(getContext(), "Could not open the file", Toast.LENGTH_LONG).show();
+            return;
+        }
+
+        String type = requireContext().getContentResolver().getType(uri);
+        boolean gzip = "application/gzip".equals(type) || uri.toString().endsWith(".gz");
+        String importKey = importAquarium.getId() + "|" + uri;
+        HistoryImporter.Job job = AppContainer.getInstance(requireContext()).getHistoryImporter()
+                .importCsv(user.getUid(), importAquarium.getId(), input, gzip, importKey);
+        showImportProgress(job, "Importing into " + importAquarium.getName());
+    }
+
+    /**
+     * Shows a dialog that follows {@code job} for as long as this view exists, with a button to
+     * stop it. The import itself does not depend on the dialog.
+     */
+    private void showImportProgress(HistoryImporter.Job job, String title) {
+        AlertDialog progressDialog = new AlertDialog.Builder(requireContext())
+                .setTitle(title)
+                .setMessage("Starting...")
+                .setCancelable(false)
+                .setNegativeButton("Stop", (dialog, which) -> job.cancel())
+                .show();
+        importDialog = progressDialog;
+
+        job.getProgress().observe(getViewLifecycleOwner(), progress -> {
+            if (progress.state == HistoryImporter.State.RUNNING) {
+                progressDialog.setMessage(String.format(Locale.US, "%d samples (%.0f/s)",
+                        progress.resumedFrom + progress.imported, progress.samplesPerSecond));
+                return;
+            }
+            progressDialog.dismiss();
+            if (importDialog == progressDialog) importDialog = null;
+            String message;
+            switch (progress.state) {
+                case COMPLETED:
+                    message = "Imported " + progress.imported + " samples"
+                            + (progress.rejected > 0 ? ", skipped " + progress.rejected + " bad rows" : "");
+                    break;
+                case CANCELLED:
+                    message = "Import stopped; import the same file again to resume";
+                    break;
+                default:
+                    message = "Import failed; import the same file again to resume";
+                    break;
+            }
+            Toast.makeText(getContext(), message, Toast.LENGTH_LONG).show();
+        });
+    }
+
+    /**
+     * Runs on the export thread, so it only touches the application's ContentResolver.
+     */
+    private static void deletePartialExport(ContentResolver resolver, Uri uri) {
+        try {
+            DocumentsContract.deleteDocument(resolver, uri);
+        } catch (Exception e) {
+            Log.w(TAG, "Could not delete partial export " + uri, e);
+        }
+    }
+
+    /**
+     * Opens the pipeline metrics debug overlay on top of the settings screen.
+     */
+    private void openMetricsOverlay() {
+        requireActivity().getSupportFragmentManager().beginTransaction()
+                .addToBackStack(null)
+                .replace(R.id.nav_host_fragment, new com.example.smartaquarium.ui.debug.MetricsDebugFragment())
+                .commit();
     }
 
     /**
@@ -0,0 +1,108 @@
+package com.example.smartaquarium.utils;
+
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Batches UI refreshes into at most one pass per vsync.
+ * <p>
+ * Each piece of UI registers a {@link Slot} with its render function. Data observers only call
+ * {@link Slot#invalidate()}, however often samples arrive; on the next frame every invalidated
+ * slot renders exactly once. While the owner is stopped no frames are requested, and any pending
+ * invalidations are rendered as soon as it becomes visible again.
+ * <p>
+ * Must be used from the main thread.
+ */
+public class FrameRefreshScheduler implements Choreographer.FrameCallback, DefaultLifecycleObserver {
+
+    /**
+     * A unit of UI that is re-rendered at most once per frame.
+     */
+    public final class Slot {
+        private final Runnable render;
+        private boolean dirty;
+
+        private Slot(Runnable render) {
+            this.render = render;
+        }
+
+        /**
+         * Marks this slot as needing a render on the next frame.
+         */
+        public void invalidate() {
+            dirty = true;
+            scheduleFrame();
+        }
+    }
+
+    private final List<Slot> slots = new ArrayList<>();
+    private boolean frameScheduled = false;
+    private boolean visible = false;
+
+    /**
+     * @param owner Usually the fragment's view lifecycle owner; rendering follows its started state.
+     */
+    public FrameRefreshScheduler(@NonNull LifecycleOwner owner) {
+        owner.getLifecycle().addObserver(this);
+    }
+
+    public Slot register(@NonNull Runnable render) {
+        Slot slot = new Slot(render);
+        slots.add(slot);
+        return slot;
+    }
+
+    private void scheduleFrame() {
+        if (visible && !frameScheduled) {
+            frameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        for (int i = 0; i < slots.size(); i++) {
+            Slot slot = slots.get(i);
+            if (slot.dirty) {
+                slot.dirty = false;
+                slot.render.run();
+            }
+        }
+    }
+
+    // --- Lifecycle ---
+
+    @Override
+    public void onStart(@NonNull LifecycleOwner owner) {
+        visible = true;
+        for (int i = 0; i < slots.size(); i++) {
+            if (slots.get(i).dirty) {
+                scheduleFrame();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void onStop(@NonNull LifecycleOwner owner) {
+        visible = false;
+        if (frameScheduled) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            frameScheduled = false;
+        }
+    }
+
+    @Override
+    public void onDestroy(@NonNull LifecycleOwner owner) {
+        onStop(owner);
+        slots.clear();
+        owner.getLifecycle().removeObserver(this);
+    }
+}
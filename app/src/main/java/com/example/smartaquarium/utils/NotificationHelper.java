@@ -7,12 +7,16 @@ import android.os.Build;
 import android.util.Log;
 
 import androidx.core.app.NotificationCompat;
+
+import java.util.List;
 import com.example.smartaquarium.R;
 
 public class NotificationHelper {
 
     private static final String CHANNEL_ID = "AQUARIUM_ALERTS";
     private static final String CHANNEL_NAME = "Aquarium Health Alerts";
+    // Fixed so each fleet summary replaces the previous one
+    private static final int FLEET_SUMMARY_ID = 1;
     private final Context context;
 
     public NotificationHelper(Context context) {
@@ -47,4 +51,28 @@ public class NotificationHelper {
             manager.notify((int) System.currentTimeMillis(), builder.build());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Posts one notification for the whole fleet, replacing the previous summary.
+     *
+     * @param lines Shown one per line when the notification is expanded.
+     */
+    public void sendSummary(String title, String message, List<String> lines) {
+        NotificationCompat.InboxStyle style = new NotificationCompat.InboxStyle().setSummaryText(message);
+        for (String line : lines) {
+            style.addLine(line);
+        }
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_notification)
+                .setContentTitle(title)
+                .setContentText(message)
+                .setStyle(style)
+                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                .setAutoCancel(true);
+        NotificationManager manager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (manager != null) {
+            Log.d("NotificationHelper", "Sending fleet summary: " + message);
+            manager.notify(FLEET_SUMMARY_ID, builder.build());
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package com.example.smartaquarium.utils.chart;
+
+import com.github.mikephil.charting.data.DataSet;
+import com.github.mikephil.charting.data.Entry;
+import com.github.mikephil.charting.data.LineDataSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A {@link LineDataSet} that stores its points in two {@code float[]} columns instead of
+ * one {@link Entry} object per point. A 100k-point series costs ~800 KB of arrays rather
+ * than several MB of {@code Entry} objects and list slots.
+ * <p>
+ * X values must be appended in ascending order; lookups by x are binary searches and
+ * min/max are maintained incrementally on {@link #append}. {@link #getEntryForIndex}
+ * returns a fresh {@link Entry}, so the renderer only allocates for the points it draws.
+ * The other mutators of {@link DataSet} work too: ordered inserts and removals shift the
+ * columns in O(n). Styling is inherited unchanged from {@link LineDataSet}.
+ */
+public class PrimitiveLineDataSet extends LineDataSet {
+
+    private float[] xValues;
+    private float[] yValues;
+    private int size;
+
+    public PrimitiveLineDataSet(float[] xValues, float[] yValues, int size, String label) {
+        super(null, label);
+        if (xValues.length < size || yValues.length < size) {
+            throw new IllegalArgumentException("Columns are shorter than size " + size);
+        }
+        this.xValues = xValues;
+        this.yValues = yValues;
+        this.size = size;
+        calcMinMax();
+    }
+
+    public PrimitiveLineDataSet(int initialCapacity, String label) {
+        this(new float[initialCapacity], new float[initialCapacity], 0, label);
+    }
+
+    /**
+     * Appends a point in O(1) amortized time, growing the columns as needed.
+     *
+     * @throws IllegalArgumentException if {@code x} is smaller than the last x value.
+     */
+    public void append(float x, float y) {
+        if (size > 0 && x < xValues[size - 1]) {
+            throw new IllegalArgumentException("x values must be ascending: " + x + " < " + xValues[size - 1]);
+        }
+        ensureCapacity(size + 1);
+        xValues[size] = x;
+        yValues[size] = y;
+        size++;
+        updateMinMax(x, y);
+    }
+
+    /**
+     * Inserts a point after every point with an x not greater than {@code x}, keeping the
+     * columns ascending.
+     */
+    public void insert(float x, float y) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int m = (low + high) >>> 1;
+            if (xValues[m] <= x) {
+                low = m + 1;
+            } else {
+                high = m;
+            }
+        }
+
+        ensureCapacity(size + 1);
+        System.arraycopy(xValues, low, xValues, low + 1, size - low);
+        System.arraycopy(yValues, low, yValues, low + 1, size - low);
+        xValues[low] = x;
+        yValues[low] = y;
+        size++;
+        updateMinMax(x, y);
+    }
+
+    /**
+     * Removes the point at {@code index}, shifting the later points down.
+     */
+    public void removeAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        }
+        float x = xValues[index];
+        float y = yValues[index];
+        System.arraycopy(xValues, index + 1, xValues, index, size - index - 1);
+        System.arraycopy(yValues, index + 1, yValues, index, size - index - 1);
+        size--;
+
+        // Only a removed extreme needs a rescan
+        if (x == mXMin || x == mXMax || y == mYMin || y == mYMax) {
+            calcMinMax();
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > xValues.length) {
+            int grown = Math.max(Math.max(16, capacity), xValues.length * 2);
+            xValues = Arrays.copyOf(xValues, grown);
+            yValues = Arrays.copyOf(yValues, grown);
+        }
+    }
+
+    public float getX(int index) { return xValues[index]; }
+    public float getY(int index) { return yValues[index]; }
+
+    private void updateMinMax(float x, float y) {
+        if (x < mXMin) mXMin = x;
+        if (x > mXMax) mXMax = x;
+        if (y < mYMin) mYMin = y;
+        if (y > mYMax) mYMax = y;
+    }
+
+    // --- Value access ---
+
+    @Override
+    public int getEntryCount() {
+        return size;
+    }
+
+    @Override
+    public Entry getEntryForIndex(int index) {
+        return new Entry(xValues[index], yValues[index]);
+    }
+
+    @Override
+    public void calcMinMax() {
+        mXMin = Float.MAX_VALUE;
+        mXMax = -Float.MAX_VALUE;
+        mYMin = Float.MAX_VALUE;
+        mYMax = -Float.MAX_VALUE;
+        // Called from the super constructor before the columns are assigned
+        if (xValues == null) return;
+
+        for (int i = 0; i < size; i++) {
+            updateMinMax(xValues[i], yValues[i]);
+        }
+    }
+
+    @Override
+    public void calcMinMaxY(float fromX, float toX) {
+        mYMin = Float.MAX_VALUE;
+        mYMax = -Float.MAX_VALUE;
+        if (size == 0) return;
+
+        int indexFrom = getEntryIndex(fromX, Float.NaN, DataSet.Rounding.DOWN);
+        int indexTo = getEntryIndex(toX, Float.NaN, DataSet.Rounding.UP);
+        for (int i = indexFrom; i <= indexTo; i++) {
+            if (yValues[i] < mYMin) mYMin = yValues[i];
+            if (yValues[i] > mYMax) mYMax = yValues[i];
+        }
+    }
+
+    /**
+     * Same contract as {@link DataSet#getEntryIndex(float, float, DataSet.Rounding)}, searched
+     * over the x column.
+     * <p>
+     * The closest-y tie break deliberately keeps MPAndroidChart 3.1.0's behaviour, which
+     * assigns {@code closestToY} rather than the candidate's y as the best so far. After the
+     * first candidate it only moves to points whose y equals {@code closestToY} exactly.
+     * Correcting it here would make highlights and touches land on a different point than
+     * the stock data set picks; PrimitiveLineDataSetParityTest pins the two together.
+     */
+    @Override
+    public int getEntryIndex(float xValue, float closestToY, DataSet.Rounding rounding) {
+        if (size == 0) return -1;
+
+        int low = 0;
+        int high = size - 1;
+        int closest = high;
+        while (low < high) {
+            int m = (low + high) >>> 1;
+            float d1 = xValues[m] - xValue;
+            float d2 = xValues[m + 1] - xValue;
+            float ad1 = Math.abs(d1);
+            float ad2 = Math.abs(d2);
+
+            if (ad2 < ad1) {
+                low = m + 1;
+            } else if (ad1 < ad2) {
+                high = m;
+            } else if (d1 >= 0.0) {
+                high = m;
+            } else {
+                low = m + 1;
+            }
+            closest = high;
+        }
+
+        float closestXValue = xValues[closest];
+        if (rounding == DataSet.Rounding.UP) {
+            if (closestXValue < xValue && closest < size - 1) ++closest;
+        } else if (rounding == DataSet.Rounding.DOWN) {
+            if (closestXValue > xValue && closest > 0) --closest;
+        }
+
+        if (!Float.isNaN(closestToY)) {
+            // Several points can share an x; pick one by closestToY, with upstream's tie break
+            while (closest > 0 && xValues[closest - 1] == closestXValue) closest--;
+
+            float closestYValue = yValues[closest];
+            int closestYIndex = closest;
+            for (int i = closest + 1; i < size && xValues[i] == closestXValue; i++) {
+                if (Math.abs(yValues[i] - closestToY) <= Math.abs(closestYValue - closestToY)) {
+                    closestYValue = closestToY;
+                    closestYIndex = i;
+                }
+            }
+            closest = closestYIndex;
+        }
+        return closest;
+    }
+
+    @Override
+    public int getEntryIndex(Entry e) {
+        if (e == null || size == 0) return -1;
+
+        // Scan the run of points at e's x rather than rely on the closest-y tie break above
+        int index = getEntryIndex(e.getX(), Float.NaN, DataSet.Rounding.CLOSEST);
+        if (xValues[index] != e.getX()) return -1;
+        while (index > 0 && xValues[index - 1] == e.getX()) index--;
+        for (; index < size && xValues[index] == e.getX(); index++) {
+            if (yValues[index] == e.getY()) return index;
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(Entry e) {
+        return getEntryIndex(e) >= 0;
+    }
+
+    @Override
+    public Entry getEntryForXValue(float xValue, float closestToY, DataSet.Rounding rounding) {
+        int index = getEntryIndex(xValue, closestToY, rounding);
+        return index > -1 ? getEntryForIndex(index) : null;
+    }
+
+    @Override
+    public Entry getEntryForXValue(float xValue, float closestToY) {
+        return getEntryForXValue(xValue, closestToY, DataSet.Rounding.CLOSEST);
+    }
+
+    @Override
+    public List<Entry> getEntriesForXValue(float xValue) {
+        List<Entry> entries = new ArrayList<>();
+        int index = getEntryIndex(xValue, Float.NaN, DataSet.Rounding.CLOSEST);
+        if (index < 0 || xValues[index] != xValue) return entries;
+
+        while (index > 0 && xValues[index - 1] == xValue) index--;
+        for (; index < size && xValues[index] == xValue; index++) {
+            entries.add(getEntryForIndex(index));
+        }
+        return entries;
+    }
+
+    /**
+     * Materializes the points as {@link Entry} objects. Allocates; avoid on hot paths.
+     */
+    @Override
+    public List<Entry> getValues() {
+        List<Entry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(getEntryForIndex(i));
+        }
+        return entries;
+    }
+
+    // --- Mutation ---
+
+    @Override
+    public boolean addEntry(Entry e) {
+        append(e.getX(), e.getY());
+        return true;
+    }
+
+    @Override
+    public void addEntryOrdered(Entry e) {
+        insert(e.getX(), e.getY());
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        notifyDataSetChanged();
+    }
+
+    @Override
+    public boolean removeEntry(Entry e) {
+        int index = getEntryIndex(e);
+        if (index < 0) return false;
+        removeAt(index);
+        return true;
+    }
+
+    @Override
+    public boolean removeEntry(int index) {
+        if (index < 0 || index >= size) return false;
+        removeAt(index);
+        return true;
+    }
+
+    @Override
+    public boolean removeFirst() {
+        return removeEntry(0);
+    }
+
+    @Override
+    public boolean removeLast() {
+        return removeEntry(size - 1);
+    }
+
+    @Override
+    public boolean removeEntryByXValue(float xValue) {
+        return removeEntry(getEntryForXValue(xValue, Float.NaN));
+    }
+
+    /**
+     * Refills the columns from {@code values}, which must be sorted by x like any
+     * {@link DataSet}'s. Allocates an Entry per point on the caller's side; prefer the
+     * float[] constructor or {@link #append}.
+     *
+     * @throws IllegalArgumentException if the x values are not ascending.
+     */
+    @Override
+    public void setValues(List<Entry> values) {
+        int count = values == null ? 0 : values.size();
+        for (int i = 1; i < count; i++) {
+            if (values.get(i).getX() < values.get(i - 1).getX()) {
+                throw new IllegalArgumentException("x values must be ascending at index " + i);
+            }
+        }
+
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            xValues[i] = values.get(i).getX();
+            yValues[i] = values.get(i).getY();
+        }
+        size = count;
+        notifyDataSetChanged();
+    }
+
+    @Override
+    public DataSet<Entry> copy() {
+        PrimitiveLineDataSet copied = new PrimitiveLineDataSet(
+                Arrays.copyOf(xValues, size), Arrays.copyOf(yValues, size), size, getLabel());
+        copy(copied);
+        return copied;
+    }
+}
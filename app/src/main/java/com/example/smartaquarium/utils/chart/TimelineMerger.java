@@ -0,0 +1,123 @@
+package com.example.smartaquarium.utils.chart;
+
+import com.example.smartaquarium.data.model.AquariumData;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.ToIntFunction;
+
+/**
+ * Aligns several time-ordered histories onto one shared time axis.
+ * <p>
+ * The span from the earliest to the latest sample of any series is split into equal time
+ * buckets, sized so that all series together stay within a point budget. The series are
+ * then walked once with a k-way merge in timestamp order, and each series' samples are
+ * averaged per bucket. The x value of a point is its bucket index, so the same x means
+ * the same time in every series. A series has no point for buckets it has no samples in.
+ */
+public final class TimelineMerger {
+
+    /**
+     * Result of a merge: per-series x/y columns plus the bucket geometry.
+     */
+    public static final class MergedTimeline {
+        public final long startMillis;
+        public final long bucketMillis;
+        public final int bucketCount;
+        public final float[][] xValues;
+        public final float[][] yValues;
+        public final int[] sizes;
+
+        MergedTimeline(long startMillis, long bucketMillis, int bucketCount, int seriesCount) {
+            this.startMillis = startMillis;
+            this.bucketMillis = bucketMillis;
+            this.bucketCount = bucketCount;
+            this.xValues = new float[seriesCount][bucketCount];
+            this.yValues = new float[seriesCount][bucketCount];
+            this.sizes = new int[seriesCount];
+        }
+    }
+
+    private TimelineMerger() {}
+
+    /**
+     * @param series Histories, each sorted by time ascending. Samples without a time are skipped.
+     * @param reader Extracts the charted metric from a sample.
+     * @param pointBudget Maximum number of points across all series together.
+     */
+    public static MergedTimeline merge(List<List<AquariumData>> series, ToIntFunction<AquariumData> reader,
+                                       int pointBudget) {
+        int seriesCount = series.size();
+        int[] cursors = new int[seriesCount];
+
+        // Time span from the ends of each sorted series, O(k)
+        long start = Long.MAX_VALUE;
+        long end = Long.MIN_VALUE;
+        for (int s = 0; s < seriesCount; s++) {
+            List<AquariumData> history = series.get(s);
+            cursors[s] = skipUntimed(history, 0);
+            if (cursors[s] < history.size()) {
+                start = Math.min(start, history.get(cursors[s]).getTimeMillis());
+                end = Math.max(end, history.get(history.size() - 1).getTimeMillis());
+            }
+        }
+        if (start > end || seriesCount == 0) {
+            return new MergedTimeline(0, 1, 0, seriesCount);
+        }
+
+        int bucketCount = Math.max(1, pointBudget / seriesCount);
+        long bucketMillis = Math.max(1, (end - start) / bucketCount + 1);
+        MergedTimeline timeline = new MergedTimeline(start, bucketMillis, bucketCount, seriesCount);
+
+        // Open bucket per series and its running sum
+        int[] openBucket = new int[seriesCount];
+        long[] bucketSum = new long[seriesCount];
+        int[] bucketSamples = new int[seriesCount];
+        Arrays.fill(openBucket, -1);
+
+        // Min-heap of series indices keyed by the time of their next sample
+        PriorityQueue<Integer> heads = new PriorityQueue<>(Math.max(1, seriesCount), (a, b) -> Long.compare(
+                series.get(a).get(cursors[a]).getTimeMillis(),
+                series.get(b).get(cursors[b]).getTimeMillis()));
+        for (int s = 0; s < seriesCount; s++) {
+            if (cursors[s] < series.get(s).size()) heads.add(s);
+        }
+
+        while (!heads.isEmpty()) {
+            int s = heads.poll();
+            List<AquariumData> history = series.get(s);
+            AquariumData sample = history.get(cursors[s]);
+            int bucket = (int) Math.min(bucketCount - 1, (sample.getTimeMillis() - start) / bucketMillis);
+
+            if (bucket != openBucket[s]) {
+                flush(timeline, s, openBucket[s], bucketSum[s], bucketSamples[s]);
+                openBucket[s] = bucket;
+                bucketSum[s] = 0;
+                bucketSamples[s] = 0;
+            }
+            bucketSum[s] += reader.applyAsInt(sample);
+            bucketSamples[s]++;
+
+            cursors[s] = skipUntimed(history, cursors[s] + 1);
+            if (cursors[s] < history.size()) heads.add(s);
+        }
+
+        for (int s = 0; s < seriesCount; s++) {
+            flush(timeline, s, openBucket[s], bucketSum[s], bucketSamples[s]);
+        }
+        return timeline;
+    }
+
+    private static int skipUntimed(List<AquariumData> history, int index) {
+        while (index < history.size() && !history.get(index).hasTime()) index++;
+        return index;
+    }
+
+    private static void flush(MergedTimeline timeline, int s, int bucket, long sum, int samples) {
+        if (bucket < 0 || samples == 0) return;
+        int size = timeline.sizes[s]++;
+        timeline.xValues[s][size] = bucket;
+        timeline.yValues[s][size] = (float) sum / samples;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.smartaquarium.utils.enums;
+
+/**
+ * Kinds of local alert notifications.
+ */
+public enum EnumAlertType {
+    // A reading is outside the user's min/max settings
+    OUT_OF_RANGE("Aquarium Alert"),
+    // A reading jumped or drifted away from its recent baseline, possibly still within range
+    UNUSUAL_CHANGE("Unusual Change"),
+    // A reading's trend is predicted to cross a min/max soon
+    PREDICTED_BREACH("Early Warning"),
+    // A reading is still within the user's min/max but close to one of them
+    NEAR_LIMIT("Aquarium Warning"),
+    // A probe keeps reporting readings it cannot physically produce
+    PROBE_FAULT("Probe Fault");
+
+    private final String title;
+
+    EnumAlertType(String title) {
+        this.title = title;
+    }
+
+    public String getTitle() { return title; }
+}
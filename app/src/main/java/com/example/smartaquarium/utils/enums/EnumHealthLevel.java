@@ -0,0 +1,22 @@
+package com.example.smartaquarium.utils.enums;
+
+/**
+ * How a reading sits relative to the user's min/max settings, best first.
+ */
+public enum EnumHealthLevel {
+    // Comfortably inside the range
+    IN_RANGE("in range"),
+    // Inside the range but close to one of its limits
+    WARNING("warning"),
+    // Outside the range
+    CRITICAL("critical");
+
+    private final String label;
+
+    EnumHealthLevel(String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() { return label; }
+}
@@ -0,0 +1,59 @@
+package com.example.smartaquarium.utils.enums;
+
+import com.example.smartaquarium.data.model.AquariumData;
+import com.example.smartaquarium.data.model.UserSettings;
+
+/**
+ * The four values carried by every {@link AquariumData} sample.
+ */
+public enum EnumSensorMetric {
+    TEMPERATURE("Temperature"),
+    PH("pH"),
+    OXYGEN("Oxygen"),
+    WATER_LEVEL("Water level");
+
+    private final String label;
+
+    EnumSensorMetric(String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() { return label; }
+
+    public int read(AquariumData data) {
+        switch (this) {
+            case TEMPERATURE: return data.temperature;
+            case PH: return data.ph;
+            case OXYGEN: return data.oxygen;
+            default: return data.waterLevel;
+        }
+    }
+
+    public void write(AquariumData data, int value) {
+        switch (this) {
+            case TEMPERATURE: data.temperature = value; break;
+            case PH: data.ph = value; break;
+            case OXYGEN: data.oxygen = value; break;
+            default: data.waterLevel = value;
+        }
+    }
+
+    public double minOf(UserSettings settings) {
+        switch (this) {
+            case TEMPERATURE: return settings.getMinTemperature();
+            case PH: return settings.getMinPh();
+            case OXYGEN: return settings.getMinOxygen();
+            default: return settings.getMinWaterLevel();
+        }
+    }
+
+    public double maxOf(UserSettings settings) {
+        switch (this) {
+            case TEMPERATURE: return settings.getMaxTemperature();
+            case PH: return settings.getMaxPh();
+            case OXYGEN: return settings.getMaxOxygen();
+            default: return settings.getMaxWaterLevel();
+        }
+    }
+}
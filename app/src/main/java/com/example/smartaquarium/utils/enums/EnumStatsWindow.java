@@ -0,0 +1,23 @@
+package com.example.smartaquarium.utils.enums;
+
+/**
+ * Time windows over which rolling statistics are kept, shortest first.
+ */
+public enum EnumStatsWindow {
+    FIVE_MINUTES("5 min", 5 * 60_000L),
+    ONE_HOUR("1 h", 60 * 60_000L),
+    ONE_DAY("24 h", 24 * 60 * 60_000L);
+
+    private final String label;
+    private final long durationMillis;
+
+    EnumStatsWindow(String label, long durationMillis) {
+        this.label = label;
+        this.durationMillis = durationMillis;
+    }
+
+    public long getDurationMillis() { return durationMillis; }
+
+    @Override
+    public String toString() { return label; }
+}
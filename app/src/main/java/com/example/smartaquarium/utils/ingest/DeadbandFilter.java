@@ -0,0 +1,93 @@
+package com.example.smartaquarium.utils.ingest;
+
+import com.example.smartaquarium.data.model.AquariumData;
+import com.example.smartaquarium.utils.enums.EnumSensorMetric;
+
+/**
+ * Per-metric deadband compression with a heartbeat, for the persistence path.
+ * <p>
+ * A sample passes when any metric differs from the last passed sample by more than that
+ * metric's epsilon, or when the heartbeat interval has elapsed since the last passed sample.
+ * Every dropped sample is therefore within epsilon of the last stored one, so holding each
+ * stored value until the next stored sample (a step function) rebuilds the signal to within
+ * epsilon, and a gap longer than the heartbeat means the sensor was silent rather than flat.
+ * Allocation-free and not thread-safe.
+ */
+public class DeadbandFilter {
+
+    // values() clones its array on every call
+    private static final EnumSensorMetric[] METRICS = EnumSensorMetric.values();
+
+    private final int[] epsilons;
+    private final long heartbeatMillis;
+
+    private final int[] lastPassed = new int[METRICS.length];
+    private long lastPassedMillis;
+    private boolean hasPassed;
+
+    private long offered;
+    private long passed;
+
+    /**
+     * @param epsilons Allowed change per metric, indexed by {@link EnumSensorMetric} ordinal.
+     * @param heartbeatMillis Longest time between two stored samples while data is flowing.
+     */
+    public DeadbandFilter(int[] epsilons, long heartbeatMillis) {
+        if (epsilons.length != lastPassed.length) {
+            throw new IllegalArgumentException("One epsilon per metric is required");
+        }
+        this.epsilons = epsilons.clone();
+        this.heartbeatMillis = heartbeatMillis;
+    }
+
+    /**
+     * @return True if the sample should be stored. The filter then measures later samples against it.
+     */
+    public boolean offer(AquariumData sample) {
+        offered++;
+        boolean pass = !hasPassed
+                || sample.timeMillis - lastPassedMillis >= heartbeatMillis
+                || sample.timeMillis < lastPassedMillis
+                || outsideDeadband(sample);
+        if (pass) {
+            for (EnumSensorMetric metric : METRICS) {
+                lastPassed[metric.ordinal()] = metric.read(sample);
+            }
+            lastPassedMillis = sample.timeMillis;
+            hasPassed = true;
+            passed++;
+        }
+        return pass;
+    }
+
+    private boolean outsideDeadband(AquariumData sample) {
+        for (EnumSensorMetric metric : METRICS) {
+            int i = metric.ordinal();
+            if (Math.abs(metric.read(sample) - lastPassed[i]) > epsilons[i]) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Forgets the last stored sample, so the next one passes. Call it when the stream
+     * changes, e.g. another aquarium is selected.
+     */
+    public void reset() {
+        hasPassed = false;
+    }
+
+    public long getOfferedCount() {
+        return offered;
+    }
+
+    public long getPassedCount() {
+        return passed;
+    }
+
+    /**
+     * @return Offered samples per stored sample, 1 when nothing was dropped.
+     */
+    public double getCompressionRatio() {
+        return passed == 0 ? 1 : (double) offered / passed;
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.smartaquarium.utils.ingest;
+
+import com.example.smartaquarium.data.model.AquariumData;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A preallocated, single-producer / multi-consumer ring buffer of sensor samples.
+ * <p>
+ * Samples are stored in parallel primitive arrays and addressed by a monotonically increasing
+ * sequence number, so publishing never allocates. Every {@link Consumer} tracks its own sequence
+ * and reads at its own pace on its own {@link Executor}; how far it is behind is its lag.
+ * <p>
+ * A consumer with {@link OverflowPolicy#BACKPRESSURE} gates the producer: once it is a full
+ * ring behind, {@link #publish} rejects new samples instead of overwriting unread ones.
+ * A consumer with {@link OverflowPolicy#OVERWRITE} never gates the producer and skips ahead
+ * (counting the lost samples) when it falls behind.
+ * <p>
+ * Only one thread may call {@link #publish}.
+ */
+public class SampleRingBuffer {
+
+    public enum OverflowPolicy {
+        BACKPRESSURE,
+        OVERWRITE
+    }
+
+    /**
+     * Receives samples from a consumer. The {@link AquariumData} instance is owned by the consumer
+     * and reused for every sample, so handlers must copy anything they want to keep.
+     */
+    public interface SampleHandler {
+        void onSample(AquariumData sample);
+    }
+
+    private final int capacity;
+    private final int mask;
+
+    private final int[] temperatures;
+    private final int[] phs;
+    private final int[] oxygens;
+    private final int[] waterLevels;
+    private final long[] times;
+
+    // Sequence of the last published sample, -1 when empty
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    // Replaced (never mutated) on add/remove so iterating it does not allocate
+    private volatile Consumer[] consumers = new Consumer[0];
+
+    /**
+     * @param capacity The number of slots; rounded up to a power of two.
+     */
+    public SampleRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.capacity = size;
+        this.mask = size - 1;
+        this.temperatures = new int[size];
+        this.phs = new int[size];
+        this.oxygens = new int[size];
+        this.waterLevels = new int[size];
+        this.times = new long[size];
+    }
+
+    // --- Producer ---
+
+    /**
+     * Copies a sample into the next slot and wakes every consumer.
+     *
+     * @return false if a back-pressuring consumer is a full ring behind and the sample was rejected.
+     */
+    public boolean publish(int temperature, int ph, int oxygen, int waterLevel, long timeMillis) {
+        long next = cursor.get() + 1;
+        Consumer[] current = consumers;
+
+        for (Consumer consumer : current) {
+            if (consumer.policy == OverflowPolicy.BACKPRESSURE && next - consumer.sequence.get() > capacity) {
+                rejectedCount.incrementAndGet();
+                return false;
+            }
+        }
+
+        int index = (int) (next & mask);
+        temperatures[index] = temperature;
+        phs[index] = ph;
+        oxygens[index] = oxygen;
+        waterLevels[index] = waterLevel;
+        times[index] = timeMillis;
+        cursor.set(next); // Publishes the slot writes above
+
+        for (Consumer consumer : current) {
+            consumer.signal();
+        }
+        return true;
+    }
+
+    // --- Consumers ---
+
+    /**
+     * Registers a consumer that starts at the next published sample.
+     *
+     * @param name     A name used for metrics.
+     * @param policy   What happens when this consumer falls a full ring behind.
+     * @param coalesce If true, each drain delivers only the newest available sample.
+     * @param executor Where the consumer drains; {@code Runnable::run} drains on the producer thread.
+     * @param handler  Receives the samples.
+     */
+    public synchronized Consumer addConsumer(String name, OverflowPolicy policy, boolean coalesce,
+                                             Executor executor, SampleHandler handler) {
+        Consumer consumer = new Consumer(name, policy, coalesce, executor, handler, cursor.get());
+        Consumer[] updated = new Consumer[consumers.length + 1];
+        System.arraycopy(consumers, 0, updated, 0, consumers.length);
+        updated[consumers.length] = consumer;
+        consumers = updated;
+        return consumer;
+    }
+
+    /**
+     * Unregisters a consumer and closes it. The producer may still hold the old consumer array,
+     * so a closed consumer ignores further wake-ups; its executor can be shut down once this returns.
+     */
+    public synchronized void removeConsumer(Consumer consumer) {
+        consumer.closed = true;
+        Consumer[] current = consumers;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == consumer) {
+                Consumer[] updated = new Consumer[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                consumers = updated;
+                return;
+            }
+        }
+    }
+
+    public Consumer[] getConsumers() {
+        return consumers;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getCursor() {
+        return cursor.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * A reader with its own sequence, executor and overflow policy.
+     */
+    public class Consumer {
+
+        private final String name;
+        private final OverflowPolicy policy;
+        private final boolean coalesce;
+        private final Executor executor;
+        private final SampleHandler handler;
+
+        // Sequence of the last sample this consumer has read
+        private final AtomicLong sequence;
+        private final AtomicLong overwrittenCount = new AtomicLong();
+        private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+        private final AquariumData reusableSample = new AquariumData();
+        private final Runnable drainTask = this::drain;
+        private volatile boolean closed;
+
+        private Consumer(String name, OverflowPolicy policy, boolean coalesce,
+                         Executor executor, SampleHandler handler, long startSequence) {
+            this.name = name;
+            this.policy = policy;
+            this.coalesce = coalesce;
+            this.executor = executor;
+            this.handler = handler;
+            this.sequence = new AtomicLong(startSequence);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return How many published samples this consumer has not read yet.
+         */
+        public long getLag() {
+            return cursor.get() - sequence.get();
+        }
+
+        public long getOverwrittenCount() {
+            return overwrittenCount.get();
+        }
+
+        private void signal() {
+            if (closed || !drainScheduled.compareAndSet(false, true)) return;
+            try {
+                executor.execute(drainTask);
+            } catch (RejectedExecutionException e) {
+                // Closed and shut down between the check above and here
+                drainScheduled.set(false);
+                if (!closed) throw e;
+            }
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+
+        /**
+         * Reads every available sample. Clearing the flag first means a sample published
+         * during the drain schedules another one, so no wake-up is lost.
+         */
+        private void drain() {
+            drainScheduled.set(false);
+            if (closed) return;
+
+            long available = cursor.get();
+            long next = sequence.get() + 1;
+
+            if (coalesce && available >= next) {
+                next = available;
+            }
+
+            while (next <= available) {
+                if (available - next >= capacity) {
+                    // Fell a full ring behind: skip to the oldest slot that is still intact
+                    long skipTo = available - capacity + 1;
+                    overwrittenCount.addAndGet(skipTo - next);
+                    next = skipTo;
+                }
+
+                int index = (int) (next & mask);
+                reusableSample.temperature = temperatures[index];
+                reusableSample.ph = phs[index];
+                reusableSample.oxygen = oxygens[index];
+                reusableSample.waterLevel = waterLevels[index];
+                reusableSample.timeMillis = times[index];
+
+                // An overwriting producer may have lapped us while we copied the slot
+                if (policy == OverflowPolicy.OVERWRITE && cursor.get() - next >= capacity) {
+                    overwrittenCount.incrementAndGet();
+                    sequence.set(next);
+                    next++;
+                    continue;
+                }
+
+                sequence.set(next);
+                handler.onSample(reusableSample);
+                next++;
+            }
+        }
+    }
+}
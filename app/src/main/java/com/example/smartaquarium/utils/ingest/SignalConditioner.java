@@ -0,0 +1,176 @@
+package com.example.smartaquarium.utils.ingest;
+
+import com.example.smartaquarium.data.model.AquariumData;
+import com.example.smartaquarium.utils.enums.EnumSensorMetric;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cleans raw probe readings before anything consumes them.
+ * <p>
+ * A metric outside its plausible range is a fault of that metric's probe: the reading is
+ * rejected and the metric holds its last good value, while the other metrics of the sample
+ * pass on. Only a sample whose faulty metric has no good value yet is dropped. Once a metric
+ * has been implausible for {@code faultAfter} readings in a row its probe is reported as
+ * faulty (see {@link #getFaultMask()}) until it reads plausibly again.
+ * <p>
+ * Plausible metrics go through a {@link SlidingMedian}; a sample with any metric further from
+ * its window median than that metric's maximum deviation is rejected as an outlier, and
+ * accepted samples carry the medians. A single-sample spike is therefore dropped, while a real
+ * step change is accepted once it fills half the window.
+ * Allocation-free and not thread-safe; the counts and fault state may be read from any thread.
+ */
+public class SignalConditioner {
+
+    // values() clones its array on every call
+    private static final EnumSensorMetric[] METRICS = EnumSensorMetric.values();
+    // One minute of 5 s samples
+    public static final int DEFAULT_FAULT_AFTER = 12;
+
+    private final int[] plausibleMin;
+    private final int[] plausibleMax;
+    private final int[] maxDeviation;
+    private final int faultAfter;
+    private final SlidingMedian[] medians = new SlidingMedian[METRICS.length];
+    // Keeps each metric's last accepted median, which is what a faulty metric holds
+    private final AquariumData conditioned = new AquariumData();
+    private final boolean[] hasGoodValue = new boolean[METRICS.length];
+    private final boolean[] plausible = new boolean[METRICS.length];
+    // Consecutive implausible readings per metric
+    private final AtomicIntegerArray implausibleRuns = new AtomicIntegerArray(METRICS.length);
+
+    private final AtomicLong implausibleCount = new AtomicLong();
+    private final AtomicLong outlierCount = new AtomicLong();
+    private final AtomicLong unheldCount = new AtomicLong();
+
+    /**
+     * Like {@link #SignalConditioner(int, int[], int[], int[], int)} with {@link #DEFAULT_FAULT_AFTER}.
+     */
+    public SignalConditioner(int window, int[] plausibleMin, int[] plausibleMax, int[] maxDeviation) {
+        this(window, plausibleMin, plausibleMax, maxDeviation, DEFAULT_FAULT_AFTER);
+    }
+
+    /**
+     * Per-metric arrays are indexed by {@link EnumSensorMetric} ordinal.
+     *
+     * @param window       Samples each median is taken over; 1 disables smoothing and outlier rejection.
+     * @param plausibleMin Lowest reading the probe can physically report.
+     * @param plausibleMax Highest reading the probe can physically report.
+     * @param maxDeviation Largest accepted distance from the window median.
+     * @param faultAfter   Implausible readings in a row after which a probe counts as faulty.
+     */
+    public SignalConditioner(int window, int[] plausibleMin, int[] plausibleMax, int[] maxDeviation,
+                             int faultAfter) {
+        if (plausibleMin.length != METRICS.length || plausibleMax.length != METRICS.length
+                || maxDeviation.length != METRICS.length) {
+            throw new IllegalArgumentException("One limit per metric is required");
+        }
+        if (faultAfter < 1) {
+            throw new IllegalArgumentException("faultAfter must be at least 1");
+        }
+        this.plausibleMin = plausibleMin.clone();
+        this.plausibleMax = plausibleMax.clone();
+        this.maxDeviation = maxDeviation.clone();
+        this.faultAfter = faultAfter;
+        for (int i = 0; i < medians.length; i++) {
+            medians[i] = new SlidingMedian(window);
+        }
+    }
+
+    /**
+     * @return The conditioned sample, reused by the next call, or null if {@code raw} was rejected.
+     */
+    public AquariumData process(AquariumData raw) {
+        boolean unheld = false;
+        for (EnumSensorMetric metric : METRICS) {
+            int i = metric.ordinal();
+            int value = metric.read(raw);
+            plausible[i] = value >= plausibleMin[i] && value <= plausibleMax[i];
+            if (plausible[i]) {
+                implausibleRuns.set(i, 0);
+            } else {
+                implausibleCount.incrementAndGet();
+                implausibleRuns.incrementAndGet(i);
+                if (!hasGoodValue[i]) unheld = true;
+            }
+        }
+
+        // Every plausible metric enters its window, so a sustained change is accepted in time
+        boolean outlier = false;
+        for (EnumSensorMetric metric : METRICS) {
+            int i = metric.ordinal();
+            if (!plausible[i]) continue;
+            int value = metric.read(raw);
+            int median = medians[i].add(value);
+            if (Math.abs(value - median) > maxDeviation[i]) {
+                outlier = true;
+            }
+            metric.write(conditioned, median);
+            hasGoodValue[i] = true;
+        }
+        if (unheld) {
+            unheldCount.incrementAndGet();
+            return null;
+        }
+        if (outlier) {
+            outlierCount.incrementAndGet();
+            return null;
+        }
+        conditioned.timeMillis = raw.timeMillis;
+        return conditioned;
+    }
+
+    /**
+     * Forgets the windows and held values, e.g. when the probe is replaced. The counts are kept.
+     */
+    public void reset() {
+        for (int i = 0; i < medians.length; i++) {
+            medians[i].reset();
+            hasGoodValue[i] = false;
+            implausibleRuns.set(i, 0);
+        }
+    }
+
+    /**
+     * @return A bit per faulty metric, {@code 1 << ordinal}; 0 while every probe reads plausibly.
+     */
+    public int getFaultMask() {
+        int mask = 0;
+        for (int i = 0; i < METRICS.length; i++) {
+            if (implausibleRuns.get(i) >= faultAfter) mask |= 1 << i;
+        }
+        return mask;
+    }
+
+    /**
+     * @return The metrics in {@code faultMask}, in {@link EnumSensorMetric} order.
+     */
+    public static List<EnumSensorMetric> metricsIn(int faultMask) {
+        List<EnumSensorMetric> metrics = new ArrayList<>(Integer.bitCount(faultMask));
+        for (EnumSensorMetric metric : METRICS) {
+            if ((faultMask & (1 << metric.ordinal())) != 0) metrics.add(metric);
+        }
+        return metrics;
+    }
+
+    /**
+     * @return Metric readings rejected as implausible, whether held or dropped with their sample.
+     */
+    public long getImplausibleCount() {
+        return implausibleCount.get();
+    }
+
+    public long getOutlierCount() {
+        return outlierCount.get();
+    }
+
+    /**
+     * @return Samples rejected for any reason.
+     */
+    public long getRejectedCount() {
+        return unheldCount.get() + outlierCount.get();
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.smartaquarium.utils.ingest;
+
+/**
+ * Median of the last {@code window} values of a stream, updated in O(log window) per value.
+ * <p>
+ * The window is a ring of slots split across two heaps: a max-heap holding the lower half and
+ * a min-heap holding the upper half, so the median sits at the heap tops. Each heap stores slot
+ * indices and every slot knows its heap position, so the value leaving the window is replaced
+ * in place by the new one and only that slot has to be sifted. Allocation-free and not
+ * thread-safe.
+ */
+public class SlidingMedian {
+
+    private final int window;
+    private final int[] values;
+    // Slot indices; low is a max-heap of the smaller half, high a min-heap of the larger half
+    private final int[] low;
+    private final int[] high;
+    // Heap index of each slot, and which heap holds it
+    private final int[] position;
+    private final boolean[] inLow;
+
+    private int lowSize;
+    private int highSize;
+    private int nextSlot;
+    private int count;
+
+    /**
+     * @param window Number of values the median is taken over; 1 passes values through.
+     */
+    public SlidingMedian(int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("Window must hold at least one value");
+        }
+        this.window = window;
+        this.values = new int[window];
+        this.low = new int[window];
+        this.high = new int[window];
+        this.position = new int[window];
+        this.inLow = new boolean[window];
+    }
+
+    /**
+     * Adds a value, evicting the oldest one once the window is full.
+     *
+     * @return The median of the window including {@code value}; for an even count, the
+     *         mean of the two middle values rounded toward zero.
+     */
+    public int add(int value) {
+        int slot = nextSlot;
+        nextSlot = nextSlot + 1 == window ? 0 : nextSlot + 1;
+        values[slot] = value;
+
+        if (count < window) {
+            count++;
+            insert(slot);
+        } else if (inLow[slot]) {
+            siftDown(low, lowSize, siftUp(low, position[slot], true), true);
+        } else {
+            siftDown(high, highSize, siftUp(high, position[slot], false), false);
+        }
+
+        // Only the replaced slot can be on the wrong side of the boundary
+        if (highSize > 0 && values[low[0]] > values[high[0]]) {
+            int lowTop = low[0];
+            int highTop = high[0];
+            place(low, 0, highTop, true);
+            place(high, 0, lowTop, false);
+            siftDown(low, lowSize, 0, true);
+            siftDown(high, highSize, 0, false);
+        }
+        return median();
+    }
+
+    /**
+     * @return The current median, or 0 before the first value.
+     */
+    public int median() {
+        if (count == 0) return 0;
+        if (lowSize > highSize) return values[low[0]];
+        return (values[low[0]] + values[high[0]]) / 2;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public void reset() {
+        lowSize = 0;
+        highSize = 0;
+        nextSlot = 0;
+        count = 0;
+    }
+
+    // --- Heaps ---
+
+    private void insert(int slot) {
+        if (lowSize == 0 || values[slot] <= values[low[0]]) {
+            place(low, lowSize, slot, true);
+            siftUp(low, lowSize++, true);
+        } else {
+            place(high, highSize, slot, false);
+            siftUp(high, highSize++, false);
+        }
+
+        // Keep the lower half equal to or one larger than the upper half
+        if (lowSize > highSize + 1) {
+            int moved = low[0];
+            place(low, 0, low[--lowSize], true);
+            siftDown(low, lowSize, 0, true);
+            place(high, highSize, moved, false);
+            siftUp(high, highSize++, false);
+        } else if (highSize > lowSize) {
+            int moved = high[0];
+            place(high, 0, high[--highSize], false);
+            siftDown(high, highSize, 0, false);
+            place(low, lowSize, moved, true);
+            siftUp(low, lowSize++, true);
+        }
+    }
+
+    /**
+     * @return The index the slot ended up at.
+     */
+    private int siftUp(int[] heap, int index, boolean isLow) {
+        int slot = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!before(slot, heap[parent], isLow)) break;
+            place(heap, index, heap[parent], isLow);
+            index = parent;
+        }
+        place(heap, index, slot, isLow);
+        return index;
+    }
+
+    private void siftDown(int[] heap, int size, int index, boolean isLow) {
+        int slot = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) break;
+            if (child + 1 < size && before(heap[child + 1], heap[child], isLow)) child++;
+            if (!before(heap[child], slot, isLow)) break;
+            place(heap, index, heap[child], isLow);
+            index = child;
+        }
+        place(heap, index, slot, isLow);
+    }
+
+    /**
+     * @return True if slot {@code a} belongs nearer the top than slot {@code b}.
+     */
+    private boolean before(int a, int b, boolean isLow) {
+        return isLow ? values[a] > values[b] : values[a] < values[b];
+    }
+
+    private void place(int[] heap, int index, int slot, boolean isLow) {
+        heap[index] = slot;
+        position[slot] = index;
+        inLow[slot] = isLow;
+    }
+}
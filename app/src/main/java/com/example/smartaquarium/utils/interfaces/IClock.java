@@ -0,0 +1,15 @@
+package com.example.smartaquarium.utils.interfaces;
+
+/**
+ * Source of wall-clock time for sample timestamps and date filters.
+ * Injected so tests can run days of simulated time in seconds.
+ */
+public interface IClock {
+
+    IClock SYSTEM = System::currentTimeMillis;
+
+    /**
+     * @return Epoch milliseconds, as {@link System#currentTimeMillis()}.
+     */
+    long currentTimeMillis();
+}
@@ -11,10 +11,23 @@ public interface IConnection {
          */
         void addListener(IDataListener listener);
 
+        /**
+         * Removes a previously added listener. Does nothing if it was never added.
+         *
+         * @param listener the listener to be removed
+         */
+        void removeListener(IDataListener listener);
+
         /**
          * Retrieves the current connection status.
          *
          * @return the connection status as an EnumConnectionStatus
          */
         EnumConnectionStatus getConnectionStatus();
+
+        /**
+         * Stops the connection and releases its thread. No callbacks arrive afterwards,
+         * and a closed connection cannot be restarted.
+         */
+        void close();
 }
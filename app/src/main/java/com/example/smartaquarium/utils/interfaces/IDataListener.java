@@ -3,6 +3,11 @@ package com.example.smartaquarium.utils.interfaces;
 import com.example.smartaquarium.data.model.AquariumData;
 import com.example.smartaquarium.utils.enums.EnumConnectionStatus;
 
+/**
+ * Receives samples and status changes from an {@link IConnection}.
+ * Callbacks arrive on the connection's thread, and the {@link AquariumData} instance
+ * may be reused by the connection after {@link #onNewData} returns.
+ */
 public interface IDataListener {
     void onNewData(AquariumData data);
     void onConnectionStatusChanged(EnumConnectionStatus connectionStatus);
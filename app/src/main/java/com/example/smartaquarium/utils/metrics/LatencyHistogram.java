@@ -0,0 +1,103 @@
+package com.example.smartaquarium.utils.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free, HDR-style latency histogram.
+ * Values are stored in log-linear buckets: every power of two is split into
+ * {@link #SUB_BUCKET_COUNT} linear sub-buckets, which keeps the relative error
+ * of any reported percentile below ~6% while using a fixed amount of memory.
+ * Recording never allocates and is safe to call from any thread.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalSum = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**
+     * Records a single value (typically microseconds). Negative values are clamped to 0.
+     */
+    public void record(long value) {
+        if (value < 0) value = 0;
+        buckets.incrementAndGet(indexFor(value));
+        totalCount.incrementAndGet();
+        totalSum.addAndGet(value);
+
+        long currentMax;
+        do {
+            currentMax = maxValue.get();
+        } while (value > currentMax && !maxValue.compareAndSet(currentMax, value));
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    public double getMean() {
+        long count = totalCount.get();
+        return count == 0 ? 0 : (double) totalSum.get() / count;
+    }
+
+    /**
+     * Returns the (upper bound of the bucket holding the) value at the given percentile.
+     *
+     * @param percentile A percentile between 0 and 100.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = totalCount.get();
+        if (count == 0) return 0;
+
+        long target = Math.max(1, (long) Math.ceil(count * (percentile / 100.0)));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets.get(i);
+            if (seen >= target) {
+                return Math.min(highestValueFor(i), maxValue.get());
+            }
+        }
+        return maxValue.get();
+    }
+
+    /**
+     * Clears every recorded value.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        totalCount.set(0);
+        totalSum.set(0);
+        maxValue.set(0);
+    }
+
+    private static int indexFor(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    private static long highestValueFor(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        int subBucket = index % SUB_BUCKET_COUNT;
+        long lowest = (long) (SUB_BUCKET_COUNT + subBucket) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
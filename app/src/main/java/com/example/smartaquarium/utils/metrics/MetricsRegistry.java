@@ -0,0 +1,215 @@
+package com.example.smartaquarium.utils.metrics;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A process-wide, lightweight registry for ingest pipeline metrics.
+ * Counters are backed by {@link LongAdder} and timings by {@link LatencyHistogram},
+ * so recording from the sensor thread, Firestore callbacks and the UI thread is lock-free.
+ * The registry can be observed as LiveData by the debug overlay and dumped to a file
+ * so the numbers can be attached to bug reports.
+ */
+public class MetricsRegistry {
+
+    private static final String TAG = "MetricsRegistry";
+    private static final long REFRESH_INTERVAL_MS = 1000;
+
+    // --- Well-known metric names ---
+    public static final String SAMPLES_RECEIVED = "ingest.samples_received";
+    public static final String SENSOR_TO_UI_LATENCY = "ingest.sensor_to_ui_latency_us";
+    public static final String SAVE_LATENCY = "firestore.save_latency_us";
+    public static final String SAVE_FAILURES = "firestore.save_failures";
+    public static final String ALERT_EVALUATION_TIME = "alerts.evaluation_time_us";
+    public static final String CHART_PROCESSING_TIME = "analytics.chart_processing_time_us";
+    public static final String TIME_TO_CONTENT = "startup.time_to_content_us";
+    public static final String TIME_TO_LIVE_CONTENT = "startup.time_to_live_content_us";
+    public static final String MAIN_ACTIVITY_ON_CREATE_TIME = "startup.main_activity_on_create_us";
+    public static final String FIRESTORE_INIT_TIME = "startup.firestore_init_us";
+    public static final String MAIN_THREAD_DEPENDENCY_TIME = "startup.main_thread_dependencies_us";
+    public static final String WARM_UP_TIME = "startup.session_warm_up_us";
+    public static final String SAMPLES_REJECTED = "ingest.samples_rejected";
+    public static final String SAMPLES_PERSISTED = "persistence.samples_written";
+    public static final String SAMPLES_SUPPRESSED = "persistence.samples_deadbanded";
+    public static final String READINGS_IMPLAUSIBLE = "conditioning.readings_implausible";
+    public static final String SAMPLES_OUTLIERS = "conditioning.samples_outliers";
+
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private final MetricsLiveData report = new MetricsLiveData();
+
+    private MetricsRegistry() {}
+
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    // --- Recording ---
+
+    public void increment(String name) {
+        counter(name).increment();
+    }
+
+    public void recordMicros(String name, long micros) {
+        histogram(name).record(micros);
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos}, which should come from {@link #startTimer()}.
+     */
+    public void recordSince(String name, long startNanos) {
+        recordMicros(name, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+    }
+
+    public long startTimer() {
+        return System.nanoTime();
+    }
+
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    /**
+     * Registers a value that is sampled whenever a report is built, e.g. a queue depth.
+     */
+    public void registerGauge(String name, LongSupplier gauge) {
+        gauges.put(name, gauge);
+    }
+
+    public void unregisterGauge(String name) {
+        gauges.remove(name);
+    }
+
+    // --- Reporting ---
+
+    /**
+     * A LiveData holding a formatted report of every metric.
+     * It refreshes itself periodically, but only while it has active observers.
+     */
+    public LiveData<String> getReport() {
+        return report;
+    }
+
+    /**
+     * Builds a human-readable report of every counter and histogram, sorted by name.
+     */
+    @NonNull
+    public String buildReport() {
+        StringBuilder builder = new StringBuilder();
+
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(counters).entrySet()) {
+            builder.append(entry.getKey()).append(" = ").append(entry.getValue().sum()).append('\n');
+        }
+
+        for (Map.Entry<String, LongSupplier> entry : new TreeMap<>(gauges).entrySet()) {
+            builder.append(entry.getKey()).append(" = ").append(entry.getValue().getAsLong()).append('\n');
+        }
+
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms).entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            builder.append(entry.getKey())
+                    .append(String.format(Locale.US,
+                            ": n=%d mean=%.1f p50=%d p90=%d p99=%d max=%d",
+                            histogram.getCount(),
+                            histogram.getMean(),
+                            histogram.getValueAtPercentile(50),
+                            histogram.getValueAtPercentile(90),
+                            histogram.getValueAtPercentile(99),
+                            histogram.getMax()))
+                    .append('\n');
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Writes the current report to the app's external files directory.
+     *
+     * @return The written file.
+     * @throws IOException If the file could not be written.
+     */
+    public File dumpToFile(@NonNull Context context) throws IOException {
+        File directory = context.getExternalFilesDir(null);
+        if (directory == null) {
+            directory = context.getFilesDir();
+        }
+
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        File file = new File(directory, "metrics-" + stamp + ".txt");
+
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+            writer.write(buildReport());
+        }
+        Log.i(TAG, "Metrics written to " + file.getAbsolutePath());
+        return file;
+    }
+
+    /**
+     * Clears every counter and histogram.
+     */
+    public void reset() {
+        for (LongAdder counter : counters.values()) {
+            counter.reset();
+        }
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+        report.refresh();
+    }
+
+    /**
+     * A LiveData that polls the registry while it is observed.
+     */
+    private class MetricsLiveData extends LiveData<String> {
+
+        private final Handler handler = new Handler(Looper.getMainLooper());
+
+        private final Runnable refreshTask = new Runnable() {
+            @Override
+            public void run() {
+                setValue(buildReport());
+                handler.postDelayed(this, REFRESH_INTERVAL_MS);
+            }
+        };
+
+        void refresh() {
+            postValue(buildReport());
+        }
+
+        @Override
+        protected void onActive() {
+            handler.post(refreshTask);
+        }
+
+        @Override
+        protected void onInactive() {
+            handler.removeCallbacks(refreshTask);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.smartaquarium.utils.stats;
+
+/**
+ * Streaming change detector for one metric, in constant memory.
+ * <p>
+ * Tracks an exponentially weighted mean and variance of the readings. A reading more than
+ * {@link #JUMP_Z_SCORE} standard deviations from the mean is reported as a {@link Detection#JUMP};
+ * smaller but persistent deviations are accumulated by a two-sided CUSUM on the z-scores and
+ * reported as a {@link Detection#DRIFT}. After a detection the baseline moves to the new level,
+ * so a lasting step is reported once rather than on every sample. Not thread-safe.
+ */
+public class AnomalyDetector {
+
+    public enum Detection {
+        NONE,
+        JUMP,
+        DRIFT
+    }
+
+    // Weight of the newest reading in the EWMA mean/variance (~40 sample memory)
+    static final double ALPHA = 0.05;
+    // Readings used to learn the baseline before anything is reported
+    static final int WARM_UP_SAMPLES = 30;
+    static final double JUMP_Z_SCORE = 5.0;
+    // CUSUM slack and decision threshold, in standard deviations
+    static final double CUSUM_SLACK = 0.75;
+    static final double CUSUM_THRESHOLD = 10.0;
+
+    // Lower bound on the standard deviation so perfectly flat readings don't make any change infinite
+    private final double minStdDev;
+
+    private int samples;
+    private double mean;
+    private double variance;
+    private double cusumHigh;
+    private double cusumLow;
+
+    /**
+     * @param minStdDev Smallest spread treated as noise, in the metric's units.
+     */
+    public AnomalyDetector(double minStdDev) {
+        this.minStdDev = minStdDev;
+    }
+
+    public Detection update(double value) {
+        if (samples < WARM_UP_SAMPLES) {
+            // Plain running mean/variance while warming up, so the baseline isn't biased to the first reading
+            samples++;
+            double delta = value - mean;
+            mean += delta / samples;
+            variance += (delta * (value - mean) - variance) / samples;
+            return Detection.NONE;
+        }
+
+        double stdDev = Math.max(Math.sqrt(variance), minStdDev);
+        double z = (value - mean) / stdDev;
+        cusumHigh = Math.max(0, cusumHigh + z - CUSUM_SLACK);
+        cusumLow = Math.max(0, cusumLow - z - CUSUM_SLACK);
+
+        Detection detection = Detection.NONE;
+        if (Math.abs(z) > JUMP_Z_SCORE) {
+            detection = Detection.JUMP;
+        } else if (cusumHigh > CUSUM_THRESHOLD || cusumLow > CUSUM_THRESHOLD) {
+            detection = Detection.DRIFT;
+        }
+
+        if (detection != Detection.NONE) {
+            // Re-baseline on the new level; the spread is kept
+            mean = value;
+            cusumHigh = 0;
+            cusumLow = 0;
+        } else if (Math.max(cusumHigh, cusumLow) < CUSUM_THRESHOLD / 2) {
+            // Only learn from readings that look in-control, so a slow drift can't drag the baseline along
+            double delta = value - mean;
+            double increment = ALPHA * delta;
+            mean += increment;
+            variance = (1 - ALPHA) * (variance + delta * increment);
+        }
+        return detection;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getStdDev() {
+        return Math.sqrt(variance);
+    }
+
+    public void reset() {
+        samples = 0;
+        mean = 0;
+        variance = 0;
+        cusumHigh = 0;
+        cusumLow = 0;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.smartaquarium.utils.stats;
+
+import com.example.smartaquarium.data.model.AquariumData;
+import com.example.smartaquarium.utils.enums.EnumSensorMetric;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs an {@link AnomalyDetector} for every metric of every aquarium and rate-limits the
+ * resulting "unusual change" alerts with a per-aquarium, per-metric cool-down.
+ * Called from the ingest thread only.
+ */
+public class AnomalyMonitor {
+
+    public static final long COOL_DOWN_MILLIS = 30 * 60_000L;
+
+    private static final EnumSensorMetric[] METRICS = EnumSensorMetric.values();
+    // Readings are whole units, so a one-unit tick is never unusual on its own
+    private static final double MIN_STD_DEV = 0.5;
+
+    private static final class AquariumState {
+        final AnomalyDetector[] detectors = new AnomalyDetector[METRICS.length];
+        final long[] lastAlertMillis = new long[METRICS.length];
+
+        AquariumState() {
+            for (int i = 0; i < METRICS.length; i++) {
+                detectors[i] = new AnomalyDetector(MIN_STD_DEV);
+                lastAlertMillis[i] = Long.MIN_VALUE;
+            }
+        }
+    }
+
+    private final Map<String, AquariumState> stateByAquarium = new HashMap<>();
+
+    /**
+     * Feeds one sample and returns the metrics that should raise an alert now, or an empty list.
+     */
+    public List<EnumSensorMetric> check(String aquariumId, AquariumData sample) {
+        AquariumState state = stateByAquarium.get(aquariumId);
+        if (state == null) {
+            state = new AquariumState();
+            stateByAquarium.put(aquariumId, state);
+        }
+
+        List<EnumSensorMetric> alerts = Collections.emptyList();
+        long now = sample.getTimeMillis();
+        for (int i = 0; i < METRICS.length; i++) {
+            AnomalyDetector.Detection detection = state.detectors[i].update(METRICS[i].read(sample));
+            if (detection == AnomalyDetector.Detection.NONE) continue;
+            if (state.lastAlertMillis[i] != Long.MIN_VALUE && now - state.lastAlertMillis[i] < COOL_DOWN_MILLIS) continue;
+
+            state.lastAlertMillis[i] = now;
+            if (alerts.isEmpty()) alerts = new ArrayList<>(METRICS.length);
+            alerts.add(METRICS[i]);
+        }
+        return alerts;
+    }
+
+    public void clear() {
+        stateByAquarium.clear();
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.smartaquarium.utils.stats;
+
+import com.example.smartaquarium.data.model.UserSettings;
+import com.example.smartaquarium.utils.enums.EnumSensorMetric;
+import com.example.smartaquarium.utils.enums.EnumStatsWindow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Predicts when each metric will cross the user's min or max by extending the least-squares
+ * trend of the {@link #TREND_WINDOW} rolling window (see {@link RollingStats}). Forecasting is
+ * O(1) per metric from an {@link AquariumTrends} snapshot; the only state kept here is the
+ * early-warning cool-down. Safe to call from any thread.
+ */
+public class AquariumForecaster {
+
+    public static final EnumStatsWindow TREND_WINDOW = EnumStatsWindow.ONE_HOUR;
+    // Crossings further out than this are not worth showing
+    public static final long HORIZON_MILLIS = 48 * 60 * 60_000L;
+    // Crossings closer than this raise an early warning
+    public static final long EARLY_WARNING_MILLIS = 60 * 60_000L;
+    private static final long WARNING_COOL_DOWN_MILLIS = 2 * 60 * 60_000L;
+    // Samples needed before the trend is trusted
+    static final int MIN_SAMPLES = 20;
+    // The slope must be this many standard errors away from flat
+    static final double MIN_SLOPE_SIGNIFICANCE = 3.0;
+
+    private static final EnumSensorMetric[] METRICS = EnumSensorMetric.values();
+
+    private final Map<String, long[]> lastWarningByAquarium = new HashMap<>();
+
+    /**
+     * Returns the crossings expected within {@link #HORIZON_MILLIS}, soonest first.
+     * Metrics already outside their bounds are left to the regular out-of-range alerts.
+     */
+    public List<ThresholdForecast> forecast(AquariumTrends trends, UserSettings settings) {
+        if (trends == null || settings == null) return Collections.emptyList();
+
+        List<ThresholdForecast> forecasts = new ArrayList<>();
+        for (EnumSensorMetric metric : METRICS) {
+            RollingStats.Summary summary = trends.get(metric, TREND_WINDOW);
+            if (summary.count < MIN_SAMPLES || summary.slopePerMinute == 0) continue;
+            if (Math.abs(summary.slopePerMinute) < MIN_SLOPE_SIGNIFICANCE * summary.slopeStdErrorPerMinute) continue;
+
+            double min = metric.minOf(settings);
+            double max = metric.maxOf(settings);
+            double level = summary.fittedLatest;
+            if (level <= min || level >= max) continue;
+
+            boolean rising = summary.slopePerMinute > 0;
+            double threshold = rising ? max : min;
+            double etaMinutes = (threshold - level) / summary.slopePerMinute;
+            long etaMillis = (long) (etaMinutes * 60_000.0);
+            if (etaMillis <= HORIZON_MILLIS) {
+                forecasts.add(new ThresholdForecast(metric, threshold, rising, summary.latestMillis, etaMillis));
+            }
+        }
+        forecasts.sort((a, b) -> Long.compare(a.etaMillis, b.etaMillis));
+        return forecasts;
+    }
+
+    /**
+     * Returns true, at most once per cool-down per metric, if {@code forecast} is close
+     * enough to warrant an early warning.
+     */
+    public synchronized boolean claimEarlyWarning(String aquariumId, ThresholdForecast forecast) {
+        if (forecast.etaMillis > EARLY_WARNING_MILLIS) return false;
+
+        long[] lastWarning = lastWarningByAquarium.get(aquariumId);
+        if (lastWarning == null) {
+            lastWarning = new long[METRICS.length];
+            Arrays.fill(lastWarning, Long.MIN_VALUE);
+            lastWarningByAquarium.put(aquariumId, lastWarning);
+        }
+
+        int index = forecast.metric.ordinal();
+        long last = lastWarning[index];
+        if (last != Long.MIN_VALUE && forecast.fromMillis - last < WARNING_COOL_DOWN_MILLIS) return false;
+
+        lastWarning[index] = forecast.fromMillis;
+        return true;
+    }
+
+    public synchronized void clear() {
+        lastWarningByAquarium.clear();
+    }
+}
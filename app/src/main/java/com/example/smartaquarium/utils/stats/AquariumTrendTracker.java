@@ -0,0 +1,56 @@
+package com.example.smartaquarium.utils.stats;
+
+import com.example.smartaquarium.data.model.AquariumData;
+import com.example.smartaquarium.utils.enums.EnumSensorMetric;
+import com.example.smartaquarium.utils.enums.EnumStatsWindow;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps {@link RollingStats} for every metric of every aquarium over all {@link EnumStatsWindow}s.
+ * Samples are added from the ingest thread and snapshots may be taken from any thread.
+ */
+public class AquariumTrendTracker {
+
+    private static final EnumSensorMetric[] METRICS = EnumSensorMetric.values();
+    private static final EnumStatsWindow[] WINDOWS = EnumStatsWindow.values();
+
+    private final Map<String, RollingStats[]> statsByAquarium = new HashMap<>();
+
+    public synchronized void add(String aquariumId, AquariumData sample) {
+        RollingStats[] stats = statsByAquarium.get(aquariumId);
+        if (stats == null) {
+            stats = new RollingStats[METRICS.length];
+            long[] windowMillis = new long[WINDOWS.length];
+            for (int i = 0; i < WINDOWS.length; i++) {
+                windowMillis[i] = WINDOWS[i].getDurationMillis();
+            }
+            for (int i = 0; i < METRICS.length; i++) {
+                stats[i] = new RollingStats(windowMillis);
+            }
+            statsByAquarium.put(aquariumId, stats);
+        }
+
+        for (int i = 0; i < METRICS.length; i++) {
+            stats[i].add(sample.getTimeMillis(), METRICS[i].read(sample));
+        }
+    }
+
+    public synchronized AquariumTrends snapshot(String aquariumId) {
+        RollingStats[] stats = statsByAquarium.get(aquariumId);
+        if (stats == null) return AquariumTrends.EMPTY;
+
+        RollingStats.Summary[][] summaries = new RollingStats.Summary[METRICS.length][WINDOWS.length];
+        for (int m = 0; m < METRICS.length; m++) {
+            for (int w = 0; w < WINDOWS.length; w++) {
+                summaries[m][w] = stats[m].getSummary(w);
+            }
+        }
+        return new AquariumTrends(aquariumId, summaries);
+    }
+
+    public synchronized void clear() {
+        statsByAquarium.clear();
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.smartaquarium.utils.stats;
+
+import com.example.smartaquarium.utils.enums.EnumSensorMetric;
+import com.example.smartaquarium.utils.enums.EnumStatsWindow;
+
+/**
+ * Immutable snapshot of the rolling statistics of every metric of one aquarium.
+ */
+public final class AquariumTrends {
+
+    public static final AquariumTrends EMPTY = new AquariumTrends(null, new RollingStats.Summary[0][0]);
+
+    private final String aquariumId;
+    private final RollingStats.Summary[][] summaries;
+
+    AquariumTrends(String aquariumId, RollingStats.Summary[][] summaries) {
+        this.aquariumId = aquariumId;
+        this.summaries = summaries;
+    }
+
+    public String getAquariumId() {
+        return aquariumId;
+    }
+
+    public RollingStats.Summary get(EnumSensorMetric metric, EnumStatsWindow window) {
+        if (summaries.length == 0) return RollingStats.Summary.EMPTY;
+        return summaries[metric.ordinal()][window.ordinal()];
+    }
+}
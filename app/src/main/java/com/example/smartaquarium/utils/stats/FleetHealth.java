@@ -0,0 +1,296 @@
+package com.example.smartaquarium.utils.stats;
+
+import com.example.smartaquarium.data.model.AquariumData;
+import com.example.smartaquarium.data.model.UserSettings;
+import com.example.smartaquarium.utils.enums.EnumHealthLevel;
+import com.example.smartaquarium.utils.enums.EnumSensorMetric;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Health of a whole fleet of tanks, kept up to date one tank reading at a time.
+ * <p>
+ * Each reading is classified per metric by its deviation from the middle of the user's
+ * range, in half-ranges: up to {@link #WARNING_DEVIATION} is in range, up to 1 is a warning
+ * (the outer tenth of the range on either side) and beyond 1 is critical. Per-metric and
+ * per-tank counts are adjusted by removing the tank's previous classification and adding the
+ * new one, so {@link #update} costs O(1) whatever the fleet size. Tanks that are not in range
+ * are also kept ordered by their worst deviation, in O(log k) for k unhealthy tanks, so the
+ * worst offenders never need a scan. Only a settings change reclassifies every tank.
+ * Not thread-safe.
+ */
+public class FleetHealth {
+
+    static final double WARNING_DEVIATION = 0.8;
+    public static final int MAX_OFFENDERS = 5;
+
+    // values() clones its array on every call
+    private static final EnumSensorMetric[] METRICS = EnumSensorMetric.values();
+    private static final EnumHealthLevel[] LEVELS = EnumHealthLevel.values();
+
+    /**
+     * A tank whose latest reading is not in range, with the metric that is farthest out.
+     */
+    public static final class Offender {
+        public final String aquariumId;
+        // Null for a tank without a name
+        public final String name;
+        public final EnumSensorMetric metric;
+        public final int value;
+        public final EnumHealthLevel level;
+
+        Offender(String aquariumId, String name, EnumSensorMetric metric, int value, EnumHealthLevel level) {
+            this.aquariumId = aquariumId;
+            this.name = name;
+            this.metric = metric;
+            this.value = value;
+            this.level = level;
+        }
+
+        public String describe() {
+            String label = name != null && !name.isEmpty() ? name : aquariumId;
+            return label + ": " + metric + " " + value + " (" + level + ")";
+        }
+    }
+
+    /**
+     * An immutable copy of the aggregate, safe to hand to observers.
+     */
+    public static final class Summary {
+        public static final Summary EMPTY = new Summary(0, 0,
+                new int[METRICS.length][LEVELS.length], new int[LEVELS.length], Collections.emptyList());
+
+        public final int tankCount;
+        // Tanks with at least one reading; the rest have no level yet
+        public final int reportingCount;
+        public final List<Offender> worstOffenders;
+        private final int[][] metricCounts;
+        private final int[] tankCounts;
+
+        Summary(int tankCount, int reportingCount, int[][] metricCounts, int[] tankCounts,
+                List<Offender> worstOffenders) {
+            this.tankCount = tankCount;
+            this.reportingCount = reportingCount;
+            this.metricCounts = metricCounts;
+            this.tankCounts = tankCounts;
+            this.worstOffenders = worstOffenders;
+        }
+
+        /**
+         * @return Number of reporting tanks whose reading of {@code metric} is at {@code level}.
+         */
+        public int count(EnumSensorMetric metric, EnumHealthLevel level) {
+            return metricCounts[metric.ordinal()][level.ordinal()];
+        }
+
+        /**
+         * @return Number of reporting tanks whose worst metric is at {@code level}.
+         */
+        public int tanksAt(EnumHealthLevel level) {
+            return tankCounts[level.ordinal()];
+        }
+
+        public boolean allInRange() {
+            return tanksAt(EnumHealthLevel.WARNING) == 0 && tanksAt(EnumHealthLevel.CRITICAL) == 0;
+        }
+
+        public String headline() {
+            return tankCount + (tankCount == 1 ? " tank: " : " tanks: ")
+                    + tanksAt(EnumHealthLevel.IN_RANGE) + " in range, "
+                    + tanksAt(EnumHealthLevel.WARNING) + " warning, "
+                    + tanksAt(EnumHealthLevel.CRITICAL) + " critical";
+        }
+    }
+
+    private static final class TankHealth {
+        final String aquariumId;
+        String name;
+        final int[] values = new int[METRICS.length];
+        final EnumHealthLevel[] levels = new EnumHealthLevel[METRICS.length];
+        boolean reporting;
+        EnumHealthLevel worstLevel;
+        EnumSensorMetric worstMetric;
+        double worstDeviation;
+
+        TankHealth(String aquariumId) {
+            this.aquariumId = aquariumId;
+        }
+
+        void classify(UserSettings settings) {
+            worstDeviation = -1;
+            for (EnumSensorMetric metric : METRICS) {
+                int i = metric.ordinal();
+                double deviation = deviation(values[i], metric.minOf(settings), metric.maxOf(settings));
+                levels[i] = levelOf(deviation);
+                if (deviation > worstDeviation) {
+                    worstDeviation = deviation;
+                    worstMetric = metric;
+                }
+            }
+            worstLevel = levelOf(worstDeviation);
+        }
+    }
+
+    // Worst first; ties broken by ID so the set never treats two tanks as equal
+    private static final Comparator<TankHealth> BY_SEVERITY = (a, b) -> {
+        int bySeverity = Double.compare(b.worstDeviation, a.worstDeviation);
+        return bySeverity != 0 ? bySeverity : a.aquariumId.compareTo(b.aquariumId);
+    };
+
+    private final Map<String, TankHealth> tanks = new HashMap<>();
+    private final TreeSet<TankHealth> unhealthy = new TreeSet<>(BY_SEVERITY);
+    private final int[][] metricCounts = new int[METRICS.length][LEVELS.length];
+    private final int[] tankCounts = new int[LEVELS.length];
+    private final EnumHealthLevel[] previousLevels = new EnumHealthLevel[METRICS.length];
+    private int reportingCount;
+    private UserSettings settings;
+
+    public FleetHealth(UserSettings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Like {@link #update(String, String, AquariumData)} for a tank without a name.
+     */
+    public boolean update(String aquariumId, AquariumData reading) {
+        return update(aquariumId, null, reading);
+    }
+
+    /**
+     * Records a tank's latest reading, adding the tank if it is new.
+     *
+     * @param name    The tank's display name, shown by {@link Offender#describe()}; null if it has none.
+     * @param reading The reading, or null for a tank that has not reported yet.
+     * @return True if any count or the offender list may have changed.
+     */
+    public boolean update(String aquariumId, String name, AquariumData reading) {
+        TankHealth tank = tanks.get(aquariumId);
+        boolean added = tank == null;
+        if (added) {
+            tank = new TankHealth(aquariumId);
+            tanks.put(aquariumId, tank);
+        } else {
+            uncount(tank);
+        }
+        boolean wasUnhealthy = tank.reporting && tank.worstLevel != EnumHealthLevel.IN_RANGE;
+        boolean wasReporting = tank.reporting;
+        System.arraycopy(tank.levels, 0, previousLevels, 0, previousLevels.length);
+        tank.name = name;
+
+        tank.reporting = reading != null;
+        if (tank.reporting) {
+            for (EnumSensorMetric metric : METRICS) {
+                tank.values[metric.ordinal()] = metric.read(reading);
+            }
+            tank.classify(settings);
+        }
+        count(tank);
+
+        boolean isUnhealthy = tank.reporting && tank.worstLevel != EnumHealthLevel.IN_RANGE;
+        if (added || wasUnhealthy || isUnhealthy || wasReporting != tank.reporting) return true;
+        for (int i = 0; i < previousLevels.length; i++) {
+            if (previousLevels[i] != tank.levels[i]) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Forgets a tank, e.g. one that was deleted.
+     *
+     * @return True if the tank was known.
+     */
+    public boolean remove(String aquariumId) {
+        TankHealth tank = tanks.remove(aquariumId);
+        if (tank == null) return false;
+        uncount(tank);
+        return true;
+    }
+
+    /**
+     * Reclassifies every tank against new limits. O(n).
+     */
+    public void setSettings(UserSettings settings) {
+        this.settings = settings;
+        resetCounts();
+        for (TankHealth tank : tanks.values()) {
+            if (tank.reporting) tank.classify(settings);
+            count(tank);
+        }
+    }
+
+    public void clear() {
+        tanks.clear();
+        resetCounts();
+    }
+
+    private void resetCounts() {
+        unhealthy.clear();
+        for (int[] counts : metricCounts) {
+            Arrays.fill(counts, 0);
+        }
+        Arrays.fill(tankCounts, 0);
+        reportingCount = 0;
+    }
+
+    public Summary snapshot() {
+        int[][] metricCopy = new int[METRICS.length][];
+        for (int i = 0; i < METRICS.length; i++) {
+            metricCopy[i] = metricCounts[i].clone();
+        }
+        List<Offender> offenders = new ArrayList<>(Math.min(MAX_OFFENDERS, unhealthy.size()));
+        Iterator<TankHealth> worst = unhealthy.iterator();
+        while (worst.hasNext() && offenders.size() < MAX_OFFENDERS) {
+            TankHealth tank = worst.next();
+            offenders.add(new Offender(tank.aquariumId, tank.name, tank.worstMetric,
+                    tank.values[tank.worstMetric.ordinal()], tank.worstLevel));
+        }
+        return new Summary(tanks.size(), reportingCount, metricCopy, tankCounts.clone(),
+                Collections.unmodifiableList(offenders));
+    }
+
+    private void count(TankHealth tank) {
+        adjust(tank, 1);
+        if (tank.reporting && tank.worstLevel != EnumHealthLevel.IN_RANGE) unhealthy.add(tank);
+    }
+
+    private void uncount(TankHealth tank) {
+        // Must leave the ordered set before its deviation changes
+        unhealthy.remove(tank);
+        adjust(tank, -1);
+    }
+
+    private void adjust(TankHealth tank, int delta) {
+        if (!tank.reporting) return;
+        for (int i = 0; i < METRICS.length; i++) {
+            metricCounts[i][tank.levels[i].ordinal()] += delta;
+        }
+        tankCounts[tank.worstLevel.ordinal()] += delta;
+        reportingCount += delta;
+    }
+
+    /**
+     * Distance of {@code value} from the middle of {@code [min, max]}, in half-ranges.
+     */
+    static double deviation(double value, double min, double max) {
+        double halfRange = (max - min) / 2;
+        if (halfRange <= 0) {
+            // A degenerate range only tells in from out
+            return value >= min && value <= max ? 0 : Double.POSITIVE_INFINITY;
+        }
+        return Math.abs(value - (min + max) / 2) / halfRange;
+    }
+
+    static EnumHealthLevel levelOf(double deviation) {
+        if (deviation > 1) return EnumHealthLevel.CRITICAL;
+        if (deviation > WARNING_DEVIATION) return EnumHealthLevel.WARNING;
+        return EnumHealthLevel.IN_RANGE;
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.smartaquarium.utils.stats;
+
+/**
+ * Rolling mean, standard deviation, min, max, rate of change and least-squares trend of
+ * one metric over several time windows at once.
+ * <p>
+ * Samples are kept once, in a ring sized for the longest window; every window only keeps a
+ * head pointer into it. Mean and variance are maintained with Welford's update (and its
+ * inverse when a sample leaves a window), min and max with monotonic deques, so each
+ * {@link #add} is amortized O(1) regardless of window length. The trend line uses the same
+ * add/remove updates on the time/value co-moment. Not thread-safe.
+ */
+public class RollingStats {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Immutable view of one window at the time it was taken.
+     */
+    public static final class Summary {
+        public static final Summary EMPTY = new Summary(0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+        public final int count;
+        public final double mean;
+        public final double stdDev;
+        public final float min;
+        public final float max;
+        // Change between the oldest and newest sample in the window, per minute
+        public final double ratePerMinute;
+        // Least-squares line through the window: slope, its standard error, and its value at the newest sample
+        public final double slopePerMinute;
+        public final double slopeStdErrorPerMinute;
+        public final double fittedLatest;
+        public final long latestMillis;
+
+        Summary(int count, double mean, double stdDev, float min, float max, double ratePerMinute,
+                double slopePerMinute, double slopeStdErrorPerMinute, double fittedLatest, long latestMillis) {
+            this.count = count;
+            this.mean = mean;
+            this.stdDev = stdDev;
+            this.min = min;
+            this.max = max;
+            this.ratePerMinute = ratePerMinute;
+            this.slopePerMinute = slopePerMinute;
+            this.slopeStdErrorPerMinute = slopeStdErrorPerMinute;
+            this.fittedLatest = fittedLatest;
+            this.latestMillis = latestMillis;
+        }
+    }
+
+    private final class Window {
+        final long durationMillis;
+        // Sequence number of the oldest sample still inside this window
+        int head;
+        double mean;
+        double m2;
+        // Time statistics (relative to originMillis) and the time/value co-moment, for the trend line
+        double meanTime;
+        double m2Time;
+        double coMoment;
+        final SequenceDeque minQueue = new SequenceDeque();
+        final SequenceDeque maxQueue = new SequenceDeque();
+
+        Window(long durationMillis) {
+            this.durationMillis = durationMillis;
+        }
+
+        int count() { return tail - head; }
+    }
+
+    private long[] times = new long[INITIAL_CAPACITY];
+    private float[] values = new float[INITIAL_CAPACITY];
+    private int mask = INITIAL_CAPACITY - 1;
+    // Sequence number the next sample will get; sample seq lives at index (seq & mask)
+    private int tail;
+    // Times are kept relative to the first sample so the trend sums stay well-conditioned
+    private long originMillis;
+    private final Window[] windows;
+
+    /**
+     * @param windowMillis Window lengths, shortest first.
+     */
+    public RollingStats(long... windowMillis) {
+        windows = new Window[windowMillis.length];
+        for (int i = 0; i < windowMillis.length; i++) {
+            if (i > 0 && windowMillis[i] < windowMillis[i - 1]) {
+                throw new IllegalArgumentException("Windows must be ordered shortest first");
+            }
+            windows[i] = new Window(windowMillis[i]);
+        }
+    }
+
+    /**
+     * Adds a sample. Out-of-order timestamps are clamped to the newest one seen.
+     */
+    public void add(long timeMillis, float value) {
+        Window longest = windows[windows.length - 1];
+        if (tail == 0) {
+            originMillis = timeMillis;
+        }
+        if (longest.count() > 0) {
+            timeMillis = Math.max(timeMillis, times[(tail - 1) & mask]);
+        }
+
+        for (Window window : windows) {
+            evict(window, timeMillis);
+        }
+        if (longest.count() == times.length) {
+            grow(longest.head);
+        }
+
+        int seq = tail;
+        times[seq & mask] = timeMillis;
+        values[seq & mask] = value;
+        tail++;
+
+        double time = timeMillis - originMillis;
+        for (Window window : windows) {
+            int n = window.count();
+            double delta = value - window.mean;
+            window.mean += delta / n;
+            window.m2 += delta * (value - window.mean);
+
+            double timeDelta = time - window.meanTime;
+            window.meanTime += timeDelta / n;
+            window.m2Time += timeDelta * (time - window.meanTime);
+            window.coMoment += timeDelta * (value - window.mean);
+
+            while (!window.maxQueue.isEmpty() && values[window.maxQueue.peekLast() & mask] <= value) {
+                window.maxQueue.pollLast();
+            }
+            window.maxQueue.addLast(seq);
+            while (!window.minQueue.isEmpty() && values[window.minQueue.peekLast() & mask] >= value) {
+                window.minQueue.pollLast();
+            }
+            window.minQueue.addLast(seq);
+        }
+    }
+
+    private void evict(Window window, long nowMillis) {
+        long cutoff = nowMillis - window.durationMillis;
+        while (window.count() > 0 && times[window.head & mask] <= cutoff) {
+            int seq = window.head;
+            float value = values[seq & mask];
+            double time = times[seq & mask] - originMillis;
+            int n = window.count();
+
+            // Inverse Welford update
+            if (n == 1) {
+                window.mean = 0;
+                window.m2 = 0;
+                window.meanTime = 0;
+                window.m2Time = 0;
+                window.coMoment = 0;
+            } else {
+                double newMeanTime = (n * window.meanTime - time) / (n - 1);
+                window.coMoment -= (time - newMeanTime) * (value - window.mean);
+                window.m2Time -= (time - window.meanTime) * (time - newMeanTime);
+                window.meanTime = newMeanTime;
+                if (window.m2Time < 0) window.m2Time = 0;
+
+                double newMean = (n * window.mean - value) / (n - 1);
+                window.m2 -= (value - window.mean) * (value - newMean);
+                window.mean = newMean;
+                if (window.m2 < 0) window.m2 = 0;
+            }
+
+            if (window.minQueue.peekFirst() == seq) window.minQueue.pollFirst();
+            if (window.maxQueue.peekFirst() == seq) window.maxQueue.pollFirst();
+            window.head++;
+        }
+    }
+
+    private void grow(int oldestSeq) {
+        int capacity = times.length * 2;
+        long[] newTimes = new long[capacity];
+        float[] newValues = new float[capacity];
+        int newMask = capacity - 1;
+        for (int seq = oldestSeq; seq != tail; seq++) {
+            newTimes[seq & newMask] = times[seq & mask];
+            newValues[seq & newMask] = values[seq & mask];
+        }
+        times = newTimes;
+        values = newValues;
+        mask = newMask;
+    }
+
+    public int getWindowCount() {
+        return windows.length;
+    }
+
+    public Summary getSummary(int windowIndex) {
+        Window window = windows[windowIndex];
+        int n = window.count();
+        if (n == 0) return Summary.EMPTY;
+
+        int oldest = window.head & mask;
+        int newest = (tail - 1) & mask;
+        long elapsedMillis = times[newest] - times[oldest];
+        double ratePerMinute = elapsedMillis > 0
+                ? (values[newest] - values[oldest]) * 60_000.0 / elapsedMillis
+                : 0;
+
+        double slopePerMillis = 0;
+        double slopeStdError = 0;
+        if (window.m2Time > 0) {
+            slopePerMillis = window.coMoment / window.m2Time;
+            if (n > 2) {
+                double residual = Math.max(0, window.m2 - slopePerMillis * window.coMoment);
+                slopeStdError = Math.sqrt(residual / (n - 2) / window.m2Time);
+            }
+        }
+        double fittedLatest = window.mean
+                + slopePerMillis * (times[newest] - originMillis - window.meanTime);
+
+        return new Summary(n, window.mean, Math.sqrt(window.m2 / n),
+                values[window.minQueue.peekFirst() & mask],
+                values[window.maxQueue.peekFirst() & mask],
+                ratePerMinute, slopePerMillis * 60_000.0, slopeStdError * 60_000.0,
+                fittedLatest, times[newest]);
+    }
+
+    /**
+     * Growable ring of sample sequence numbers, used for the monotonic min/max queues.
+     */
+    private static final class SequenceDeque {
+        private int[] items = new int[16];
+        private int head;
+        private int tail;
+
+        boolean isEmpty() { return head == tail; }
+        int peekFirst() { return items[head & (items.length - 1)]; }
+        int peekLast() { return items[(tail - 1) & (items.length - 1)]; }
+        void pollFirst() { head++; }
+        void pollLast() { tail--; }
+
+        void addLast(int seq) {
+            if (tail - head == items.length) {
+                int[] grown = new int[items.length * 2];
+                for (int i = head; i != tail; i++) {
+                    grown[i & (grown.length - 1)] = items[i & (items.length - 1)];
+                }
+                items = grown;
+            }
+            items[tail & (items.length - 1)] = seq;
+            tail++;
+        }
+    }
+}
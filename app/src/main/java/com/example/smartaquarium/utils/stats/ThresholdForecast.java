@@ -0,0 +1,45 @@
+package com.example.smartaquarium.utils.stats;
+
+import com.example.smartaquarium.utils.enums.EnumSensorMetric;
+
+import java.util.Locale;
+
+/**
+ * A predicted crossing of one of the user's min/max bounds.
+ */
+public final class ThresholdForecast {
+
+    public final EnumSensorMetric metric;
+    public final double threshold;
+    // True if the reading is rising towards its max, false if falling towards its min
+    public final boolean rising;
+    // Time of the last sample the prediction is based on, and how long after it the bound is reached
+    public final long fromMillis;
+    public final long etaMillis;
+
+    ThresholdForecast(EnumSensorMetric metric, double threshold, boolean rising, long fromMillis, long etaMillis) {
+        this.metric = metric;
+        this.threshold = threshold;
+        this.rising = rising;
+        this.fromMillis = fromMillis;
+        this.etaMillis = etaMillis;
+    }
+
+    /**
+     * Human-readable summary, e.g. "Water level reaches 80 in ~6 h".
+     */
+    public String describe() {
+        long minutes = Math.max(1, etaMillis / 60_000L);
+        String eta = minutes < 120
+                ? "~" + minutes + " min"
+                : "~" + Math.round(minutes / 60.0) + " h";
+        return String.format(Locale.getDefault(), "%s reaches %s in %s",
+                metric, formatThreshold(threshold), eta);
+    }
+
+    private static String formatThreshold(double value) {
+        return value == Math.rint(value)
+                ? String.valueOf((long) value)
+                : String.format(Locale.getDefault(), "%.1f", value);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.smartaquarium.data;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that a dependency being created (Firestore on the warm-up thread) only blocks
+ * callers that need it, the way {@link AppContainer} relies on.
+ */
+public class LazyDependencyTest {
+
+    private final ExecutorService threads = Executors.newCachedThreadPool();
+    private final CountDownLatch slowInitStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseSlowInit = new CountDownLatch(1);
+
+    private final LazyDependency<Object> slow = new LazyDependency<>(() -> {
+        slowInitStarted.countDown();
+        try {
+            releaseSlowInit.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return new Object();
+    });
+
+    @After
+    public void tearDown() {
+        releaseSlowInit.countDown();
+        threads.shutdownNow();
+    }
+
+    @Test
+    public void unrelatedDependencyDoesNotWaitForSlowOne() throws Exception {
+        LazyDependency<Object> unrelated = new LazyDependency<>(Object::new);
+        threads.submit(slow::get);
+        assertTrue(slowInitStarted.await(5, TimeUnit.SECONDS));
+
+        // Under one container-wide monitor this call would wait for the release below
+        Future<Object> result = threads.submit(unrelated::get);
+        assertNotNull(result.get(5, TimeUnit.SECONDS));
+        assertFalse(slow.isCreated());
+    }
+
+    @Test
+    public void dependentDependencyWaitsForItsInput() throws Exception {
+        LazyDependency<Object> dependent = new LazyDependency<>(() -> new Object[]{slow.get()});
+        threads.submit(slow::get);
+        assertTrue(slowInitStarted.await(5, TimeUnit.SECONDS));
+
+        Future<Object> result = threads.submit(dependent::get);
+        try {
+            result.get(100, TimeUnit.MILLISECONDS);
+            fail("Created before its input existed");
+        } catch (TimeoutException expected) {
+            // Expected
+        }
+        releaseSlowInit.countDown();
+        assertNotNull(result.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void concurrentCallersShareOneInstance() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        LazyDependency<Object> shared = new LazyDependency<>(() -> {
+            created.incrementAndGet();
+            return new Object();
+        });
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Object>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(threads.submit(() -> {
+                start.await();
+                return shared.get();
+            }));
+        }
+        start.countDown();
+
+        Object first = results.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<Object> result : results) {
+            assertSame(first, result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, created.get());
+    }
+}
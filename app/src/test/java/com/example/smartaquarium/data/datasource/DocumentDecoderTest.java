@@ -0,0 +1,27 @@
+package com.example.smartaquarium.data.datasource;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks {@link DocumentDecoder#decodeAll}. Where decoding runs and what it costs the main
+ * looper is covered against the emulator by {@code FirestoreListenerDeliveryTest}.
+ */
+public class DocumentDecoderTest {
+
+    @Test
+    public void decodeAll_skipsNullsAndKeepsOrder() {
+        List<Integer> source = new ArrayList<>();
+        for (int i = 0; i < 10; i++) source.add(i);
+
+        List<Integer> decoded = DocumentDecoder.decodeAll(source, value -> value % 2 == 0 ? value : null);
+
+        assertEquals(5, decoded.size());
+        assertEquals(Integer.valueOf(0), decoded.get(0));
+        assertEquals(Integer.valueOf(8), decoded.get(4));
+    }
+}
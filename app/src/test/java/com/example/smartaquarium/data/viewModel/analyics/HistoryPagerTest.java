@@ -0,0 +1,193 @@
+package com.example.smartaquarium.data.viewModel.analyics;
+
+import android.os.Looper;
+
+import com.example.smartaquarium.data.datasource.FirestoreDataSource;
+import com.example.smartaquarium.data.model.AquariumData;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.LooperMode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Pans {@link HistoryPager} over an in-memory history much longer than it may hold, page
+ * responses completing one at a time, and checks that every sample keeps the position it was
+ * first given, that the page cap holds and that no page is requested while it is in flight.
+ */
+@RunWith(RobolectricTestRunner.class)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class HistoryPagerTest {
+
+    private static final int HISTORY_PAGES = 3 * HistoryPager.MAX_PAGES;
+    private static final int HISTORY_SIZE = HISTORY_PAGES * HistoryPager.PAGE_SIZE;
+    private static final long INTERVAL_MILLIS = 1000;
+    private static final float VIEWPORT_WIDTH = 100;
+    private static final float PAN_STEP = 150;
+
+    /**
+     * Sample {@code i} is taken at {@code i * INTERVAL_MILLIS}. Requests stay pending until
+     * {@link #completeNext()}, so the pager sees them in flight the way it would over a network.
+     */
+    private static final class FakePageSource implements HistoryPager.PageSource {
+        private final ArrayDeque<Request> pending = new ArrayDeque<>();
+        private final Set<String> inFlight = new HashSet<>();
+        int requests;
+
+        private static final class Request {
+            final String key;
+            final long cursorMillis;
+            final boolean older;
+            final int pageSize;
+            final TaskCompletionSource<List<AquariumData>> result = new TaskCompletionSource<>();
+
+            Request(long cursorMillis, boolean older, int pageSize) {
+                this.key = (older ? "older:" : "newer:") + cursorMillis;
+                this.cursorMillis = cursorMillis;
+                this.older = older;
+                this.pageSize = pageSize;
+            }
+        }
+
+        @Override
+        public Task<List<AquariumData>> loadPage(long cursorMillis, boolean older, int pageSize) {
+            Request request = new Request(cursorMillis, older, pageSize);
+            assertTrue("Fetched twice concurrently: " + request.key, inFlight.add(request.key));
+            for (Request other : pending) {
+                assertNotEquals("Two requests in flight in one direction", other.older, request.older);
+            }
+            pending.add(request);
+            requests++;
+            return request.result.getTask();
+        }
+
+        boolean completeNext() {
+            Request request = pending.poll();
+            if (request == null) return false;
+            inFlight.remove(request.key);
+            request.result.setResult(page(request));
+            shadowOf(Looper.getMainLooper()).idle();
+            return true;
+        }
+
+        private static List<AquariumData> page(Request request) {
+            int from;
+            int to;
+            if (request.older) {
+                to = request.cursorMillis == FirestoreDataSource.NO_CURSOR
+                        ? HISTORY_SIZE
+                        : (int) Math.floorDiv(request.cursorMillis - 1, INTERVAL_MILLIS) + 1;
+                from = Math.max(0, to - request.pageSize);
+            } else {
+                from = request.cursorMillis == FirestoreDataSource.NO_CURSOR
+                        ? 0
+                        : (int) (request.cursorMillis / INTERVAL_MILLIS) + 1;
+                to = Math.min(HISTORY_SIZE, from + request.pageSize);
+            }
+            List<AquariumData> samples = new ArrayList<>(Math.max(0, to - from));
+            for (int i = from; i < to; i++) {
+                AquariumData sample = new AquariumData(20 + i % 10, 7, 8, 90);
+                sample.setTimeMillis(i * INTERVAL_MILLIS);
+                samples.add(sample);
+            }
+            return samples;
+        }
+    }
+
+    private final FakePageSource source = new FakePageSource();
+    private List<AquariumData> window = new ArrayList<>();
+    private long firstPosition;
+    private int publishes;
+
+    private final HistoryPager pager = new HistoryPager(source, (samples, first) -> {
+        // The newest page sits at 0..PAGE_SIZE-1, so every sample's position follows from its index
+        for (int i = 0; i < samples.size(); i++) {
+            long index = samples.get(i).getTimeMillis() / INTERVAL_MILLIS;
+            assertEquals("Position of sample " + index, index - (HISTORY_SIZE - HistoryPager.PAGE_SIZE), first + i);
+        }
+        assertTrue("Holds " + samples.size() + " samples",
+                samples.size() <= HistoryPager.MAX_PAGES * HistoryPager.PAGE_SIZE);
+        window = samples;
+        firstPosition = first;
+        publishes++;
+    });
+
+    @Test
+    public void panningPastTheCapAndBackKeepsPositionsStable() {
+        pager.start();
+        drain();
+        assertEquals(HistoryPager.PAGE_SIZE, window.size());
+        assertEquals(0, firstPosition);
+
+        // All the way back to the oldest sample, then all the way forward again
+        float oldest = -(HISTORY_SIZE - HistoryPager.PAGE_SIZE);
+        float low = HistoryPager.PAGE_SIZE - VIEWPORT_WIDTH;
+        while (low > oldest) {
+            low = Math.max(oldest, low - PAN_STEP);
+            viewport(low);
+        }
+        assertEquals(0L, window.get(0).getTimeMillis());
+        assertEquals((long) oldest, firstPosition);
+        int requestsToOldest = source.requests;
+        assertTrue("Older pages were dropped on the way", requestsToOldest >= HISTORY_PAGES);
+
+        float newest = HistoryPager.PAGE_SIZE - VIEWPORT_WIDTH;
+        while (low < newest) {
+            low = Math.min(newest, low + PAN_STEP);
+            viewport(low);
+        }
+        AquariumData last = window.get(window.size() - 1);
+        assertEquals((HISTORY_SIZE - 1) * INTERVAL_MILLIS, last.getTimeMillis());
+        assertEquals(HistoryPager.PAGE_SIZE - 1, firstPosition + window.size() - 1);
+        assertTrue("Dropped newer pages were fetched again", source.requests > requestsToOldest);
+    }
+
+    @Test
+    public void viewportChangesWhileAPageIsInFlightDoNotRequestItAgain() {
+        pager.start();
+        drain();
+
+        // Nudge the viewport many times before the older page arrives
+        for (int i = 0; i < 20; i++) {
+            pager.onViewportChanged(-i, VIEWPORT_WIDTH - i);
+        }
+        assertEquals(2, source.requests);
+        drain();
+        assertEquals(2 * HistoryPager.PAGE_SIZE, window.size());
+        assertEquals(-HistoryPager.PAGE_SIZE, firstPosition);
+    }
+
+    @Test
+    public void responsesForACancelledWindowAreIgnored() {
+        pager.start();
+        pager.cancel();
+        int publishesBefore = publishes;
+        drain();
+        assertEquals(publishesBefore, publishes);
+        assertTrue(window.isEmpty());
+    }
+
+    private void viewport(float low) {
+        pager.onViewportChanged(low, low + VIEWPORT_WIDTH);
+        drain();
+        assertTrue("Viewport " + low + " is not loaded",
+                firstPosition <= low && firstPosition + window.size() >= low + VIEWPORT_WIDTH);
+    }
+
+    private void drain() {
+        while (source.completeNext()) {
+            // Each response may prefetch the next page
+        }
+    }
+}
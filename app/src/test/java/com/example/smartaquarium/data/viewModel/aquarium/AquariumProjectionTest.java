@@ -0,0 +1,58 @@
+package com.example.smartaquarium.data.viewModel.aquarium;
+
+import com.example.smartaquarium.data.model.AquariumData;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the per-sample projection behind the Aquarium screen fits in a frame.
+ */
+public class AquariumProjectionTest {
+
+    private static final long FRAME_BUDGET_MS = 16;
+    private static final int SAMPLES_PER_FRAME = 1_000;
+
+    @Test
+    public void update_skipsUnchangedSamples() {
+        AquariumProjection projection = new AquariumProjection();
+        AquariumData sample = new AquariumData(25, 7, 8, 90);
+
+        assertTrue(projection.update(sample));
+        assertFalse(projection.update(sample));
+
+        sample.setWaterLevel(85);
+        assertTrue(projection.update(sample));
+        assertEquals(85f, projection.getWaterLevel(), 0f);
+    }
+
+    @Test
+    public void burstOfSamples_fitsInOneFrame() {
+        AquariumProjection projection = new AquariumProjection();
+        AquariumData sample = new AquariumData();
+
+        // Warm up so the JIT is not measured
+        runBurst(projection, sample, 10_000);
+
+        long start = System.nanoTime();
+        runBurst(projection, sample, SAMPLES_PER_FRAME);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue("Projecting " + SAMPLES_PER_FRAME + " samples took " + elapsedMs + " ms",
+                elapsedMs < FRAME_BUDGET_MS);
+    }
+
+    private static void runBurst(AquariumProjection projection, AquariumData sample, int count) {
+        for (int i = 0; i < count; i++) {
+            sample.temperature = 20 + i % 10;
+            sample.ph = 7;
+            sample.oxygen = i % 100;
+            sample.waterLevel = 90;
+            sample.timeMillis = i;
+            projection.update(sample);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.smartaquarium.data.viewModel.aquariumData;
+
+import android.app.Application;
+import android.app.Notification;
+import android.app.NotificationManager;
+import android.os.Looper;
+
+import androidx.lifecycle.ViewModelProvider;
+import androidx.lifecycle.ViewModelStore;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.smartaquarium.data.model.AquariumData;
+import com.example.smartaquarium.service.IngestPipeline;
+import com.example.smartaquarium.utils.enums.EnumAlertType;
+import com.example.smartaquarium.utils.enums.EnumSensorMetric;
+import com.example.smartaquarium.utils.ingest.SignalConditioner;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseOptions;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.LooperMode;
+import org.robolectric.shadows.ShadowSystemClock;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Sends samples through {@link IngestPipeline} into {@link AquariumDataViewModel} and checks
+ * that readings outside the user's limits raise an out-of-range alert, and a failing probe a
+ * probe fault alert. No user is signed in, so the limits are the
+ * {@link com.example.smartaquarium.data.model.UserSettings} defaults (22-28 degrees).
+ */
+@RunWith(RobolectricTestRunner.class)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class AquariumDataViewModelAlertTest {
+
+    private static final long START_MILLIS = 1_767_225_600_000L;
+    private static final long INTERVAL_MILLIS = 5_000;
+
+    private Application application;
+    private IngestPipeline pipeline;
+    private ViewModelStore store;
+    private long sampleMillis = START_MILLIS;
+
+    @Before
+    public void setUp() {
+        application = ApplicationProvider.getApplicationContext();
+        if (FirebaseApp.getApps(application).isEmpty()) {
+            FirebaseApp.initializeApp(application, new FirebaseOptions.Builder()
+                    .setApplicationId("1:000000000000:android:0000000000000000")
+                    .setApiKey("alert-test")
+                    .setProjectId("alert-test")
+                    .build());
+        }
+        pipeline = new IngestPipeline();
+        store = new ViewModelStore();
+        AquariumDataViewModel viewModel = new ViewModelProvider(store,
+                ViewModelProvider.AndroidViewModelFactory.getInstance(application))
+                .get(AquariumDataViewModel.class);
+        viewModel.attachToPipeline(pipeline);
+        viewModel.setSelectedAquarium("alertTank");
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    @After
+    public void tearDown() {
+        store.clear();
+    }
+
+    @Test
+    public void readingAboveTheMaxRaisesAnAlert() {
+        send(26, 10);
+        assertTrue(alerts(EnumAlertType.OUT_OF_RANGE).isEmpty());
+
+        // A gradual rise, so the conditioner passes it as a real change
+        for (int temperature = 27; temperature < 31; temperature++) {
+            send(temperature, 3);
+        }
+        // Long enough that any unusual-change alert of the rise is behind us
+        send(31, 10);
+
+        List<Notification> alerts = alerts(EnumAlertType.OUT_OF_RANGE);
+        assertFalse("No out-of-range alert for 31 degrees", alerts.isEmpty());
+        String text = String.valueOf(alerts.get(alerts.size() - 1).extras.getCharSequence(Notification.EXTRA_TEXT));
+        assertTrue(text, text.contains("Temp too high (31"));
+    }
+
+    @Test
+    public void readingsWithinTheLimitsRaiseNoAlert() {
+        send(25, 50);
+        assertTrue(alerts(EnumAlertType.OUT_OF_RANGE).isEmpty());
+    }
+
+    @Test
+    public void persistentlyImplausibleProbeRaisesOneFaultAlert() {
+        send(25, 10);
+        for (int i = 0; i < 2 * SignalConditioner.DEFAULT_FAULT_AFTER; i++) {
+            AquariumData sample = new AquariumData(25, 99, 8, 90);
+            sample.setTimeMillis(sampleMillis);
+            sampleMillis += INTERVAL_MILLIS;
+            pipeline.onNewData(sample);
+            ShadowSystemClock.advanceBy(Duration.ofMillis(INTERVAL_MILLIS));
+        }
+        shadowOf(Looper.getMainLooper()).idle();
+
+        List<Notification> alerts = alerts(EnumAlertType.PROBE_FAULT);
+        assertEquals(1, alerts.size());
+        String text = String.valueOf(alerts.get(0).extras.getCharSequence(Notification.EXTRA_TEXT));
+        assertTrue(text, text.startsWith(EnumSensorMetric.PH.toString()));
+        // The other probes carried on, so nothing looked out of range
+        assertTrue(alerts(EnumAlertType.OUT_OF_RANGE).isEmpty());
+    }
+
+    /**
+     * Alerts are evaluated inline on the producing thread, so they are posted when this returns.
+     * The clock moves with the samples, as alerts are numbered by the time they are raised.
+     */
+    private void send(int temperature, int count) {
+        for (int i = 0; i < count; i++) {
+            AquariumData sample = new AquariumData(temperature, 7, 8, 90);
+            sample.setTimeMillis(sampleMillis);
+            sampleMillis += INTERVAL_MILLIS;
+            pipeline.onNewData(sample);
+            ShadowSystemClock.advanceBy(Duration.ofMillis(INTERVAL_MILLIS));
+        }
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    private List<Notification> alerts(EnumAlertType type) {
+        List<Notification> matching = new ArrayList<>();
+        NotificationManager manager = application.getSystemService(NotificationManager.class);
+        for (Notification notification : shadowOf(manager).getAllNotifications()) {
+            CharSequence title = notification.extras.getCharSequence(Notification.EXTRA_TITLE);
+            if (title != null && type.getTitle().contentEquals(title)) matching.add(notification);
+        }
+        return matching;
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.smartaquarium.data.viewModel.aquariumData;
+
+import android.app.Application;
+import android.app.NotificationManager;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.lifecycle.Observer;
+import androidx.lifecycle.ViewModelProvider;
+import androidx.lifecycle.ViewModelStore;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.smartaquarium.data.model.AquariumData;
+import com.example.smartaquarium.service.DummyConnection;
+import com.example.smartaquarium.service.IngestPipeline;
+import com.example.smartaquarium.utils.enums.EnumConnectionStatus;
+import com.example.smartaquarium.utils.ingest.SampleRingBuffer;
+import com.example.smartaquarium.utils.interfaces.IClock;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseOptions;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.LooperMode;
+import org.robolectric.shadows.ShadowSystemClock;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Runs days of simulated ingest through {@link DummyConnection}, {@link IngestPipeline} and
+ * {@link AquariumDataViewModel} in seconds, and checks that heap, listeners, threads and queue
+ * depths stay flat. The connection's clock follows Robolectric's, so every step of simulated
+ * time is one sample. The screen's ViewModel is replaced every few hours, as on a rotation.
+ * <p>
+ * No user is signed in, so every persisted sample lands in the offline cache.
+ */
+@RunWith(RobolectricTestRunner.class)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class IngestSoakTest {
+
+    private static final long START_MILLIS = 1_767_225_600_000L; // 2026-01-01T00:00:00Z
+    private static final int SIMULATED_DAYS = 3;
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final int HOURS_BETWEEN_ROTATIONS = 6;
+    private static final String AQUARIUM_ID = "soakTank";
+    private static final long HEAP_GROWTH_LIMIT_BYTES = 16L << 20;
+
+    private final IClock simulatedClock = () -> START_MILLIS + SystemClock.uptimeMillis();
+
+    private Application application;
+    private DummyConnection connection;
+    private IngestPipeline pipeline;
+    private ViewModelStore store;
+    private AquariumDataViewModel viewModel;
+    private final Observer<AquariumData> latestObserver = data -> {};
+    private final Observer<EnumConnectionStatus> statusObserver = status -> {};
+
+    @Before
+    public void setUp() {
+        application = ApplicationProvider.getApplicationContext();
+        if (FirebaseApp.getApps(application).isEmpty()) {
+            FirebaseApp.initializeApp(application, new FirebaseOptions.Builder()
+                    .setApplicationId("1:000000000000:android:0000000000000000")
+                    .setApiKey("soak-test")
+                    .setProjectId("soak-test")
+                    .build());
+        }
+        connection = new DummyConnection(simulatedClock);
+        pipeline = new IngestPipeline();
+        connection.addListener(pipeline);
+    }
+
+    @After
+    public void tearDown() {
+        if (store != null) store.clear();
+        connection.close();
+    }
+
+    @Test
+    public void daysOfIngestKeepResourcesFlat() throws Exception {
+        openScreen();
+        long baselineHeap = 0;
+        int baselineThreads = 0;
+
+        for (int hour = 1; hour <= SIMULATED_DAYS * 24; hour++) {
+            simulateHour();
+            awaitDrained();
+
+            assertEquals(1, connection.getListenerCount());
+            assertEquals(4, pipeline.getRingBuffer().getConsumers().length);
+            assertEquals(0, pipeline.getRingBuffer().getRejectedCount());
+            assertTrue(viewModel.getOfflineBacklog() <= AquariumDataViewModel.MAX_OFFLINE_SAMPLES);
+
+            if (hour == 24) {
+                // This screen's offline cache is full by now; nothing else should grow from here
+                assertEquals(AquariumDataViewModel.MAX_OFFLINE_SAMPLES, viewModel.getOfflineBacklog());
+                baselineHeap = usedHeap();
+                baselineThreads = awaitThreads(null, Integer.MAX_VALUE);
+            }
+            if (hour % HOURS_BETWEEN_ROTATIONS == 0) {
+                store.clear();
+                openScreen();
+            }
+        }
+
+        assertEquals(1, awaitThreads("Ingest-persistence", 1));
+        assertEquals(1, awaitThreads("DummyConnectionThread", 1));
+        assertTrue("Threads grew", awaitThreads(null, baselineThreads) <= baselineThreads);
+        long growth = usedHeap() - baselineHeap;
+        assertTrue("Heap grew by " + (growth >> 10) + " KB", growth < HEAP_GROWTH_LIMIT_BYTES);
+    }
+
+    @Test
+    public void closedConnectionsReleaseTheirThreads() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            DummyConnection extra = new DummyConnection(simulatedClock);
+            extra.addListener(pipeline);
+            extra.close();
+            assertEquals(0, extra.getListenerCount());
+        }
+        assertEquals(1, awaitThreads("DummyConnectionThread", 1));
+    }
+
+    /**
+     * A new screen: a fresh ViewModel observed the way the dashboard observes it.
+     */
+    private void openScreen() {
+        store = new ViewModelStore();
+        viewModel = new ViewModelProvider(store, ViewModelProvider.AndroidViewModelFactory.getInstance(application))
+                .get(AquariumDataViewModel.class);
+        viewModel.attachToPipeline(pipeline);
+        viewModel.setSelectedAquarium(AQUARIUM_ID);
+        viewModel.getLatestData().observeForever(latestObserver);
+        viewModel.getConnectionStatus().observeForever(statusObserver);
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    private void simulateHour() {
+        for (long elapsed = 0; elapsed < HOUR_MILLIS; elapsed += DummyConnection.SAMPLE_INTERVAL_MILLIS) {
+            ShadowSystemClock.advanceBy(Duration.ofMillis(DummyConnection.SAMPLE_INTERVAL_MILLIS));
+            shadowOf(connection.getLooper()).idle();
+            shadowOf(Looper.getMainLooper()).idle();
+        }
+        // Robolectric keeps every posted notification; the system would collapse them
+        application.getSystemService(NotificationManager.class).cancelAll();
+    }
+
+    /**
+     * Waits for the persistence thread to catch up, so an hour's lag cannot carry into the next.
+     */
+    private void awaitDrained() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        for (SampleRingBuffer.Consumer consumer : pipeline.getRingBuffer().getConsumers()) {
+            while (consumer.getLag() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(consumer.getName() + " lags", 0, consumer.getLag());
+        }
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    /**
+     * Gives threads of cleared executors and closed connections a moment to exit.
+     *
+     * @param name Only count threads with this name, or null to count all of them.
+     * @return The live thread count, once it is at most {@code limit} or after a timeout.
+     */
+    private static int awaitThreads(String name, int limit) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        int count = countThreads(name);
+        while (count > limit && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            count = countThreads(name);
+        }
+        return count;
+    }
+
+    private static int countThreads(String name) {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && (name == null || thread.getName().equals(name))) count++;
+        }
+        return count;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
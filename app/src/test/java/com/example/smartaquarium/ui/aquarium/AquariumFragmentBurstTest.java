@@ -0,0 +1,151 @@
+package com.example.smartaquarium.ui.aquarium;
+
+import android.animation.ValueAnimator;
+import android.app.Application;
+import android.os.Looper;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModelProvider;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.smartaquarium.R;
+import com.example.smartaquarium.data.model.AquariumData;
+import com.example.smartaquarium.data.viewModel.aquariumData.AquariumDataViewModel;
+import com.example.smartaquarium.service.IngestPipeline;
+import com.example.smartaquarium.utils.metrics.LatencyHistogram;
+import com.github.mikephil.charting.charts.BarChart;
+import com.github.mikephil.charting.data.BarDataSet;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseOptions;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.LooperMode;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Drives {@link AquariumFragment} through a burst of samples from the ingest pipeline, frame by
+ * frame, and checks that every chart keeps a single animator that is retargeted rather than
+ * stacked, that a frame's main-thread work fits in a frame, and that the bars end on the last
+ * sample.
+ */
+@RunWith(RobolectricTestRunner.class)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class AquariumFragmentBurstTest {
+
+    private static final Duration FRAME = Duration.ofMillis(16);
+    private static final long FRAME_BUDGET_MS = 16;
+    private static final int WARM_UP_FRAMES = 30;
+    private static final int MEASURED_FRAMES = 300;
+    private static final int SAMPLES_PER_FRAME = 10;
+    private static final int CHART_COUNT = 4;
+
+    private ActivityController<AppCompatActivity> controller;
+    private IngestPipeline pipeline;
+    private AquariumFragment fragment;
+    private long sampleMillis = 1_767_225_600_000L;
+
+    @Before
+    public void setUp() {
+        Application application = ApplicationProvider.getApplicationContext();
+        if (FirebaseApp.getApps(application).isEmpty()) {
+            FirebaseApp.initializeApp(application, new FirebaseOptions.Builder()
+                    .setApplicationId("1:000000000000:android:0000000000000000")
+                    .setApiKey("burst-test")
+                    .setProjectId("burst-test")
+                    .build());
+        }
+
+        controller = Robolectric.buildActivity(AppCompatActivity.class);
+        AppCompatActivity activity = controller.get();
+        activity.setTheme(R.style.Theme_SmartAquarium);
+        controller.setup();
+
+        pipeline = new IngestPipeline();
+        new ViewModelProvider(activity).get(AquariumDataViewModel.class).attachToPipeline(pipeline);
+        fragment = new AquariumFragment();
+        activity.getSupportFragmentManager().beginTransaction()
+                .add(android.R.id.content, fragment)
+                .commitNow();
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    @After
+    public void tearDown() {
+        controller.pause().stop().destroy();
+    }
+
+    @Test
+    public void burstKeepsOneAnimatorPerChartWithinTheFrameBudget() {
+        LatencyHistogram frameMillis = new LatencyHistogram();
+        Set<ValueAnimator> animators = null;
+        AquariumData last = null;
+
+        for (int frame = 0; frame < WARM_UP_FRAMES + MEASURED_FRAMES; frame++) {
+            for (int i = 0; i < SAMPLES_PER_FRAME; i++) {
+                last = sampleFor(frame);
+                pipeline.onNewData(last);
+            }
+
+            long start = System.nanoTime();
+            shadowOf(Looper.getMainLooper()).idleFor(FRAME);
+            if (frame < WARM_UP_FRAMES) continue;
+            frameMillis.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+            // Targets move every few frames, well inside the 800 ms animation: the same
+            // animators are retargeted throughout, never replaced or stacked
+            Set<ValueAnimator> current = Collections.newSetFromMap(new IdentityHashMap<>());
+            current.addAll(fragment.getChartAnimators());
+            if (animators == null) animators = current;
+            assertEquals(CHART_COUNT, current.size());
+            assertEquals("Frame " + frame + " replaced an animator", animators, current);
+        }
+        assertTrue("p95 frame took " + frameMillis.getValueAtPercentile(95) + " ms",
+                frameMillis.getValueAtPercentile(95) <= FRAME_BUDGET_MS);
+
+        // Let the last animation finish; every bar ends on the last sample
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofSeconds(2));
+        for (ValueAnimator animator : fragment.getChartAnimators()) {
+            assertFalse(animator.isRunning());
+        }
+        assertEquals(last.temperature, barValue(R.id.barChart_temperature), 0f);
+        assertEquals(last.ph, barValue(R.id.barChart_ph), 0f);
+        assertEquals(last.oxygen, barValue(R.id.barChart_oxygen), 0f);
+        assertEquals(last.waterLevel, barValue(R.id.barChart_waterLevel), 0f);
+    }
+
+    /**
+     * Slow triangle waves inside the conditioner's plausible ranges and step limits, so every
+     * sample passes through unchanged and the targets keep moving.
+     */
+    private AquariumData sampleFor(int frame) {
+        int step = frame / 4;
+        AquariumData sample = new AquariumData(22 + triangle(step, 4), 7, 7 + triangle(step, 2),
+                88 + triangle(step, 4));
+        sample.setTimeMillis(sampleMillis += 100);
+        return sample;
+    }
+
+    private static int triangle(int step, int amplitude) {
+        int phase = step % (2 * amplitude);
+        return phase <= amplitude ? phase : 2 * amplitude - phase;
+    }
+
+    private float barValue(int chartId) {
+        BarChart chart = fragment.requireView().findViewById(chartId);
+        return ((BarDataSet) chart.getData().getDataSetByIndex(0)).getEntryForIndex(0).getY();
+    }
+}
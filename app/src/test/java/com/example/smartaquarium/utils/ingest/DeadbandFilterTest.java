@@ -0,0 +1,127 @@
+package com.example.smartaquarium.utils.ingest;
+
+import com.example.smartaquarium.data.model.AquariumData;
+import com.example.smartaquarium.utils.enums.EnumSensorMetric;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Replays load-generator style traces through {@link DeadbandFilter}, checks the compression
+ * ratio (reported in the failure message), and checks that the stored samples rebuild every reading as a step function.
+ */
+public class DeadbandFilterTest {
+
+    private static final int[] EPSILONS = {1, 0, 1, 1};
+    private static final long HEARTBEAT_MILLIS = 5 * 60_000;
+    private static final long INTERVAL_MILLIS = 5_000;
+    // One day at the connection's 5 s rate
+    private static final int DAY_SAMPLES = 17_280;
+
+    private final Random random = new Random(42);
+
+    /**
+     * A settled tank: slow daily temperature swing, pH and oxygen noise around their set
+     * points, and a water level that evaporates slowly and ripples by a unit.
+     */
+    private List<AquariumData> stableTankTrace() {
+        List<AquariumData> trace = new ArrayList<>(DAY_SAMPLES);
+        for (int i = 0; i < DAY_SAMPLES; i++) {
+            double dayPhase = 2 * Math.PI * i / DAY_SAMPLES;
+            AquariumData sample = new AquariumData(
+                    (int) Math.round(25 + 1.5 * Math.sin(dayPhase) + random.nextGaussian() * 0.1),
+                    (int) Math.round(7 + random.nextGaussian() * 0.15),
+                    (int) Math.round(8 + 0.5 * Math.cos(dayPhase) + random.nextGaussian() * 0.15),
+                    (int) Math.round(90 - 2.0 * i / DAY_SAMPLES + random.nextGaussian() * 0.4));
+            sample.setTimeMillis(i * INTERVAL_MILLIS);
+            trace.add(sample);
+        }
+        return trace;
+    }
+
+    /**
+     * Worst case, as DummyConnection used to generate: every metric uniformly random on every sample.
+     */
+    private List<AquariumData> uniformRandomTrace() {
+        List<AquariumData> trace = new ArrayList<>(DAY_SAMPLES);
+        for (int i = 0; i < DAY_SAMPLES; i++) {
+            AquariumData sample = new AquariumData(random.nextInt(30) + 15, random.nextInt(100),
+                    random.nextInt(100), random.nextInt(100));
+            sample.setTimeMillis(i * INTERVAL_MILLIS);
+            trace.add(sample);
+        }
+        return trace;
+    }
+
+    private static List<AquariumData> stored(DeadbandFilter filter, List<AquariumData> trace) {
+        List<AquariumData> stored = new ArrayList<>();
+        for (AquariumData sample : trace) {
+            if (filter.offer(sample)) stored.add(sample);
+        }
+        return stored;
+    }
+
+    @Test
+    public void stableTank_compressesAndRebuildsWithinDeadband() {
+        List<AquariumData> trace = stableTankTrace();
+        DeadbandFilter filter = new DeadbandFilter(EPSILONS, HEARTBEAT_MILLIS);
+        List<AquariumData> stored = stored(filter, trace);
+
+        assertTrue(String.format(Locale.US, "expected real compression, got %d of %d samples stored, ratio %.1f:1",
+                        stored.size(), trace.size(), filter.getCompressionRatio()),
+                filter.getCompressionRatio() > 10);
+
+        // Hold each stored value until the next stored sample and compare with every reading
+        int step = 0;
+        for (AquariumData reading : trace) {
+            while (step + 1 < stored.size() && stored.get(step + 1).timeMillis <= reading.timeMillis) step++;
+            AquariumData held = stored.get(step);
+            assertTrue("heartbeat exceeded", reading.timeMillis - held.timeMillis < HEARTBEAT_MILLIS);
+            for (EnumSensorMetric metric : EnumSensorMetric.values()) {
+                assertTrue(metric + " off by more than epsilon at " + reading.timeMillis,
+                        Math.abs(metric.read(reading) - metric.read(held)) <= EPSILONS[metric.ordinal()]);
+            }
+        }
+    }
+
+    @Test
+    public void uniformRandom_storesNearlyEverything() {
+        DeadbandFilter filter = new DeadbandFilter(EPSILONS, HEARTBEAT_MILLIS);
+        stored(filter, uniformRandomTrace());
+
+        assertTrue(String.format(Locale.US, "uniform noise should barely compress, got ratio %.2f:1",
+                        filter.getCompressionRatio()),
+                filter.getCompressionRatio() < 1.05);
+    }
+
+    @Test
+    public void constantSignal_storesOnlyHeartbeats() {
+        DeadbandFilter filter = new DeadbandFilter(EPSILONS, HEARTBEAT_MILLIS);
+        for (int i = 0; i < DAY_SAMPLES; i++) {
+            AquariumData sample = new AquariumData(25, 7, 8, 90);
+            sample.setTimeMillis(i * INTERVAL_MILLIS);
+            filter.offer(sample);
+        }
+        long expected = DAY_SAMPLES * INTERVAL_MILLIS / HEARTBEAT_MILLIS;
+        assertEquals(expected, filter.getPassedCount());
+    }
+
+    @Test
+    public void reset_passesNextSample() {
+        DeadbandFilter filter = new DeadbandFilter(EPSILONS, HEARTBEAT_MILLIS);
+        AquariumData sample = new AquariumData(25, 7, 8, 90);
+        sample.setTimeMillis(0);
+        assertTrue(filter.offer(sample));
+        sample.setTimeMillis(INTERVAL_MILLIS);
+        assertFalse(filter.offer(sample));
+        filter.reset();
+        sample.setTimeMillis(2 * INTERVAL_MILLIS);
+        assertTrue(filter.offer(sample));
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.smartaquarium.utils.ingest;
+
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that removing a consumer and shutting down its executor is safe while the producer
+ * is still publishing.
+ */
+public class SampleRingBufferTest {
+
+    @Test
+    public void removedConsumerIgnoresLateWakeUps() {
+        SampleRingBuffer buffer = new SampleRingBuffer(8);
+        AtomicInteger delivered = new AtomicInteger();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        SampleRingBuffer.Consumer consumer = buffer.addConsumer("test", SampleRingBuffer.OverflowPolicy.OVERWRITE,
+                false, executor, sample -> delivered.incrementAndGet());
+
+        buffer.removeConsumer(consumer);
+        executor.shutdown();
+
+        assertTrue(consumer.isClosed());
+        assertTrue(buffer.publish(25, 7, 8, 90, 0));
+        assertEquals(0, delivered.get());
+    }
+
+    @Test
+    public void removalDuringSignalDoesNotReachTheProducer() {
+        SampleRingBuffer buffer = new SampleRingBuffer(8);
+        SampleRingBuffer.Consumer[] holder = new SampleRingBuffer.Consumer[1];
+        // The producer has already passed the closed check when the consumer is removed
+        // and its executor shut down
+        holder[0] = buffer.addConsumer("test", SampleRingBuffer.OverflowPolicy.OVERWRITE, false, task -> {
+            buffer.removeConsumer(holder[0]);
+            throw new RejectedExecutionException();
+        }, sample -> fail("A closed consumer must not deliver"));
+
+        assertTrue(buffer.publish(25, 7, 8, 90, 0));
+        assertEquals(0, buffer.getConsumers().length);
+    }
+
+    @Test
+    public void rejectionOfAnOpenConsumerIsNotSwallowed() {
+        SampleRingBuffer buffer = new SampleRingBuffer(8);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        buffer.addConsumer("test", SampleRingBuffer.OverflowPolicy.OVERWRITE, false, executor, sample -> {});
+        executor.shutdown();
+
+        try {
+            buffer.publish(25, 7, 8, 90, 0);
+            fail("Shutting down a registered consumer's executor is a bug and should surface");
+        } catch (RejectedExecutionException expected) {
+            // Expected
+        }
+    }
+}
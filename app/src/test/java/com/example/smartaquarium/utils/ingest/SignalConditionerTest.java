@@ -0,0 +1,155 @@
+package com.example.smartaquarium.utils.ingest;
+
+import com.example.smartaquarium.data.model.AquariumData;
+import com.example.smartaquarium.utils.enums.EnumSensorMetric;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks {@link SlidingMedian} against a sorted copy of the window, and that
+ * {@link SignalConditioner} drops spikes, holds faulty metrics and follows real changes.
+ */
+public class SignalConditionerTest {
+
+    private static final int WINDOW = 5;
+    private static final int[] PLAUSIBLE_MIN = {0, 0, 0, 0};
+    private static final int[] PLAUSIBLE_MAX = {45, 14, 20, 100};
+    private static final int[] MAX_DEVIATION = {3, 2, 4, 10};
+
+    private final Random random = new Random(42);
+
+    private static AquariumData reading(int temperature, long timeMillis) {
+        AquariumData sample = new AquariumData(temperature, 7, 8, 90);
+        sample.setTimeMillis(timeMillis);
+        return sample;
+    }
+
+    @Test
+    public void slidingMedianMatchesSortedWindow() {
+        for (int window = 1; window <= 9; window++) {
+            SlidingMedian median = new SlidingMedian(window);
+            int[] stream = new int[2000];
+            for (int i = 0; i < stream.length; i++) {
+                // Narrow range so duplicates are common
+                stream[i] = random.nextInt(i % 3 == 0 ? 5 : 100);
+                int from = Math.max(0, i - window + 1);
+                int[] sorted = Arrays.copyOfRange(stream, from, i + 1);
+                Arrays.sort(sorted);
+                int mid = sorted.length / 2;
+                int expected = sorted.length % 2 == 1 ? sorted[mid] : (sorted[mid - 1] + sorted[mid]) / 2;
+
+                assertEquals("window " + window + " at " + i, expected, median.add(stream[i]));
+            }
+        }
+    }
+
+    @Test
+    public void singleSpikeIsRejected() {
+        SignalConditioner conditioner = new SignalConditioner(WINDOW, PLAUSIBLE_MIN, PLAUSIBLE_MAX, MAX_DEVIATION);
+        for (int i = 0; i < 10; i++) {
+            assertNotNull(conditioner.process(reading(25, i)));
+        }
+
+        assertNull(conditioner.process(reading(40, 10)));
+        AquariumData next = conditioner.process(reading(25, 11));
+        assertNotNull(next);
+        assertEquals(25, next.temperature);
+        assertEquals(11, next.timeMillis);
+        assertEquals(1, conditioner.getOutlierCount());
+        assertEquals(0, conditioner.getImplausibleCount());
+    }
+
+    @Test
+    public void stepChangeIsAcceptedOnceItFillsHalfTheWindow() {
+        SignalConditioner conditioner = new SignalConditioner(WINDOW, PLAUSIBLE_MIN, PLAUSIBLE_MAX, MAX_DEVIATION);
+        for (int i = 0; i < 10; i++) {
+            conditioner.process(reading(25, i));
+        }
+
+        assertNull(conditioner.process(reading(32, 10)));
+        assertNull(conditioner.process(reading(32, 11)));
+        AquariumData accepted = conditioner.process(reading(32, 12));
+        assertNotNull(accepted);
+        assertEquals(32, accepted.temperature);
+        assertEquals(2, conditioner.getRejectedCount());
+    }
+
+    @Test
+    public void implausibleMetricHoldsItsLastGoodValue() {
+        SignalConditioner conditioner = new SignalConditioner(WINDOW, PLAUSIBLE_MIN, PLAUSIBLE_MAX, MAX_DEVIATION);
+        for (int i = 0; i < 10; i++) {
+            conditioner.process(reading(25, i));
+        }
+
+        AquariumData fault = reading(26, 10);
+        fault.ph = 60;
+        AquariumData held = conditioner.process(fault);
+        assertNotNull("Only the faulty metric is rejected", held);
+        assertEquals(7, held.ph);
+        assertEquals(25, held.temperature);
+        assertEquals(10, held.timeMillis);
+        assertEquals(1, conditioner.getImplausibleCount());
+        assertEquals(0, conditioner.getRejectedCount());
+
+        // The fault never entered the pH window
+        AquariumData next = conditioner.process(reading(25, 11));
+        assertNotNull(next);
+        assertEquals(7, next.ph);
+    }
+
+    @Test
+    public void implausibleMetricWithoutAGoodValueDropsTheSample() {
+        SignalConditioner conditioner = new SignalConditioner(WINDOW, PLAUSIBLE_MIN, PLAUSIBLE_MAX, MAX_DEVIATION);
+        AquariumData fault = reading(25, 0);
+        fault.oxygen = -1;
+        assertNull(conditioner.process(fault));
+        assertEquals(1, conditioner.getRejectedCount());
+
+        // The plausible metrics were kept, so the first good oxygen reading completes a sample
+        AquariumData next = conditioner.process(reading(25, 1));
+        assertNotNull(next);
+        assertEquals(8, next.oxygen);
+        assertEquals(25, next.temperature);
+    }
+
+    @Test
+    public void persistentImplausibleReadingsMarkOnlyThatProbeFaulty() {
+        SignalConditioner conditioner = new SignalConditioner(WINDOW, PLAUSIBLE_MIN, PLAUSIBLE_MAX, MAX_DEVIATION, 3);
+        for (int i = 0; i < 10; i++) {
+            conditioner.process(reading(25, i));
+        }
+
+        int phBit = 1 << EnumSensorMetric.PH.ordinal();
+        for (int i = 0; i < 3; i++) {
+            assertEquals("Faulty before " + i + " readings", 0, conditioner.getFaultMask());
+            AquariumData fault = reading(25, 10 + i);
+            fault.ph = 99;
+            assertNotNull(conditioner.process(fault));
+        }
+        assertEquals(phBit, conditioner.getFaultMask());
+        assertEquals(Collections.singletonList(EnumSensorMetric.PH),
+                SignalConditioner.metricsIn(conditioner.getFaultMask()));
+
+        // One plausible reading clears the fault
+        conditioner.process(reading(25, 13));
+        assertEquals(0, conditioner.getFaultMask());
+    }
+
+    @Test
+    public void windowOfOnePassesValuesThrough() {
+        SignalConditioner conditioner = new SignalConditioner(1, PLAUSIBLE_MIN, PLAUSIBLE_MAX, MAX_DEVIATION);
+        for (int i = 0; i < 100; i++) {
+            int temperature = random.nextInt(46);
+            AquariumData out = conditioner.process(reading(temperature, i));
+            assertNotNull(out);
+            assertEquals(temperature, out.temperature);
+        }
+        assertEquals(0, conditioner.getRejectedCount());
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.smartaquarium.utils.stats;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Replays synthetic signals through {@link AnomalyDetector} and checks detection latency
+ * and false alarms.
+ */
+public class AnomalyDetectorTest {
+
+    private static final double BASELINE = 25.0;
+    private static final double NOISE = 0.2;
+    private static final int SETTLE_SAMPLES = 500;
+
+    private final Random random = new Random(1234);
+
+    private double noisy(double level) {
+        return level + random.nextGaussian() * NOISE;
+    }
+
+    private AnomalyDetector settledDetector() {
+        AnomalyDetector detector = new AnomalyDetector(0.1);
+        for (int i = 0; i < SETTLE_SAMPLES; i++) {
+            assertEquals("false alarm while settling", AnomalyDetector.Detection.NONE, detector.update(noisy(BASELINE)));
+        }
+        return detector;
+    }
+
+    /**
+     * Feeds {@code level(i)} until the first detection and returns its sample index, or -1.
+     */
+    private int firstDetection(AnomalyDetector detector, java.util.function.IntToDoubleFunction level, int maxSamples) {
+        for (int i = 0; i < maxSamples; i++) {
+            if (detector.update(noisy(level.applyAsDouble(i))) != AnomalyDetector.Detection.NONE) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void stationaryNoise_raisesNoAlarm() {
+        AnomalyDetector detector = settledDetector();
+        assertEquals(-1, firstDetection(detector, i -> BASELINE, 50_000));
+    }
+
+    @Test
+    public void largeStep_isDetectedImmediatelyAndOnce() {
+        AnomalyDetector detector = settledDetector();
+        // A heater failing: 25 °C -> 23 °C, still inside typical min/max bounds
+        int latency = firstDetection(detector, i -> BASELINE - 2.0, 1_000);
+        assertTrue("latency " + latency, latency >= 0 && latency <= 1);
+
+        // The new level becomes the baseline instead of alarming on every sample
+        assertEquals(-1, firstDetection(detector, i -> BASELINE - 2.0, 5_000));
+    }
+
+    @Test
+    public void smallStep_isDetectedByCusum() {
+        AnomalyDetector detector = settledDetector();
+        int latency = firstDetection(detector, i -> BASELINE + 3 * NOISE, 1_000);
+        assertTrue("latency " + latency, latency >= 0 && latency <= 15);
+    }
+
+    @Test
+    public void slowDrift_isDetected() {
+        AnomalyDetector detector = settledDetector();
+        // 0.01 units per sample, a twentieth of the noise
+        int latency = firstDetection(detector, i -> BASELINE + 0.01 * i, 5_000);
+        assertTrue("latency " + latency, latency >= 0 && latency <= 250);
+    }
+
+    @Test
+    public void flatReadings_useMinimumSpread() {
+        AnomalyDetector detector = new AnomalyDetector(0.5);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(AnomalyDetector.Detection.NONE, detector.update(26));
+        }
+        // Integer sensor ticking by one unit is not an anomaly
+        assertEquals(AnomalyDetector.Detection.NONE, detector.update(27));
+        assertEquals(AnomalyDetector.Detection.JUMP, detector.update(30));
+    }
+}
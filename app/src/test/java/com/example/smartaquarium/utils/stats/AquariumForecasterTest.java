@@ -0,0 +1,80 @@
+package com.example.smartaquarium.utils.stats;
+
+import com.example.smartaquarium.data.model.AquariumData;
+import com.example.smartaquarium.data.model.UserSettings;
+import com.example.smartaquarium.utils.enums.EnumSensorMetric;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Feeds a steadily warming tank through {@link AquariumTrendTracker} and checks the crossings
+ * {@link AquariumForecaster} predicts against the user's bounds.
+ */
+public class AquariumForecasterTest {
+
+    private static final String AQUARIUM_ID = "tank";
+    private static final long INTERVAL_MILLIS = 30_000;
+    // An hour of samples, warming from 22 to 26 degrees: 4 degrees per hour
+    private static final int SAMPLES = 120;
+
+    private static AquariumTrends warmingTank() {
+        AquariumTrendTracker tracker = new AquariumTrendTracker();
+        for (int i = 0; i < SAMPLES; i++) {
+            AquariumData sample = new AquariumData((int) Math.round(22 + 4.0 * i / SAMPLES), 7, 8, 90);
+            sample.setTimeMillis(i * INTERVAL_MILLIS);
+            tracker.add(AQUARIUM_ID, sample);
+        }
+        return tracker.snapshot(AQUARIUM_ID);
+    }
+
+    @Test
+    public void risingTemperatureIsForecastAgainstTheUsersMax() {
+        List<ThresholdForecast> forecasts = new AquariumForecaster().forecast(warmingTank(), new UserSettings());
+
+        // The other metrics are flat, so only temperature is forecast
+        assertEquals(1, forecasts.size());
+        ThresholdForecast forecast = forecasts.get(0);
+        assertEquals(EnumSensorMetric.TEMPERATURE, forecast.metric);
+        assertTrue(forecast.rising);
+        assertEquals(28, forecast.threshold, 0);
+        assertEquals((SAMPLES - 1) * INTERVAL_MILLIS, forecast.fromMillis);
+        // About 2 degrees to go at 4 degrees per hour
+        assertEquals(30, forecast.etaMillis / 60_000.0, 5);
+    }
+
+    @Test
+    public void forecastFollowsChangedSettings() {
+        UserSettings settings = new UserSettings();
+        settings.setMaxTemperature(30);
+
+        List<ThresholdForecast> forecasts = new AquariumForecaster().forecast(warmingTank(), settings);
+
+        assertEquals(1, forecasts.size());
+        assertEquals(30, forecasts.get(0).threshold, 0);
+        assertEquals(60, forecasts.get(0).etaMillis / 60_000.0, 8);
+    }
+
+    @Test
+    public void earlyWarningIsClaimedOncePerCoolDown() {
+        AquariumForecaster forecaster = new AquariumForecaster();
+        ThresholdForecast forecast = forecaster.forecast(warmingTank(), new UserSettings()).get(0);
+
+        assertTrue(forecaster.claimEarlyWarning(AQUARIUM_ID, forecast));
+        assertFalse(forecaster.claimEarlyWarning(AQUARIUM_ID, forecast));
+        assertTrue(forecaster.claimEarlyWarning("otherTank", forecast));
+    }
+
+    @Test
+    public void nothingIsForecastWithoutSettingsOrBeyondTheBounds() {
+        assertTrue(new AquariumForecaster().forecast(warmingTank(), null).isEmpty());
+
+        // Already above the max: left to the out-of-range alert
+        UserSettings settings = new UserSettings();
+        settings.setMaxTemperature(25);
+        assertTrue(new AquariumForecaster().forecast(warmingTank(), settings).isEmpty());
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.smartaquarium.utils.stats;
+
+import com.example.smartaquarium.data.model.AquariumData;
+import com.example.smartaquarium.data.model.UserSettings;
+import com.example.smartaquarium.utils.enums.EnumHealthLevel;
+import com.example.smartaquarium.utils.enums.EnumSensorMetric;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link FleetHealth} keeps its counts and offenders exact as tanks move
+ * between levels, without ever rescanning the fleet.
+ */
+public class FleetHealthTest {
+
+    // Default limits: temperature 22..28, pH 6.5..7.5, oxygen 5..12, water level 80..100
+    private static AquariumData reading(int temperature) {
+        return new AquariumData(temperature, 7, 8, 90);
+    }
+
+    @Test
+    public void classifiesByDistanceFromTheMiddleOfTheRange() {
+        assertEquals(EnumHealthLevel.IN_RANGE, FleetHealth.levelOf(FleetHealth.deviation(25, 22, 28)));
+        assertEquals(EnumHealthLevel.IN_RANGE, FleetHealth.levelOf(FleetHealth.deviation(27, 22, 28)));
+        assertEquals(EnumHealthLevel.WARNING, FleetHealth.levelOf(FleetHealth.deviation(27.6, 22, 28)));
+        assertEquals(EnumHealthLevel.WARNING, FleetHealth.levelOf(FleetHealth.deviation(22, 22, 28)));
+        assertEquals(EnumHealthLevel.CRITICAL, FleetHealth.levelOf(FleetHealth.deviation(29, 22, 28)));
+        assertEquals(EnumHealthLevel.CRITICAL, FleetHealth.levelOf(FleetHealth.deviation(5, 7, 7)));
+    }
+
+    @Test
+    public void countsFollowTanksBetweenLevels() {
+        FleetHealth health = new FleetHealth(new UserSettings());
+        for (int i = 0; i < 1000; i++) {
+            health.update("tank" + i, reading(25));
+        }
+        health.update("tank7", reading(30));
+        health.update("tank8", reading(28));
+        health.update("silent", null);
+
+        FleetHealth.Summary summary = health.snapshot();
+        assertEquals(1001, summary.tankCount);
+        assertEquals(1000, summary.reportingCount);
+        assertEquals(998, summary.tanksAt(EnumHealthLevel.IN_RANGE));
+        assertEquals(1, summary.tanksAt(EnumHealthLevel.WARNING));
+        assertEquals(1, summary.tanksAt(EnumHealthLevel.CRITICAL));
+        assertEquals(1, summary.count(EnumSensorMetric.TEMPERATURE, EnumHealthLevel.CRITICAL));
+        assertEquals(1000, summary.count(EnumSensorMetric.PH, EnumHealthLevel.IN_RANGE));
+
+        health.update("tank7", reading(25));
+        health.remove("tank8");
+        summary = health.snapshot();
+        assertEquals(1000, summary.tankCount);
+        assertEquals(999, summary.tanksAt(EnumHealthLevel.IN_RANGE));
+        assertTrue(summary.allInRange());
+        assertTrue(summary.worstOffenders.isEmpty());
+    }
+
+    @Test
+    public void worstOffendersAreOrderedAndCapped() {
+        FleetHealth health = new FleetHealth(new UserSettings());
+        for (int i = 0; i < 10; i++) {
+            health.update("tank" + i, reading(29 + i));
+        }
+        health.update("low", new AquariumData(25, 7, 8, 10));
+
+        FleetHealth.Summary summary = health.snapshot();
+        assertEquals(FleetHealth.MAX_OFFENDERS, summary.worstOffenders.size());
+        assertEquals("low", summary.worstOffenders.get(0).aquariumId);
+        assertEquals(EnumSensorMetric.WATER_LEVEL, summary.worstOffenders.get(0).metric);
+        assertEquals("tank9", summary.worstOffenders.get(1).aquariumId);
+        assertEquals("tank8", summary.worstOffenders.get(2).aquariumId);
+    }
+
+    @Test
+    public void unchangedInRangeReadingReportsNoChange() {
+        FleetHealth health = new FleetHealth(new UserSettings());
+        assertTrue(health.update("tank", reading(25)));
+        assertFalse(health.update("tank", reading(24)));
+        assertTrue(health.update("tank", reading(31)));
+        // An unhealthy tank's value still moves it among the offenders
+        assertTrue(health.update("tank", reading(32)));
+    }
+
+    @Test
+    public void settingsChangeReclassifiesEveryTank() {
+        FleetHealth health = new FleetHealth(new UserSettings());
+        health.update("a", reading(25));
+        health.update("b", reading(29));
+
+        UserSettings warmer = new UserSettings();
+        warmer.setMinTemperature(26);
+        warmer.setMaxTemperature(32);
+        health.setSettings(warmer);
+
+        FleetHealth.Summary summary = health.snapshot();
+        assertEquals(1, summary.tanksAt(EnumHealthLevel.IN_RANGE));
+        assertEquals(1, summary.tanksAt(EnumHealthLevel.CRITICAL));
+        assertEquals("a", summary.worstOffenders.get(0).aquariumId);
+    }
+
+    @Test
+    public void offendersAreDescribedByTankName() {
+        FleetHealth health = new FleetHealth(new UserSettings());
+        health.update("x7Qp2", "Reef tank", reading(30));
+        health.update("unnamed", null, reading(31));
+
+        FleetHealth.Summary summary = health.snapshot();
+        assertEquals("unnamed: Temperature 31 (critical)", summary.worstOffenders.get(0).describe());
+        assertTrue(summary.worstOffenders.get(1).describe().startsWith("Reef tank: "));
+
+        // A rename shows up with the next reading
+        health.update("x7Qp2", "Quarantine", reading(30));
+        assertTrue(health.snapshot().worstOffenders.get(1).describe().startsWith("Quarantine: "));
+    }
+}
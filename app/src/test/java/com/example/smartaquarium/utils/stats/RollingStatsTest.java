@@ -0,0 +1,160 @@
+package com.example.smartaquarium.utils.stats;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks every window of {@link RollingStats} against a brute-force recompute over the samples
+ * it should hold, along a long random stream: bursts that grow the ring, sparse stretches and
+ * gaps that empty the windows, out-of-order timestamps, and many times round the ring.
+ */
+public class RollingStatsTest {
+
+    private static final long[] WINDOWS = {60_000, 600_000, 3_600_000};
+    private static final int SAMPLES = 60_000;
+    private static final int CHECK_EVERY = 7;
+
+    private final Random random = new Random(7);
+
+    /**
+     * The statistics of one window, recomputed from scratch.
+     */
+    private static final class Expected {
+        int count;
+        double mean;
+        double stdDev;
+        float min = Float.POSITIVE_INFINITY;
+        float max = Float.NEGATIVE_INFINITY;
+        double ratePerMinute;
+        double slopePerMinute;
+        double slopeStdErrorPerMinute;
+        double fittedLatest;
+    }
+
+    private static Expected bruteForce(long[] times, float[] values, int size, long windowMillis, long originMillis) {
+        Expected expected = new Expected();
+        long cutoff = times[size - 1] - windowMillis;
+        int first = size;
+        while (first > 0 && times[first - 1] > cutoff) first--;
+        int n = size - first;
+        expected.count = n;
+
+        double sumValue = 0;
+        double sumTime = 0;
+        for (int i = first; i < size; i++) {
+            sumValue += values[i];
+            sumTime += times[i] - originMillis;
+            expected.min = Math.min(expected.min, values[i]);
+            expected.max = Math.max(expected.max, values[i]);
+        }
+        double meanValue = sumValue / n;
+        double meanTime = sumTime / n;
+        double sxx = 0;
+        double sxy = 0;
+        double syy = 0;
+        for (int i = first; i < size; i++) {
+            double dt = times[i] - originMillis - meanTime;
+            double dv = values[i] - meanValue;
+            sxx += dt * dt;
+            sxy += dt * dv;
+            syy += dv * dv;
+        }
+        expected.mean = meanValue;
+        expected.stdDev = Math.sqrt(syy / n);
+
+        long elapsed = times[size - 1] - times[first];
+        expected.ratePerMinute = elapsed > 0 ? (values[size - 1] - values[first]) * 60_000.0 / elapsed : 0;
+        double slope = sxx > 0 ? sxy / sxx : 0;
+        expected.slopePerMinute = slope * 60_000.0;
+        if (sxx > 0 && n > 2) {
+            expected.slopeStdErrorPerMinute = Math.sqrt(Math.max(0, syy - slope * sxy) / (n - 2) / sxx) * 60_000.0;
+        }
+        expected.fittedLatest = meanValue + slope * (times[size - 1] - originMillis - meanTime);
+        return expected;
+    }
+
+    // Removing a sample undoes its update only up to rounding; the trend terms subtract products
+    // of times that grow far from the origin over the stream, so they are held to a looser bound
+    private static final double MOMENT_TOLERANCE = 1e-9;
+    private static final double TREND_TOLERANCE = 1e-5;
+
+    private static void assertClose(String what, double expected, double actual, double relativeTolerance) {
+        assertEquals(what, expected, actual, relativeTolerance * Math.max(1, Math.abs(expected)));
+    }
+
+    @Test
+    public void everyWindowMatchesABruteForceRecompute() {
+        RollingStats stats = new RollingStats(WINDOWS);
+        long[] times = new long[SAMPLES];
+        float[] values = new float[SAMPLES];
+        long time = 1_767_225_600_000L;
+        double level = 25;
+        int checks = 0;
+
+        for (int i = 0; i < SAMPLES; i++) {
+            // Phases of the stream, so the ring grows, drains and wraps many times
+            int phase = (i / 2_000) % 4;
+            long step;
+            if (phase == 0) {
+                step = 5_000 + random.nextInt(1_000);
+            } else if (phase == 1) {
+                // Bursts: far more samples per window than the initial ring holds
+                step = 50 + random.nextInt(100);
+            } else if (phase == 2) {
+                step = 30_000 + random.nextInt(60_000);
+            } else {
+                // Now and then a gap longer than every window
+                step = random.nextInt(50) == 0 ? 2 * WINDOWS[WINDOWS.length - 1] : 1_000 + random.nextInt(9_000);
+            }
+            // Occasionally out of order; RollingStats clamps these to the newest time
+            long sampleTime = random.nextInt(100) == 0 ? time - 20_000 : time + step;
+            time = Math.max(time, sampleTime);
+            level += random.nextGaussian() * 0.05;
+            float value = (float) (level + random.nextGaussian() * 0.3);
+
+            stats.add(sampleTime, value);
+            times[i] = time;
+            values[i] = value;
+
+            if (i % CHECK_EVERY != 0 && i != SAMPLES - 1) continue;
+            for (int w = 0; w < WINDOWS.length; w++) {
+                String at = "window " + w + " at sample " + i;
+                Expected expected = bruteForce(times, values, i + 1, WINDOWS[w], times[0]);
+                RollingStats.Summary actual = stats.getSummary(w);
+
+                assertEquals(at + " count", expected.count, actual.count);
+                assertEquals(at + " min", expected.min, actual.min, 0f);
+                assertEquals(at + " max", expected.max, actual.max, 0f);
+                assertEquals(at + " latest", times[i], actual.latestMillis);
+                assertClose(at + " mean", expected.mean, actual.mean, MOMENT_TOLERANCE);
+                assertClose(at + " stdDev", expected.stdDev, actual.stdDev, MOMENT_TOLERANCE);
+                assertClose(at + " rate", expected.ratePerMinute, actual.ratePerMinute, MOMENT_TOLERANCE);
+                assertClose(at + " slope", expected.slopePerMinute, actual.slopePerMinute, TREND_TOLERANCE);
+                assertClose(at + " slope error", expected.slopeStdErrorPerMinute, actual.slopeStdErrorPerMinute, TREND_TOLERANCE);
+                assertClose(at + " fitted latest", expected.fittedLatest, actual.fittedLatest, TREND_TOLERANCE);
+            }
+            checks++;
+        }
+        assertTrue(checks > SAMPLES / CHECK_EVERY);
+    }
+
+    @Test
+    public void emptiedWindowStartsOver() {
+        RollingStats stats = new RollingStats(60_000);
+        for (int i = 0; i < 100; i++) {
+            stats.add(i * 1_000L, 30 + i);
+        }
+        stats.add(1_000_000L, 20);
+
+        RollingStats.Summary summary = stats.getSummary(0);
+        assertEquals(1, summary.count);
+        assertEquals(20, summary.mean, 0);
+        assertEquals(0, summary.stdDev, 0);
+        assertEquals(20f, summary.min, 0f);
+        assertEquals(20f, summary.max, 0f);
+        assertEquals(0, summary.slopePerMinute, 0);
+    }
+}